@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.debugging.sourcemap;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures adding mappings to a source map and writing it out. The mappings
+ * are generated in output order, the way the code printer adds them, from a
+ * fixed seed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class SourceMapGeneratorV3Benchmark {
+
+  private static final int SOURCE_COUNT = 20;
+  private static final int SYMBOL_COUNT = 500;
+
+  @Param({"100000"})
+  public int mappingCount;
+
+  private String[] sourceNames;
+  private String[] symbolNames;
+  private int[] sources;
+  private int[] symbols;
+  private FilePosition[] sourcePositions;
+  private FilePosition[] startPositions;
+  private FilePosition[] endPositions;
+  private SourceMapGeneratorV3 generator;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(mappingCount);
+    sourceNames = new String[SOURCE_COUNT];
+    for (int i = 0; i < SOURCE_COUNT; i++) {
+      sourceNames[i] = "src/file" + i + ".js";
+    }
+    symbolNames = new String[SYMBOL_COUNT];
+    for (int i = 0; i < SYMBOL_COUNT; i++) {
+      symbolNames[i] = "symbol" + i;
+    }
+
+    sources = new int[mappingCount];
+    symbols = new int[mappingCount];
+    sourcePositions = new FilePosition[mappingCount];
+    startPositions = new FilePosition[mappingCount];
+    endPositions = new FilePosition[mappingCount];
+    int line = 0;
+    int column = 0;
+    for (int i = 0; i < mappingCount; i++) {
+      if (random.nextInt(10) == 0) {
+        line++;
+        column = 0;
+      }
+      int length = 1 + random.nextInt(20);
+      sources[i] = random.nextInt(SOURCE_COUNT);
+      // About half of the mappings have a name, like in compiled code.
+      symbols[i] = random.nextBoolean() ? random.nextInt(SYMBOL_COUNT) : -1;
+      sourcePositions[i] = new FilePosition(random.nextInt(5000), random.nextInt(100));
+      startPositions[i] = new FilePosition(line, column);
+      endPositions[i] = new FilePosition(line, column + length);
+      column += length;
+    }
+
+    generator = addMappings();
+  }
+
+  @Benchmark
+  public SourceMapGeneratorV3 addMappings() {
+    SourceMapGeneratorV3 generator = new SourceMapGeneratorV3();
+    for (int i = 0; i < mappingCount; i++) {
+      generator.addMapping(
+          sourceNames[sources[i]],
+          symbols[i] < 0 ? null : symbolNames[symbols[i]],
+          sourcePositions[i],
+          startPositions[i],
+          endPositions[i]);
+    }
+    return generator;
+  }
+
+  @Benchmark
+  public int appendTo() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    generator.appendTo(sb, "out.js");
+    return sb.length();
+  }
+}
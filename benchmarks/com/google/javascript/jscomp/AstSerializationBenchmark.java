@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp;
+
+import com.google.javascript.rhino.BinaryNodeReader;
+import com.google.javascript.rhino.BinaryNodeWriter;
+import com.google.javascript.rhino.Node;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares writing and reading a parsed script with {@link BinaryNodeWriter}
+ * and {@link BinaryNodeReader}, as the disk parse cache does, against Java
+ * serialization of the nodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class AstSerializationBenchmark {
+
+  // Java serialization recurses along the sibling links of the nodes, so a
+  // much larger script overflows the default thread stack.
+  @Param({"2"})
+  public int fileCount;
+
+  private SourceFile sourceFile;
+  private Node script;
+  private byte[] binaryBytes;
+  private byte[] javaBytes;
+
+  @Setup
+  public void setUp() throws IOException {
+    sourceFile = SourceFile.fromCode("corpus.js", SyntheticCorpus.generateCode(fileCount, 10));
+    Compiler compiler = new Compiler();
+    compiler.initOptions(BenchmarkUtil.createOptions());
+    script = compiler.parse(sourceFile);
+    binaryBytes = writeBinary().toByteArray();
+    javaBytes = writeJava().toByteArray();
+  }
+
+  @Benchmark
+  public ByteArrayOutputStream writeBinary() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryNodeWriter writer = new BinaryNodeWriter(bytes, sourceFile);
+    writer.writeNode(script);
+    writer.flush();
+    return bytes;
+  }
+
+  @Benchmark
+  public Node readBinary() throws IOException {
+    return new BinaryNodeReader(new ByteArrayInputStream(binaryBytes), sourceFile).readNode();
+  }
+
+  @Benchmark
+  public ByteArrayOutputStream writeJava() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(script);
+    out.close();
+    return bytes;
+  }
+
+  @Benchmark
+  public Object readJava() throws IOException, ClassNotFoundException {
+    return new ObjectInputStream(new ByteArrayInputStream(javaBytes)).readObject();
+  }
+}
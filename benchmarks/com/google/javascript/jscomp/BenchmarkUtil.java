@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
+import com.google.javascript.jscomp.type.SemanticReverseAbstractInterpreter;
+import com.google.javascript.rhino.jstype.JSTypeRegistry;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+/** Setup shared by the benchmarks. */
+final class BenchmarkUtil {
+
+  private static List<SourceFile> externs;
+
+  private BenchmarkUtil() {}
+
+  static CompilerOptions createOptions() {
+    CompilerOptions options = new CompilerOptions();
+    options.setLanguageIn(LanguageMode.ECMASCRIPT5);
+    options.setLanguageOut(LanguageMode.ECMASCRIPT5);
+    options.setCheckTypes(true);
+    return options;
+  }
+
+  /** Returns the default externs, which are read once per benchmark run. */
+  static synchronized List<SourceFile> getExterns() throws IOException {
+    if (externs == null) {
+      externs = AbstractCommandLineRunner.getBuiltinExterns(CompilerOptions.Environment.BROWSER);
+    }
+    return externs;
+  }
+
+  /** Returns a compiler that has parsed the externs and the given inputs. */
+  static Compiler parse(List<SourceFile> inputs) throws IOException {
+    return parse(inputs, createOptions());
+  }
+
+  /** Returns a compiler that has parsed the externs and the given inputs. */
+  static Compiler parse(List<SourceFile> inputs, CompilerOptions options) throws IOException {
+    Compiler compiler = new Compiler(new PrintStream(ByteStreams.nullOutputStream()));
+    compiler.init(getExterns(), inputs, options);
+    compiler.parse();
+    checkNoErrors(compiler);
+    return compiler;
+  }
+
+  /** Returns a compiler that has parsed and type checked the given inputs. */
+  static Compiler typeCheck(List<SourceFile> inputs) throws IOException {
+    Compiler compiler = parse(inputs);
+    createTypeCheck(compiler)
+        .processForTesting(compiler.getRoot().getFirstChild(), compiler.getJsRoot());
+    checkNoErrors(compiler);
+    return compiler;
+  }
+
+  static TypeCheck createTypeCheck(Compiler compiler) {
+    JSTypeRegistry registry = compiler.getTypeRegistry();
+    return new TypeCheck(compiler, new SemanticReverseAbstractInterpreter(registry), registry);
+  }
+
+  private static void checkNoErrors(Compiler compiler) {
+    Preconditions.checkState(compiler.getErrorCount() == 0,
+        "The corpus has errors: %s", Arrays.toString(compiler.getErrors()));
+  }
+}
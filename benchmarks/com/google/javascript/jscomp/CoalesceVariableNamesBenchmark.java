@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures CoalesceVariableNames on a function shaped like a transpiled
+ * generator: a loop over a switch with one case per step, where each step
+ * assigns a local and reads locals assigned a few steps before. It changes
+ * the AST, so it is parsed again before each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class CoalesceVariableNamesBenchmark {
+
+  @Param({"50", "1000", "5000"})
+  public int varCount;
+
+  private String source;
+  private Compiler compiler;
+
+  @Setup(Level.Trial)
+  public void generateSource() {
+    Random random = new Random(42);
+    StringBuilder sb = new StringBuilder("function generated(p) {\n");
+    for (int i = 0; i < varCount; i++) {
+      sb.append("  var v").append(i).append(";\n");
+    }
+    sb.append("  while (p.running) {\n    switch (p.state) {\n");
+    for (int i = 0; i < varCount; i++) {
+      String read = i == 0 ? "p.value" : "v" + Math.max(0, i - 1 - random.nextInt(5));
+      sb.append("      case ").append(i).append(":\n");
+      sb.append("        v").append(i).append(" = ").append(read).append(" + ").append(i)
+          .append(";\n");
+      sb.append("        p.state = ").append(i + 1).append(";\n");
+      sb.append("        p.yield(v").append(i).append(");\n");
+      sb.append("        break;\n");
+    }
+    sb.append("    }\n  }\n}\n");
+    source = sb.toString();
+  }
+
+  @Setup(Level.Invocation)
+  public void setUp() throws IOException {
+    compiler = BenchmarkUtil.parse(ImmutableList.of(SourceFile.fromCode("generated.js", source)));
+  }
+
+  @Benchmark
+  public Compiler coalesceVariableNames() {
+    new CoalesceVariableNames(compiler, false)
+        .process(compiler.getRoot().getFirstChild(), compiler.getJsRoot());
+    return compiler;
+  }
+}
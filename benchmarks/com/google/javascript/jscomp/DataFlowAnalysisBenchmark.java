@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.rhino.Node;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the data flow analyses of the local variable passes on a single
+ * generated function with many statements, branches and loops, like the
+ * functions of generated code.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class DataFlowAnalysisBenchmark {
+
+  @Param({"10000", "40000"})
+  public int statementCount;
+
+  private static final int VAR_COUNT = 40;
+
+  private Compiler compiler;
+  private Scope scope;
+  private ControlFlowGraph<Node> cfg;
+
+  @Setup
+  public void setUp() throws IOException {
+    SourceFile input = SourceFile.fromCode("generated.js", generateFunction(statementCount));
+    compiler = BenchmarkUtil.parse(ImmutableList.of(input));
+    Node script = compiler.getJsRoot().getFirstChild();
+    Node function = script.getFirstChild();
+    scope = SyntacticScopeCreator.makeUntyped(compiler)
+        .createScope(function, Scope.createGlobalScope(script));
+    ControlFlowAnalysis cfa = new ControlFlowAnalysis(compiler, false, true);
+    cfa.process(null, function);
+    cfg = cfa.getCfg();
+  }
+
+  private static String generateFunction(int statementCount) {
+    Random random = new Random(42);
+    StringBuilder sb = new StringBuilder("function generated(p) {\n");
+    for (int i = 0; i < VAR_COUNT; i++) {
+      sb.append("  var v").append(i).append(" = p;\n");
+    }
+    for (int i = 0; i < statementCount; i += 3) {
+      String a = "v" + random.nextInt(VAR_COUNT);
+      String b = "v" + random.nextInt(VAR_COUNT);
+      String c = "v" + random.nextInt(VAR_COUNT);
+      switch (random.nextInt(3)) {
+        case 0:
+          sb.append("  ").append(a).append(" = ").append(b).append(" + ").append(i).append(";\n");
+          sb.append("  ").append(b).append(" = ").append(c).append(" * 2;\n");
+          sb.append("  p = p + ").append(a).append(";\n");
+          break;
+        case 1:
+          sb.append("  if (").append(a).append(" > ").append(i).append(") {\n");
+          sb.append("    ").append(b).append(" = ").append(c).append(";\n");
+          sb.append("  } else {\n");
+          sb.append("    ").append(c).append(" = ").append(i).append(";\n");
+          sb.append("  }\n");
+          break;
+        default:
+          sb.append("  while (").append(a).append(" < ").append(i).append(") {\n");
+          sb.append("    ").append(a).append("++;\n");
+          sb.append("    ").append(b).append(" = ").append(a).append(" + ").append(c).append(";\n");
+          sb.append("  }\n");
+          break;
+      }
+    }
+    sb.append("  return p;\n}\n");
+    return sb.toString();
+  }
+
+  @Benchmark
+  public Object liveVariables() {
+    LiveVariablesAnalysis analysis = new LiveVariablesAnalysis(cfg, scope, compiler);
+    analysis.analyze();
+    return analysis.getExitLatticeElement();
+  }
+
+  @Benchmark
+  public Object mustBeReachingVariableDef() {
+    MustBeReachingVariableDef analysis = new MustBeReachingVariableDef(cfg, scope, compiler);
+    analysis.analyze();
+    return analysis.getExitLatticeElement();
+  }
+
+  @Benchmark
+  public Object maybeReachingVariableUse() {
+    MaybeReachingVariableUse analysis = new MaybeReachingVariableUse(cfg, scope, compiler);
+    analysis.analyze();
+    return analysis.getExitLatticeElement();
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.deps.Es6SortedDependencies;
+import com.google.javascript.jscomp.deps.SimpleDependencyInfo;
+import com.google.javascript.jscomp.deps.SortedDependencies;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures sorting a large dependency graph with {@link Es6SortedDependencies}
+ * and pruning it to the dependencies of a few entry points, as
+ * JSModuleGraph#manageDependencies does. Each input provides one namespace and
+ * requires up to five namespaces of random earlier inputs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class DependencySortBenchmark {
+
+  @Param({"50000"})
+  public int inputCount;
+
+  private List<SimpleDependencyInfo> inputs;
+  private List<SimpleDependencyInfo> entryPoints;
+  private SortedDependencies<SimpleDependencyInfo> sorted;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    inputs = new ArrayList<>();
+    for (int i = 0; i < inputCount; i++) {
+      List<String> requires = new ArrayList<>();
+      for (int j = i == 0 ? 0 : random.nextInt(6); j > 0; j--) {
+        requires.add("ns" + random.nextInt(i));
+      }
+      inputs.add(new SimpleDependencyInfo(
+          "f" + i + ".js", "f" + i + ".js", ImmutableList.of("ns" + i), requires, false));
+    }
+    // Shuffle the user order a little, so that sorting has work to do.
+    for (int i = 0; i < inputCount; i += 2) {
+      int j = random.nextInt(inputCount);
+      SimpleDependencyInfo tmp = inputs.get(i);
+      inputs.set(i, inputs.get(j));
+      inputs.set(j, tmp);
+    }
+    entryPoints = inputs.subList(0, 10);
+    sorted = new Es6SortedDependencies<>(inputs);
+  }
+
+  @Benchmark
+  public List<SimpleDependencyInfo> sort() {
+    return new Es6SortedDependencies<>(inputs).getSortedList();
+  }
+
+  @Benchmark
+  public List<SimpleDependencyInfo> pruneToEntryPoints() {
+    return sorted.getSortedDependenciesOf(entryPoints);
+  }
+
+  @Benchmark
+  public List<SimpleDependencyInfo> orderAllInputs() {
+    return sorted.getDependenciesOf(inputs, true);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.io.ByteStreams;
+import com.google.javascript.jscomp.deps.DependencyInfo;
+import com.google.javascript.jscomp.deps.JsFileParser;
+import com.google.javascript.jscomp.deps.JsFileScanner;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures extracting the dependencies of a corpus with the regular
+ * expression based {@link JsFileParser} and with {@link JsFileScanner}, as
+ * DepsGenerator does. Each file provides a namespace and requires those of a
+ * few earlier files, followed by the code of the synthetic corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class DepsScannerBenchmark {
+
+  @Param({"200"})
+  public int fileCount;
+
+  private final List<String> names = new ArrayList<>();
+  private final List<String> contents = new ArrayList<>();
+  private final ErrorManager errorManager =
+      new PrintStreamErrorManager(new PrintStream(ByteStreams.nullOutputStream()));
+
+  @Setup
+  public void setUp() throws IOException {
+    List<SourceFile> files = SyntheticCorpus.generate(fileCount, 10);
+    for (int i = 0; i < files.size(); i++) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("/**\n * @fileoverview File ").append(i).append(".\n */\n");
+      sb.append("goog.provide('corpus.File").append(i).append("');\n\n");
+      for (int j = Math.max(0, i - 5); j < i; j++) {
+        sb.append("goog.require('corpus.File").append(j).append("');\n");
+      }
+      sb.append('\n').append(files.get(i).getCode());
+      names.add(files.get(i).getName());
+      contents.add(sb.toString());
+    }
+  }
+
+  @Benchmark
+  public int parser() {
+    JsFileParser parser = new JsFileParser(errorManager);
+    int count = 0;
+    for (int i = 0; i < contents.size(); i++) {
+      DependencyInfo info = parser.parseFile(names.get(i), names.get(i), contents.get(i));
+      count += info.getRequires().size();
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int scanner() {
+    JsFileScanner scanner = new JsFileScanner(errorManager);
+    int count = 0;
+    for (int i = 0; i < contents.size(); i++) {
+      DependencyInfo info = scanner.parseFile(names.get(i), names.get(i), contents.get(i));
+      count += info.getRequires().size();
+    }
+    return count;
+  }
+}
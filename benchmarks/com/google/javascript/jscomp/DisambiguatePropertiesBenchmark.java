@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures DisambiguateProperties on a type checked and normalized corpus in
+ * which every constructor declares the same property names. The pass renames
+ * properties, so the corpus is parsed and type checked again before each
+ * invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class DisambiguatePropertiesBenchmark {
+
+  @Param({"20"})
+  public int fileCount;
+
+  private Compiler compiler;
+
+  @Setup(Level.Invocation)
+  public void setUp() throws IOException {
+    compiler = BenchmarkUtil.typeCheck(SyntheticCorpus.generate(fileCount, 10));
+    new Normalize(compiler, false)
+        .process(compiler.getRoot().getFirstChild(), compiler.getJsRoot());
+  }
+
+  @Benchmark
+  public Compiler disambiguateProperties() {
+    new DisambiguateProperties(compiler, ImmutableMap.<String, CheckLevel>of())
+        .process(compiler.getRoot().getFirstChild(), compiler.getJsRoot());
+    return compiler;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of checking a project after one file is edited, with
+ * {@link Compiler#replaceScriptAndDependents} and with a full compilation.
+ * The edit only adds a comment to the file, so all invocations check the same
+ * code. Files of the corpus use the files before them, so editing file
+ * {@code editedFile} rechecks it and all files after it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class IncrementalRecompilationBenchmark {
+
+  @Param({"100"})
+  public int fileCount;
+
+  @Param({"99", "50"})
+  public int editedFile;
+
+  private List<SourceFile> inputs;
+  private Compiler compiler;
+  private String editedCode;
+  private int editCount = 0;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    // The hot swap logs each pass it runs.
+    Compiler.setLoggingLevel(java.util.logging.Level.WARNING);
+    inputs = SyntheticCorpus.generate(fileCount, 10);
+    compiler = newCompiler();
+    compiler.compile(BenchmarkUtil.getExterns(), inputs, createOptions());
+    editedCode = inputs.get(editedFile).getCode();
+  }
+
+  @Benchmark
+  public List<CompilerInput> editOneFile() {
+    SourceFile edited = SourceFile.fromCode(
+        inputs.get(editedFile).getName(), editedCode + "// Edit " + editCount++ + "\n");
+    return compiler.replaceScriptAndDependents(new JsAst(edited));
+  }
+
+  @Benchmark
+  public Result recompileAll() throws IOException {
+    return newCompiler().compile(BenchmarkUtil.getExterns(), inputs, createOptions());
+  }
+
+  private static Compiler newCompiler() {
+    return new Compiler(new PrintStream(ByteStreams.nullOutputStream()));
+  }
+
+  private static CompilerOptions createOptions() {
+    CompilerOptions options = BenchmarkUtil.createOptions();
+    options.setInferTypes(true);
+    options.setAllowHotswapReplaceScript(true);
+    options.setChecksOnly(true);
+    options.setContinueAfterErrors(true);
+    return options;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building a {@link JSModuleGraph} and the dependsOn and deepest
+ * common dependency queries that CrossModuleCodeMotion and
+ * CrossModuleMethodMotion make for every global, on random pairs of modules.
+ * Each module depends on up to three random earlier modules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class JSModuleGraphBenchmark {
+
+  @Param({"2000"})
+  public int moduleCount;
+
+  private static final int QUERY_COUNT = 100000;
+
+  private List<JSModule> modules;
+  private JSModuleGraph graph;
+  private JSModule[] queries;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    modules = new ArrayList<>();
+    for (int i = 0; i < moduleCount; i++) {
+      JSModule module = new JSModule("m" + i);
+      for (int j = i == 0 ? 0 : 1 + random.nextInt(3); j > 0; j--) {
+        module.addDependency(modules.get(random.nextInt(i)));
+      }
+      modules.add(module);
+    }
+    graph = new JSModuleGraph(modules);
+    queries = new JSModule[2 * QUERY_COUNT];
+    for (int i = 0; i < queries.length; i++) {
+      queries[i] = modules.get(random.nextInt(moduleCount));
+    }
+  }
+
+  @Benchmark
+  public JSModuleGraph build() {
+    return new JSModuleGraph(modules);
+  }
+
+  @Benchmark
+  public int dependsOn() {
+    int count = 0;
+    for (int i = 0; i < queries.length; i += 2) {
+      if (graph.dependsOn(queries[i], queries[i + 1])) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int deepestCommonDependency() {
+    int count = 0;
+    for (int i = 0; i < queries.length; i += 2) {
+      if (graph.getDeepestCommonDependencyInclusive(queries[i], queries[i + 1]) != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
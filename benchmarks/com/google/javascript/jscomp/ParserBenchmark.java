@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.javascript.jscomp.parsing.Config;
+import com.google.javascript.jscomp.parsing.ParserRunner;
+import com.google.javascript.jscomp.parsing.parser.Scanner;
+import com.google.javascript.jscomp.parsing.parser.Scanner.CommentRecorder;
+import com.google.javascript.jscomp.parsing.parser.TokenType;
+import com.google.javascript.jscomp.parsing.parser.trees.Comment;
+import com.google.javascript.jscomp.parsing.parser.util.SourcePosition;
+import com.google.javascript.jscomp.parsing.parser.util.SourceRange;
+import com.google.javascript.rhino.ErrorReporter;
+import com.google.javascript.rhino.Node;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures the scanner on its own, and the parser including the IR conversion. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ParserBenchmark {
+
+  @Param({"20"})
+  public int fileCount;
+
+  private String code;
+  private SourceFile sourceFile;
+  private Config config;
+
+  @Setup
+  public void setUp() {
+    code = SyntheticCorpus.generateCode(fileCount, 10);
+    sourceFile = SourceFile.fromCode("corpus.js", code);
+    config = ParserRunner.createConfig(
+        Config.LanguageMode.ECMASCRIPT5, ImmutableSet.<String>of(), Config.StrictMode.SLOPPY);
+  }
+
+  @Benchmark
+  public int scan() {
+    Scanner scanner = new Scanner(
+        new NullParserErrorReporter(),
+        new NullCommentRecorder(),
+        new com.google.javascript.jscomp.parsing.parser.SourceFile("corpus.js", code));
+    int tokens = 0;
+    while (scanner.nextToken().type != TokenType.END_OF_FILE) {
+      tokens++;
+    }
+    return tokens;
+  }
+
+  @Benchmark
+  public Node parse() {
+    return ParserRunner.parse(sourceFile, code, config, new NullErrorReporter()).ast;
+  }
+
+  private static final class NullParserErrorReporter
+      extends com.google.javascript.jscomp.parsing.parser.util.ErrorReporter {
+    @Override
+    protected void reportError(SourcePosition location, String message) {
+      throw new IllegalStateException(message);
+    }
+
+    @Override
+    protected void reportWarning(SourcePosition location, String message) {}
+  }
+
+  private static final class NullCommentRecorder implements CommentRecorder {
+    @Override
+    public void recordComment(Comment.Type type, SourceRange range, String value) {}
+  }
+
+  private static final class NullErrorReporter implements ErrorReporter {
+    @Override
+    public void warning(String message, String sourceName, int line, int lineOffset) {}
+
+    @Override
+    public void error(String message, String sourceName, int line, int lineOffset) {
+      throw new IllegalStateException(message);
+    }
+  }
+}
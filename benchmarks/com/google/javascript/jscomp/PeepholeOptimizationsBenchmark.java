@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp;
+
+import com.google.common.base.Supplier;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the peephole optimizations that run in the main optimization
+ * loop, on one thread and with scripts optimized concurrently. They change
+ * the AST, so it is parsed again before each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class PeepholeOptimizationsBenchmark {
+
+  @Param({"20"})
+  public int fileCount;
+
+  @Param({"1", "4"})
+  public int numThreads;
+
+  private Compiler compiler;
+
+  @Setup(Level.Invocation)
+  public void setUp() throws IOException {
+    compiler = BenchmarkUtil.parse(SyntheticCorpus.generate(fileCount, 10));
+  }
+
+  @Benchmark
+  public Compiler peepholeOptimizations() {
+    new PeepholeOptimizationsPass(compiler, numThreads,
+            new Supplier<AbstractPeepholeOptimization[]>() {
+              @Override
+              public AbstractPeepholeOptimization[] get() {
+                return new AbstractPeepholeOptimization[] {
+                    new MinimizeExitPoints(compiler),
+                    new PeepholeMinimizeConditions(false, false),
+                    new PeepholeSubstituteAlternateSyntax(false),
+                    new PeepholeReplaceKnownMethods(false, false),
+                    new PeepholeRemoveDeadCode(),
+                    new PeepholeFoldConstants(false, false),
+                    new PeepholeCollectPropertyAssignments()};
+              }
+            })
+        .process(compiler.getRoot().getFirstChild(), compiler.getJsRoot());
+    return compiler;
+  }
+}
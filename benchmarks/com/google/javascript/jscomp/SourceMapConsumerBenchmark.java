@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.io.ByteStreams;
+import com.google.debugging.sourcemap.LazySourceMapConsumerV3;
+import com.google.debugging.sourcemap.SourceMapConsumer;
+import com.google.debugging.sourcemap.SourceMapConsumerV3;
+import com.google.debugging.sourcemap.SourceMapParseException;
+import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing a source map and looking up mappings in it with
+ * {@link SourceMapConsumerV3} and {@link LazySourceMapConsumerV3}. The
+ * {@code fewLookups} benchmarks model mapping a stack trace, the
+ * {@code allLines} benchmarks look up every generated line once. Run with
+ * {@code -prof gc} to compare the memory allocated by the consumers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class SourceMapConsumerBenchmark {
+
+  private static final int FEW_LOOKUPS = 20;
+
+  @Param({"200"})
+  public int fileCount;
+
+  private String sourceMap;
+  private int lineCount;
+
+  @Setup
+  public void setUp() throws IOException {
+    // Only the size of the map matters, so the code is not type checked.
+    CompilerOptions options = new CompilerOptions();
+    options.setPrettyPrint(true);
+    options.setSourceMapOutputPath("out.js.map");
+    Compiler compiler = new Compiler(new PrintStream(ByteStreams.nullOutputStream()));
+    Result result = compiler.compile(
+        BenchmarkUtil.getExterns(), SyntheticCorpus.generate(fileCount, 10), options);
+    lineCount = compiler.toSource().split("\n").length;
+    StringBuilder sb = new StringBuilder();
+    result.sourceMap.appendTo(sb, "out.js");
+    sourceMap = sb.toString();
+  }
+
+  @Benchmark
+  public int eagerFewLookups() throws SourceMapParseException {
+    SourceMapConsumerV3 consumer = new SourceMapConsumerV3();
+    consumer.parse(sourceMap);
+    return lookUp(consumer, lineCount / FEW_LOOKUPS);
+  }
+
+  @Benchmark
+  public int lazyFewLookups() throws SourceMapParseException {
+    LazySourceMapConsumerV3 consumer = new LazySourceMapConsumerV3();
+    consumer.parse(sourceMap);
+    return lookUp(consumer, lineCount / FEW_LOOKUPS);
+  }
+
+  @Benchmark
+  public int eagerAllLines() throws SourceMapParseException {
+    SourceMapConsumerV3 consumer = new SourceMapConsumerV3();
+    consumer.parse(sourceMap);
+    return lookUp(consumer, 1);
+  }
+
+  @Benchmark
+  public int lazyAllLines() throws SourceMapParseException {
+    LazySourceMapConsumerV3 consumer = new LazySourceMapConsumerV3();
+    consumer.parse(sourceMap);
+    return lookUp(consumer, 1);
+  }
+
+  /** Looks up the start of every {@code step}th line. */
+  private int lookUp(SourceMapConsumer consumer, int step) {
+    int found = 0;
+    for (int line = 1; line <= lineCount; line += Math.max(step, 1)) {
+      OriginalMapping mapping = consumer.getMappingForLine(line, 5);
+      if (mapping != null) {
+        found += mapping.getLineNumber();
+      }
+    }
+    return found;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures appending the source map of a pretty printed compilation, with
+ * the mappings encoded on {@code threads} threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class SourceMapGeneratorBenchmark {
+
+  @Param({"200"})
+  public int fileCount;
+
+  @Param({"1", "4"})
+  public int threads;
+
+  private SourceMap sourceMap;
+
+  @Setup
+  public void setUp() throws IOException {
+    // Only the size of the map matters, so the code is not type checked.
+    CompilerOptions options = new CompilerOptions();
+    options.setPrettyPrint(true);
+    options.setSourceMapOutputPath("out.js.map");
+    options.setNumParallelSourceMapThreads(threads);
+    Compiler compiler = new Compiler(new PrintStream(ByteStreams.nullOutputStream()));
+    compiler.compile(
+        BenchmarkUtil.getExterns(), SyntheticCorpus.generate(fileCount, 10), options);
+    compiler.toSource();
+    sourceMap = compiler.getSourceMap();
+  }
+
+  @Benchmark
+  public int appendSourceMap() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sourceMap.appendTo(sb, "out.js");
+    return sb.length();
+  }
+}
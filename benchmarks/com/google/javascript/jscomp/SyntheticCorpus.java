@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Random;
+
+/**
+ * Generates type annotated JavaScript for the benchmarks. The output only
+ * depends on the arguments, so results stay comparable across runs and
+ * machines.
+ *
+ * <p>Each file declares a number of constructors with the same property and
+ * method names, which gives DisambiguateProperties something to do, and
+ * method bodies with loops, branches and foldable constant expressions for
+ * the peephole passes. Constructors call methods of the constructors
+ * declared before them, so the files must be compiled in order.
+ */
+final class SyntheticCorpus {
+
+  private static final String[] PROPERTY_NAMES = {"x", "name", "values", "parent", "count"};
+
+  private final Random random;
+  private final StringBuilder sb = new StringBuilder();
+  private int classCount = 0;
+
+  private SyntheticCorpus(long seed) {
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Returns {@code fileCount} files of {@code classesPerFile} constructors
+   * each, about 55 lines per constructor.
+   */
+  static ImmutableList<SourceFile> generate(int fileCount, int classesPerFile) {
+    SyntheticCorpus corpus = new SyntheticCorpus(fileCount * 31L + classesPerFile);
+    ImmutableList.Builder<SourceFile> files = ImmutableList.builder();
+    for (int i = 0; i < fileCount; i++) {
+      files.add(SourceFile.fromCode("file" + i + ".js", corpus.generateFile(classesPerFile)));
+    }
+    return files.build();
+  }
+
+  /** Returns the corpus as a single source. */
+  static String generateCode(int fileCount, int classesPerFile) {
+    SyntheticCorpus corpus = new SyntheticCorpus(fileCount * 31L + classesPerFile);
+    StringBuilder code = new StringBuilder();
+    for (int i = 0; i < fileCount; i++) {
+      code.append(corpus.generateFile(classesPerFile));
+    }
+    return code.toString();
+  }
+
+  private String generateFile(int classes) {
+    sb.setLength(0);
+    for (int i = 0; i < classes; i++) {
+      generateClass();
+    }
+    return sb.toString();
+  }
+
+  private void generateClass() {
+    int id = classCount++;
+    String name = "Class" + id;
+    String previous = id == 0 ? name : "Class" + (id - 1);
+
+    line("/**");
+    line(" * @constructor");
+    line(" * @param {number} x");
+    line(" * @param {string} name");
+    line(" */");
+    line("function " + name + "(x, name) {");
+    line("  /** @type {number} */ this.x = x;");
+    line("  /** @type {string} */ this.name = name;");
+    line("  /** @type {!Array<number>} */ this.values = [];");
+    line("  /** @type {?" + previous + "} */ this.parent = null;");
+    line("  /** @type {number} */ this.count = " + random.nextInt(100) + ";");
+    line("}");
+    line("");
+
+    line("/**");
+    line(" * @param {number} n");
+    line(" * @return {number}");
+    line(" */");
+    line(name + ".prototype.compute = function(n) {");
+    line("  var total = " + constantExpression() + ";");
+    line("  for (var i = 0; i < n; i++) {");
+    line("    if (i % " + (2 + random.nextInt(5)) + " == 0 && " + condition() + ") {");
+    line("      total += this.x * " + constantExpression() + ";");
+    line("    } else {");
+    line("      total -= this." + (random.nextBoolean() ? "name" : "values") + ".length || 1;");
+    line("    }");
+    line("  }");
+    line("  this.values.push(total);");
+    line("  return total;");
+    line("};");
+    line("");
+
+    line("/** @return {string} */");
+    line(name + ".prototype.describe = function() {");
+    line("  var parts = ['" + name + "', this.name, String(this.compute(" + random.nextInt(10)
+        + "))];");
+    line("  if (" + condition() + ") {");
+    line("    parts.push('" + randomString() + "' + '" + randomString() + "');");
+    line("  }");
+    line("  return parts.join(', ');");
+    line("};");
+    line("");
+
+    line("/**");
+    line(" * @param {!" + previous + "} other");
+    line(" * @return {number}");
+    line(" */");
+    line(name + ".prototype.combine = function(other) {");
+    line("  this.parent = other;");
+    line("  switch (this.count % 3) {");
+    line("    case 0: return this.compute(1) + other.compute(2);");
+    line("    case 1: return other.values.length;");
+    line("    default: return void 0 === other ? 0 : other.count;");
+    line("  }");
+    line("};");
+    line("");
+
+    line("var instance" + id + " = new " + name + "(" + id + ", '" + randomString() + "');");
+    line("instance" + id + ".combine(new " + previous + "(" + random.nextInt(100)
+        + ", instance" + id + ".describe()));");
+    line("");
+  }
+
+  private String constantExpression() {
+    switch (random.nextInt(4)) {
+      case 0:
+        return String.valueOf(random.nextInt(1000));
+      case 1:
+        return random.nextInt(100) + " + " + random.nextInt(100);
+      case 2:
+        return "(" + random.nextInt(10) + " * " + random.nextInt(10) + ") - 1";
+      default:
+        return "'" + randomString() + "'.length";
+    }
+  }
+
+  private String condition() {
+    switch (random.nextInt(3)) {
+      case 0:
+        return "true";
+      case 1:
+        return "!this." + randomProperty();
+      default:
+        return "this.count > " + random.nextInt(50);
+    }
+  }
+
+  private String randomProperty() {
+    return PROPERTY_NAMES[random.nextInt(PROPERTY_NAMES.length)];
+  }
+
+  private String randomString() {
+    char[] chars = new char[3 + random.nextInt(8)];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = (char) ('a' + random.nextInt(26));
+    }
+    return new String(chars);
+  }
+
+  private void line(String line) {
+    sb.append(line).append('\n');
+  }
+}
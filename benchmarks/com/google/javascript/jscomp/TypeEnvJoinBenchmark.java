@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.jscomp.newtypes.JSType;
+import com.google.javascript.jscomp.newtypes.JSTypes;
+import com.google.javascript.jscomp.newtypes.TypeEnv;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the type env operations that NewTypeInference makes at every
+ * statement and join point: initializing an env with all the variables of a
+ * scope, and joining the envs of branches that each changed a few variables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class TypeEnvJoinBenchmark {
+
+  @Param({"10", "50", "200"})
+  public int varCount;
+
+  private static final int BRANCH_COUNT = 1000;
+  private static final int CHANGES_PER_BRANCH = 3;
+
+  private JSTypes commonTypes;
+  private String[] names;
+  private TypeEnv initialEnv;
+  private TypeEnv[] branches;
+
+  @Setup
+  public void setUp() {
+    commonTypes = JSTypes.init(false);
+    names = new String[varCount];
+    for (int i = 0; i < varCount; i++) {
+      names[i] = "var" + i;
+    }
+    initialEnv = initialize();
+    Random random = new Random(42);
+    JSType[] types = {commonTypes.STRING, commonTypes.BOOLEAN, commonTypes.NULL};
+    branches = new TypeEnv[BRANCH_COUNT];
+    for (int i = 0; i < BRANCH_COUNT; i++) {
+      TypeEnv env = initialEnv;
+      for (int j = 0; j < CHANGES_PER_BRANCH; j++) {
+        env = env.putType(names[random.nextInt(varCount)], types[random.nextInt(types.length)]);
+      }
+      branches[i] = env;
+    }
+  }
+
+  private TypeEnv initialize() {
+    TypeEnv env = new TypeEnv();
+    for (String name : names) {
+      env = env.putType(name, commonTypes.NUMBER);
+    }
+    return env;
+  }
+
+  @Benchmark
+  public TypeEnv initializeEnvs() {
+    TypeEnv env = null;
+    for (int i = 0; i < 100; i++) {
+      env = initialize();
+    }
+    return env;
+  }
+
+  @Benchmark
+  public int joinBranches() {
+    int count = 0;
+    for (int i = 0; i + 1 < BRANCH_COUNT; i++) {
+      TypeEnv joined = TypeEnv.join(branches[i], branches[i + 1]);
+      if (joined.getType(names[0]) != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
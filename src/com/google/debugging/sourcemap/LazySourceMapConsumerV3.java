@@ -0,0 +1,573 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.debugging.sourcemap;
+
+import com.google.common.base.Preconditions;
+import com.google.debugging.sourcemap.SourceMapConsumerV3.EntryVisitor;
+import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
+import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping.Builder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses version 3 source maps like {@link SourceMapConsumerV3}, but with
+ * much less memory for large maps.
+ *
+ * <p>Parsing only keeps the "mappings" string. The lines are found in it the
+ * first time a line at or after them is looked up, and each line is decoded
+ * into a packed int array the first time it is looked up. The reverse mapping
+ * of an original file is built the first time it is requested. As a
+ * consequence, malformed mappings are only reported when the lines that
+ * contain them are decoded.
+ *
+ * <p>Synchronization needs to be handled by callers.
+ */
+public final class LazySourceMapConsumerV3 implements SourceMapConsumer,
+    SourceMappingReversable {
+  static final int UNMAPPED = SourceMapConsumerV3.UNMAPPED;
+
+  // The values of a segment in a decoded line, which are absolute.
+  static final int COLUMN = 0;
+  static final int SOURCE = 1;
+  static final int SOURCE_LINE = 2;
+  static final int SOURCE_COLUMN = 3;
+  static final int NAME = 4;
+  static final int SEGMENT_SIZE = 5;
+
+  // The values that are relative to the previous segment across lines.
+  private static final int STATE_SIZE = 4;
+
+  private static final int[] EMPTY_LINE = new int[0];
+
+  // The layout of a Base64 VLQ digit, as in Base64VLQ.
+  private static final int VLQ_BASE_SHIFT = 5;
+  private static final int VLQ_BASE_MASK = (1 << VLQ_BASE_SHIFT) - 1;
+  private static final int VLQ_CONTINUATION_BIT = 1 << VLQ_BASE_SHIFT;
+
+  private String[] sources;
+  private String[] names;
+  private int lineCount;
+  private CharSequence mappings;
+  private String sourceRoot;
+  private final Map<String, Object> extensions = new LinkedHashMap<>();
+
+  /**
+   * The offset of each known line in the mappings, and the source, source
+   * line, source column and name of the segment before it.
+   */
+  private int[] lineStarts;
+  private int[] lineStates;
+  private int knownLineCount;
+  /** Where the first line that is not known yet starts, and its state. */
+  private int scanOffset;
+  private final int[] scanState = new int[STATE_SIZE];
+
+  /** The decoded lines, or null for the lines that were not looked up yet. */
+  private int[][] decodedLines;
+
+  /** originalFile path ==> index of the target mappings. */
+  private final Map<String, ReverseIndex> reverseIndexes = new HashMap<>();
+
+  @Override
+  public void parse(String contents) throws SourceMapParseException {
+    SourceMapObject sourceMapObject = SourceMapObjectParser.parse(contents);
+    parse(sourceMapObject, null);
+  }
+
+  /**
+   * Parses the given contents containing a source map.
+   */
+  void parse(SourceMapObject sourceMapObject, SourceMapSupplier sectionSupplier)
+      throws SourceMapParseException {
+    if (sourceMapObject.getVersion() != 3) {
+      throw new SourceMapParseException("Unknown version: " + sourceMapObject.getVersion());
+    }
+
+    String file = sourceMapObject.getFile();
+    if (file != null && file.isEmpty()) {
+      throw new SourceMapParseException("File entry is empty");
+    }
+
+    if (sourceMapObject.getSections() != null) {
+      // Looks like a index map, try to parse it that way.
+      parseMetaMap(sourceMapObject, sectionSupplier);
+      return;
+    }
+
+    extensions.putAll(sourceMapObject.getExtensions());
+    parse(sourceMapObject.getSources(), sourceMapObject.getNames(),
+        sourceMapObject.getLineCount(), sourceMapObject.getSourceRoot(),
+        sourceMapObject.getMappings());
+  }
+
+  /**
+   * Starts reading the mappings of a map with the given fields. The mappings
+   * are only read as lines are looked up, so they may be backed by a file.
+   */
+  void parse(String[] sources, String[] names, int lineCount, String sourceRoot,
+      CharSequence mappings) {
+    this.sources = sources;
+    this.names = names;
+    this.lineCount = lineCount;
+    this.sourceRoot = sourceRoot;
+    this.mappings = mappings;
+
+    int initialLines = lineCount > 0 ? lineCount : 16;
+    lineStarts = new int[initialLines];
+    lineStates = new int[initialLines * STATE_SIZE];
+    decodedLines = new int[initialLines][];
+    knownLineCount = 0;
+    scanOffset = 0;
+    Arrays.fill(scanState, 0);
+    reverseIndexes.clear();
+  }
+
+  private void parseMetaMap(
+      SourceMapObject sourceMapObject, SourceMapSupplier sectionSupplier)
+      throws SourceMapParseException {
+    if (sectionSupplier == null) {
+      sectionSupplier = new SourceMapConsumerV3.DefaultSourceMapSupplier();
+    }
+
+    try {
+      if (sourceMapObject.getLineCount() >= 0
+          || sourceMapObject.getMappings() != null
+          || sourceMapObject.getSources() != null
+          || sourceMapObject.getNames() != null) {
+        throw new SourceMapParseException("Invalid map format");
+      }
+
+      SourceMapGeneratorV3 generator = new SourceMapGeneratorV3();
+      for (SourceMapSection section : sourceMapObject.getSections()) {
+        String mapSectionContents = section.getSectionValue();
+        if (section.getSectionType() == SourceMapSection.SectionType.URL) {
+          mapSectionContents = sectionSupplier.getSourceMap(section.getSectionValue());
+        }
+        if (mapSectionContents == null) {
+          throw new SourceMapParseException("Unable to retrieve: " + section.getSectionValue());
+        }
+        generator.mergeMapSection(section.getLine(), section.getColumn(), mapSectionContents);
+      }
+
+      StringBuilder sb = new StringBuilder();
+      generator.appendTo(sb, sourceMapObject.getFile());
+      parse(sb.toString());
+    } catch (IOException ex) {
+      throw new SourceMapParseException("IO exception: " + ex);
+    }
+  }
+
+  @Override
+  public OriginalMapping getMappingForLine(int lineNumber, int column) {
+    int[] segment = new int[SEGMENT_SIZE];
+    if (!findMapping(lineNumber, column, segment)) {
+      return null;
+    }
+    // Adjust the line/column here to be start at 1.
+    Builder x = OriginalMapping.newBuilder()
+        .setOriginalFile(sources[segment[SOURCE]])
+        .setLineNumber(segment[SOURCE_LINE] + 1)
+        .setColumnPosition(segment[SOURCE_COLUMN] + 1);
+    if (segment[NAME] != UNMAPPED) {
+      x.setIdentifier(names[segment[NAME]]);
+    }
+    return x.build();
+  }
+
+  /**
+   * Finds the mapped segment that {@link #getMappingForLine} returns the
+   * mapping of, without creating the mapping.
+   *
+   * @param segment Where to copy the values of the segment to, which are
+   *     0-based, if there is one
+   * @return Whether there is a mapped segment
+   */
+  boolean findMapping(int lineNumber, int column, int[] segment) {
+    // Normalize the line and column numbers to 0.
+    lineNumber--;
+    column--;
+
+    if (lineNumber < 0 || !hasLine(lineNumber)) {
+      return false;
+    }
+    Preconditions.checkState(column >= 0);
+
+    int[] segments = getLine(lineNumber);
+    int offset;
+    // If the line is empty use the previous mapping.
+    if (segments.length == 0 || segments[COLUMN] > column) {
+      do {
+        if (lineNumber == 0) {
+          return false;
+        }
+        lineNumber--;
+        segments = getLine(lineNumber);
+      } while (segments.length == 0);
+      offset = segments.length - SEGMENT_SIZE;
+    } else {
+      int index = search(segments, column, 0, segments.length / SEGMENT_SIZE - 1);
+      Preconditions.checkState(index >= 0, "unexpected:%s", index);
+      offset = index * SEGMENT_SIZE;
+    }
+
+    if (segments[offset + SOURCE] == UNMAPPED) {
+      return false;
+    }
+    System.arraycopy(segments, offset, segment, 0, SEGMENT_SIZE);
+    return true;
+  }
+
+  /** Returns the sources, which the source values of the segments index. */
+  String[] getSources() {
+    return sources;
+  }
+
+  /** Returns the names, which the name values of the segments index. */
+  String[] getNames() {
+    return names;
+  }
+
+  /** Returns the line count of the map, or -1 if it does not have one. */
+  int getLineCount() {
+    return lineCount;
+  }
+
+  @Override
+  public Collection<String> getOriginalSources() {
+    return Arrays.asList(sources);
+  }
+
+  @Override
+  public Collection<OriginalMapping> getReverseMapping(String originalFile,
+      int line, int column) {
+    // Like SourceMapConsumerV3, this does not make use of the column.
+    ReverseIndex index = reverseIndexes.get(originalFile);
+    if (index == null) {
+      index = createReverseIndex(originalFile);
+      reverseIndexes.put(originalFile, index);
+    }
+    return index.getMappings(line);
+  }
+
+  public String getSourceRoot() {
+    return this.sourceRoot;
+  }
+
+  /**
+   * Returns all extensions and their values (which can be any json value)
+   * in a Map object.
+   */
+  public Map<String, Object> getExtensions() {
+    return this.extensions;
+  }
+
+  /** Visits the mappings like {@link SourceMapConsumerV3#visitMappings}. */
+  public void visitMappings(EntryVisitor visitor) {
+    boolean pending = false;
+    String sourceName = null;
+    String symbolName = null;
+    FilePosition sourceStartPosition = null;
+    FilePosition startPosition = null;
+
+    for (int i = 0; hasLine(i); i++) {
+      int[] segments = peekLine(i);
+      for (int s = 0; s < segments.length; s += SEGMENT_SIZE) {
+        if (pending) {
+          FilePosition endPosition = new FilePosition(i, segments[s + COLUMN]);
+          visitor.visit(
+              sourceName,
+              symbolName,
+              sourceStartPosition,
+              startPosition,
+              endPosition);
+          pending = false;
+        }
+
+        if (segments[s + SOURCE] != UNMAPPED) {
+          pending = true;
+          sourceName = sources[segments[s + SOURCE]];
+          symbolName = segments[s + NAME] != UNMAPPED ? names[segments[s + NAME]] : null;
+          sourceStartPosition =
+              new FilePosition(segments[s + SOURCE_LINE], segments[s + SOURCE_COLUMN]);
+          startPosition = new FilePosition(i, segments[s + COLUMN]);
+        }
+      }
+    }
+  }
+
+  /** Returns whether the map has the line, finding the lines up to it as needed. */
+  boolean hasLine(int line) {
+    while (line >= knownLineCount && scanOffset < mappings.length()) {
+      // Lines are usually looked up right after they are found, so keep the
+      // line that was asked for instead of decoding it twice.
+      addLine(knownLineCount == line);
+    }
+    return line < knownLineCount;
+  }
+
+  /** Records the start of the next line and skips over or decodes it. */
+  private void addLine(boolean decode) {
+    int line = knownLineCount;
+    if (line == lineStarts.length) {
+      int newLength = line * 2;
+      lineStarts = Arrays.copyOf(lineStarts, newLength);
+      lineStates = Arrays.copyOf(lineStates, newLength * STATE_SIZE);
+      decodedLines = Arrays.copyOf(decodedLines, newLength);
+    }
+    lineStarts[line] = scanOffset;
+    System.arraycopy(scanState, 0, lineStates, line * STATE_SIZE, STATE_SIZE);
+    // Only move on if the line is well formed, so that looking it up again
+    // reports the same error.
+    int[] state = scanState.clone();
+    IntList segments = decode ? new IntList() : null;
+    scanOffset = decodeLine(line, state, segments);
+    System.arraycopy(state, 0, scanState, 0, STATE_SIZE);
+    if (segments != null) {
+      decodedLines[line] = segments.toArray();
+    }
+    knownLineCount++;
+  }
+
+  /** Returns the segments of a known line, decoding and keeping them if needed. */
+  private int[] getLine(int line) {
+    int[] segments = decodedLines[line];
+    if (segments == null) {
+      segments = decodeLine(line);
+      decodedLines[line] = segments;
+    }
+    return segments;
+  }
+
+  /**
+   * Returns the segments of a known line, with {@link #SEGMENT_SIZE} values
+   * each, without keeping them.
+   */
+  int[] peekLine(int line) {
+    int[] segments = decodedLines[line];
+    return segments != null ? segments : decodeLine(line);
+  }
+
+  private int[] decodeLine(int line) {
+    int[] state = Arrays.copyOfRange(lineStates, line * STATE_SIZE, (line + 1) * STATE_SIZE);
+    IntList segments = new IntList();
+    decodeLine(line, state, segments);
+    return segments.toArray();
+  }
+
+  /**
+   * Decodes the segments of a known line, using and updating the state of
+   * the previous segment, and returns the offset of the next line.
+   *
+   * @param segments Where to add the segments, or null to only skip the line
+   */
+  private int decodeLine(int line, int[] state, IntList segments) {
+    int[] values = new int[SEGMENT_SIZE];
+    int previousCol = 0;
+    int length = mappings.length();
+    int offset = lineStarts[line];
+    while (offset < length) {
+      // ';' denotes a new line.
+      if (mappings.charAt(offset) == ';') {
+        offset++;
+        break;
+      }
+
+      int valueCount = 0;
+      char c;
+      while (offset < length && (c = mappings.charAt(offset)) != ';' && c != ',') {
+        if (valueCount == SEGMENT_SIZE) {
+          throw new IllegalStateException(
+              "Unexpected number of values for entry:" + (valueCount + 1));
+        }
+        // Decode the Base64 VLQ value in place, as Base64VLQ.decode would.
+        int value = 0;
+        int shift = 0;
+        int digit;
+        do {
+          digit = Base64.fromBase64(mappings.charAt(offset++));
+          value += (digit & VLQ_BASE_MASK) << shift;
+          shift += VLQ_BASE_SHIFT;
+        } while ((digit & VLQ_CONTINUATION_BIT) != 0);
+        values[valueCount++] = (value & 1) == 1 ? -(value >> 1) : value >> 1;
+      }
+      if (valueCount != 1 && valueCount != 4 && valueCount != 5) {
+        throw new IllegalStateException(
+            "Unexpected number of values for entry:" + valueCount);
+      }
+
+      // The values are relative to the last encountered value for that field.
+      // Only the column is reset to 0 on a new line.
+      previousCol += values[0];
+      if (valueCount >= 4) {
+        state[0] += values[1];
+        state[1] += values[2];
+        state[2] += values[3];
+      }
+      if (valueCount == 5) {
+        state[3] += values[4];
+      }
+
+      if (segments != null) {
+        int source = valueCount >= 4 ? state[0] : UNMAPPED;
+        int name = valueCount == 5 ? state[3] : UNMAPPED;
+        Preconditions.checkState((lineCount < 0) || (line < lineCount),
+            "line=%s, lineCount=%s", line, lineCount);
+        Preconditions.checkState(source == UNMAPPED || source < sources.length);
+        Preconditions.checkState(name == UNMAPPED || name < names.length);
+        segments.add(previousCol);
+        segments.add(source);
+        segments.add(valueCount >= 4 ? state[1] : UNMAPPED);
+        segments.add(valueCount >= 4 ? state[2] : UNMAPPED);
+        segments.add(name);
+      }
+
+      // Consume the separating token, if there is one.
+      if (offset < length && mappings.charAt(offset) == ',') {
+        offset++;
+      }
+    }
+    return offset;
+  }
+
+  /**
+   * Perform a binary search on the segments to find a section that covers
+   * the target column.
+   */
+  private static int search(int[] segments, int target, int start, int end) {
+    while (true) {
+      int mid = ((end - start) / 2) + start;
+      int compare = segments[mid * SEGMENT_SIZE + COLUMN] - target;
+      if (compare == 0) {
+        return mid;
+      } else if (compare < 0) {
+        // it is in the upper half
+        start = mid + 1;
+        if (start > end) {
+          return end;
+        }
+      } else {
+        // it is in the lower half
+        end = mid - 1;
+        if (end < start) {
+          return end;
+        }
+      }
+    }
+  }
+
+  /** Collects the target positions of all segments that map to the file. */
+  private ReverseIndex createReverseIndex(String originalFile) {
+    boolean[] isFile = new boolean[sources.length];
+    boolean hasFile = false;
+    for (int i = 0; i < sources.length; i++) {
+      isFile[i] = sources[i].equals(originalFile);
+      hasFile |= isFile[i];
+    }
+    if (!hasFile) {
+      return ReverseIndex.EMPTY;
+    }
+
+    // (source line, target line, target column) of each segment.
+    IntList targets = new IntList();
+    int maxSourceLine = -1;
+    for (int line = 0; hasLine(line); line++) {
+      int[] segments = peekLine(line);
+      for (int s = 0; s < segments.length; s += SEGMENT_SIZE) {
+        int source = segments[s + SOURCE];
+        int sourceLine = segments[s + SOURCE_LINE];
+        if (source != UNMAPPED && isFile[source] && sourceLine >= 0) {
+          targets.add(sourceLine);
+          targets.add(line);
+          targets.add(segments[s + COLUMN]);
+          maxSourceLine = Math.max(maxSourceLine, sourceLine);
+        }
+      }
+    }
+
+    // Group the targets by source line, keeping their order.
+    int[] lineOffsets = new int[maxSourceLine + 2];
+    for (int i = 0; i < targets.size; i += 3) {
+      lineOffsets[targets.values[i] + 1]++;
+    }
+    for (int i = 1; i < lineOffsets.length; i++) {
+      lineOffsets[i] += lineOffsets[i - 1];
+    }
+    int[] positions = new int[targets.size / 3 * 2];
+    int[] next = Arrays.copyOf(lineOffsets, lineOffsets.length - 1);
+    for (int i = 0; i < targets.size; i += 3) {
+      int target = next[targets.values[i]]++;
+      positions[target * 2] = targets.values[i + 1];
+      positions[target * 2 + 1] = targets.values[i + 2];
+    }
+    return new ReverseIndex(lineOffsets, positions);
+  }
+
+  /** The target positions of the segments of an original file, by source line. */
+  private static final class ReverseIndex {
+    static final ReverseIndex EMPTY = new ReverseIndex(new int[] {0}, EMPTY_LINE);
+
+    /** Where the positions of each source line start, and the end of the last one. */
+    private final int[] lineOffsets;
+    /** The target line and column of each segment. */
+    private final int[] positions;
+
+    ReverseIndex(int[] lineOffsets, int[] positions) {
+      this.lineOffsets = lineOffsets;
+      this.positions = positions;
+    }
+
+    Collection<OriginalMapping> getMappings(int sourceLine) {
+      if (sourceLine < 0 || sourceLine >= lineOffsets.length - 1
+          || lineOffsets[sourceLine] == lineOffsets[sourceLine + 1]) {
+        return Collections.emptyList();
+      }
+      List<OriginalMapping> mappings =
+          new ArrayList<>(lineOffsets[sourceLine + 1] - lineOffsets[sourceLine]);
+      for (int i = lineOffsets[sourceLine]; i < lineOffsets[sourceLine + 1]; i++) {
+        mappings.add(OriginalMapping.newBuilder()
+            .setLineNumber(positions[i * 2])
+            .setColumnPosition(positions[i * 2 + 1])
+            .build());
+      }
+      return mappings;
+    }
+  }
+
+  /** A growable array of ints. */
+  private static final class IntList {
+    int[] values = new int[SEGMENT_SIZE * 4];
+    int size = 0;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    int[] toArray() {
+      return size == 0 ? EMPTY_LINE : Arrays.copyOf(values, size);
+    }
+  }
+}
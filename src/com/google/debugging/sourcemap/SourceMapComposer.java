@@ -0,0 +1,452 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.debugging.sourcemap;
+
+import static com.google.debugging.sourcemap.LazySourceMapConsumerV3.COLUMN;
+import static com.google.debugging.sourcemap.LazySourceMapConsumerV3.NAME;
+import static com.google.debugging.sourcemap.LazySourceMapConsumerV3.SEGMENT_SIZE;
+import static com.google.debugging.sourcemap.LazySourceMapConsumerV3.SOURCE;
+import static com.google.debugging.sourcemap.LazySourceMapConsumerV3.SOURCE_COLUMN;
+import static com.google.debugging.sourcemap.LazySourceMapConsumerV3.SOURCE_LINE;
+import static com.google.debugging.sourcemap.LazySourceMapConsumerV3.UNMAPPED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Composes the source map of a generated file with the source maps of its
+ * sources, for builds where the output of one tool is the input of the next.
+ * The composed map maps the generated file to the sources of the input maps.
+ *
+ * <p>Unlike merging with {@link SourceMapGeneratorV3}, the maps are not
+ * parsed into mappings. The files are memory mapped, the "mappings" of the
+ * output map are decoded one line at a time, and only the lines of the input
+ * maps that the output map points into are decoded. The memory used thus
+ * depends on the size of the output rather than on the size of the inputs.
+ *
+ * <p>Segments of the output map that point into a source without an input
+ * map, or to a position that the input map does not map, are kept. A name in
+ * the input map replaces the name of the segment. Sources of the input maps
+ * are resolved against the location of the input map, like
+ * {@code --apply_input_source_maps} does. The "sourcesContent" of the maps
+ * are kept for the sources that the composed map points into; they are only
+ * decoded for the input maps that are used.
+ */
+@GwtIncompatible("java.nio")
+public final class SourceMapComposer {
+
+  private final Map<String, MappedSourceMap> inputMaps = new HashMap<>();
+
+  /**
+   * Composes the segments that point into {@code sourceName}, as it appears
+   * in the sources of the output map, with the map in {@code mapFile}.
+   */
+  public void addInputMap(String sourceName, File mapFile)
+      throws IOException, SourceMapParseException {
+    MappedSourceMap inputMap = read(mapFile(mapFile));
+    String[] sources = inputMap.map.getSources();
+    inputMap.resolvedSources = new String[sources.length];
+    String sourceRoot = inputMap.map.getSourceRoot() != null ? inputMap.map.getSourceRoot() : "";
+    for (int i = 0; i < sources.length; i++) {
+      inputMap.resolvedSources[i] = getRelativeTo(sourceRoot + sources[i], mapFile.getPath());
+    }
+    inputMaps.put(sourceName, inputMap);
+  }
+
+  /**
+   * Appends the source map in {@code outputMapFile}, composed with the input
+   * maps, to {@code out}.
+   *
+   * @param name The name of the generated file that the source map represents.
+   */
+  public void compose(File outputMapFile, Appendable out, String name)
+      throws IOException, SourceMapParseException {
+    compose(read(mapFile(outputMapFile)), out, name);
+  }
+
+  /**
+   * Appends the source map {@code outputMap}, composed with the input maps,
+   * to {@code out}.
+   *
+   * @param name The name of the generated file that the source map represents.
+   */
+  public void compose(String outputMap, Appendable out, String name)
+      throws IOException, SourceMapParseException {
+    compose(read(ByteBuffer.wrap(outputMap.getBytes(UTF_8))), out, name);
+  }
+
+  private void compose(MappedSourceMap output, Appendable out, String name)
+      throws IOException, SourceMapParseException {
+    LazySourceMapConsumerV3 outputMap = output.map;
+    String[] outputSources = outputMap.getSources();
+    String sourceRoot = outputMap.getSourceRoot() != null ? outputMap.getSourceRoot() : "";
+
+    Map<String, Integer> sources = new LinkedHashMap<>();
+    // The content of each source, by id, or null if the maps don't have it.
+    List<String> sourcesContent = new ArrayList<>();
+    Map<String, Integer> names = new LinkedHashMap<>();
+    StringBuilder mappings = new StringBuilder();
+
+    // The values of the last mapped segment that was written, which the
+    // values of the next one are relative to.
+    int previousSource = 0;
+    int previousSourceLine = 0;
+    int previousSourceColumn = 0;
+    int previousName = 0;
+    int[] original = new int[SEGMENT_SIZE];
+    int line = 0;
+    for (; outputMap.hasLine(line); line++) {
+      int[] segments = outputMap.peekLine(line);
+      int previousColumn = 0;
+      for (int s = 0; s < segments.length; s += SEGMENT_SIZE) {
+        if (s > 0) {
+          mappings.append(',');
+        }
+        Base64VLQ.encode(mappings, segments[s + COLUMN] - previousColumn);
+        previousColumn = segments[s + COLUMN];
+        if (segments[s + SOURCE] == UNMAPPED) {
+          continue;
+        }
+
+        String sourceName = outputSources[segments[s + SOURCE]];
+        MappedSourceMap inputMap = inputMaps.get(sourceName);
+        String source;
+        MappedSourceMap sourceMap;
+        int sourceIndex;
+        int sourceLine;
+        int sourceColumn;
+        String symbolName = segments[s + NAME] != UNMAPPED
+            ? outputMap.getNames()[segments[s + NAME]] : null;
+        if (inputMap != null && inputMap.map.findMapping(
+            segments[s + SOURCE_LINE] + 1, segments[s + SOURCE_COLUMN] + 1, original)) {
+          source = inputMap.resolvedSources[original[SOURCE]];
+          sourceMap = inputMap;
+          sourceIndex = original[SOURCE];
+          sourceLine = original[SOURCE_LINE];
+          sourceColumn = original[SOURCE_COLUMN];
+          if (original[NAME] != UNMAPPED) {
+            symbolName = inputMap.map.getNames()[original[NAME]];
+          }
+        } else {
+          source = sourceRoot + sourceName;
+          sourceMap = output;
+          sourceIndex = segments[s + SOURCE];
+          sourceLine = segments[s + SOURCE_LINE];
+          sourceColumn = segments[s + SOURCE_COLUMN];
+        }
+
+        int sourceId = getId(sources, source);
+        if (sourceId == sourcesContent.size()) {
+          sourcesContent.add(sourceMap.getSourceContent(sourceIndex));
+        }
+        Base64VLQ.encode(mappings, sourceId - previousSource);
+        Base64VLQ.encode(mappings, sourceLine - previousSourceLine);
+        Base64VLQ.encode(mappings, sourceColumn - previousSourceColumn);
+        previousSource = sourceId;
+        previousSourceLine = sourceLine;
+        previousSourceColumn = sourceColumn;
+        if (symbolName != null) {
+          int nameId = getId(names, symbolName);
+          Base64VLQ.encode(mappings, nameId - previousName);
+          previousName = nameId;
+        }
+      }
+      mappings.append(';');
+    }
+
+    int lineCount = outputMap.getLineCount() >= 0 ? outputMap.getLineCount() : line;
+    out.append("{\n");
+    out.append("\"version\":3,\n");
+    out.append("\"file\":").append(Util.escapeString(name)).append(",\n");
+    out.append("\"lineCount\":").append(String.valueOf(lineCount)).append(",\n");
+    out.append("\"mappings\":\"").append(mappings).append("\",\n");
+    out.append("\"sources\":");
+    appendNames(out, sources.keySet());
+    if (Collections.frequency(sourcesContent, null) < sourcesContent.size()) {
+      out.append(",\n\"sourcesContent\":");
+      appendNames(out, sourcesContent);
+    }
+    out.append(",\n\"names\":");
+    appendNames(out, names.keySet());
+    out.append("\n}\n");
+  }
+
+  private static int getId(Map<String, Integer> ids, String value) {
+    Integer id = ids.get(value);
+    if (id == null) {
+      id = ids.size();
+      ids.put(value, id);
+    }
+    return id;
+  }
+
+  private static void appendNames(Appendable out, Collection<String> values) throws IOException {
+    out.append('[');
+    boolean first = true;
+    for (String value : values) {
+      if (!first) {
+        out.append(',');
+      }
+      first = false;
+      out.append(value != null ? Util.escapeString(value) : "null");
+    }
+    out.append(']');
+  }
+
+  /** Resolves {@code relative} as a sibling of {@code base}. */
+  private static String getRelativeTo(String relative, String base) {
+    return new File(base).toPath()
+        .resolveSibling(relative)
+        .normalize()
+        .toString()
+        .replace(File.separator, "/");
+  }
+
+  /**
+   * A source map read by {@link #read}, with the location of its
+   * "sourcesContent", which is only decoded when it is needed.
+   */
+  private static final class MappedSourceMap {
+    final LazySourceMapConsumerV3 map;
+    private final ByteBuffer json;
+    private final int sourcesContentStart;
+    private final int sourcesContentEnd;
+    private String[] sourcesContent;
+    // The sources of an input map, resolved against the location of the map.
+    String[] resolvedSources;
+
+    MappedSourceMap(LazySourceMapConsumerV3 map, ByteBuffer json,
+        int sourcesContentStart, int sourcesContentEnd) {
+      this.map = map;
+      this.json = json;
+      this.sourcesContentStart = sourcesContentStart;
+      this.sourcesContentEnd = sourcesContentEnd;
+    }
+
+    /** Returns the content of the source with the given index, if the map has it. */
+    String getSourceContent(int index) throws SourceMapParseException {
+      if (sourcesContentStart < 0) {
+        return null;
+      }
+      if (sourcesContent == null) {
+        try {
+          sourcesContent = new Gson().fromJson(
+              decode(json, sourcesContentStart, sourcesContentEnd), String[].class);
+        } catch (JsonParseException e) {
+          throw new SourceMapParseException("JSON parse exception: " + e);
+        }
+      }
+      return index < sourcesContent.length ? sourcesContent[index] : null;
+    }
+  }
+
+  /**
+   * Reads a source map file whose mappings stay in the memory mapped file.
+   * Only the other fields are decoded and parsed as JSON.
+   */
+  static LazySourceMapConsumerV3 readMapped(File file)
+      throws IOException, SourceMapParseException {
+    return read(mapFile(file)).map;
+  }
+
+  private static ByteBuffer mapFile(File file) throws IOException {
+    try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+      // The mapping stays valid after the file is closed.
+      return in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length());
+    }
+  }
+
+  /**
+   * Reads the source map in the UTF-8 bytes of {@code json}. The mappings
+   * stay in the buffer, and the other fields but "sourcesContent" are parsed.
+   */
+  private static MappedSourceMap read(ByteBuffer json) throws SourceMapParseException {
+    FieldScanner fields = new FieldScanner(json);
+    fields.scan();
+    if (fields.mappingsStart < 0) {
+      // An index map, or not a source map. Let the usual parser deal with it.
+      LazySourceMapConsumerV3 map = new LazySourceMapConsumerV3();
+      map.parse(decode(json, 0, json.limit()));
+      return new MappedSourceMap(map, json, -1, -1);
+    }
+
+    // Parse the map without the mappings and sources contents.
+    StringBuilder rest = new StringBuilder();
+    int offset = 0;
+    if (fields.sourcesContentStart >= 0 && fields.sourcesContentStart < fields.mappingsStart) {
+      rest.append(decode(json, 0, fields.sourcesContentStart)).append("[]");
+      offset = fields.sourcesContentEnd;
+    }
+    rest.append(decode(json, offset, fields.mappingsStart)).append("\"\"");
+    offset = fields.mappingsEnd;
+    if (fields.sourcesContentStart > fields.mappingsStart) {
+      rest.append(decode(json, offset, fields.sourcesContentStart)).append("[]");
+      offset = fields.sourcesContentEnd;
+    }
+    rest.append(decode(json, offset, json.limit()));
+    SourceMapObject sourceMapObject = SourceMapObjectParser.parse(rest.toString());
+    if (sourceMapObject.getVersion() != 3) {
+      throw new SourceMapParseException("Unknown version: " + sourceMapObject.getVersion());
+    }
+
+    LazySourceMapConsumerV3 map = new LazySourceMapConsumerV3();
+    map.parse(sourceMapObject.getSources(), sourceMapObject.getNames(),
+        sourceMapObject.getLineCount(), sourceMapObject.getSourceRoot(),
+        new AsciiSequence(json, fields.mappingsStart + 1, fields.mappingsEnd - 1));
+    return new MappedSourceMap(
+        map, json, fields.sourcesContentStart, fields.sourcesContentEnd);
+  }
+
+  private static String decode(ByteBuffer buffer, int start, int end) {
+    byte[] bytes = new byte[end - start];
+    ByteBuffer part = buffer.duplicate();
+    part.position(start);
+    part.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  /**
+   * Finds the values of the top level "mappings" and "sourcesContent" fields
+   * of a JSON object, without decoding it. This works on the UTF-8 bytes
+   * because the bytes of multi-byte characters are never ASCII.
+   */
+  private static final class FieldScanner {
+    private final ByteBuffer json;
+
+    // Where the values start and end, or -1 if they were not found.
+    int mappingsStart = -1;
+    int mappingsEnd = -1;
+    int sourcesContentStart = -1;
+    int sourcesContentEnd = -1;
+
+    FieldScanner(ByteBuffer json) {
+      this.json = json;
+    }
+
+    void scan() throws SourceMapParseException {
+      int depth = 0;
+      boolean expectKey = false;
+      String key = null;
+      int length = json.limit();
+      for (int i = 0; i < length; i++) {
+        byte c = json.get(i);
+        switch (c) {
+          case '"':
+            int end = skipString(i);
+            if (depth == 1 && expectKey) {
+              key = decode(json, i + 1, end - 1);
+              expectKey = false;
+            } else if (depth == 1 && "mappings".equals(key)) {
+              for (int j = i + 1; j < end - 1; j++) {
+                if (json.get(j) == '\\') {
+                  throw new SourceMapParseException("Unexpected escape in mappings");
+                }
+              }
+              mappingsStart = i;
+              mappingsEnd = end;
+            }
+            i = end - 1;
+            break;
+          case '{':
+          case '[':
+            if (depth == 1 && c == '[' && "sourcesContent".equals(key)) {
+              sourcesContentStart = i;
+            }
+            depth++;
+            expectKey = depth == 1;
+            break;
+          case '}':
+          case ']':
+            depth--;
+            if (depth == 1 && c == ']' && "sourcesContent".equals(key)) {
+              sourcesContentEnd = i + 1;
+            }
+            break;
+          case ',':
+            if (depth == 1) {
+              expectKey = true;
+              key = null;
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    }
+
+    /** Returns the offset after the string that starts at {@code start}. */
+    private int skipString(int start) throws SourceMapParseException {
+      int length = json.limit();
+      for (int i = start + 1; i < length; i++) {
+        byte c = json.get(i);
+        if (c == '\\') {
+          i++;
+        } else if (c == '"') {
+          return i + 1;
+        }
+      }
+      throw new SourceMapParseException("Unterminated string");
+    }
+  }
+
+  /** The characters of the ASCII bytes of a part of a buffer. */
+  private static final class AsciiSequence implements CharSequence {
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int end;
+
+    AsciiSequence(ByteBuffer buffer, int start, int end) {
+      this.buffer = buffer;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public int length() {
+      return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return (char) (buffer.get(start + index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+      return new AsciiSequence(buffer, start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+      return decode(buffer, start, end);
+    }
+  }
+}
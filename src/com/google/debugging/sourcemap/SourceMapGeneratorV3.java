@@ -21,12 +21,14 @@ import com.google.common.base.Preconditions;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 import javax.annotation.Nullable;
 
 /**
@@ -60,8 +62,31 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
         Object newValue);
   }
 
+  /**
+   * Runs the tasks that encode chunks of the mappings, for instance on a
+   * pool of worker threads.
+   */
+  public interface TaskRunner {
+
+    /**
+     * Runs the tasks and returns their results in the order of the tasks.
+     * The tasks are independent of each other and may run concurrently.
+     */
+    <T> List<T> runAll(List<? extends Callable<T>> tasks);
+  }
+
   private static final int UNMAPPED = -1;
 
+  // The values of a collected segment. The source values are UNMAPPED for
+  // unmapped segments and the name is UNMAPPED for segments without a name.
+  private static final int SEGMENT_LINE = 0;
+  private static final int SEGMENT_COLUMN = 1;
+  private static final int SEGMENT_SOURCE = 2;
+  private static final int SEGMENT_SOURCE_LINE = 3;
+  private static final int SEGMENT_SOURCE_COLUMN = 4;
+  private static final int SEGMENT_NAME = 5;
+  private static final int SEGMENT_SIZE = 6;
+
 
   /**
    * A pre-order traversal ordered list of mappings stored in this map.
@@ -127,6 +152,13 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
    */
   private String sourceRootPath;
 
+  /**
+   * Runs the encoding of chunks of {@link #linesPerChunk} lines of the
+   * mappings, or null to encode all of them on the calling thread.
+   */
+  @Nullable private TaskRunner encodingRunner;
+  private int linesPerChunk;
+
   /**
    * {@inheritDoc}
    */
@@ -152,6 +184,21 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
     // Nothing currently.
   }
 
+  /**
+   * Encodes the mappings in chunks of {@code linesPerChunk} generated lines
+   * with the given runner, which may encode the chunks concurrently. The
+   * chunks are stitched together in order, so the source map is the same as
+   * when it is encoded on one thread.
+   *
+   * @param runner The runner for the chunks, or null to encode the mappings
+   *     on the thread that appends the source map.
+   */
+  public void setEncodingRunner(@Nullable TaskRunner runner, int linesPerChunk) {
+    Preconditions.checkArgument(linesPerChunk > 0);
+    this.encodingRunner = runner;
+    this.linesPerChunk = linesPerChunk;
+  }
+
   /**
    * Sets the prefix used for wrapping the generated source file before
    * it is written. This ensures that the source map is adjusted for the
@@ -376,7 +423,7 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
     // Add the mappings themselves.
     appendFieldStart(out, "mappings");
     // out.append("[");
-    (new LineMapper(out, maxLine)).appendLineMappings();
+    appendLineMappings(out, maxLine);
 
     // out.append("]");
     appendFieldEnd(out);
@@ -832,6 +879,10 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
         appendField(out, "url", escapeString(section.getSectionValue()));
       } else if (section.getSectionType() == SourceMapSection.SectionType.MAP) {
         appendField(out, "map", section.getSectionValue());
+      } else if (section.getSectionType() == SourceMapSection.SectionType.GENERATOR) {
+        // Write the map of the section in place, instead of through a string.
+        appendFieldStart(out, "map");
+        section.getGenerator().appendTo(out, name);
       } else {
         throw new IOException("Unexpected section type");
       }
@@ -877,124 +928,198 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
     return originalNameIndex;
   }
 
-  private class LineMapper implements MappingVisitor {
-    // The destination.
-    private final Appendable out;
-    private final int maxLine; // TODO(johnlenz): This shouldn't be necessary to track.
+  /**
+   * Appends the "mappings" field of the lines up to {@code maxLine}, in
+   * chunks of lines if there is an encoding runner.
+   */
+  private void appendLineMappings(Appendable out, int maxLine) throws IOException {
+    // Collect the segments and assign the source and name ids in the order
+    // they are written, so that the ids don't depend on the chunks.
+    SegmentCollector collector = new SegmentCollector(maxLine);
+    (new MappingTraversal()).traverse(collector);
+    int lineCount = collector.lastLine + 1;
+    int chunkLines = encodingRunner != null ? linesPerChunk : lineCount;
+
+    // Each chunk starts with the values of the last segment before it.
+    List<LineEncoder> chunks = new ArrayList<>();
+    int[] previous = new int[SEGMENT_SIZE];
+    int segment = 0;
+    for (int line = 0; line < lineCount; line += chunkLines) {
+      int endLine = Math.min(line + chunkLines, lineCount);
+      int startSegment = segment;
+      int[] startPrevious = previous.clone();
+      for (; segment < collector.size
+          && collector.segments[segment * SEGMENT_SIZE + SEGMENT_LINE] < endLine; segment++) {
+        updatePrevious(collector.segments, segment * SEGMENT_SIZE, previous);
+      }
+      chunks.add(new LineEncoder(
+          collector.segments, startSegment, segment, line, endLine, startPrevious));
+    }
+
+    out.append('\"');
+    if (chunks.size() == 1) {
+      chunks.get(0).encode(out);
+    } else {
+      for (String chunk : encodingRunner.runAll(chunks)) {
+        out.append(chunk);
+      }
+    }
+    out.append('\"');
+  }
+
+  /**
+   * Records the source values of the segment at the given offset as the
+   * values that the next segments are relative to.
+   */
+  private static void updatePrevious(int[] segments, int offset, int[] previous) {
+    if (segments[offset + SEGMENT_SOURCE] != UNMAPPED) {
+      previous[SEGMENT_SOURCE] = segments[offset + SEGMENT_SOURCE];
+      previous[SEGMENT_SOURCE_LINE] = segments[offset + SEGMENT_SOURCE_LINE];
+      previous[SEGMENT_SOURCE_COLUMN] = segments[offset + SEGMENT_SOURCE_COLUMN];
+      if (segments[offset + SEGMENT_NAME] != UNMAPPED) {
+        previous[SEGMENT_NAME] = segments[offset + SEGMENT_NAME];
+      }
+    }
+  }
 
-    private int previousLine = -1;
-    private int previousColumn = 0;
+  /**
+   * Collects the segments to write, with absolute values, and the number of
+   * the last line.
+   */
+  private class SegmentCollector implements MappingVisitor {
+    private final int maxLine; // TODO(johnlenz): This shouldn't be necessary to track.
 
-    // Previous values used for storing relative ids.
-    private int previousSourceFileId;
-    private int previousSourceLine;
-    private int previousSourceColumn;
-    private int previousNameId;
+    private int[] segments = new int[SEGMENT_SIZE * 64];
+    private int size = 0;
+    private int lastLine = 0;
 
-    LineMapper(Appendable out, int maxLine) {
-      this.out = out;
+    SegmentCollector(int maxLine) {
       this.maxLine = maxLine;
     }
 
-    /**
-     * As each segment is visited write out the appropriate line mapping.
-     */
     @Override
-    public void visit(Mapping m, int line, int col, int nextLine, int nextCol)
-      throws IOException {
-      if (previousLine != line) {
-        previousColumn = 0;
-      }
-
+    public void visit(Mapping m, int line, int col, int nextLine, int nextCol) {
       if (line != nextLine || col != nextCol) {
         // TODO(johnlenz): For some reason, we have mappings beyond the max line.
         // So far they're just null mappings and we can ignore them.
         // (If they're non-null, we assert-fail.)
         if (line < maxLine) {
-          if (previousLine == line) { // not the first entry for the line
-            out.append(',');
-          }
-          writeEntry(m, col);
-          previousLine = line;
-          previousColumn = col;
+          add(m, line, col);
         } else {
           Preconditions.checkState(m == null);
         }
       }
 
-      for (int i = line; i <= nextLine && i < maxLine; i++) {
-        if (i == nextLine) {
-          break;
-        }
-
-        closeLine(false);
-        openLine(false);
+      if (line < maxLine) {
+        lastLine += Math.min(nextLine, maxLine) - line;
       }
     }
 
-    /**
-     * Writes an entry for the given column (of the generated text) and
-     * associated mapping.
-     * The values are stored as relative to the last seen values for each
-     * field and encoded as Base64VLQs.
-     */
-    void writeEntry(Mapping m, int column) throws IOException {
-      // The relative generated column number
-      Base64VLQ.encode(out, column - previousColumn);
-      previousColumn = column;
+    private void add(Mapping m, int line, int col) {
+      if ((size + 1) * SEGMENT_SIZE > segments.length) {
+        segments = Arrays.copyOf(segments, segments.length * 2);
+      }
+      int offset = size * SEGMENT_SIZE;
+      segments[offset + SEGMENT_LINE] = line;
+      segments[offset + SEGMENT_COLUMN] = col;
       if (m != null) {
-        // The relative source file id
-        int sourceId = getSourceId(m.sourceFile);
-        Base64VLQ.encode(out, sourceId - previousSourceFileId);
-        previousSourceFileId = sourceId;
-
-        // The relative source file line and column
-        int srcline = m.originalPosition.getLine();
-        int srcColumn = m.originalPosition.getColumn();
-        Base64VLQ.encode(out, srcline - previousSourceLine);
-        previousSourceLine = srcline;
-
-        Base64VLQ.encode(out, srcColumn - previousSourceColumn);
-        previousSourceColumn = srcColumn;
-
-        if (m.originalName != null) {
-          // The relative id for the associated symbol name
-          int nameId = getNameId(m.originalName);
-          Base64VLQ.encode(out, (nameId - previousNameId));
-          previousNameId = nameId;
-        }
+        segments[offset + SEGMENT_SOURCE] = getSourceId(m.sourceFile);
+        segments[offset + SEGMENT_SOURCE_LINE] = m.originalPosition.getLine();
+        segments[offset + SEGMENT_SOURCE_COLUMN] = m.originalPosition.getColumn();
+        segments[offset + SEGMENT_NAME] =
+            m.originalName != null ? getNameId(m.originalName) : UNMAPPED;
+      } else {
+        segments[offset + SEGMENT_SOURCE] = UNMAPPED;
+        segments[offset + SEGMENT_SOURCE_LINE] = UNMAPPED;
+        segments[offset + SEGMENT_SOURCE_COLUMN] = UNMAPPED;
+        segments[offset + SEGMENT_NAME] = UNMAPPED;
       }
+      size++;
     }
+  }
 
-    // Append the line mapping entries.
-    void appendLineMappings() throws IOException {
-      // Start the first line.
-      openLine(true);
-
-      (new MappingTraversal()).traverse(this);
+  /**
+   * Encodes the collected segments of a range of lines. Only reads the
+   * segments, so chunks can be encoded concurrently.
+   */
+  private static final class LineEncoder implements Callable<String> {
+    private final int[] segments;
+    private final int startSegment;
+    private final int endSegment;
+    private final int startLine;
+    private final int endLine;
+
+    // The values of the last mapped segment before the range, which the
+    // values of the first mapped segment of the range are relative to.
+    private final int[] previous;
+
+    LineEncoder(int[] segments, int startSegment, int endSegment, int startLine, int endLine,
+        int[] previous) {
+      this.segments = segments;
+      this.startSegment = startSegment;
+      this.endSegment = endSegment;
+      this.startLine = startLine;
+      this.endLine = endLine;
+      this.previous = previous;
+    }
 
-      // And close the final line.
-      closeLine(true);
+    @Override
+    public String call() throws IOException {
+      StringBuilder sb = new StringBuilder();
+      encode(sb);
+      return sb.toString();
     }
 
     /**
-     * Begin the entry for a new line.
+     * Writes the segments of each line separated by commas, and ends each
+     * line with a semicolon.
      */
-    private void openLine(boolean firstEntry) throws IOException {
-      if (firstEntry) {
-        out.append('\"');
+    void encode(Appendable out) throws IOException {
+      int[] previous = this.previous.clone();
+      int segment = startSegment;
+      for (int line = startLine; line < endLine; line++) {
+        // Only the generated column is relative to the previous segment of
+        // the same line.
+        int previousColumn = 0;
+        for (boolean first = true;
+            segment < endSegment && segments[segment * SEGMENT_SIZE + SEGMENT_LINE] == line;
+            segment++, first = false) {
+          if (!first) {
+            out.append(',');
+          }
+          previousColumn = writeEntry(out, segment * SEGMENT_SIZE, previousColumn, previous);
+        }
+        out.append(';');
       }
     }
 
     /**
-     * End the entry for a line.
+     * Writes an entry for the segment at the given offset. The values are
+     * stored as relative to the last seen values for each field and encoded
+     * as Base64VLQs.
+     *
+     * @return The generated column of the segment.
      */
-    private void closeLine(boolean finalEntry) throws IOException {
-      out.append(';');
-      if (finalEntry) {
-        out.append('\"');
+    private int writeEntry(Appendable out, int offset, int previousColumn, int[] previous)
+        throws IOException {
+      // The relative generated column number
+      int column = segments[offset + SEGMENT_COLUMN];
+      Base64VLQ.encode(out, column - previousColumn);
+      if (segments[offset + SEGMENT_SOURCE] != UNMAPPED) {
+        // The relative source file id, and source file line and column
+        Base64VLQ.encode(out, segments[offset + SEGMENT_SOURCE] - previous[SEGMENT_SOURCE]);
+        Base64VLQ.encode(
+            out, segments[offset + SEGMENT_SOURCE_LINE] - previous[SEGMENT_SOURCE_LINE]);
+        Base64VLQ.encode(
+            out, segments[offset + SEGMENT_SOURCE_COLUMN] - previous[SEGMENT_SOURCE_COLUMN]);
+
+        if (segments[offset + SEGMENT_NAME] != UNMAPPED) {
+          // The relative id for the associated symbol name
+          Base64VLQ.encode(out, segments[offset + SEGMENT_NAME] - previous[SEGMENT_NAME]);
+        }
+        updatePrevious(segments, offset, previous);
       }
+      return column;
     }
   }
-
 }
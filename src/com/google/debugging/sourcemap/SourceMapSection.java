@@ -27,13 +27,15 @@ public final class SourceMapSection {
    * source file such as when multiple files are concatenated together.
    */
   private final String value;
+  private final SourceMapGenerator generator;
   private final int line;
   private final int column;
   private final SectionType type;
 
   public static enum SectionType {
     URL,
-    MAP
+    MAP,
+    GENERATOR
   }
 
   /**
@@ -48,24 +50,35 @@ public final class SourceMapSection {
   public SourceMapSection(String sectionUrl, int line, int column) {
     this.type = SectionType.URL;
     this.value = sectionUrl;
+    this.generator = null;
     this.line = line;
     this.column = column;
   }
 
   private SourceMapSection(
-      SectionType type, String value, int line, int column) {
+      SectionType type, String value, SourceMapGenerator generator, int line, int column) {
     this.type = type;
     this.value = value;
+    this.generator = generator;
     this.line = line;
     this.column = column;
   }
 
   public static SourceMapSection forMap(String value, int line, int column) {
-    return new SourceMapSection(SectionType.MAP, value, line, column);
+    return new SourceMapSection(SectionType.MAP, value, null, line, column);
   }
 
   public static SourceMapSection forURL(String value, int line, int column) {
-    return new SourceMapSection(SectionType.URL, value, line, column);
+    return new SourceMapSection(SectionType.URL, value, null, line, column);
+  }
+
+  /**
+   * A section whose map is appended by the generator when the index map is
+   * appended, instead of being serialized to a string first.
+   */
+  public static SourceMapSection forGenerator(
+      SourceMapGenerator generator, int line, int column) {
+    return new SourceMapSection(SectionType.GENERATOR, null, generator, line, column);
   }
 
   public SectionType getSectionType() {
@@ -79,6 +92,14 @@ public final class SourceMapSection {
     return value;
   }
 
+  /**
+   * @return the generator of the map for this section, if it is a
+   *    {@code GENERATOR} section.
+   */
+  public SourceMapGenerator getGenerator() {
+    return generator;
+  }
+
   /**
    * @return the starting line for this section
    */
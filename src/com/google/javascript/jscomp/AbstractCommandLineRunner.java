@@ -31,6 +31,8 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
+import com.google.debugging.sourcemap.SourceMapComposer;
+import com.google.debugging.sourcemap.SourceMapParseException;
 import com.google.gson.Gson;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
@@ -169,6 +171,14 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
   private final List<JsonFileSpec> filesToStreamOut = new ArrayList<>();
 
+  // Composes the --source_map_input maps with the output source maps when
+  // --compose_input_source_maps is set. Created when the first map is written.
+  private SourceMapComposer sourceMapComposer = null;
+
+  // Shared with other runners by a CommandLineServer, null otherwise.
+  private Map<CompilerOptions.Environment, List<SourceFile>> builtinExternsCache = null;
+  private ParseCache sharedParseCache = null;
+
   AbstractCommandLineRunner() {
     this(System.in, System.out, System.err);
   }
@@ -321,6 +331,10 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
    * then you should override this method.
    */
   protected void setRunOptions(CompilerOptions options) throws IOException {
+    if (sharedParseCache != null && options.getParseCache() == null) {
+      options.setParseCache(sharedParseCache);
+    }
+
     DiagnosticGroups diagnosticGroups = getDiagnosticGroups();
 
     setWarningGuardOptions(options, config.warningGuards, diagnosticGroups);
@@ -385,11 +399,15 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
     ImmutableMap.Builder<String, SourceMapInput> inputSourceMaps
         = new ImmutableMap.Builder<>();
-    for (Map.Entry<String, String> files :
-             config.sourceMapInputFiles.entrySet()) {
-      SourceFile sourceMap = SourceFile.fromFile(files.getValue());
-      inputSourceMaps.put(
-          files.getKey(), new SourceMapInput(sourceMap));
+    // Input maps that are composed with the output maps are not parsed here,
+    // see appendSourceMap.
+    if (!config.composeInputSourceMaps) {
+      for (Map.Entry<String, String> files :
+               config.sourceMapInputFiles.entrySet()) {
+        SourceFile sourceMap = SourceFile.fromFile(files.getValue());
+        inputSourceMaps.put(
+            files.getKey(), new SourceMapInput(sourceMap));
+      }
     }
     options.inputSourceMaps = inputSourceMaps.build();
 
@@ -480,6 +498,37 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     return DefaultExterns.prepareExterns(env, mapFromExternsZip);
  }
 
+  /**
+   * Shares the built-in externs and parse results between the compilations of
+   * the runners given the same caches, see {@link CommandLineServer}. The
+   * parse cache is only used if the options don't specify another one.
+   */
+  void shareCaches(
+      Map<CompilerOptions.Environment, List<SourceFile>> builtinExternsCache,
+      ParseCache parseCache) {
+    this.builtinExternsCache = Preconditions.checkNotNull(builtinExternsCache);
+    this.sharedParseCache = Preconditions.checkNotNull(parseCache);
+  }
+
+  /**
+   * Like {@link #getBuiltinExterns}, but reads the externs only once for all
+   * runners that share their caches.
+   */
+  protected List<SourceFile> loadBuiltinExterns(CompilerOptions.Environment env)
+      throws IOException {
+    if (builtinExternsCache == null) {
+      return getBuiltinExterns(env);
+    }
+    synchronized (builtinExternsCache) {
+      List<SourceFile> externs = builtinExternsCache.get(env);
+      if (externs == null) {
+        externs = ImmutableList.copyOf(getBuiltinExterns(env));
+        builtinExternsCache.put(env, externs);
+      }
+      return new ArrayList<>(externs);
+    }
+  }
+
   /**
    * Runs the Compiler and calls System.exit() with the exit status of the
    * compiler.
@@ -912,11 +961,51 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
     String fileName = getModuleOutputFileName(m);
     String baseName = new File(fileName).getName();
-    writeOutput(out, compiler, compiler.toSource(m),
+    writeOutput(out, compiler, m,
         parsedModuleWrappers.get(m.getName()).replace("%basename%", baseName),
         "%s", null);
   }
 
+  /**
+   * Writes the code of a module, or of all modules if it is null, to an
+   * output stream like {@link #writeOutput(Appendable, Compiler, String,
+   * String, String, Function)}. Unless the code has to be escaped, it is
+   * written as it is generated instead of being built in memory first.
+   */
+  static void writeOutput(Appendable out, Compiler compiler, @Nullable JSModule module,
+      String wrapper, String codePlaceholder,
+      @Nullable Function<String, String> escaper)
+      throws IOException {
+    if (escaper != null || compiler.getOptions().outputJs != OutputJs.NORMAL) {
+      writeOutput(out, compiler,
+          compiler.getOptions().outputJs != OutputJs.NORMAL ? ""
+              : module == null ? compiler.toSource() : compiler.toSource(module),
+          wrapper, codePlaceholder, escaper);
+      return;
+    }
+
+    int pos = wrapper.indexOf(codePlaceholder);
+    String prefix = pos == -1 ? "" : wrapper.substring(0, pos);
+    out.append(prefix);
+    if (module == null) {
+      compiler.toSource(out);
+    } else {
+      compiler.toSource(module, out);
+    }
+    if (pos != -1) {
+      int suffixStart = pos + codePlaceholder.length();
+      out.append(wrapper.substring(suffixStart));
+    }
+    // Make sure we always end output with a line feed.
+    out.append('\n');
+
+    // If we have a source map, adjust its offsets to match
+    // the code WITHIN the wrapper.
+    if (pos != -1 && compiler.getSourceMap() != null) {
+      compiler.getSourceMap().setWrapperPrefix(prefix);
+    }
+  }
+
   /**
    * Writes code to an output stream, optionally wrapping it in an arbitrary
    * wrapper that contains a placeholder where the code should be inserted.
@@ -1219,7 +1308,7 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
       Appendable jsOutput = createDefaultOutput();
       writeOutput(
-          jsOutput, compiler, compiler.toSource(), config.outputWrapper,
+          jsOutput, compiler, (JSModule) null, config.outputWrapper,
           marker, escaper);
       closeAppendable(jsOutput);
     }
@@ -1242,7 +1331,7 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
     if (!Strings.isNullOrEmpty(options.sourceMapOutputPath)) {
       StringBuilder sourcemap = new StringBuilder();
-      compiler.getSourceMap().appendTo(sourcemap, jsonOutput.getPath());
+      appendSourceMap(sourcemap, jsonOutput.getPath());
       jsonOutput.setSourceMap(sourcemap.toString());
     }
 
@@ -1302,7 +1391,7 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
           }
           writeModuleOutput(writer, m);
           if (options.sourceMapOutputPath != null) {
-            compiler.getSourceMap().appendTo(mapFileOut, moduleFilename);
+            appendSourceMap(mapFileOut, moduleFilename);
           }
         }
 
@@ -1331,8 +1420,7 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
     StringBuilder moduleSourceMap = new StringBuilder();
 
-    compiler.getSourceMap().appendTo(moduleSourceMap,
-        getModuleOutputFileName(module));
+    appendSourceMap(moduleSourceMap, getModuleOutputFileName(module));
 
     jsonFile.setSourceMap(moduleSourceMap.toString());
 
@@ -1554,7 +1642,40 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     String outName = expandSourceMapPath(options, null);
     maybeCreateDirsForPath(outName);
     try (Writer out = fileNameToOutputWriter2(outName)) {
-      compiler.getSourceMap().appendTo(out, associatedName);
+      appendSourceMap(out, associatedName);
+    }
+  }
+
+  /**
+   * Appends the source map found in the compiler to {@code out}. With
+   * --compose_input_source_maps, the --source_map_input maps are applied to it
+   * by a {@link SourceMapComposer}, which reads them from memory mapped files
+   * instead of parsing them.
+   *
+   * @param name The name of the file that the source map represents.
+   */
+  private void appendSourceMap(Appendable out, String name) throws IOException {
+    SourceMap sourceMap = compiler.getSourceMap();
+    if (!config.composeInputSourceMaps) {
+      sourceMap.appendTo(out, name);
+      return;
+    }
+
+    try {
+      if (sourceMapComposer == null) {
+        sourceMapComposer = new SourceMapComposer();
+        for (Map.Entry<String, String> files : config.sourceMapInputFiles.entrySet()) {
+          // The sources of the output map have the location mappings applied.
+          sourceMapComposer.addInputMap(
+              sourceMap.fixupSourceLocation(files.getKey()), new File(files.getValue()));
+        }
+      }
+      StringBuilder outputMap = new StringBuilder();
+      sourceMap.appendTo(outputMap, name);
+      sourceMapComposer.compose(
+          outputMap.toString(), out, sourceMap.fixupSourceLocation(name));
+    } catch (SourceMapParseException e) {
+      throw new FlagUsageException("Bad --source_map_input flag. " + e.getMessage());
     }
   }
 
@@ -2262,6 +2383,19 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       return this;
     }
 
+    private boolean composeInputSourceMaps = false;
+
+    /**
+     * Whether to apply the input source map files to the output source maps
+     * after compiling rather than while generating them. The input maps are
+     * then memory mapped and only the parts that the output maps point into
+     * are decoded, which suits chained builds with large input maps.
+     */
+    public CommandLineConfig setComposeInputSourceMaps(boolean composeInputSourceMaps) {
+      this.composeInputSourceMaps = composeInputSourceMaps;
+      return this;
+    }
+
     private ArrayList<FlagEntry<CheckLevel>> warningGuards = new ArrayList<>();
 
     /**
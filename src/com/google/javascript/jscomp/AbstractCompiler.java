@@ -30,10 +30,12 @@ import com.google.javascript.rhino.InputId;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.TypeIRegistry;
 import com.google.javascript.rhino.jstype.JSTypeRegistry;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import javax.annotation.Nullable;
 
 /**
@@ -270,9 +272,42 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
   /** True iff a function changed since the last time a pass was run */
   abstract boolean hasScopeChanged(Node n);
 
+  /**
+   * Records how many of the nodes walked by a
+   * {@link NodeTraversal#traverseChangedScopes} traversal were visited.
+   */
+  abstract void recordChangedScopesTraversal(int visitedNodes, int totalNodes);
+
   /** Passes that do cross-scope modifications use this (eg, InlineVariables) */
   abstract void reportChangeToEnclosingScope(Node n);
 
+  /**
+   * Like {@link #reportChangeToEnclosingScope}, but for a change to the given
+   * function or script itself, as found by {@link PhaseOptimizer#getEnclosingScope}.
+   */
+  abstract void reportChangeToChangeScope(Node changeScopeRoot);
+
+  /**
+   * Runs the tasks on at most {@code numThreads} worker threads and waits for
+   * all of them to finish. The tasks must not call back into the compiler
+   * except to read its state.
+   *
+   * @return the results of the tasks, in the order of the tasks.
+   */
+  abstract <T> List<T> runInParallel(List<? extends Callable<T>> tasks, int numThreads);
+
+  /**
+   * Like {@link #runInParallel(List, int)}, but runs each task after the tasks
+   * it depends on.
+   *
+   * @param dependencies for each task, the indices of the earlier tasks that
+   *     must finish before it starts.
+   */
+  abstract <T> List<T> runInParallel(
+      List<? extends Callable<T>> tasks,
+      List<? extends Collection<Integer>> dependencies,
+      int numThreads);
+
   /**
    * Represents the different contexts for which the compiler could have
    * distinct configurations.
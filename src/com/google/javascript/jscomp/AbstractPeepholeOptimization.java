@@ -17,7 +17,9 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
+import com.google.javascript.jscomp.PeepholeOptimizationsPass.ScriptLog;
 import com.google.javascript.rhino.Node;
+import javax.annotation.Nullable;
 
 /**
  * An abstract class whose implementations run peephole optimizations:
@@ -29,6 +31,10 @@ abstract class AbstractPeepholeOptimization {
 
   private AbstractCompiler compiler;
 
+  // Set while the optimization runs on a worker thread. Changes and errors
+  // are then recorded here, and reported to the compiler later.
+  @Nullable private ScriptLog scriptLog;
+
   /**
    * Given a node to optimize and a traversal, optimize the node. Subclasses
    * should override to provide their own peephole optimization.
@@ -49,7 +55,11 @@ abstract class AbstractPeepholeOptimization {
    */
   protected void report(DiagnosticType diagnostic, Node n) {
     JSError error = JSError.make(n, diagnostic, n.toString());
-    compiler.report(error);
+    if (scriptLog != null) {
+      scriptLog.report(error);
+    } else {
+      compiler.report(error);
+    }
   }
 
   /**
@@ -58,7 +68,24 @@ abstract class AbstractPeepholeOptimization {
    */
   protected void reportCodeChange() {
     Preconditions.checkNotNull(compiler);
-    compiler.reportCodeChange();
+    if (scriptLog != null) {
+      scriptLog.reportChange();
+    } else {
+      compiler.reportCodeChange();
+    }
+  }
+
+  /**
+   * Helper method for telling the compiler that the function or script
+   * containing {@code n} has changed.
+   */
+  protected void reportChangeToEnclosingScope(Node n) {
+    Preconditions.checkNotNull(compiler);
+    if (scriptLog != null) {
+      scriptLog.reportChangeToEnclosingScope(n);
+    } else {
+      compiler.reportChangeToEnclosingScope(n);
+    }
   }
 
   /**
@@ -90,12 +117,22 @@ abstract class AbstractPeepholeOptimization {
     this.compiler = compiler;
   }
 
+  /**
+   * Informs the optimization that a traversal of a single script will begin
+   * on a worker thread, and that changes and errors go to {@code log}.
+   */
+  void beginTraversal(AbstractCompiler compiler, ScriptLog log) {
+    this.compiler = compiler;
+    this.scriptLog = log;
+  }
+
   /**
    * Informs the optimization that a traversal has completed.
    * @param compiler The current compiler.
    */
   void endTraversal(AbstractCompiler compiler) {
     this.compiler = null;
+    this.scriptLog = null;
   }
 
   // NodeUtil's mayEffectMutableState and mayHaveSideEffects need access to the
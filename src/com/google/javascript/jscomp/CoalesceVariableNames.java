@@ -24,14 +24,14 @@ import com.google.javascript.jscomp.DataFlowAnalysis.FlowState;
 import com.google.javascript.jscomp.LiveVariablesAnalysis.LiveVariableLattice;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.jscomp.NodeTraversal.ScopedCallback;
+import com.google.javascript.jscomp.graph.AdjacencyMatrixGraph;
 import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
 import com.google.javascript.jscomp.graph.GraphColoring;
 import com.google.javascript.jscomp.graph.GraphColoring.GreedyGraphColoring;
 import com.google.javascript.jscomp.graph.GraphNode;
-import com.google.javascript.jscomp.graph.LinkedUndirectedGraph;
-import com.google.javascript.jscomp.graph.UndiGraph;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.LinkedList;
@@ -57,6 +57,13 @@ import java.util.TreeSet;
 class CoalesceVariableNames extends AbstractPostOrderCallback implements
     CompilerPass, ScopedCallback {
 
+  /**
+   * Functions with more variables than this are skipped. The interference
+   * graph takes a bit per pair of variables, and coloring it takes time
+   * quadratic in the number of variables.
+   */
+  static final int MAX_VARIABLES_TO_COALESCE = 5000;
+
   private final AbstractCompiler compiler;
   private final Deque<GraphColoring<Var, Void>> colorings;
   private final boolean usePseudoNames;
@@ -95,7 +102,7 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
       return false;
     }
 
-    return LiveVariablesAnalysis.MAX_VARIABLES_TO_ANALYZE >= scope.getVarCount();
+    return MAX_VARIABLES_TO_COALESCE >= scope.getVarCount();
   }
 
   @Override
@@ -120,7 +127,7 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
     }
     liveness.analyze();
 
-    UndiGraph<Var, Void> interferenceGraph =
+    AdjacencyMatrixGraph<Var> interferenceGraph =
         computeVariableNamesInterferenceGraph(
             t, cfg, (Set<Var>) liveness.getEscapedLocals());
 
@@ -201,13 +208,14 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
     }
   }
 
-  private UndiGraph<Var, Void> computeVariableNamesInterferenceGraph(
+  private AdjacencyMatrixGraph<Var> computeVariableNamesInterferenceGraph(
       NodeTraversal t, ControlFlowGraph<Node> cfg, Set<Var> escaped) {
-    UndiGraph<Var, Void> interferenceGraph =
-        LinkedUndirectedGraph.create();
     Scope scope = t.getScope();
+    AdjacencyMatrixGraph<Var> interferenceGraph =
+        AdjacencyMatrixGraph.create(scope.getVarCount());
 
     // First create a node for each non-escaped variable.
+    BitSet params = new BitSet();
     for (Var v : scope.getVarIterable()) {
       if (!escaped.contains(v)) {
 
@@ -218,112 +226,69 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
         // that is but, for now, we will respect the dead functions and not play
         // around with it.
         if (!v.getParentNode().isFunction()) {
-          interferenceGraph.createNode(v);
+          interferenceGraph.createNode(v.index, v);
+          if (v.getParentNode().isParamList()) {
+            params.set(v.index);
+          }
         }
       }
     }
+    interferenceGraph.connectAll(params);
+
+    // Connect the variables that are live at the same time, that is, every
+    // pair of variables of each live set. The pairs of the previous live set
+    // are connected already, so only the variables that are not in it need to
+    // be connected to the rest of the set; neighboring live sets differ by a
+    // few variables, which keeps this linear in the size of the function.
+    BitSet previous = new BitSet();
+    BitSet added = new BitSet();
+    for (DiGraphNode<Node, Branch> cfgNode : cfg.getDirectedGraphNodes()) {
+      if (cfg.isImplicitReturn(cfgNode)) {
+        continue;
+      }
 
-    // Go through each variable and try to connect them.
-    for (Var v1 : scope.getVarIterable()) {
-
-      NEXT_VAR_PAIR:
-      for (Var v2 : scope.getVarIterable()) {
-        // Skip duplicate pairs.
-        if (v1.index >= v2.index) {
-          continue;
-        }
-
-        if (!interferenceGraph.hasNode(v1) || !interferenceGraph.hasNode(v2)) {
-          // Skip nodes that were not added. They are globals and escaped
-          // locals. Also avoid merging a variable with itself.
-          continue NEXT_VAR_PAIR;
-        }
-
-        if (v1.getParentNode().isParamList() && v2.getParentNode().isParamList()) {
-          interferenceGraph.connectIfNotFound(v1, null, v2);
-          continue NEXT_VAR_PAIR;
-        }
-
-        // Go through every CFG node in the program and look at
-        // this variable pair. If they are both live at the same
-        // time, add an edge between them and continue to the next pair.
-        NEXT_CROSS_CFG_NODE:
-        for (DiGraphNode<Node, Branch> cfgNode : cfg.getDirectedGraphNodes()) {
-          if (cfg.isImplicitReturn(cfgNode)) {
-            continue NEXT_CROSS_CFG_NODE;
-          }
-
-          FlowState<LiveVariableLattice> state = cfgNode.getAnnotation();
-          // Check the live states and add edge when possible.
-          if ((state.getIn().isLive(v1) && state.getIn().isLive(v2))
-              || (state.getOut().isLive(v1) && state.getOut().isLive(v2))) {
-            interferenceGraph.connectIfNotFound(v1, null, v2);
-            continue NEXT_VAR_PAIR;
-          }
-        }
-
-        // v1 and v2 might not have an edge between them! woohoo. there's
-        // one last sanity check that we have to do: we have to check
-        // if there's a collision *within* the cfg node.
-        NEXT_INTRA_CFG_NODE:
-        for (DiGraphNode<Node, Branch> cfgNode : cfg.getDirectedGraphNodes()) {
-          if (cfg.isImplicitReturn(cfgNode)) {
-            continue NEXT_INTRA_CFG_NODE;
-          }
+      FlowState<LiveVariableLattice> state = cfgNode.getAnnotation();
+      BitSet in = state.getIn().getLiveSet();
+      BitSet out = state.getOut().getLiveSet();
+      connectLiveSet(interferenceGraph, in, previous, added);
+      connectLiveSet(interferenceGraph, out, in, added);
+      previous = out;
+    }
 
-          FlowState<LiveVariableLattice> state = cfgNode.getAnnotation();
-          boolean v1OutLive = state.getOut().isLive(v1);
-          boolean v2OutLive = state.getOut().isLive(v2);
-          CombinedLiveRangeChecker checker = new CombinedLiveRangeChecker(
-              new LiveRangeChecker(v1, v2OutLive ? null : v2),
-              new LiveRangeChecker(v2, v1OutLive ? null : v1));
-          NodeTraversal.traverse(
-              compiler,
-              cfgNode.getValue(),
-              checker);
-          if (checker.connectIfCrossed(interferenceGraph)) {
-            continue NEXT_VAR_PAIR;
-          }
-        }
+    // There's one last check that we have to do: we have to check if there's
+    // a collision *within* the cfg node.
+    for (DiGraphNode<Node, Branch> cfgNode : cfg.getDirectedGraphNodes()) {
+      if (cfg.isImplicitReturn(cfgNode)) {
+        continue;
       }
+
+      FlowState<LiveVariableLattice> state = cfgNode.getAnnotation();
+      NodeTraversal.traverse(
+          compiler,
+          cfgNode.getValue(),
+          new LiveRangeChecker(scope, interferenceGraph, state.getOut().getLiveSet()));
     }
     return interferenceGraph;
   }
 
   /**
-   * A simple wrapper calls to call two AbstractCfgNodeTraversalCallback
-   * callback during the same traversal.  Both traversals must have the same
-   * "shouldTraverse" conditions.
+   * Connects every pair of variables of a live set, given another live set
+   * whose pairs are connected already.
+   *
+   * @param added A scratch set for the variables that are only in the live set.
    */
-  private static class CombinedLiveRangeChecker
-      extends AbstractCfgNodeTraversalCallback {
-
-    private final LiveRangeChecker callback1;
-    private final LiveRangeChecker callback2;
-
-    CombinedLiveRangeChecker(
-        LiveRangeChecker callback1,
-        LiveRangeChecker callback2) {
-      this.callback1 = callback1;
-      this.callback2 = callback2;
-    }
-
-    @Override
-    public void visit(NodeTraversal t, Node n, Node parent) {
-      if (LiveRangeChecker.shouldVisit(n)) {
-        callback1.visit(t, n, parent);
-        callback2.visit(t, n, parent);
-      }
+  private static void connectLiveSet(AdjacencyMatrixGraph<Var> interferenceGraph,
+      BitSet liveSet, BitSet connected, BitSet added) {
+    if (liveSet == connected) {
+      return;
     }
-
-    boolean connectIfCrossed(UndiGraph<Var, Void> interferenceGraph) {
-      if (callback1.crossed || callback2.crossed) {
-        Var v1 = callback1.getDef();
-        Var v2 = callback2.getDef();
-        interferenceGraph.connectIfNotFound(v1, null, v2);
-        return true;
+    added.clear();
+    added.or(liveSet);
+    added.andNot(connected);
+    for (int i = added.nextSetBit(0); i >= 0; i = added.nextSetBit(i + 1)) {
+      if (interferenceGraph.hasNode(i)) {
+        interferenceGraph.connectToAll(i, liveSet);
       }
-      return false;
     }
   }
 
@@ -365,67 +330,81 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
     }
   }
 
+  /**
+   * Connects the variables whose live ranges cross within a CFG node: a
+   * variable that is assigned in the node interferes with the variables that
+   * are live out of the node, and with the variables that are read after the
+   * assignment.
+   */
   private static class LiveRangeChecker
       extends AbstractCfgNodeTraversalCallback {
-    boolean defFound = false;
-    boolean crossed = false;
-    private final Var def;
-    private final Var use;
-
-    public LiveRangeChecker(Var def, Var use) {
-      this.def = def;
-      this.use = use;
-    }
-
-    Var getDef() {
-      return def;
-    }
-
-    /**
-     * @return Whether any LiveRangeChecker would be interested in the node.
-     */
-    public static boolean shouldVisit(Node n) {
-      return (n.isName()
-        || (n.hasChildren() && n.getFirstChild().isName()));
+    private final Scope scope;
+    private final AdjacencyMatrixGraph<Var> interferenceGraph;
+    private final BitSet liveOut;
+    // The variables that have been assigned so far in the node.
+    private final BitSet assigned = new BitSet();
+
+    LiveRangeChecker(
+        Scope scope, AdjacencyMatrixGraph<Var> interferenceGraph, BitSet liveOut) {
+      this.scope = scope;
+      this.interferenceGraph = interferenceGraph;
+      this.liveOut = liveOut;
     }
 
     @Override
     public void visit(NodeTraversal t, Node n, Node parent) {
-      if (!defFound && isAssignTo(def, n, parent)) {
-        defFound = true;
+      Var def = getAssignedVar(n, parent);
+      if (def != null && !assigned.get(def.index)) {
+        assigned.set(def.index);
+        interferenceGraph.connectToAll(def.index, liveOut);
       }
 
-      if (defFound && (use == null || isReadFrom(use, n))) {
-        crossed = true;
+      Var use = getReadVar(n);
+      if (use != null && !assigned.isEmpty()) {
+        interferenceGraph.connectToAll(use.index, assigned);
       }
     }
 
-    private static boolean isAssignTo(Var var, Node n, Node parent) {
+    /**
+     * Returns the variable that is assigned at {@code n}, if it is a node of
+     * the interference graph.
+     */
+    private Var getAssignedVar(Node n, Node parent) {
       if (n.isName()) {
-        if (var.getName().equals(n.getString()) && parent != null) {
+        if (parent != null) {
           if (parent.isParamList()) {
             // In a function declaration, the formal parameters are assigned.
-            return true;
-          } else if (parent.isVar()) {
+            return getGraphVar(n);
+          } else if (parent.isVar() && n.hasChildren()) {
             // If this is a VAR declaration, if the name node has a child, we are
             // assigning to that name.
-            return n.hasChildren();
+            return getGraphVar(n);
           }
         }
       } else if (NodeUtil.isAssignmentOp(n)) {
         // Lastly, any assignmentOP is also an assign.
         Node name = n.getFirstChild();
-        return name != null && name.isName()
-            && var.getName().equals(name.getString());
+        if (name != null && name.isName()) {
+          return getGraphVar(name);
+        }
+      }
+      return null; // Definitely a read.
+    }
+
+    /**
+     * Returns the variable that is read at {@code n}, if it is a node of the
+     * interference graph.
+     */
+    private Var getReadVar(Node n) {
+      if (n.isName() && !NodeUtil.isVarOrSimpleAssignLhs(n, n.getParent())) {
+        return getGraphVar(n);
       }
-      return false; // Definitely a read.
+      return null;
     }
 
-    private static boolean isReadFrom(Var var, Node name) {
-      return name != null
-          && name.isName()
-          && var.getName().equals(name.getString())
-          && !NodeUtil.isVarOrSimpleAssignLhs(name, name.getParent());
+    private Var getGraphVar(Node name) {
+      Var var = scope.getOwnSlot(name.getString());
+      return var != null && interferenceGraph.hasNode(var.index) ? var : null;
     }
   }
 }
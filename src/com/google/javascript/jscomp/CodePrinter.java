@@ -16,6 +16,7 @@
 
 package com.google.javascript.jscomp;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
@@ -31,6 +32,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
+import javax.annotation.Nullable;
 
 /**
  * CodePrinter prints out JS code in either pretty format or compact format.
@@ -45,20 +47,39 @@ public final class CodePrinter {
   // potentially has a very different implementation to the pretty
   // version.
 
+  /** The number of characters to accumulate before writing them to the output. */
+  @VisibleForTesting
+  static final int FLUSH_THRESHOLD = 1 << 16;
+
   private abstract static class MappedCodePrinter extends CodeConsumer {
     private final Deque<Mapping> mappings;
     private final List<Mapping> allMappings;
     private final boolean createSrcMap;
     private final SourceMap.DetailLevel sourceMapDetailLevel;
+    /**
+     * The code that has not been written to {@link #out} yet. Positions in the
+     * code count from the start of the output, so they are offset by
+     * {@link #flushedLength} in this buffer.
+     */
     protected final StringBuilder code = new StringBuilder(1024);
     protected final int lineLengthThreshold;
     protected int lineLength = 0;
     protected int lineIndex = 0;
 
+    // Where the code goes once it can no longer change, or null to keep it in
+    // the buffer.
+    @Nullable private final Appendable out;
+    private int flushedLength = 0;
+    private char lastFlushedChar = '\0';
+    // The lengths of the lines written to the output, for the source map.
+    private final List<Integer> flushedLineLengths;
+    private int flushedLineStart = 0;
+
     MappedCodePrinter(
         int lineLengthThreshold,
         boolean createSrcMap,
-        SourceMap.DetailLevel sourceMapDetailLevel) {
+        SourceMap.DetailLevel sourceMapDetailLevel,
+        @Nullable Appendable out) {
       Preconditions.checkState(sourceMapDetailLevel != null);
       this.lineLengthThreshold = lineLengthThreshold <= 0 ? Integer.MAX_VALUE :
         lineLengthThreshold;
@@ -66,6 +87,8 @@ public final class CodePrinter {
       this.sourceMapDetailLevel = sourceMapDetailLevel;
       this.mappings = createSrcMap ? new ArrayDeque<Mapping>() : null;
       this.allMappings = createSrcMap ? new ArrayList<Mapping>() : null;
+      this.out = out;
+      this.flushedLineLengths = createSrcMap && out != null ? new ArrayList<Integer>() : null;
     }
 
     /**
@@ -132,9 +155,10 @@ public final class CodePrinter {
      * appending the information it saved to the SourceMap
      * object given.
      */
-    void generateSourceMap(String code, SourceMap map) {
+    void generateSourceMap(SourceMap map) {
       if (createSrcMap) {
-        List<Integer> lineLengths = computeLineLengths(code);
+        List<Integer> lineLengths =
+            out == null ? computeLineLengths(getCode()) : flushedLineLengths;
         for (Mapping mapping : allMappings) {
           map.addMapping(
               mapping.node, mapping.start, adjustEndPosition(lineLengths, mapping.end));
@@ -207,13 +231,61 @@ public final class CodePrinter {
       }
     }
 
+    /** Returns the code that has not been written to the output. */
     public String getCode() {
       return code.toString();
     }
 
     @Override
     char getLastChar() {
-      return (code.length() > 0) ? code.charAt(code.length() - 1) : '\0';
+      return (code.length() > 0) ? code.charAt(code.length() - 1) : lastFlushedChar;
+    }
+
+    /** Returns the length of the code printed so far, including the code written to the output. */
+    protected final int getLength() {
+      return flushedLength + code.length();
+    }
+
+    /** Returns the index of a position of the code in {@link #code}. */
+    protected final int toBufferIndex(int position) {
+      Preconditions.checkState(position >= flushedLength, "Position %s was flushed", position);
+      return position - flushedLength;
+    }
+
+    /**
+     * Writes the code before the given position, which must be the start of a
+     * line, to the output once enough code has accumulated. Subclasses call
+     * this when the code before the position can no longer change.
+     */
+    protected final void maybeFlush(int position) {
+      if (out != null && position - flushedLength >= FLUSH_THRESHOLD) {
+        flush(position);
+      }
+    }
+
+    /** Writes all of the code to the output. */
+    final void flush() {
+      if (out != null && code.length() > 0) {
+        flush(getLength());
+      }
+    }
+
+    private void flush(int position) {
+      int count = toBufferIndex(position);
+      if (flushedLineLengths != null) {
+        for (int i = code.indexOf("\n"); i != -1 && i < count; i = code.indexOf("\n", i + 1)) {
+          flushedLineLengths.add(flushedLength + i - flushedLineStart);
+          flushedLineStart = flushedLength + i + 1;
+        }
+      }
+      try {
+        out.append(code, 0, count);
+      } catch (IOException e) {
+        throw new OutputException(e);
+      }
+      lastFlushedChar = code.charAt(count - 1);
+      code.delete(0, count);
+      flushedLength = position;
     }
 
     protected final int getCurrentCharIndex() {
@@ -290,8 +362,9 @@ public final class CodePrinter {
     private PrettyCodePrinter(
         int lineLengthThreshold,
         boolean createSourceMap,
-        SourceMap.DetailLevel sourceMapDetailLevel) {
-      super(lineLengthThreshold, createSourceMap, sourceMapDetailLevel);
+        SourceMap.DetailLevel sourceMapDetailLevel,
+        @Nullable Appendable out) {
+      super(lineLengthThreshold, createSourceMap, sourceMapDetailLevel, out);
     }
 
     /**
@@ -366,6 +439,7 @@ public final class CodePrinter {
         code.append('\n');
         lineIndex++;
         lineLength = 0;
+        maybeFlush(getLength());
       }
     }
 
@@ -575,11 +649,13 @@ public final class CodePrinter {
    *                            mapping information when printing.
    * @param sourceMapDetailLevel A filter to control which nodes get mapped into
    *     the source map.
+   * @param out Where to write the code, or null to keep it in memory.
    */
     private CompactCodePrinter(boolean lineBreak,
         boolean preferLineBreakAtEndOfFile, int lineLengthThreshold,
-        boolean createSrcMap, SourceMap.DetailLevel sourceMapDetailLevel) {
-      super(lineLengthThreshold, createSrcMap, sourceMapDetailLevel);
+        boolean createSrcMap, SourceMap.DetailLevel sourceMapDetailLevel,
+        @Nullable Appendable out) {
+      super(lineLengthThreshold, createSrcMap, sourceMapDetailLevel, out);
       this.lineBreak = lineBreak;
       this.preferLineBreakAtEndOfFile = preferLineBreakAtEndOfFile;
     }
@@ -605,12 +681,14 @@ public final class CodePrinter {
     @Override
     void startNewLine() {
       if (lineLength > 0) {
-        prevCutPosition = code.length();
+        prevCutPosition = getLength();
         prevLineStartPosition = lineStartPosition;
         code.append('\n');
         lineLength = 0;
         lineIndex++;
-        lineStartPosition = code.length();
+        lineStartPosition = getLength();
+        // endFile may still move the break at the end of the previous line.
+        maybeFlush(prevLineStartPosition);
       }
     }
 
@@ -626,9 +704,9 @@ public final class CodePrinter {
       // Since we are at a legal line break, can we upgrade the
       // preferred break position?  We prefer to break after a
       // semicolon rather than before it.
-      int len = code.length();
+      int len = getLength();
       if (preferredBreakPosition == len - 1) {
-        char ch = code.charAt(len - 1);
+        char ch = getLastChar();
         if (ch == ';') {
           preferredBreakPosition = len;
         }
@@ -647,13 +725,15 @@ public final class CodePrinter {
         if (preferredBreakPosition > lineStartPosition &&
             preferredBreakPosition < lineStartPosition + lineLength) {
           int position = preferredBreakPosition;
-          code.insert(position, '\n');
+          code.insert(toBufferIndex(position), '\n');
           prevCutPosition = position;
           reportLineCut(lineIndex, position - lineStartPosition, true);
           lineIndex++;
           lineLength -= (position - lineStartPosition);
           prevLineStartPosition = lineStartPosition;
           lineStartPosition = position + 1;
+          // endFile may still move this cut, so only the lines before it can go.
+          maybeFlush(prevLineStartPosition);
         } else {
           startNewLine();
         }
@@ -662,7 +742,7 @@ public final class CodePrinter {
 
     @Override
     void notePreferredLineBreak() {
-      preferredBreakPosition = code.length();
+      preferredBreakPosition = getLength();
     }
 
     @Override
@@ -679,9 +759,9 @@ public final class CodePrinter {
         // Shift the previous break to end of file by replacing it with a
         // <space> and adding a new break at end of file. Adding the space
         // handles cases like instanceof\nfoo. (it would be nice to avoid this)
-        code.setCharAt(prevCutPosition, ' ');
+        code.setCharAt(toBufferIndex(prevCutPosition), ' ');
         lineStartPosition = prevLineStartPosition;
-        lineLength = code.length() - lineStartPosition;
+        lineLength = getLength() - lineStartPosition;
         // We need +1 to account for the space added few lines above.
         int prevLineEndPosition = prevCutPosition - prevLineStartPosition + 1;
         reportLineCut(lineIndex, prevLineEndPosition, false);
@@ -817,7 +897,39 @@ public final class CodePrinter {
       }
 
       return toSource(root, Format.fromOptions(options, outputTypes, prettyPrint), options,
-          sourceMap, tagAsExterns, tagAsStrict, lineBreak, codeGeneratorFactory);
+          sourceMap, tagAsExterns, tagAsStrict, lineBreak, codeGeneratorFactory, null);
+    }
+
+    /**
+     * Generates the source code and writes it to {@code out} as it goes, so
+     * that the whole code is never held in memory. The source map, if any,
+     * is the same as with {@link #build}.
+     */
+    public void writeTo(Appendable out) throws IOException {
+      Preconditions.checkNotNull(out);
+      if (root == null) {
+        throw new IllegalStateException(
+            "Cannot build without root node being specified");
+      }
+
+      try {
+        toSource(root, Format.fromOptions(options, outputTypes, prettyPrint), options,
+            sourceMap, tagAsExterns, tagAsStrict, lineBreak, codeGeneratorFactory, out);
+      } catch (OutputException e) {
+        throw e.getCause();
+      }
+    }
+  }
+
+  /** Carries the exceptions of the output through the code consumers. */
+  private static final class OutputException extends RuntimeException {
+    OutputException(IOException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized IOException getCause() {
+      return (IOException) super.getCause();
     }
   }
 
@@ -841,11 +953,12 @@ public final class CodePrinter {
   }
 
   /**
-   * Converts a tree to JS code
+   * Converts a tree to JS code. If {@code out} is not null, the code is
+   * written to it and an empty string is returned.
    */
   private static String toSource(Node root, Format outputFormat, CompilerOptions options,
       SourceMap sourceMap, boolean tagAsExterns, boolean tagAsStrict, boolean lineBreak,
-      CodeGeneratorFactory codeGeneratorFactory) {
+      CodeGeneratorFactory codeGeneratorFactory, @Nullable Appendable out) {
     Preconditions.checkState(options.sourceMapDetailLevel != null);
 
     boolean createSourceMap = (sourceMap != null);
@@ -856,11 +969,13 @@ public final class CodePrinter {
             options.preferLineBreakAtEndOfFile,
             options.lineLengthThreshold,
             createSourceMap,
-            options.sourceMapDetailLevel)
+            options.sourceMapDetailLevel,
+            out)
         : new PrettyCodePrinter(
             options.lineLengthThreshold,
             createSourceMap,
-            options.sourceMapDetailLevel);
+            options.sourceMapDetailLevel,
+            out);
     CodeGenerator cg = codeGeneratorFactory.getCodeGenerator(outputFormat, mcp);
 
     if (tagAsExterns) {
@@ -872,13 +987,12 @@ public final class CodePrinter {
 
     cg.add(root);
     mcp.endFile();
-
-    String code = mcp.getCode();
+    mcp.flush();
 
     if (createSourceMap) {
-      mcp.generateSourceMap(code, sourceMap);
+      mcp.generateSourceMap(sourceMap);
     }
 
-    return code;
+    return mcp.getCode();
   }
 }
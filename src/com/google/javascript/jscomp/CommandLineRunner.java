@@ -20,6 +20,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.base.Ascii;
+import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
@@ -41,6 +42,8 @@ import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.lang.reflect.AnnotatedElement;
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
@@ -350,6 +353,13 @@ public class CommandLineRunner extends
         + "i.e. have the result map back to original inputs")
     private boolean applyInputSourceMaps = true;
 
+    @Option(name = "--compose_input_source_maps",
+        handler = BooleanOptionHandler.class,
+        hidden = true,
+        usage = "Whether to apply the --source_map_input maps to the output source map "
+        + "after compiling, without parsing them, for chained builds with large input maps")
+    private boolean composeInputSourceMaps = false;
+
     // Used to define the flag, values are stored by the handler.
     @SuppressWarnings("unused")
     @Option(
@@ -732,6 +742,63 @@ public class CommandLineRunner extends
     )
     private ModuleLoader.ResolutionMode moduleResolutionMode = ModuleLoader.ResolutionMode.LEGACY;
 
+    @Option(
+      name = "--parallel_parse_threads",
+      usage =
+          "The number of threads used to parse the input files. Values "
+              + "greater than 1 parse the inputs concurrently; the output is "
+              + "the same as when parsing serially. Defaults to 1."
+    )
+    private int parallelParseThreads = 1;
+
+    @Option(
+      name = "--parallel_peephole_threads",
+      usage =
+          "The number of threads used by the peephole optimizations. Values "
+              + "greater than 1 optimize different input files concurrently; "
+              + "the output is the same as when optimizing serially. Defaults to 1."
+    )
+    private int parallelPeepholeThreads = 1;
+
+    @Option(
+      name = "--parallel_source_map_threads",
+      usage =
+          "The number of threads used to encode source maps. Values greater "
+              + "than 1 encode chunks of lines concurrently; the source map is "
+              + "the same as when encoding serially. Defaults to 1."
+    )
+    private int parallelSourceMapThreads = 1;
+
+    @Option(
+      name = "--parse_cache_dir",
+      usage =
+          "A directory in which to keep the parse results of the input files "
+              + "between compilations. Unchanged files are read from there "
+              + "instead of being parsed again."
+    )
+    private String parseCacheDir = "";
+
+    @Option(
+      name = "--server",
+      handler = BooleanOptionHandler.class,
+      usage =
+          "Runs the compiler as a server that reads compilation requests, one "
+              + "JSON object per line, from stdin or from connections to "
+              + "--server_port, and answers each with one line of JSON. Each "
+              + "request holds its own flags and inputs; the built-in externs "
+              + "and the parse results of unchanged inputs are kept between "
+              + "requests. See CommandLineServer for the format."
+    )
+    private boolean server = false;
+
+    @Option(
+      name = "--server_port",
+      usage =
+          "The local port on which --server accepts connections. Defaults to "
+              + "0, which reads requests from stdin instead."
+    )
+    private int serverPort = 0;
+
     @Argument
     private List<String> arguments = new ArrayList<>();
     private final CmdLineParser parser;
@@ -840,6 +907,12 @@ public class CommandLineRunner extends
                     "define",
                     "flagfile",
                     "help",
+                    "parallel_parse_threads",
+                    "parallel_peephole_threads",
+                    "parallel_source_map_threads",
+                    "parse_cache_dir",
+                    "server",
+                    "server_port",
                     "third_party",
                     "use_types_for_optimization",
                     "version"))
@@ -1519,6 +1592,7 @@ public class CommandLineRunner extends
           .setSourceMapInputFiles(sourceMapInputs)
           .setParseInlineSourceMaps(parseInlineSourceMaps)
           .setApplyInputSourceMaps(applyInputSourceMaps)
+          .setComposeInputSourceMaps(flags.composeInputSourceMaps)
           .setWarningGuards(Flags.guardLevels)
           .setDefine(flags.define)
           .setCharset(flags.charset)
@@ -1712,6 +1786,15 @@ public class CommandLineRunner extends
     options.setEmitUseStrict(flags.emitUseStrict);
     options.setSourceMapIncludeSourcesContent(flags.sourceMapIncludeSourcesContent);
     options.setModuleResolutionMode(flags.moduleResolutionMode);
+    options.setNumParallelParsingThreads(flags.parallelParseThreads);
+    options.setNumParallelPeepholeThreads(flags.parallelPeepholeThreads);
+    options.setNumParallelSourceMapThreads(flags.parallelSourceMapThreads);
+
+    if (!flags.parseCacheDir.isEmpty()) {
+      DiskParseCache parseCache = new DiskParseCache(new File(flags.parseCacheDir));
+      parseCache.evict();
+      options.setParseCache(parseCache);
+    }
 
     return options;
   }
@@ -1727,7 +1810,7 @@ public class CommandLineRunner extends
     if (isInTestMode()) {
       return externs;
     } else {
-      List<SourceFile> builtinExterns = getBuiltinExterns(options.getEnvironment());
+      List<SourceFile> builtinExterns = loadBuiltinExterns(options.getEnvironment());
       builtinExterns.addAll(externs);
       return builtinExterns;
     }
@@ -1879,12 +1962,59 @@ public class CommandLineRunner extends
     return this.errors;
   }
 
+  /**
+   * Answers compilation requests until stdin ends, or forever when a
+   * server port is given. See {@link CommandLineServer}.
+   */
+  private void runServer() throws IOException {
+    CommandLineServer server = new CommandLineServer(new CommandLineServer.RequestRunner() {
+      @Override
+      public int run(CommandLineServer server, String[] args, InputStream in,
+          PrintStream out, PrintStream err) {
+        CommandLineRunner runner = new CommandLineRunner(args, in, out, err);
+        if (runner.flags.server) {
+          err.println("--server can not be used in a request.");
+          return -1;
+        } else if (!runner.shouldRunCompiler()) {
+          return runner.hasErrors() ? -1 : 0;
+        }
+        server.shareCaches(runner);
+        final int[] exitCode = new int[1];
+        runner.setExitCodeReceiver(new Function<Integer, Void>() {
+          @Override
+          public Void apply(Integer code) {
+            exitCode[0] = code;
+            return null;
+          }
+        });
+        runner.run();
+        return exitCode[0];
+      }
+    });
+
+    if (flags.serverPort > 0) {
+      try (ServerSocket socket =
+          new ServerSocket(flags.serverPort, 0, InetAddress.getLoopbackAddress())) {
+        server.serve(socket);
+      }
+    } else {
+      server.serve(System.in, System.out);
+    }
+  }
+
   /**
    * Runs the Compiler. Exits cleanly in the event of an error.
    */
   public static void main(String[] args) {
     CommandLineRunner runner = new CommandLineRunner(args);
-    if (runner.shouldRunCompiler()) {
+    if (runner.shouldRunCompiler() && runner.flags.server) {
+      try {
+        runner.runServer();
+      } catch (IOException e) {
+        e.printStackTrace();
+        System.exit(-2);
+      }
+    } else if (runner.shouldRunCompiler()) {
       runner.run();
     }
     if (runner.hasErrors()) {
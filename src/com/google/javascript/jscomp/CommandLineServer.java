@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Preconditions;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.javascript.jscomp.AbstractCommandLineRunner.JsonFileSpec;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs many compilations in one process, so that they don't each pay for
+ * starting and warming up a JVM and for reading and parsing the same
+ * externs.
+ *
+ * <p>Requests are JSON objects, one per line, of the form
+ * {@code {"args": [flags...], "files": [{"path": ..., "src": ...}, ...]}}.
+ * The flags are those of {@link CommandLineRunner}. The files are the inputs
+ * in the format of {@code --json_streams}; without them the inputs are read
+ * from the files named by the flags. Each request is answered by one line of
+ * the form {@code {"exit_code": ..., "files": [...], "errors": ...,
+ * "latency_ms": ...}}, with the outputs in the format of
+ * {@code --json_streams} and the errors and warnings as they would have been
+ * printed.
+ *
+ * <p>The built-in externs are read once, and all inputs go through a
+ * {@link MemoryParseCache} unless a request specifies another parse cache,
+ * so unchanged externs and inputs are not parsed again. Requests are handled
+ * one at a time.
+ */
+@GwtIncompatible("java.io")
+public final class CommandLineServer {
+
+  /** Runs the compilation of one request. */
+  public interface RequestRunner {
+    /**
+     * Compiles with the given flags and streams and returns the exit code.
+     * Runners should be set up with {@link CommandLineServer#shareCaches}.
+     */
+    int run(CommandLineServer server, String[] args, InputStream in, PrintStream out,
+        PrintStream err);
+  }
+
+  private final RequestRunner runner;
+  private final Map<CompilerOptions.Environment, List<SourceFile>> builtinExterns =
+      new EnumMap<>(CompilerOptions.Environment.class);
+  private final ParseCache parseCache;
+  private final Gson gson = new Gson();
+
+  public CommandLineServer(RequestRunner runner) {
+    this(runner, new MemoryParseCache());
+  }
+
+  public CommandLineServer(RequestRunner runner, ParseCache parseCache) {
+    this.runner = Preconditions.checkNotNull(runner);
+    this.parseCache = Preconditions.checkNotNull(parseCache);
+  }
+
+  /** Shares the externs and parse results of this server with the runner. */
+  public void shareCaches(AbstractCommandLineRunner<?, ?> commandLineRunner) {
+    commandLineRunner.shareCaches(builtinExterns, parseCache);
+  }
+
+  /** Answers the requests read from {@code in} until it ends. */
+  public void serve(InputStream in, OutputStream out) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      writer.write(handleRequest(line));
+      writer.write('\n');
+      writer.flush();
+    }
+  }
+
+  /**
+   * Answers the requests of the connections to the socket, one connection at
+   * a time. Does not return unless the socket fails.
+   */
+  public void serve(ServerSocket serverSocket) throws IOException {
+    while (true) {
+      try (Socket socket = serverSocket.accept()) {
+        serve(socket.getInputStream(), socket.getOutputStream());
+      }
+    }
+  }
+
+  /** Runs the compilation of a request and returns the response. */
+  String handleRequest(String json) {
+    long start = System.nanoTime();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    PrintStream errStream = newUtf8PrintStream(err);
+
+    int exitCode;
+    JsonElement files = new JsonArray();
+    try {
+      Request request = gson.fromJson(json, Request.class);
+      if (request == null) {
+        throw new JsonParseException("Empty request");
+      }
+      List<String> args = new ArrayList<>();
+      if (request.args != null) {
+        args.addAll(request.args);
+      }
+      InputStream in;
+      if (request.files == null) {
+        args.add("--json_streams=OUT");
+        in = new ByteArrayInputStream(new byte[0]);
+      } else {
+        args.add("--json_streams=BOTH");
+        in = new ByteArrayInputStream(gson.toJson(request.files).getBytes(UTF_8));
+      }
+
+      exitCode = runner.run(this, args.toArray(new String[0]), in,
+          newUtf8PrintStream(out), errStream);
+      if (out.size() > 0) {
+        files = gson.fromJson(new String(out.toByteArray(), UTF_8), JsonElement.class);
+      }
+    } catch (JsonParseException e) {
+      errStream.println("Bad request: " + e.getMessage());
+      exitCode = -1;
+    } catch (RuntimeException e) {
+      e.printStackTrace(errStream);
+      exitCode = -2;
+    }
+
+    JsonObject response = new JsonObject();
+    response.addProperty("exit_code", exitCode);
+    response.add("files", files);
+    response.addProperty("errors", new String(err.toByteArray(), UTF_8));
+    response.addProperty(
+        "latency_ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    return gson.toJson(response);
+  }
+
+  private static PrintStream newUtf8PrintStream(OutputStream out) {
+    try {
+      return new PrintStream(out, true, UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static final class Request {
+    List<String> args;
+    List<JsonFileSpec> files;
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.base.Preconditions;
+import com.google.javascript.jscomp.ControlFlowGraph.Branch;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of a {@link ControlFlowGraph}, in which the nodes are
+ * numbered from 0 and the edges of each node are stored in consecutive
+ * slots of int arrays (compressed sparse rows).
+ *
+ * <p>Iterating over the edges of a node this way doesn't allocate, and is
+ * much faster than following the edge objects of the linked graph for big
+ * functions, so {@link DataFlowAnalysis} uses this representation.
+ *
+ * <p>If the graph has a node comparator, the nodes are numbered in the order
+ * of the comparator for a forward analysis; otherwise, in the order of
+ * {@link ControlFlowGraph#getDirectedGraphNodes}. The implicit return is
+ * always the last node. The edges of a node are in
+ * the order of {@link ControlFlowGraph#getOutEdges} and
+ * {@link ControlFlowGraph#getInEdges}.
+ *
+ * @param <N> The instruction type of the control flow graph.
+ */
+final class CompactControlFlowGraph<N> {
+  private static final Branch[] BRANCHES = Branch.values();
+
+  private final List<DiGraphNode<N, Branch>> graphNodes;
+  private final List<N> values;
+  private final Map<DiGraphNode<N, Branch>, Integer> ids;
+  private final int entry;
+  private final int implicitReturn;
+
+  // The successors of node i are succs[succStart[i]] to
+  // succs[succStart[i + 1] - 1], and similarly for the predecessors.
+  private final int[] succStart;
+  private final int[] succs;
+  private final byte[] succBranches;
+  private final int[] predStart;
+  private final int[] preds;
+  private final byte[] predBranches;
+  // For each predecessor edge, the index of its destination among the
+  // successors of its source; the first one, if there are parallel edges.
+  private final int[] predSuccIndices;
+
+  CompactControlFlowGraph(ControlFlowGraph<N> cfg) {
+    List<DiGraphNode<N, Branch>> nodes = new ArrayList<>();
+    for (DiGraphNode<N, Branch> node : cfg.getDirectedGraphNodes()) {
+      if (node != cfg.getImplicitReturn()) {
+        nodes.add(node);
+      }
+    }
+    Comparator<DiGraphNode<N, Branch>> comparator = cfg.getOptionalNodeComparator(true);
+    if (comparator != null) {
+      Collections.sort(nodes, comparator);
+    }
+    nodes.add(cfg.getImplicitReturn());
+    int nodeCount = nodes.size();
+    this.graphNodes = Collections.unmodifiableList(nodes);
+    this.ids = new IdentityHashMap<>(nodeCount);
+    List<N> values = new ArrayList<>(nodeCount);
+    int edgeCount = 0;
+    for (DiGraphNode<N, Branch> node : nodes) {
+      ids.put(node, ids.size());
+      values.add(node.getValue());
+      edgeCount += node.getOutEdges().size();
+    }
+    this.values = Collections.unmodifiableList(values);
+    this.entry = getId(cfg.getEntry());
+    this.implicitReturn = getId(cfg.getImplicitReturn());
+
+    this.succStart = new int[nodeCount + 1];
+    this.succs = new int[edgeCount];
+    this.succBranches = new byte[edgeCount];
+    this.predStart = new int[nodeCount + 1];
+    this.preds = new int[edgeCount];
+    this.predBranches = new byte[edgeCount];
+    this.predSuccIndices = new int[edgeCount];
+    int succCount = 0;
+    int predCount = 0;
+    for (int i = 0; i < nodeCount; i++) {
+      DiGraphNode<N, Branch> node = nodes.get(i);
+      succStart[i] = succCount;
+      for (DiGraphEdge<N, Branch> edge : node.getOutEdges()) {
+        succs[succCount] = getId(edge.getDestination());
+        succBranches[succCount] = (byte) edge.getValue().ordinal();
+        succCount++;
+      }
+      predStart[i] = predCount;
+      for (DiGraphEdge<N, Branch> edge : node.getInEdges()) {
+        preds[predCount] = getId(edge.getSource());
+        predBranches[predCount] = (byte) edge.getValue().ordinal();
+        predCount++;
+      }
+    }
+    succStart[nodeCount] = succCount;
+    predStart[nodeCount] = predCount;
+    Preconditions.checkState(succCount == predCount, "Edges are missing from the graph");
+
+    for (int i = 0; i < nodeCount; i++) {
+      for (int e = predStart[i]; e < predStart[i + 1]; e++) {
+        int pred = preds[e];
+        int index = 0;
+        while (succs[succStart[pred] + index] != i) {
+          index++;
+        }
+        predSuccIndices[e] = index;
+      }
+    }
+  }
+
+  int getNodeCount() {
+    return graphNodes.size();
+  }
+
+  int getEntry() {
+    return entry;
+  }
+
+  int getImplicitReturn() {
+    return implicitReturn;
+  }
+
+  /** Returns the id of a node of the graph. */
+  int getId(DiGraphNode<N, Branch> node) {
+    Integer id = ids.get(node);
+    Preconditions.checkArgument(id != null, "Not a node of the graph: %s", node);
+    return id;
+  }
+
+  DiGraphNode<N, Branch> getGraphNode(int id) {
+    return graphNodes.get(id);
+  }
+
+  /** Returns the value of a node, which is null for the implicit return. */
+  N getValue(int id) {
+    return values.get(id);
+  }
+
+  int getSuccCount(int id) {
+    return succStart[id + 1] - succStart[id];
+  }
+
+  /** Returns the i-th successor of a node. */
+  int getSucc(int id, int i) {
+    return succs[succStart[id] + i];
+  }
+
+  /** Returns the branch of the edge to the i-th successor of a node. */
+  Branch getSuccBranch(int id, int i) {
+    return BRANCHES[succBranches[succStart[id] + i]];
+  }
+
+  int getPredCount(int id) {
+    return predStart[id + 1] - predStart[id];
+  }
+
+  /** Returns the i-th predecessor of a node. */
+  int getPred(int id, int i) {
+    return preds[predStart[id] + i];
+  }
+
+  /** Returns the branch of the edge from the i-th predecessor of a node. */
+  Branch getPredBranch(int id, int i) {
+    return BRANCHES[predBranches[predStart[id] + i]];
+  }
+
+  /**
+   * Returns the index of a node among the successors of its i-th predecessor;
+   * the first index, if the predecessor has several edges to the node.
+   */
+  int getPredSuccIndex(int id, int i) {
+    return predSuccIndices[predStart[id] + i];
+  }
+}
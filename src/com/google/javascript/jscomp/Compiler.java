@@ -28,6 +28,7 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.debugging.sourcemap.SourceMapGeneratorV3;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.javascript.jscomp.CompilerOptions.DevMode;
 import com.google.javascript.jscomp.ReferenceCollectingCallback.ReferenceCollection;
@@ -56,6 +57,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.file.FileSystems;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -69,6 +71,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
+import javax.annotation.Nullable;
 
 /**
  * Compiler (and the other classes in this package) does the following:
@@ -111,6 +114,9 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   private static final String CONFIG_RESOURCE =
       "com.google.javascript.jscomp.parsing.ParserConfig";
 
+  /** The number of generated lines per task when source maps are encoded concurrently. */
+  private static final int SOURCE_MAP_LINES_PER_CHUNK = 1000;
+
   CompilerOptions options = null;
 
   private PassConfig passes = null;
@@ -527,6 +533,15 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
       if (options.applyInputSourceMaps) {
         sourceMap.setSourceFileMapping(this);
       }
+      if (options.numParallelSourceMapThreads > 1) {
+        final int numThreads = options.numParallelSourceMapThreads;
+        sourceMap.setEncodingRunner(new SourceMapGeneratorV3.TaskRunner() {
+          @Override
+          public <T> List<T> runAll(List<? extends Callable<T>> tasks) {
+            return runInParallel(tasks, numThreads);
+          }
+        }, SOURCE_MAP_LINES_PER_CHUNK);
+      }
     }
   }
 
@@ -1514,7 +1529,15 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     Tracer tracer = newTracer(PARSING_PASS_NAME);
     beforePass(PARSING_PASS_NAME);
 
+    ParseCache parseCache = options.getParseCache();
+    int parseCacheHits = parseCache == null ? 0 : parseCache.getHitCount();
+    int parseCacheMisses = parseCache == null ? 0 : parseCache.getMissCount();
+
     try {
+      if (options.numParallelParsingThreads > 1) {
+        preParseInputsInParallel();
+      }
+
       // Parse externs sources.
       for (CompilerInput input : externs) {
         Node n = input.getAstRoot(this);
@@ -1625,11 +1648,38 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
       }
       return externAndJsRoot;
     } finally {
+      if (parseCache != null && tracker != null) {
+        tracker.recordParseCacheLookups(
+            parseCache.getHitCount() - parseCacheHits,
+            parseCache.getMissCount() - parseCacheMisses);
+      }
       afterPass(PARSING_PASS_NAME);
       stopTracer(tracer, PARSING_PASS_NAME);
     }
   }
 
+  /**
+   * Parses the externs and inputs on a pool of worker threads. The ASTs are
+   * only attached, and parse errors only reported, when parseInputs asks each
+   * input for its root, so the result is the same as parsing them serially.
+   */
+  private void preParseInputsInParallel() {
+    // Create the parser configs before any worker reads them.
+    getParserConfig(ConfigContext.DEFAULT);
+
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (final CompilerInput input : Iterables.concat(externs, inputs)) {
+      tasks.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          input.preParse(Compiler.this);
+          return null;
+        }
+      });
+    }
+    compilerExecutor.runInParallel(tasks, options.numParallelParsingThreads);
+  }
+
   void orderInputsWithLargeStack() {
     runInCompilerThread(new Callable<Void>() {
       @Override
@@ -1911,12 +1961,27 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
    */
   @Override
   public String toSource() {
-    return runInCompilerThread(new Callable<String>() {
+    CodeBuilder cb = new CodeBuilder();
+    toSource(cb);
+    return cb.toString();
+  }
+
+  /**
+   * Converts the main parse tree back to JS code and writes it to
+   * {@code out} as it is generated, without keeping it all in memory.
+   */
+  public void toSource(Appendable out) throws IOException {
+    CodeBuilder cb = new CodeBuilder(out);
+    toSource(cb);
+    cb.checkOutput();
+  }
+
+  private void toSource(final CodeBuilder cb) {
+    runInCompilerThread(new Callable<Void>() {
       @Override
-      public String call() throws Exception {
+      public Void call() throws Exception {
         Tracer tracer = newTracer("toSource");
         try {
-          CodeBuilder cb = new CodeBuilder();
           if (jsRoot != null) {
             int i = 0;
             for (Node scriptNode = jsRoot.getFirstChild();
@@ -1925,7 +1990,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
               toSource(cb, i++, scriptNode);
             }
           }
-          return cb.toString();
+          return null;
         } finally {
           stopTracer(tracer, "toSource");
         }
@@ -1962,16 +2027,28 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   /**
    * Converts the parse tree for a module back to JS code.
    */
-  public String toSource(final JSModule module) {
-    return runInCompilerThread(new Callable<String>() {
+  public String toSource(JSModule module) {
+    CodeBuilder cb = new CodeBuilder();
+    toSource(cb, module);
+    return cb.toString();
+  }
+
+  /**
+   * Converts the parse tree for a module back to JS code and writes it to
+   * {@code out} as it is generated, without keeping it all in memory.
+   */
+  public void toSource(JSModule module, Appendable out) throws IOException {
+    CodeBuilder cb = new CodeBuilder(out);
+    toSource(cb, module);
+    cb.checkOutput();
+  }
+
+  private void toSource(final CodeBuilder cb, final JSModule module) {
+    runInCompilerThread(new Callable<Void>() {
       @Override
-      public String call() throws Exception {
+      public Void call() throws Exception {
         List<CompilerInput> inputs = module.getInputs();
         int numInputs = inputs.size();
-        if (numInputs == 0) {
-          return "";
-        }
-        CodeBuilder cb = new CodeBuilder();
         for (int i = 0; i < numInputs; i++) {
           Node scriptNode = inputs.get(i).getAstRoot(Compiler.this);
           if (scriptNode == null) {
@@ -1980,12 +2057,13 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
           }
           toSource(cb, i, scriptNode);
         }
-        return cb.toString();
+        return null;
       }
     });
   }
 
 
+
   /**
    * Converts the parse tree for each input in a module back to JS code.
    */
@@ -2031,7 +2109,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
       @Override
       public Void call() throws Exception {
         if (options.printInputDelimiter) {
-          if ((cb.getLength() > 0) && !cb.endsWith("\n")) {
+          if ((cb.getLength() > 0) && cb.getLastChar() != '\n') {
             cb.append("\n");  // Make sure that the label starts on a new line
           }
           Preconditions.checkState(root.isScript());
@@ -2068,17 +2146,16 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
         // if LanguageMode is strict, only print 'use strict'
         // for the first input file
-        String code = toSource(root, sourceMap, inputSeqNum == 0);
-        if (!code.isEmpty()) {
-          cb.append(code);
-
+        int start = cb.getLength();
+        newCodePrinterBuilder(root, sourceMap, inputSeqNum == 0).writeTo(cb);
+        if (cb.getLength() > start) {
           // In order to avoid parse ambiguity when files are concatenated
           // together, all files should end in a semi-colon. Do a quick
           // heuristic check if there's an obvious semi-colon already there.
-          int length = code.length();
-          char lastChar = code.charAt(length - 1);
+          int length = cb.getLength() - start;
+          char lastChar = cb.getLastChar();
           char secondLastChar = length >= 2 ?
-              code.charAt(length - 2) : '\0';
+              cb.getSecondLastChar() : '\0';
           boolean hasSemiColon = lastChar == ';' ||
               (lastChar == '\n' && secondLastChar == ';');
           if (!hasSemiColon) {
@@ -2104,13 +2181,18 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
    * Generates JavaScript source code for an AST.
    */
   private String toSource(Node n, SourceMap sourceMap, boolean firstOutput) {
+    return newCodePrinterBuilder(n, sourceMap, firstOutput).build();
+  }
+
+  private CodePrinter.Builder newCodePrinterBuilder(
+      Node n, SourceMap sourceMap, boolean firstOutput) {
     CodePrinter.Builder builder = new CodePrinter.Builder(n);
     builder.setTypeRegistry(this.typeRegistry);
     builder.setCompilerOptions(options);
     builder.setSourceMap(sourceMap);
     builder.setTagAsExterns(firstOutput && options.shouldGenerateTypedExterns());
     builder.setTagAsStrict(firstOutput && shouldEmitUseStrict());
-    return builder.build();
+    return builder;
   }
 
   private boolean shouldEmitUseStrict() {
@@ -2127,21 +2209,59 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   /**
    * Stores a buffer of text to which more can be appended.  This is just like a
    * StringBuilder except that we also track the number of lines.
+   *
+   * <p>A builder can also write the text to an output as it is appended
+   * instead of keeping it. Errors of the output are thrown by
+   * {@link #checkOutput}.
    */
-  public static class CodeBuilder {
+  public static class CodeBuilder implements Appendable {
     private final StringBuilder sb = new StringBuilder();
+    @Nullable private final Appendable out;
+    private IOException outputError = null;
+    private int length = 0;
+    private char lastChar = '\0';
+    private char secondLastChar = '\0';
     private int lineCount = 0;
     private int colCount = 0;
     private final Set<String> uniqueLicenses = new HashSet<>();
 
+    public CodeBuilder() {
+      this.out = null;
+    }
+
+    /** Creates a builder that writes the text to {@code out} instead of keeping it. */
+    CodeBuilder(Appendable out) {
+      this.out = Preconditions.checkNotNull(out);
+    }
+
     /** Removes all text, but leaves the line count unchanged. */
     void reset() {
       sb.setLength(0);
+      length = 0;
+      lastChar = '\0';
+      secondLastChar = '\0';
     }
 
     /** Appends the given string to the text buffer. */
     CodeBuilder append(String str) {
-      sb.append(str);
+      if (out == null) {
+        sb.append(str);
+      } else if (outputError == null) {
+        try {
+          out.append(str);
+        } catch (IOException e) {
+          outputError = e;
+        }
+      }
+
+      length += str.length();
+      if (str.length() >= 2) {
+        secondLastChar = str.charAt(str.length() - 2);
+        lastChar = str.charAt(str.length() - 1);
+      } else if (str.length() == 1) {
+        secondLastChar = lastChar;
+        lastChar = str.charAt(0);
+      }
 
       // Adjust the line and column information for the new text.
       int index = -1;
@@ -2161,15 +2281,47 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
       return this;
     }
 
+    @Override
+    public CodeBuilder append(CharSequence csq) {
+      return append(String.valueOf(csq));
+    }
+
+    @Override
+    public CodeBuilder append(CharSequence csq, int start, int end) {
+      return append(String.valueOf(csq).substring(start, end));
+    }
+
+    @Override
+    public CodeBuilder append(char c) {
+      return append(String.valueOf(c));
+    }
+
+    /** Throws the first error of the output, if any. */
+    void checkOutput() throws IOException {
+      if (outputError != null) {
+        throw outputError;
+      }
+    }
+
     /** Returns all text in the text buffer. */
     @Override
     public String toString() {
       return sb.toString();
     }
 
-    /** Returns the length of the text buffer. */
+    /** Returns the length of the text, including the text written to the output. */
     public int getLength() {
-      return sb.length();
+      return length;
+    }
+
+    /** Returns the last character of the text, or 0 if there is none. */
+    char getLastChar() {
+      return lastChar;
+    }
+
+    /** Returns the character before the last one, or 0 if there is none. */
+    char getSecondLastChar() {
+      return secondLastChar;
     }
 
     /** Returns the (zero-based) index of the last line in the text buffer. */
@@ -2182,12 +2334,6 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
       return colCount;
     }
 
-    /** Determines whether the text ends with the given suffix. */
-    boolean endsWith(String suffix) {
-      return (sb.length() > suffix.length())
-          && suffix.equals(sb.substring(sb.length() - suffix.length()));
-    }
-
     /** Adds a license and returns whether it is unique (has yet to be encountered). */
     boolean addLicense(String license) {
       return uniqueLicenses.add(license);
@@ -2320,6 +2466,13 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     return phaseOptimizer.hasScopeChanged(n);
   }
 
+  @Override
+  void recordChangedScopesTraversal(int visitedNodes, int totalNodes) {
+    if (tracker != null) {
+      tracker.recordChangedScopesTraversal(visitedNodes, totalNodes);
+    }
+  }
+
   @Override
   void reportChangeToEnclosingScope(Node n) {
     if (phaseOptimizer != null) {
@@ -2332,6 +2485,31 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     }
   }
 
+  @Override
+  void reportChangeToChangeScope(Node changeScopeRoot) {
+    if (phaseOptimizer != null) {
+      phaseOptimizer.reportChangeToScope(changeScopeRoot);
+      phaseOptimizer.startCrossScopeReporting();
+      reportCodeChange();
+      phaseOptimizer.endCrossScopeReporting();
+    } else {
+      reportCodeChange();
+    }
+  }
+
+  @Override
+  <T> List<T> runInParallel(List<? extends Callable<T>> tasks, int numThreads) {
+    return compilerExecutor.runInParallel(tasks, numThreads);
+  }
+
+  @Override
+  <T> List<T> runInParallel(
+      List<? extends Callable<T>> tasks,
+      List<? extends Collection<Integer>> dependencies,
+      int numThreads) {
+    return compilerExecutor.runInParallel(tasks, dependencies, numThreads);
+  }
+
   /**
    * Some tests don't want to call the compiler "wholesale," they may not want
    * to call check and/or optimize. With this method, tests can execute custom
@@ -2797,6 +2975,57 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     processNewScript(ast, originalRoot);
   }
 
+  /**
+   * Replaces one file in a hot-swap mode, like {@link #replaceScript}, and
+   * also reruns the hot-swappable checks over the scripts that may use what it
+   * declares: the scripts after it in its module and the scripts of the
+   * modules that depend on its module. Only the new version of the file is
+   * parsed, and the other scripts are not checked again. This assumes that
+   * the inputs of each module are in dependency order.
+   *
+   * @param ast the ast of the file that is being replaced
+   * @return the inputs that were checked, in compilation order, or an empty
+   *     list if the new version of the file does not parse
+   */
+  public List<CompilerInput> replaceScriptAndDependents(JsAst ast) {
+    CompilerInput input = this.getInput(ast.getInputId());
+    if (!replaceIncrementalSourceAst(ast)) {
+      return ImmutableList.of();
+    }
+    List<CompilerInput> affectedInputs = getInputsAffectedBy(getInput(ast.getInputId()));
+
+    List<Node> scripts = new ArrayList<>();
+    List<Node> originalRoots = new ArrayList<>();
+    for (CompilerInput affectedInput : affectedInputs) {
+      Node script = affectedInput.getAstRoot(this);
+      scripts.add(script);
+      originalRoots.add(
+          affectedInput.getInputId().equals(ast.getInputId()) ? input.getAstRoot(this) : script);
+    }
+    processNewScripts(scripts, originalRoots);
+    return affectedInputs;
+  }
+
+  /**
+   * Returns the given input, the inputs after it in its module and the inputs
+   * of the modules that depend on its module, in compilation order.
+   */
+  private List<CompilerInput> getInputsAffectedBy(CompilerInput input) {
+    JSModule module = input.getModule();
+    if (module == null) {
+      return ImmutableList.of(input);
+    }
+    List<CompilerInput> moduleInputs = module.getInputs();
+    List<CompilerInput> affectedInputs =
+        new ArrayList<>(moduleInputs.subList(moduleInputs.indexOf(input), moduleInputs.size()));
+    if (moduleGraph != null) {
+      for (JSModule dependent : moduleGraph.getTransitiveDependents(module)) {
+        affectedInputs.addAll(dependent.getInputs());
+      }
+    }
+    return affectedInputs;
+  }
+
   /**
    * Adds a new Script AST to the compile state. If a script for the same file
    * already exists the script will not be added, instead a call to
@@ -2818,20 +3047,37 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   }
 
   private void processNewScript(JsAst ast, Node originalRoot) {
-    languageMode = options.getLanguageIn();
-
     Node js = ast.getAstRoot(this);
     Preconditions.checkNotNull(js);
 
-    runHotSwap(originalRoot, js, this.getCleanupPassConfig());
+    processNewScripts(ImmutableList.of(js), ImmutableList.of(originalRoot));
+  }
+
+  /**
+   * Runs the hot-swap passes over the given scripts, which replace the
+   * scripts at the same positions in {@code originalRoots}. The cleanup
+   * passes run for all scripts before the checks run for any of them.
+   */
+  private void processNewScripts(List<Node> scripts, List<Node> originalRoots) {
+    Preconditions.checkArgument(scripts.size() == originalRoots.size());
+    languageMode = options.getLanguageIn();
+
+    PassConfig cleanupPassConfig = this.getCleanupPassConfig();
+    for (int i = 0; i < scripts.size(); i++) {
+      runHotSwap(originalRoots.get(i), scripts.get(i), cleanupPassConfig);
+    }
     // NOTE: If hot swap passes that use GlobalNamespace are added, we will need
     // to revisit this approach to clearing GlobalNamespaces
     runHotSwapPass(null, null, ensureDefaultPassConfig().garbageCollectChecks);
 
-    this.getTypeRegistry().clearNamedTypes();
-    this.removeSyntheticVarsInput();
+    for (int i = 0; i < scripts.size(); i++) {
+      // The synthetic externs declare the undefined names of the last checked
+      // script, which would hide the same errors in the next one.
+      this.getTypeRegistry().clearNamedTypes();
+      this.removeSyntheticVarsInput();
 
-    runHotSwap(originalRoot, js, this.ensureDefaultPassConfig());
+      runHotSwap(originalRoots.get(i), scripts.get(i), this.ensureDefaultPassConfig());
+    }
   }
 
   /**
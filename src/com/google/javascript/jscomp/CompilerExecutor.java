@@ -17,6 +17,8 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -30,7 +32,7 @@ import java.util.concurrent.TimeoutException;
 final class CompilerExecutor {
   // We use many recursive algorithms that use O(d) memory in the depth
   // of the tree.
-  private static final long COMPILER_STACK_SIZE = (1 << 21); // About 2MB
+  static final long COMPILER_STACK_SIZE = (1 << 21); // About 2MB
 
   /**
    * Under JRE 1.6, the JS Compiler overflows the stack when running on some
@@ -128,4 +130,38 @@ final class CompilerExecutor {
 
     return result;
   }
+
+  /**
+   * Runs the tasks on a pool of at most {@code numThreads} worker threads and
+   * waits for all of them to finish.
+   *
+   * @return the results of the tasks, in the order of the tasks.
+   */
+  <T> List<T> runInParallel(List<? extends Callable<T>> tasks, int numThreads) {
+    try {
+      return WorkerThreads.runInParallel(tasks, numThreads, "jscompiler-worker");
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+   * Runs each task after the tasks it depends on, on a pool of at most
+   * {@code numThreads} worker threads, and waits for all of them to finish.
+   *
+   * @param dependencies for each task, the indices of the earlier tasks that
+   *     must finish before it starts.
+   * @return the results of the tasks, in the order of the tasks.
+   */
+  <T> List<T> runInParallel(
+      List<? extends Callable<T>> tasks,
+      List<? extends Collection<Integer>> dependencies,
+      int numThreads) {
+    try {
+      return WorkerThreads.runInParallel(tasks, dependencies, numThreads, "jscompiler-worker");
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
 }
@@ -124,6 +124,16 @@ public class CompilerInput implements SourceAst, DependencyInfo {
     return root;
   }
 
+  /**
+   * Parses the input ahead of time, if it is JavaScript source.
+   * See {@link JsAst#preParse}.
+   */
+  void preParse(AbstractCompiler compiler) {
+    if (ast instanceof JsAst) {
+      ((JsAst) ast).preParse(compiler);
+    }
+  }
+
   @Override
   public void clearAst() {
     ast.clearAst();
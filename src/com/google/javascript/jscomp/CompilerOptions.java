@@ -943,6 +943,75 @@ public class CompilerOptions {
     this.tracer = mode;
   }
 
+  /**
+   * The number of threads used to parse the inputs. When greater than one,
+   * the inputs are parsed concurrently and the results merged back in input
+   * order, producing the same output as parsing them serially.
+   */
+  int numParallelParsingThreads = 1;
+
+  public void setNumParallelParsingThreads(int numThreads) {
+    this.numParallelParsingThreads = numThreads;
+  }
+
+  /**
+   * The number of threads used by the peephole optimizations. When greater
+   * than one, different scripts are optimized concurrently, producing the
+   * same output as optimizing them serially. Has no effect when types are
+   * used for local optimizations.
+   */
+  int numParallelPeepholeThreads = 1;
+
+  public void setNumParallelPeepholeThreads(int numThreads) {
+    this.numParallelPeepholeThreads = numThreads;
+  }
+
+  /**
+   * The number of threads used to encode the source map. When greater than
+   * one, chunks of lines of the mappings are encoded concurrently, producing
+   * the same source map as encoding them serially.
+   */
+  int numParallelSourceMapThreads = 1;
+
+  public void setNumParallelSourceMapThreads(int numThreads) {
+    this.numParallelSourceMapThreads = numThreads;
+  }
+
+  /**
+   * The number of threads used by the new type inference to analyze function
+   * bodies. When greater than one, functions are analyzed concurrently after
+   * the functions nested in them, producing the same types and warnings as
+   * analyzing them serially.
+   */
+  int numParallelTypeInferenceThreads = 1;
+
+  public void setNumParallelTypeInferenceThreads(int numThreads) {
+    this.numParallelTypeInferenceThreads = numThreads;
+  }
+
+  /**
+   * The number of threads used to choose the new names of properties in
+   * DisambiguateProperties. When greater than one, properties are handled
+   * concurrently and renamed in the same order, producing the same output and
+   * warnings as handling them serially.
+   */
+  int numParallelDisambiguationThreads = 1;
+
+  public void setNumParallelDisambiguationThreads(int numThreads) {
+    this.numParallelDisambiguationThreads = numThreads;
+  }
+
+  /** Where to look up and store parse results, or null to always parse. */
+  private transient ParseCache parseCache;
+
+  public ParseCache getParseCache() {
+    return parseCache;
+  }
+
+  public void setParseCache(ParseCache parseCache) {
+    this.parseCache = parseCache;
+  }
+
   private boolean colorizeErrorOutput;
 
   public ErrorFormat errorFormat;
@@ -2774,6 +2843,11 @@ public class CompilerOptions {
             .add("moduleRoots", moduleRoots)
             .add("moveFunctionDeclarations", moveFunctionDeclarations)
             .add("nameGenerator", nameGenerator)
+            .add("numParallelParsingThreads", numParallelParsingThreads)
+            .add("numParallelPeepholeThreads", numParallelPeepholeThreads)
+            .add("numParallelSourceMapThreads", numParallelSourceMapThreads)
+            .add("numParallelTypeInferenceThreads", numParallelTypeInferenceThreads)
+            .add("numParallelDisambiguationThreads", numParallelDisambiguationThreads)
             .add("optimizeArgumentsArray", optimizeArgumentsArray)
             .add("optimizeCalls", optimizeCalls)
             .add("optimizeParameters", optimizeParameters)
@@ -2784,6 +2858,7 @@ public class CompilerOptions {
             .add(
                 "parentModuleCanSeeSymbolsDeclaredInChildren",
                 parentModuleCanSeeSymbolsDeclaredInChildren)
+            .add("parseCache", parseCache)
             .add("parseJsDocDocumentation", isParseJsDocDocumentation())
             .add("polymerPass", polymerPass)
             .add("preferLineBreakAtEndOfFile", preferLineBreakAtEndOfFile)
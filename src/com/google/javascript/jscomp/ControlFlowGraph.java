@@ -79,6 +79,15 @@ public class ControlFlowGraph<N> extends
     return node == implicitReturn;
   }
 
+  /**
+   * Returns an int-indexed snapshot of the graph, for analyses that iterate
+   * over its edges many times. Later changes to the graph are not reflected
+   * in the snapshot.
+   */
+  CompactControlFlowGraph<N> compact() {
+    return new CompactControlFlowGraph<>(this);
+  }
+
   /**
    * Gets a comparator for the nodes. The default implementation returns
    * {@code null}. See {@link ControlFlowGraph#getOptionalNodeComparator}.
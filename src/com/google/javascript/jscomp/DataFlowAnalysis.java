@@ -18,6 +18,7 @@ package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.jscomp.graph.Annotation;
@@ -27,12 +28,12 @@ import com.google.javascript.jscomp.parsing.parser.util.format.SimpleFormat;
 import com.google.javascript.rhino.Node;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * A framework to help writing static program analysis. A subclass of
@@ -85,8 +86,13 @@ import java.util.TreeSet;
 abstract class DataFlowAnalysis<N, L extends LatticeElement> {
 
   private final ControlFlowGraph<N> cfg;
+  // A snapshot of cfg, taken at the start of each analysis.
+  private CompactControlFlowGraph<N> compactCfg;
+  // The flow state of each node, by id in compactCfg.
+  private FlowState<L>[] flowStates;
   final JoinOp<L> joinOp;
-  protected final Set<DiGraphNode<N, Branch>> orderedWorkSet;
+  // The least number of steps that analyze() allows, whatever the graph size.
+  private final int maxSteps;
 
   /*
    * Feel free to increase this to a reasonable number if you are finding that
@@ -96,6 +102,14 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
    */
   public static final int MAX_STEPS = 400000;
 
+  /*
+   * Big functions may take more than MAX_STEPS steps even though the analysis
+   * terminates, so {@link #analyze()} allows this many steps per node of the
+   * control flow graph. Since the work set is ordered, each node is usually
+   * visited a few times per loop that contains it.
+   */
+  static final int MAX_STEPS_PER_NODE = 100;
+
   /**
    * Constructs a data flow analysis.
    *
@@ -118,15 +132,17 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
    * @see #analyze()
    */
   DataFlowAnalysis(ControlFlowGraph<N> targetCfg, JoinOp<L> joinOp) {
+    this(targetCfg, joinOp, MAX_STEPS);
+  }
+
+  /**
+   * Constructs a data flow analysis whose {@link #analyze()} allows at least
+   * {@code maxSteps} steps instead of {@link #MAX_STEPS}.
+   */
+  DataFlowAnalysis(ControlFlowGraph<N> targetCfg, JoinOp<L> joinOp, int maxSteps) {
     this.cfg = targetCfg;
     this.joinOp = joinOp;
-    Comparator<DiGraphNode<N, Branch>> nodeComparator =
-      cfg.getOptionalNodeComparator(isForward());
-    if (nodeComparator != null) {
-      this.orderedWorkSet = new TreeSet<>(nodeComparator);
-    } else {
-      this.orderedWorkSet = new LinkedHashSet<>();
-    }
+    this.maxSteps = maxSteps;
   }
 
   /**
@@ -171,13 +187,15 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
   abstract L flowThrough(N node, L input);
 
   /**
-   * Finds a fixed-point solution using at most {@link #MAX_STEPS}
-   * iterations.
+   * Finds a fixed-point solution using at most {@link #MAX_STEPS} iterations
+   * (or the limit given to the constructor), or {@link #MAX_STEPS_PER_NODE}
+   * iterations per node of the control flow graph if that is more.
    *
    * @see #analyze(int)
    */
   final void analyze() {
-    analyze(MAX_STEPS);
+    long stepsForGraph = (long) MAX_STEPS_PER_NODE * cfg.getNodes().size();
+    analyze((int) Math.min(Math.max(maxSteps, stepsForGraph), Integer.MAX_VALUE));
   }
 
   /**
@@ -194,38 +212,135 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
    * their output state again. Each step will perform a computation at one node
    * until no extra computation will modify any existing output state anymore.
    *
+   * <p>The nodes that need a computation are taken in the order of the
+   * graph's {@link ControlFlowGraph#getOptionalNodeComparator node comparator}
+   * if it has one, and in reverse postorder (postorder for a backward
+   * analysis) otherwise, so that a node usually comes after the nodes it
+   * depends on.
+   *
    * @param maxSteps Max number of iterations before the method stops and throw
    *        a {@link MaxIterationsExceededException}. This will prevent the
    *        analysis from going into a infinite loop.
    */
   final void analyze(int maxSteps) {
+    compactCfg = cfg.compact();
     initialize();
+    int implicitReturn = compactCfg.getImplicitReturn();
+    WorkSet workSet = new WorkSet(computeWorkOrder());
+    for (int id = 0; id < compactCfg.getNodeCount(); id++) {
+      if (id != implicitReturn) {
+        workSet.add(id);
+      }
+    }
+    boolean isForward = isForward();
     int step = 0;
-    while (!orderedWorkSet.isEmpty()) {
+    while (!workSet.isEmpty()) {
       if (step > maxSteps) {
         throw new MaxIterationsExceededException(
           "Analysis did not terminate after " + maxSteps + " iterations");
       }
-      DiGraphNode<N, Branch> curNode = orderedWorkSet.iterator().next();
-      orderedWorkSet.remove(curNode);
+      int curNode = workSet.remove();
       joinInputs(curNode);
       if (flow(curNode)) {
         // If there is a change in the current node, we want to grab the list
         // of nodes that this node affects.
-        List<DiGraphNode<N, Branch>> nextNodes = isForward() ?
-            cfg.getDirectedSuccNodes(curNode) :
-            cfg.getDirectedPredNodes(curNode);
-        for (DiGraphNode<N, Branch> nextNode : nextNodes) {
-          if (nextNode != cfg.getImplicitReturn()) {
-            orderedWorkSet.add(nextNode);
+        int nextCount = isForward
+            ? compactCfg.getSuccCount(curNode) : compactCfg.getPredCount(curNode);
+        for (int i = 0; i < nextCount; i++) {
+          int next = isForward
+              ? compactCfg.getSucc(curNode, i) : compactCfg.getPred(curNode, i);
+          if (next != implicitReturn) {
+            workSet.add(next);
           }
         }
       }
       step++;
     }
-    if (isForward()) {
-      joinInputs(getCfg().getImplicitReturn());
+    if (isForward) {
+      joinInputs(implicitReturn);
+    }
+  }
+
+  /**
+   * Returns the ids of the nodes in the order in which they are taken from
+   * the work set.
+   */
+  private int[] computeWorkOrder() {
+    int nodeCount = compactCfg.getNodeCount();
+    Comparator<DiGraphNode<N, Branch>> nodeComparator =
+        cfg.getOptionalNodeComparator(isForward());
+    if (nodeComparator != null) {
+      // The comparator may not accept the implicit return, which is never in
+      // the work set and is the last node of the compact graph.
+      Integer[] ids = new Integer[nodeCount - 1];
+      for (int id = 0; id < nodeCount - 1; id++) {
+        ids[id] = id;
+      }
+      final Comparator<DiGraphNode<N, Branch>> comparator = nodeComparator;
+      Arrays.sort(ids, new Comparator<Integer>() {
+        @Override
+        public int compare(Integer id1, Integer id2) {
+          return comparator.compare(
+              compactCfg.getGraphNode(id1), compactCfg.getGraphNode(id2));
+        }
+      });
+      return Ints.concat(
+          Ints.toArray(Arrays.asList(ids)), new int[] {compactCfg.getImplicitReturn()});
+    }
+
+    // Depth-first search from the entry and then from any node that it
+    // doesn't reach, with an explicit stack since functions can be long. The
+    // successors of a node are visited from the last one, so that the first
+    // one, such as the body of a loop, comes first in reverse postorder.
+    int[] postorder = new int[nodeCount];
+    int postorderCount = 0;
+    boolean[] visited = new boolean[nodeCount];
+    int[] stack = new int[nodeCount];
+    int[] edgeIndices = new int[nodeCount];
+    for (int i = -1; i < nodeCount; i++) {
+      int root = i >= 0 ? i : compactCfg.getEntry();
+      if (visited[root]) {
+        continue;
+      }
+      visited[root] = true;
+      stack[0] = root;
+      edgeIndices[0] = compactCfg.getSuccCount(root);
+      int depth = 1;
+      while (depth > 0) {
+        int id = stack[depth - 1];
+        int edgeIndex = --edgeIndices[depth - 1];
+        if (edgeIndex >= 0) {
+          int next = compactCfg.getSucc(id, edgeIndex);
+          if (!visited[next]) {
+            visited[next] = true;
+            stack[depth] = next;
+            edgeIndices[depth] = compactCfg.getSuccCount(next);
+            depth++;
+          }
+        } else {
+          postorder[postorderCount++] = id;
+          depth--;
+        }
+      }
+    }
+    if (!isForward()) {
+      // A backward analysis takes the nodes in postorder, so that a node
+      // still comes after the nodes it depends on.
+      return postorder;
     }
+    int[] reversePostorder = new int[nodeCount];
+    for (int i = 0; i < nodeCount; i++) {
+      reversePostorder[i] = postorder[nodeCount - 1 - i];
+    }
+    return reversePostorder;
+  }
+
+  /**
+   * Returns the snapshot of the control flow graph that the current analysis
+   * iterates over.
+   */
+  final CompactControlFlowGraph<N> getCompactCfg() {
+    return compactCfg;
   }
 
   /**
@@ -243,36 +358,33 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
   abstract L createEntryLattice();
 
   /**
-   * Initializes the work list and the control flow graph.
+   * Initializes the flow state of each node of the control flow graph.
    */
+  @SuppressWarnings("unchecked")
   protected void initialize() {
-    // TODO(user): Calling clear doesn't deallocate the memory in a
-    // LinkedHashSet. Consider creating a new work set if we plan to repeatedly
-    // call analyze.
-    orderedWorkSet.clear();
-    for (DiGraphNode<N, Branch> node : cfg.getDirectedGraphNodes()) {
-      node.setAnnotation(new FlowState<>(createInitialEstimateLattice(),
-          createInitialEstimateLattice()));
-      if (node != cfg.getImplicitReturn()) {
-        orderedWorkSet.add(node);
-      }
+    flowStates = new FlowState[compactCfg.getNodeCount()];
+    for (int id = 0; id < compactCfg.getNodeCount(); id++) {
+      flowStates[id] = new FlowState<>(createInitialEstimateLattice(),
+          createInitialEstimateLattice());
+      compactCfg.getGraphNode(id).setAnnotation(flowStates[id]);
     }
   }
 
   /**
    * Performs a single flow through a node.
    *
+   * @param node The id of the node in {@link #getCompactCfg()}.
    * @return {@code true} if the flow state differs from the previous state.
    */
-  protected boolean flow(DiGraphNode<N, Branch> node) {
-    FlowState<L> state = node.getAnnotation();
+  protected boolean flow(int node) {
+    FlowState<L> state = flowStates[node];
     if (isForward()) {
       L outBefore = state.out;
-      state.out = flowThrough(node.getValue(), state.in);
+      state.out = flowThrough(compactCfg.getValue(node), state.in);
       return !outBefore.equals(state.out);
     } else {
       L inBefore = state.in;
-      state.in = flowThrough(node.getValue(), state.out);
+      state.in = flowThrough(compactCfg.getValue(node), state.out);
       return !inBefore.equals(state.in);
     }
   }
@@ -281,46 +393,67 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
    * Computes the new flow state at a given node's entry by merging the
    * output (input) lattice of the node's predecessor (successor).
    *
-   * @param node Node to compute new join.
+   * @param node The id of the node in {@link #getCompactCfg()}.
    */
-  protected void joinInputs(DiGraphNode<N, Branch> node) {
-    FlowState<L> state = node.getAnnotation();
+  protected void joinInputs(int node) {
+    FlowState<L> state = flowStates[node];
     if (isForward()) {
-      if (cfg.getEntry() == node) {
+      if (compactCfg.getEntry() == node) {
         state.setIn(createEntryLattice());
       } else {
-        List<DiGraphNode<N, Branch>> inNodes = cfg.getDirectedPredNodes(node);
-        if (inNodes.size() == 1) {
-          FlowState<L> inNodeState = inNodes.get(0).getAnnotation();
+        int inCount = compactCfg.getPredCount(node);
+        if (inCount == 1) {
+          FlowState<L> inNodeState = flowStates[compactCfg.getPred(node, 0)];
           state.setIn(inNodeState.getOut());
-        } else if (inNodes.size() > 1) {
-          List<L> values = new ArrayList<>(inNodes.size());
-          for (DiGraphNode<N, Branch> currentNode : inNodes) {
-            FlowState<L> currentNodeState = currentNode.getAnnotation();
-            values.add(currentNodeState.getOut());
-          }
-          state.setIn(joinOp.apply(values));
+        } else if (inCount > 1) {
+          state.setIn(joinInputValues(node, inCount));
         }
       }
     } else {
-      List<DiGraphNode<N, Branch>> inNodes = cfg.getDirectedSuccNodes(node);
-      if (inNodes.size() == 1) {
-        DiGraphNode<N, Branch> inNode = inNodes.get(0);
-        if (inNode == cfg.getImplicitReturn()) {
+      int inCount = compactCfg.getSuccCount(node);
+      if (inCount == 1) {
+        int inNode = compactCfg.getSucc(node, 0);
+        if (inNode == compactCfg.getImplicitReturn()) {
           state.setOut(createEntryLattice());
         } else {
-          FlowState<L> inNodeState = inNode.getAnnotation();
+          FlowState<L> inNodeState = flowStates[inNode];
           state.setOut(inNodeState.getIn());
         }
-      } else if (inNodes.size() > 1) {
-        List<L> values = new ArrayList<>(inNodes.size());
-        for (DiGraphNode<N, Branch> currentNode : inNodes) {
-          FlowState<L> currentNodeState = currentNode.getAnnotation();
-          values.add(currentNodeState.getIn());
-        }
-        state.setOut(joinOp.apply(values));
+      } else if (inCount > 1) {
+        state.setOut(joinInputValues(node, inCount));
+      }
+    }
+  }
+
+  /**
+   * Joins the inputs of a node. An {@link JoinOp.InPlaceJoinOp} joins them
+   * into a copy of the first input, without collecting them into a list.
+   */
+  private L joinInputValues(int node, int inCount) {
+    if (joinOp instanceof JoinOp.InPlaceJoinOp) {
+      JoinOp.InPlaceJoinOp<L> inPlaceJoinOp = (JoinOp.InPlaceJoinOp<L>) joinOp;
+      L result = inPlaceJoinOp.copy(getInputValue(node, 0));
+      for (int i = 1; i < inCount; i++) {
+        inPlaceJoinOp.joinInto(result, getInputValue(node, i));
       }
+      return result;
+    }
+    List<L> values = new ArrayList<>(inCount);
+    for (int i = 0; i < inCount; i++) {
+      values.add(getInputValue(node, i));
     }
+    return joinOp.apply(values);
+  }
+
+  /**
+   * Returns the i-th input of a node: the output state of its i-th
+   * predecessor, or the input state of its i-th successor for a backward
+   * analysis.
+   */
+  private L getInputValue(int node, int i) {
+    return isForward()
+        ? flowStates[compactCfg.getPred(node, i)].getOut()
+        : flowStates[compactCfg.getSucc(node, i)].getIn();
   }
 
   /**
@@ -384,6 +517,52 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
     }
   }
 
+  /**
+   * A set of node ids that are removed in a fixed order, regardless of the
+   * order in which they were added.
+   */
+  private static final class WorkSet {
+    // The ids in the order of removal, and the position of each id in it.
+    private final int[] order;
+    private final int[] positions;
+    // The positions of the ids in the set.
+    private final BitSet positionsInSet;
+    // No position before this one is in the set.
+    private int firstPosition;
+    private int size;
+
+    WorkSet(int[] order) {
+      this.order = order;
+      this.positions = new int[order.length];
+      for (int i = 0; i < order.length; i++) {
+        positions[order[i]] = i;
+      }
+      this.positionsInSet = new BitSet(order.length);
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    void add(int id) {
+      int position = positions[id];
+      if (!positionsInSet.get(position)) {
+        positionsInSet.set(position);
+        firstPosition = Math.min(firstPosition, position);
+        size++;
+      }
+    }
+
+    int remove() {
+      Preconditions.checkState(size > 0);
+      int position = positionsInSet.nextSetBit(firstPosition);
+      positionsInSet.clear(position);
+      firstPosition = position + 1;
+      size--;
+      return order[position];
+    }
+  }
+
   /**
    * The exception to be thrown if the analysis has been running for a long
    * number of iterations. Chances are the analysis is not monotonic, a
@@ -399,20 +578,23 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
   abstract static class BranchedForwardDataFlowAnalysis
       <N, L extends LatticeElement> extends DataFlowAnalysis<N, L> {
 
+    // The flow state of each node, by id in the compact control flow graph.
+    private BranchedFlowState<L>[] branchedFlowStates;
+
     @Override
+    @SuppressWarnings("unchecked")
     protected void initialize() {
-      orderedWorkSet.clear();
-      for (DiGraphNode<N, Branch> node : getCfg().getDirectedGraphNodes()) {
-        int outEdgeCount = getCfg().getOutEdges(node.getValue()).size();
+      CompactControlFlowGraph<N> compactCfg = getCompactCfg();
+      branchedFlowStates = new BranchedFlowState[compactCfg.getNodeCount()];
+      for (int id = 0; id < compactCfg.getNodeCount(); id++) {
+        int outEdgeCount = compactCfg.getSuccCount(id);
         List<L> outLattices = new ArrayList<>();
         for (int i = 0; i < outEdgeCount; i++) {
           outLattices.add(createInitialEstimateLattice());
         }
-        node.setAnnotation(new BranchedFlowState<>(
-            createInitialEstimateLattice(), outLattices));
-        if (node != getCfg().getImplicitReturn()) {
-          orderedWorkSet.add(node);
-        }
+        branchedFlowStates[id] = new BranchedFlowState<>(
+            createInitialEstimateLattice(), outLattices);
+        compactCfg.getGraphNode(id).setAnnotation(branchedFlowStates[id]);
       }
     }
 
@@ -451,10 +633,10 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
     abstract List<L> branchedFlowThrough(N node, L input);
 
     @Override
-    protected final boolean flow(DiGraphNode<N, Branch> node) {
-      BranchedFlowState<L> state = node.getAnnotation();
+    protected final boolean flow(int node) {
+      BranchedFlowState<L> state = branchedFlowStates[node];
       List<L> outBefore = state.out;
-      state.out = branchedFlowThrough(node.getValue(), state.in);
+      state.out = branchedFlowThrough(getCompactCfg().getValue(node), state.in);
       Preconditions.checkState(outBefore.size() == state.out.size());
       for (int i = 0; i < outBefore.size(); i++) {
         if (!outBefore.get(i).equals(state.out.get(i))) {
@@ -465,21 +647,21 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
     }
 
     @Override
-    protected void joinInputs(DiGraphNode<N, Branch> node) {
-      BranchedFlowState<L> state = node.getAnnotation();
-      List<DiGraphNode<N, Branch>> predNodes =
-          getCfg().getDirectedPredNodes(node);
-      List<L> values = new ArrayList<>(predNodes.size());
+    protected void joinInputs(int node) {
+      BranchedFlowState<L> state = branchedFlowStates[node];
+      CompactControlFlowGraph<N> compactCfg = getCompactCfg();
+      int predCount = compactCfg.getPredCount(node);
+      List<L> values = new ArrayList<>(predCount);
 
-      for (DiGraphNode<N, Branch> predNode : predNodes) {
-        BranchedFlowState<L> predNodeState = predNode.getAnnotation();
+      for (int i = 0; i < predCount; i++) {
+        BranchedFlowState<L> predNodeState =
+            branchedFlowStates[compactCfg.getPred(node, i)];
 
-        L in = predNodeState.out.get(
-            getCfg().getDirectedSuccNodes(predNode).indexOf(node));
+        L in = predNodeState.out.get(compactCfg.getPredSuccIndex(node, i));
 
         values.add(in);
       }
-      if (getCfg().getEntry() == node) {
+      if (compactCfg.getEntry() == node) {
         state.setIn(createEntryLattice());
       } else if (!values.isEmpty()) {
         state.setIn(joinOp.apply(values));
@@ -54,7 +54,7 @@ class DeadAssignmentsElimination extends AbstractScopedCallback implements Compi
   public void process(Node externs, Node root) {
     Preconditions.checkNotNull(externs);
     Preconditions.checkNotNull(root);
-    NodeTraversal.traverseEs6(compiler, root, this);
+    NodeTraversal.traverseChangedScopes(compiler, root, this);
   }
 
   @Override
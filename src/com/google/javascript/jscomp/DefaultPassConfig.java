@@ -20,6 +20,7 @@ import static com.google.javascript.jscomp.PassFactory.createEmptyPass;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.javascript.jscomp.AbstractCompiler.LifeCycleStage;
@@ -1550,17 +1551,27 @@ public final class DefaultPassConfig extends PassConfig {
   };
 
   /** Various peephole optimizations. */
-  private static CompilerPass createPeepholeOptimizationsPass(AbstractCompiler compiler) {
+  private static CompilerPass createPeepholeOptimizationsPass(final AbstractCompiler compiler) {
     final boolean late = false;
     final boolean useTypesForOptimization = compiler.getOptions().useTypesForLocalOptimization;
-    return new PeepholeOptimizationsPass(compiler,
-          new MinimizeExitPoints(compiler),
-          new PeepholeMinimizeConditions(late, useTypesForOptimization),
-          new PeepholeSubstituteAlternateSyntax(late),
-          new PeepholeReplaceKnownMethods(late, useTypesForOptimization),
-          new PeepholeRemoveDeadCode(),
-          new PeepholeFoldConstants(late, useTypesForOptimization),
-          new PeepholeCollectPropertyAssignments());
+    // Type queries may create types in the shared type registry, so scripts
+    // are only optimized concurrently when the optimizations don't use types.
+    int numThreads =
+        useTypesForOptimization ? 1 : compiler.getOptions().numParallelPeepholeThreads;
+    return new PeepholeOptimizationsPass(compiler, numThreads,
+        new Supplier<AbstractPeepholeOptimization[]>() {
+          @Override
+          public AbstractPeepholeOptimization[] get() {
+            return new AbstractPeepholeOptimization[] {
+                new MinimizeExitPoints(compiler),
+                new PeepholeMinimizeConditions(late, useTypesForOptimization),
+                new PeepholeSubstituteAlternateSyntax(late),
+                new PeepholeReplaceKnownMethods(late, useTypesForOptimization),
+                new PeepholeRemoveDeadCode(),
+                new PeepholeFoldConstants(late, useTypesForOptimization),
+                new PeepholeCollectPropertyAssignments()};
+          }
+        });
   }
 
   /** Various peephole optimizations. */
@@ -26,8 +26,7 @@ import com.google.common.collect.Multimap;
 import com.google.javascript.jscomp.AbstractCompiler.LifeCycleStage;
 import com.google.javascript.jscomp.NodeTraversal.AbstractScopedCallback;
 import com.google.javascript.jscomp.TypeValidator.TypeMismatch;
-import com.google.javascript.jscomp.graph.StandardUnionFind;
-import com.google.javascript.jscomp.graph.UnionFind;
+import com.google.javascript.jscomp.graph.IntUnionFind;
 import com.google.javascript.rhino.FunctionTypeI;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.ObjectTypeI;
@@ -35,6 +34,7 @@ import com.google.javascript.rhino.TypeI;
 import com.google.javascript.rhino.TypeIRegistry;
 import com.google.javascript.rhino.jstype.JSTypeNative;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -43,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -130,6 +131,8 @@ class DisambiguateProperties implements CompilerPass {
    */
   private final Map<String, CheckLevel> propertiesToErrorFor;
 
+  private final int numThreads;
+
   // Use this cache to call FunctionTypeI#getImplementedInterfaces
   // or FunctionTypeI#getExtendedInterfaces only once per constructor.
   private Map<FunctionTypeI, Iterable<ObjectTypeI>> ancestorInterfaces;
@@ -137,6 +140,50 @@ class DisambiguateProperties implements CompilerPass {
   // Cache calls to getTypeWithProperty.
   private Map<String, IdentityHashMap<TypeI, ObjectTypeI>> gtwpCache;
 
+  // Ids of the types that properties are referenced on, which are the elements
+  // of the union-find of each property. The types to skip along with each type
+  // and the name of each type are cached by id.
+  private final Map<TypeI, Integer> typeIds = new HashMap<>();
+  private final List<TypeI> typesById = new ArrayList<>();
+  private final List<int[]> typesToSkipById = new ArrayList<>();
+  private final List<String> typeNamesById = new ArrayList<>();
+
+  private int getTypeId(TypeI type) {
+    Integer id = typeIds.get(type);
+    if (id == null) {
+      id = typesById.size();
+      typeIds.put(type, id);
+      typesById.add(type);
+      typesToSkipById.add(null);
+      typeNamesById.add(null);
+    }
+    return id;
+  }
+
+  /** Returns the ids of the types to skip along with the type with this id. */
+  private int[] getTypesToSkipForTypeId(int id) {
+    int[] skipTypeIds = typesToSkipById.get(id);
+    if (skipTypeIds == null) {
+      ImmutableSet<TypeI> skipTypes = getTypesToSkipForType(typesById.get(id));
+      skipTypeIds = new int[skipTypes.size()];
+      int i = 0;
+      for (TypeI skipType : skipTypes) {
+        skipTypeIds[i++] = getTypeId(skipType);
+      }
+      typesToSkipById.set(id, skipTypeIds);
+    }
+    return skipTypeIds;
+  }
+
+  private String getTypeName(int id) {
+    String name = typeNamesById.get(id);
+    if (name == null) {
+      name = typesById.get(id).toString();
+      typeNamesById.set(id, name);
+    }
+    return name;
+  }
+
   private ObjectTypeI gtwpCacheGet(String field, TypeI type) {
     IdentityHashMap<TypeI, ObjectTypeI> m = gtwpCache.get(field);
     return m == null ? null : m.get(type);
@@ -160,13 +207,13 @@ class DisambiguateProperties implements CompilerPass {
      * See getTypeWithProperty. If a property exists on a parent class and a
      * subclass, only the parent class is recorded here.
      */
-    private UnionFind<TypeI> types;
+    private IntUnionFind types;
 
     /**
-     * A set of types for which renaming this field should be skipped. This
-     * list is first filled by fields defined in the externs file.
+     * The ids of the types for which renaming this field should be skipped.
+     * This list is first filled by fields defined in the externs file.
      */
-    Set<TypeI> typesToSkip = new HashSet<>();
+    BitSet typesToSkip = new BitSet();
 
     /**
      * If true, do not rename any instance of this field, as it has been
@@ -191,10 +238,10 @@ class DisambiguateProperties implements CompilerPass {
       this.name = name;
     }
 
-    /** Returns the types on which this field is referenced. */
-    UnionFind<TypeI> getTypes() {
+    /** Returns the ids of the types on which this field is referenced. */
+    IntUnionFind getTypes() {
       if (types == null) {
-        types = new StandardUnionFind<>();
+        types = new IntUnionFind();
       }
       return types;
     }
@@ -213,9 +260,9 @@ class DisambiguateProperties implements CompilerPass {
         addTypeToSkip(top);
       }
       if (relatedType == null) {
-        getTypes().add(top);
+        getTypes().add(getTypeId(top));
       } else {
-        getTypes().union(top, relatedType);
+        getTypes().union(getTypeId(top), getTypeId(relatedType));
       }
       FunctionTypeI constructor = getConstructor(type);
       if (constructor != null && recordInterfacesCache.add(type)) {
@@ -225,9 +272,13 @@ class DisambiguateProperties implements CompilerPass {
 
     /** Records the given type as one to skip for this property. */
     void addTypeToSkip(TypeI type) {
-      for (TypeI skipType : getTypesToSkipForType(type)) {
-        typesToSkip.add(skipType);
-        getTypes().union(skipType, type);
+      addTypeToSkip(getTypeId(type));
+    }
+
+    private void addTypeToSkip(int typeId) {
+      for (int skipTypeId : getTypesToSkipForTypeId(typeId)) {
+        typesToSkip.set(skipTypeId);
+        getTypes().union(skipTypeId, typeId);
       }
     }
 
@@ -243,28 +294,28 @@ class DisambiguateProperties implements CompilerPass {
 
           // Make sure that the representative type for each type to skip is
           // marked as being skipped.
-          Set<TypeI> rootTypesToSkip = new HashSet<>();
-          for (TypeI subType : typesToSkip) {
-            rootTypesToSkip.add(types.find(subType));
+          BitSet rootTypesToSkip = new BitSet();
+          for (int i = typesToSkip.nextSetBit(0); i >= 0; i = typesToSkip.nextSetBit(i + 1)) {
+            rootTypesToSkip.set(types.find(i));
           }
-          typesToSkip.addAll(rootTypesToSkip);
-
-          Set<TypeI> newTypesToSkip = new HashSet<>();
-          Set<TypeI> allTypes = types.elements();
-          int originalTypesSize = allTypes.size();
-          for (TypeI subType : allTypes) {
-            if (!typesToSkip.contains(subType)
-                && typesToSkip.contains(types.find(subType))) {
-              newTypesToSkip.add(subType);
+          typesToSkip.or(rootTypesToSkip);
+
+          BitSet newTypesToSkip = new BitSet();
+          int originalTypesSize = types.size();
+          for (int subType : types.elements()) {
+            if (!typesToSkip.get(subType)
+                && typesToSkip.get(types.find(subType))) {
+              newTypesToSkip.set(subType);
             }
           }
 
-          for (TypeI newType : newTypesToSkip) {
-            addTypeToSkip(newType);
+          for (int i = newTypesToSkip.nextSetBit(0); i >= 0;
+              i = newTypesToSkip.nextSetBit(i + 1)) {
+            addTypeToSkip(i);
           }
 
           // If there were not any new types added, we are done here.
-          if (types.elements().size() == originalTypesSize) {
+          if (types.size() == originalTypesSize) {
             break;
           }
         }
@@ -274,7 +325,7 @@ class DisambiguateProperties implements CompilerPass {
     /** Returns true if any instance of this property should be renamed. */
     boolean shouldRename() {
       return !skipRenaming && types != null
-          && types.allEquivalenceClasses().size() > 1;
+          && types.getClassCount() > 1;
     }
 
     /**
@@ -282,8 +333,8 @@ class DisambiguateProperties implements CompilerPass {
      * expandTypesToSkip() should be called before this, if anything has been
      * added to the typesToSkip list.
      */
-    boolean shouldRename(TypeI type) {
-      return !skipRenaming && !typesToSkip.contains(type);
+    boolean shouldRename(int typeId) {
+      return !skipRenaming && !typesToSkip.get(typeId);
     }
 
     /**
@@ -338,6 +389,7 @@ class DisambiguateProperties implements CompilerPass {
         registry.getNativeType(JSTypeNative.TOP_LEVEL_PROTOTYPE),
         registry.getNativeType(JSTypeNative.UNKNOWN_TYPE)));
     this.propertiesToErrorFor = propertiesToErrorFor;
+    this.numThreads = compiler.getOptions().numParallelDisambiguationThreads;
     if (!this.propertiesToErrorFor.isEmpty()) {
       this.invalidationMap = LinkedHashMultimap.create();
     } else {
@@ -446,8 +498,9 @@ class DisambiguateProperties implements CompilerPass {
           // to the instance type as well.  These assignments are not usually
           // seen in the extern code itself, so we must handle them here.
           if ((recvType = getInstanceFromPrototype(recv)) != null) {
-            prop.getTypes().add(recvType);
-            prop.typesToSkip.add(recvType);
+            int recvTypeId = getTypeId(recvType);
+            prop.getTypes().add(recvTypeId);
+            prop.typesToSkip.set(recvTypeId);
           }
         }
       }
@@ -695,6 +748,24 @@ class DisambiguateProperties implements CompilerPass {
     }
   }
 
+  /**
+   * The references to a property with the ids of their root types, and the
+   * new name of each reference, or null if it is skipped.
+   */
+  private static final class PropertyRenaming {
+    final Property prop;
+    final Node[] nodes;
+    final int[] rootTypeIds;
+    final String[] newNames;
+
+    PropertyRenaming(Property prop, Node[] nodes, int[] rootTypeIds) {
+      this.prop = prop;
+      this.nodes = nodes;
+      this.rootTypeIds = rootTypeIds;
+      this.newNames = new String[nodes.length];
+    }
+  }
+
   /** Renames all properties with references on more than one type. */
   void renameProperties() {
     int propsRenamed = 0;
@@ -703,46 +774,55 @@ class DisambiguateProperties implements CompilerPass {
     int instancesSkipped = 0;
     int singleTypeProps = 0;
 
-    Set<String> reported = new HashSet<>();
+    // The types of the references are looked up here, so that choosing the new
+    // names only deals with type ids.
+    List<PropertyRenaming> renamings = new ArrayList<>();
     for (Property prop : properties.values()) {
       if (prop.shouldRename()) {
-        UnionFind<TypeI> pTypes = prop.getTypes();
-        Map<TypeI, String> propNames = buildPropNames(prop);
-
         ++propsRenamed;
-        prop.expandTypesToSkip();
-        // This loop has poor locality, because instead of walking the AST,
-        // we iterate over all accesses of a property, which can be in very
-        // different places in the code.
+        Node[] nodes = new Node[prop.rootTypesByNode.size()];
+        int[] rootTypeIds = new int[nodes.length];
+        int i = 0;
         for (Map.Entry<Node, TypeI> entry : prop.rootTypesByNode.entrySet()) {
-          Node node = entry.getKey();
-          TypeI rootType = entry.getValue();
-          if (prop.shouldRename(rootType)) {
-            String newName = propNames.get(pTypes.find(rootType));
-            node.setString(newName);
-            compiler.reportCodeChange();
-            ++instancesRenamed;
-          } else {
-            ++instancesSkipped;
-
-            CheckLevel checkLevelForProp = propertiesToErrorFor.get(prop.name);
-            if (checkLevelForProp != null
-                && checkLevelForProp != CheckLevel.OFF
-                && !reported.contains(prop.name)) {
-              reported.add(prop.name);
-              compiler.report(JSError.make(
-                  node,
-                  checkLevelForProp,
-                  Warnings.INVALIDATION_ON_TYPE, prop.name,
-                  rootType.toString(), ""));
-            }
-          }
+          nodes[i] = entry.getKey();
+          rootTypeIds[i] = getTypeId(entry.getValue());
+          i++;
         }
+        renamings.add(new PropertyRenaming(prop, nodes, rootTypeIds));
+      } else if (prop.skipRenaming) {
+        ++propsSkipped;
       } else {
-        if (prop.skipRenaming) {
-          ++propsSkipped;
+        ++singleTypeProps;
+      }
+    }
+
+    computeNewNames(renamings);
+
+    // This loop has poor locality, because instead of walking the AST,
+    // we iterate over all accesses of a property, which can be in very
+    // different places in the code.
+    for (PropertyRenaming renaming : renamings) {
+      String name = renaming.prop.name;
+      boolean reported = false;
+      for (int i = 0; i < renaming.nodes.length; i++) {
+        if (renaming.newNames[i] != null) {
+          renaming.nodes[i].setString(renaming.newNames[i]);
+          compiler.reportCodeChange();
+          ++instancesRenamed;
         } else {
-          ++singleTypeProps;
+          ++instancesSkipped;
+
+          CheckLevel checkLevelForProp = propertiesToErrorFor.get(name);
+          if (checkLevelForProp != null
+              && checkLevelForProp != CheckLevel.OFF
+              && !reported) {
+            reported = true;
+            compiler.report(JSError.make(
+                renaming.nodes[i],
+                checkLevelForProp,
+                Warnings.INVALIDATION_ON_TYPE, name,
+                typesById.get(renaming.rootTypeIds[i]).toString(), ""));
+          }
         }
       }
     }
@@ -756,20 +836,69 @@ class DisambiguateProperties implements CompilerPass {
     }
   }
 
+  /**
+   * Chooses the new names of the references to each property, concurrently if
+   * more than one thread is used.
+   */
+  private void computeNewNames(List<PropertyRenaming> renamings) {
+    if (numThreads <= 1) {
+      for (PropertyRenaming renaming : renamings) {
+        computeNewNames(renaming);
+      }
+      return;
+    }
+    // The types may compute their names, prototypes and unions lazily, so they
+    // are not read on the worker threads. The workers only read the ids, the
+    // types to skip and the names, which are all computed here. Computing the
+    // types to skip numbers more types, which are handled by the same loop.
+    for (int id = 0; id < typesById.size(); id++) {
+      getTypesToSkipForTypeId(id);
+      getTypeName(id);
+    }
+    List<Callable<Void>> tasks = new ArrayList<>(renamings.size());
+    for (final PropertyRenaming renaming : renamings) {
+      tasks.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          computeNewNames(renaming);
+          return null;
+        }
+      });
+    }
+    compiler.runInParallel(tasks, numThreads);
+  }
+
+  /**
+   * Chooses the new names of the references to a property. Only changes the
+   * property and its renaming, so properties can be handled concurrently.
+   */
+  private void computeNewNames(PropertyRenaming renaming) {
+    Property prop = renaming.prop;
+    IntUnionFind pTypes = prop.getTypes();
+    Map<Integer, String> propNames = buildPropNames(prop);
+    prop.expandTypesToSkip();
+    for (int i = 0; i < renaming.nodes.length; i++) {
+      int rootType = renaming.rootTypeIds[i];
+      if (prop.shouldRename(rootType)) {
+        renaming.newNames[i] = propNames.get(pTypes.find(rootType));
+      }
+    }
+  }
+
   /**
    * Chooses a name to use for renaming in each equivalence class and maps
-   * the representative type of that class to that name.
+   * the id of the representative type of that class to that name.
    */
-  private Map<TypeI, String> buildPropNames(Property prop) {
-    UnionFind<TypeI> pTypes = prop.getTypes();
+  private Map<Integer, String> buildPropNames(Property prop) {
+    IntUnionFind pTypes = prop.getTypes();
     String pname = prop.name;
-    Map<TypeI, String> names = new HashMap<>();
-    for (Set<TypeI> set : pTypes.allEquivalenceClasses()) {
-      checkState(!set.isEmpty());
-      TypeI representative = pTypes.find(set.iterator().next());
+    Map<Integer, String> names = new HashMap<>();
+    for (int[] set : pTypes.allEquivalenceClasses()) {
+      checkState(set.length > 0);
+      int representative = pTypes.find(set[0]);
       String typeName = null;
-      for (TypeI type : set) {
-        String typeString = type.toString();
+      for (int type : set) {
+        String typeString = getTypeName(type);
         if (typeName == null || typeString.compareTo(typeName) < 0) {
           typeName = typeString;
         }
@@ -791,8 +920,12 @@ class DisambiguateProperties implements CompilerPass {
     for (Map.Entry<String, Property> entry : properties.entrySet()) {
       Property prop = entry.getValue();
       if (!prop.skipRenaming) {
-        for (Collection<TypeI> c : prop.getTypes().allEquivalenceClasses()) {
-          if (!c.isEmpty() && !prop.typesToSkip.contains(c.iterator().next())) {
+        for (int[] set : prop.getTypes().allEquivalenceClasses()) {
+          if (!prop.typesToSkip.get(set[0])) {
+            List<TypeI> c = new ArrayList<>();
+            for (int type : set) {
+              c.add(typesById.get(type));
+            }
             ret.put(entry.getKey(), c);
           }
         }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.javascript.jscomp.JsAst.RecordedDiagnostic;
+import com.google.javascript.jscomp.JsAst.RhinoError;
+import com.google.javascript.jscomp.parsing.Config;
+import com.google.javascript.jscomp.parsing.ParserRunner;
+import com.google.javascript.jscomp.parsing.parser.FeatureSet;
+import com.google.javascript.jscomp.parsing.parser.trees.Comment;
+import com.google.javascript.rhino.BinaryNodeReader;
+import com.google.javascript.rhino.BinaryNodeWriter;
+import com.google.javascript.rhino.Node;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link ParseCache} that keeps one file per entry in a directory, named by
+ * a hash of the source content and the parser config. Entries are independent
+ * of the name of the source, so identical files share an entry.
+ *
+ * <p>A failure to read or write an entry is never fatal; the source is just
+ * parsed again. Call {@link #evict} to bound the size of the directory.
+ */
+@GwtIncompatible("java.io")
+public final class DiskParseCache extends ParseCache {
+
+  private static final Logger logger = Logger.getLogger(DiskParseCache.class.getName());
+
+  // Change this whenever the format of the entry files changes.
+  private static final int FORMAT_VERSION = 2;
+
+  private static final String ENTRY_SUFFIX = ".ast";
+
+  public static final long DEFAULT_MAX_SIZE_BYTES = 1L << 30;
+
+  public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+  private final File directory;
+  private final long maxSizeBytes;
+  private final long maxAgeMillis;
+  // ASTs produced by different compiler versions may differ.
+  private final String compilerVersion = Compiler.getReleaseVersion();
+
+  public DiskParseCache(File directory) {
+    this(directory, DEFAULT_MAX_SIZE_BYTES, DEFAULT_MAX_AGE_MILLIS);
+  }
+
+  /**
+   * @param directory The directory holding the entries. Created if needed.
+   * @param maxSizeBytes The total size of the entries that {@link #evict} keeps.
+   * @param maxAgeMillis How long {@link #evict} keeps an entry after it was
+   *     last written or read.
+   */
+  public DiskParseCache(File directory, long maxSizeBytes, long maxAgeMillis) {
+    Preconditions.checkArgument(maxSizeBytes >= 0);
+    Preconditions.checkArgument(maxAgeMillis >= 0);
+    this.directory = directory;
+    this.maxSizeBytes = maxSizeBytes;
+    this.maxAgeMillis = maxAgeMillis;
+    directory.mkdirs();
+  }
+
+  @Override
+  Entry load(SourceFile file, String code, Config config) {
+    File entryFile = getEntryFile(code, config);
+    if (!entryFile.isFile()) {
+      return null;
+    }
+    try (InputStream in = new BufferedInputStream(new FileInputStream(entryFile))) {
+      Entry entry = readEntry(in, file);
+      // Used by evict to find the least recently used entries.
+      entryFile.setLastModified(System.currentTimeMillis());
+      return entry;
+    } catch (IOException | RuntimeException e) {
+      // Most likely written by another version of the compiler.
+      logger.log(Level.FINE, "Ignoring unreadable parse cache entry " + entryFile, e);
+      entryFile.delete();
+      return null;
+    }
+  }
+
+  @Override
+  void store(SourceFile file, String code, Config config, Entry entry) {
+    File entryFile = getEntryFile(code, config);
+    File tempFile = null;
+    try {
+      // Write to a temporary file first, so that concurrent compilations
+      // never see a partially written entry.
+      tempFile = File.createTempFile(entryFile.getName(), ".tmp", directory);
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+        writeEntry(out, file, entry);
+      }
+      Files.move(tempFile.toPath(), entryFile.toPath(),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not write parse cache entry " + entryFile, e);
+      if (tempFile != null) {
+        tempFile.delete();
+      }
+    }
+  }
+
+  /**
+   * Deletes the entries that have not been used within the maximum age, then
+   * the least recently used entries until the rest fit in the maximum size.
+   */
+  public void evict() {
+    File[] entries = directory.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File f) {
+        return f.isFile() && f.getName().endsWith(ENTRY_SUFFIX);
+      }
+    });
+    if (entries == null) {
+      return;
+    }
+    Arrays.sort(entries, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        return Long.compare(b.lastModified(), a.lastModified());
+      }
+    });
+
+    // Newest first, so everything after the size limit is reached goes.
+    long now = System.currentTimeMillis();
+    long totalSize = 0;
+    for (File entry : entries) {
+      totalSize += entry.length();
+      if (totalSize > maxSizeBytes || now - entry.lastModified() > maxAgeMillis) {
+        entry.delete();
+      }
+    }
+  }
+
+  private File getEntryFile(String code, Config config) {
+    String key = Hashing.sha256().newHasher()
+        .putInt(FORMAT_VERSION)
+        .putString(compilerVersion, UTF_8)
+        .putString(config.getFingerprint(), UTF_8)
+        .putString(code, UTF_8)
+        .hash()
+        .toString();
+    return new File(directory, key + ENTRY_SUFFIX);
+  }
+
+  /** Writes an entry for {@code file}. Also used by {@link MemoryParseCache}. */
+  static void writeEntry(OutputStream os, SourceFile file, Entry entry)
+      throws IOException {
+    BinaryNodeWriter out = new BinaryNodeWriter(os, file);
+    out.writeNode(entry.result.ast);
+    out.writeObject(entry.result.features);
+    out.writeString(entry.result.sourceMap);
+    out.writeInt(entry.diagnostics.size());
+    for (RecordedDiagnostic diagnostic : entry.diagnostics) {
+      RhinoError error = diagnostic.error;
+      out.writeInt(diagnostic.isError ? 1 : 0);
+      out.writeString(error.message);
+      // Entries are shared between files with the same content, so store
+      // the name of the parsed file as null.
+      out.writeString(file.getName().equals(error.sourceName) ? null : error.sourceName);
+      out.writeInt(error.line);
+      out.writeInt(error.lineOffset);
+    }
+    out.flush();
+  }
+
+  /** Reads an entry written by {@link #writeEntry} for {@code file}. */
+  static Entry readEntry(InputStream is, SourceFile file) throws IOException {
+    BinaryNodeReader in = new BinaryNodeReader(is, file);
+    Node ast = in.readNode();
+    FeatureSet features = (FeatureSet) in.readObject();
+    String sourceMap = in.readString();
+    int diagnosticCount = in.readInt();
+    ImmutableList.Builder<RecordedDiagnostic> diagnostics = ImmutableList.builder();
+    for (int i = 0; i < diagnosticCount; i++) {
+      boolean isError = in.readInt() != 0;
+      String message = in.readString();
+      String sourceName = in.readString();
+      int line = in.readInt();
+      int lineOffset = in.readInt();
+      diagnostics.add(new RecordedDiagnostic(isError, new RhinoError(
+          message, sourceName == null ? file.getName() : sourceName, line, lineOffset)));
+    }
+    return new Entry(
+        new ParserRunner.ParseResult(ast, ImmutableList.<Comment>of(), features, sourceMap),
+        diagnostics.build());
+  }
+}
@@ -62,15 +62,26 @@ public final class JSModuleGraph {
   private List<List<JSModule>> modulesByDepth;
 
   /**
-   * dependencyMap is a cache of dependencies that makes the dependsOn function faster. Each map
-   * entry associates a starting JSModule with the set of JSModules that are transitively dependent
-   * on the starting module.
-   *
-   * <p>If the cache returns null, then the entry hasn't been filled in for that module.
+   * The modules ordered by depth, and by their original order within a depth.
+   * A module that comes later in this list is considered deeper than the ones
+   * before it, so the deepest module of a set is the one with the highest rank.
+   */
+  private final JSModule[] modulesByRank;
+
+  /**
+   * The rank of each module, that is its position in {@link #modulesByRank}.
    *
    * <p>NOTE: JSModule has identity semantics so this map implementation is safe
    */
-  private final Map<JSModule, Set<JSModule>> dependencyMap = new IdentityHashMap<>();
+  private final Map<JSModule, Integer> rankOfModule = new IdentityHashMap<>();
+
+  /**
+   * The transitive dependencies of each module, as bit sets of ranks indexed
+   * by rank. They make the dependsOn function a single bit test and the
+   * deepest common dependency of two modules the highest bit of a
+   * conjunction.
+   */
+  private final long[][] transitiveDeps;
 
   /**
    * Creates a module graph from a list of modules in dependency order.
@@ -108,6 +119,27 @@ public final class JSModuleGraph {
       }
       modulesByDepth.get(depth).add(module);
     }
+
+    modulesByRank = Iterables.toArray(Iterables.concat(modulesByDepth), JSModule.class);
+    for (int rank = 0; rank < modulesByRank.length; rank++) {
+      rankOfModule.put(modulesByRank[rank], rank);
+    }
+    // The dependencies of a module have a lower rank, so their closures are
+    // already computed.
+    int words = (modulesByRank.length + 63) >>> 6;
+    transitiveDeps = new long[modulesByRank.length][];
+    for (int rank = 0; rank < modulesByRank.length; rank++) {
+      long[] deps = new long[words];
+      for (JSModule dep : modulesByRank[rank].getDependencies()) {
+        int depRank = getRank(dep);
+        deps[depRank >>> 6] |= 1L << depRank;
+        long[] depDeps = transitiveDeps[depRank];
+        for (int i = 0; i < words; i++) {
+          deps[i] |= depDeps[i];
+        }
+      }
+      transitiveDeps[rank] = deps;
+    }
   }
 
   /**
@@ -183,7 +215,24 @@ public final class JSModuleGraph {
    * module never depends on itself, as that dependency would be cyclic.
    */
   public boolean dependsOn(JSModule src, JSModule m) {
-    return getTransitiveDeps(src).contains(m);
+    int rank = getRank(m);
+    return (transitiveDeps[getRank(src)][rank >>> 6] & (1L << rank)) != 0;
+  }
+
+  /**
+   * Returns the modules that depend on module {@code m}, directly or
+   * transitively, in dependency order. The result does not include {@code m}.
+   *
+   * @param m A module in this graph
+   */
+  List<JSModule> getTransitiveDependents(JSModule m) {
+    List<JSModule> dependents = new ArrayList<>();
+    for (JSModule module : modules) {
+      if (module.getDepth() > m.getDepth() && dependsOn(module, m)) {
+        dependents.add(module);
+      }
+    }
+    return dependents;
   }
 
   /**
@@ -196,19 +245,14 @@ public final class JSModuleGraph {
    *     they have no common dependencies
    */
   JSModule getDeepestCommonDependency(JSModule m1, JSModule m2) {
-    int m1Depth = m1.getDepth();
-    int m2Depth = m2.getDepth();
-    // According our definition of depth, the result must have a strictly
-    // smaller depth than either m1 or m2.
-    for (int depth = Math.min(m1Depth, m2Depth) - 1; depth >= 0; depth--) {
-      List<JSModule> modulesAtDepth = modulesByDepth.get(depth);
-      // Look at the modules at this depth in reverse order, so that we use the
-      // original ordering of the modules to break ties (later meaning deeper).
-      for (int i = modulesAtDepth.size() - 1; i >= 0; i--) {
-        JSModule m = modulesAtDepth.get(i);
-        if (dependsOn(m1, m) && dependsOn(m2, m)) {
-          return m;
-        }
+    long[] m1Deps = transitiveDeps[getRank(m1)];
+    long[] m2Deps = transitiveDeps[getRank(m2)];
+    // The deepest module is the one with the highest rank. Ties in depth are
+    // broken by the original ordering of the modules (later meaning deeper).
+    for (int i = m1Deps.length - 1; i >= 0; i--) {
+      long common = m1Deps[i] & m2Deps[i];
+      if (common != 0) {
+        return modulesByRank[(i << 6) + 63 - Long.numberOfLeadingZeros(common)];
       }
     }
     return null;
@@ -254,27 +298,21 @@ public final class JSModuleGraph {
    * @return The transitive dependencies of module {@code m}
    */
   List<JSModule> getTransitiveDepsDeepestFirst(JSModule m) {
-    return InverseDepthComparator.INSTANCE.sortedCopy(getTransitiveDeps(m));
-  }
-
-  /** Returns the transitive dependencies of the module. */
-  private Set<JSModule> getTransitiveDeps(JSModule m) {
-    Set<JSModule> deps = dependencyMap.get(m);
-    if (deps == null) {
-      deps = m.getAllDependencies();
-      dependencyMap.put(m, deps);
+    List<JSModule> deps = new ArrayList<>();
+    long[] bits = transitiveDeps[getRank(m)];
+    for (int i = 0; i < bits.length; i++) {
+      for (long word = bits[i]; word != 0; word &= word - 1) {
+        deps.add(modulesByRank[(i << 6) + Long.numberOfTrailingZeros(word)]);
+      }
     }
-    return deps;
+    return InverseDepthComparator.INSTANCE.sortedCopy(deps);
   }
 
-  /**
-   * Adds a module's transitive dependencies to a set.
-   */
-  private static void addDeps(Set<JSModule> deps, JSModule m) {
-    for (JSModule dep : m.getDependencies()) {
-      deps.add(dep);
-      addDeps(deps, dep);
-    }
+  /** Returns the rank of a module of this graph. */
+  private int getRank(JSModule m) {
+    Integer rank = rankOfModule.get(m);
+    Preconditions.checkArgument(rank != null, "Module %s is not in the module graph", m);
+    return rank;
   }
 
   /**
@@ -85,4 +85,34 @@ interface JoinOp<L extends LatticeElement> extends Function<List<L>, L> {
       return midpoint;
     }
   }
+
+  /**
+   * An implementation of {@code JoinOp} for lattice elements, such as bit
+   * sets, that are cheaper to join into an existing element than to create.
+   * {@link DataFlowAnalysis} joins the inputs of a node into a copy of the
+   * first one.
+   */
+  abstract static class InPlaceJoinOp<L extends LatticeElement>
+      implements JoinOp<L> {
+    @Override
+    public L apply(List<L> values) {
+      Preconditions.checkArgument(!values.isEmpty());
+      L result = copy(values.get(0));
+      for (int i = 1; i < values.size(); i++) {
+        joinInto(result, values.get(i));
+      }
+      return result;
+    }
+
+    /**
+     * Creates a new lattice element that is equal to {@code value}, and that
+     * is safe to pass to {@link #joinInto}.
+     */
+    abstract L copy(L value);
+
+    /**
+     * Joins {@code value} into {@code result}, which is modified.
+     */
+    abstract void joinInto(L result, L value);
+  }
 }
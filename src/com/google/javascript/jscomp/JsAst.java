@@ -18,6 +18,7 @@ package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.parsing.Config;
 import com.google.javascript.jscomp.parsing.ParserRunner;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet;
 import com.google.javascript.rhino.ErrorReporter;
@@ -39,6 +40,8 @@ public class JsAst implements SourceAst {
   private String fileName;
   private Node root;
   private FeatureSet features;
+  // The result of an ahead-of-time parse by #preParse, not yet reported to the compiler.
+  private transient PreParseResult preParseResult;
 
   public JsAst(SourceFile sourceFile) {
     this.inputId = new InputId(sourceFile.getName());
@@ -58,6 +61,7 @@ public class JsAst implements SourceAst {
   @Override
   public void clearAst() {
     root = null;
+    preParseResult = null;
     // While we're at it, clear out any saved text in the source file on
     // the assumption that if we're dumping the parse tree, then we probably
     // assume regenerating everything else is a smart idea also.
@@ -109,43 +113,150 @@ public class JsAst implements SourceAst {
     }
   }
 
+  /** An error or warning reported by the parser. */
+  static final class RecordedDiagnostic {
+    final boolean isError;
+    final RhinoError error;
+
+    RecordedDiagnostic(boolean isError, RhinoError error) {
+      this.isError = isError;
+      this.error = error;
+    }
+
+    void reportTo(ErrorReporter reporter) {
+      if (isError) {
+        reporter.error(error.message, error.sourceName, error.line, error.lineOffset);
+      } else {
+        reporter.warning(error.message, error.sourceName, error.line, error.lineOffset);
+      }
+    }
+  }
+
   private static class RecordingReporterProxy implements ErrorReporter {
     final ArrayList<RhinoError> errors = new ArrayList<>();
     final ArrayList<RhinoError> warnings = new ArrayList<>();
+    // All errors and warnings, in the order they were reported.
+    final ArrayList<RecordedDiagnostic> reported = new ArrayList<>();
     private ErrorReporter delegateReporter;
 
+    /**
+     * @param delegateReporter The reporter to forward to, or null to only
+     *     record until {@link #replayTo} is called.
+     */
     RecordingReporterProxy(ErrorReporter delegateReporter) {
       this.delegateReporter = delegateReporter;
     }
 
     @Override
     public void warning(String message, String sourceName, int line, int lineOffset) {
-      warnings.add(new RhinoError(message, sourceName, line, lineOffset));
-      delegateReporter.warning(message, sourceName, line, lineOffset);
+      RhinoError warning = new RhinoError(message, sourceName, line, lineOffset);
+      warnings.add(warning);
+      reported.add(new RecordedDiagnostic(false, warning));
+      if (delegateReporter != null) {
+        delegateReporter.warning(message, sourceName, line, lineOffset);
+      }
     }
 
     @Override
     public void error(String message, String sourceName, int line, int lineOffset) {
-      errors.add(new RhinoError(message, sourceName, line, lineOffset));
-      delegateReporter.error(message, sourceName, line, lineOffset);
+      RhinoError error = new RhinoError(message, sourceName, line, lineOffset);
+      errors.add(error);
+      reported.add(new RecordedDiagnostic(true, error));
+      if (delegateReporter != null) {
+        delegateReporter.error(message, sourceName, line, lineOffset);
+      }
+    }
+
+    /**
+     * Sets the delegate and forwards everything recorded so far to it, in the
+     * order it was originally reported.
+     */
+    void replayTo(ErrorReporter delegate) {
+      Preconditions.checkState(delegateReporter == null);
+      delegateReporter = delegate;
+      for (RecordedDiagnostic diagnostic : reported) {
+        diagnostic.reportTo(delegate);
+      }
+    }
+  }
+
+  private static class PreParseResult {
+    final RecordingReporterProxy reporter;
+    // Null if the source could not be read.
+    final ParserRunner.ParseResult result;
+
+    PreParseResult(RecordingReporterProxy reporter, ParserRunner.ParseResult result) {
+      this.reporter = reporter;
+      this.result = result;
+    }
+  }
+
+  /**
+   * Parses the source without reporting anything to the compiler. The
+   * recorded errors and warnings are reported, and the rest of the AST setup
+   * done, when the root is first requested with {@link #getAstRoot}.
+   *
+   * <p>This only reads the parser configuration from the compiler, so it is
+   * safe to call concurrently for different inputs once the configuration has
+   * been created on the compiler thread.
+   */
+  void preParse(AbstractCompiler compiler) {
+    if (root != null || preParseResult != null) {
+      return;
     }
+    RecordingReporterProxy reporter = new RecordingReporterProxy(null);
+    preParseResult = new PreParseResult(reporter, runParser(compiler, reporter));
+  }
+
+  /** Returns the parse result, or null if the source could not be read. */
+  private ParserRunner.ParseResult runParser(
+      AbstractCompiler compiler, RecordingReporterProxy reporter) {
+    String code;
+    try {
+      code = sourceFile.getCode();
+    } catch (IOException e) {
+      return null;
+    }
+    Config config = compiler.getParserConfig(sourceFile.isExtern()
+        ? AbstractCompiler.ConfigContext.EXTERNS
+        : AbstractCompiler.ConfigContext.DEFAULT);
+
+    // Comments are not cached, so the cache is skipped when they are needed.
+    ParseCache cache = compiler.getOptions().getParseCache();
+    if (cache == null || compiler.getOptions().preservesDetailedSourceInfo()) {
+      return ParserRunner.parse(sourceFile, code, config, reporter);
+    }
+
+    ParseCache.Entry cached = cache.get(sourceFile, code, config);
+    if (cached != null) {
+      for (RecordedDiagnostic diagnostic : cached.diagnostics) {
+        diagnostic.reportTo(reporter);
+      }
+      return cached.result;
+    }
+    ParserRunner.ParseResult result = ParserRunner.parse(sourceFile, code, config, reporter);
+    cache.put(sourceFile, code, config,
+        new ParseCache.Entry(result, ImmutableList.copyOf(reporter.reported)));
+    return result;
   }
 
   private void parse(AbstractCompiler compiler) {
     ErrorManager errorManager = compiler.getErrorManager();
     int startErrorCount = errorManager.getErrorCount();
 
-    RecordingReporterProxy reporter = new RecordingReporterProxy(
-        compiler.getDefaultErrorReporter());
+    RecordingReporterProxy reporter;
+    ParserRunner.ParseResult result;
+    if (preParseResult != null) {
+      reporter = preParseResult.reporter;
+      reporter.replayTo(compiler.getDefaultErrorReporter());
+      result = preParseResult.result;
+      preParseResult = null;
+    } else {
+      reporter = new RecordingReporterProxy(compiler.getDefaultErrorReporter());
+      result = runParser(compiler, reporter);
+    }
 
-    try {
-      ParserRunner.ParseResult result = ParserRunner.parse(
-          sourceFile,
-          sourceFile.getCode(),
-          compiler.getParserConfig(sourceFile.isExtern()
-                        ? AbstractCompiler.ConfigContext.EXTERNS
-                        : AbstractCompiler.ConfigContext.DEFAULT),
-          reporter);
+    if (result != null) {
       root = result.ast;
       features = result.features;
 
@@ -158,7 +269,7 @@ public class JsAst implements SourceAst {
             new SourceMapInput(SourceFile.fromCode(sourceMapName, result.sourceMap));
         compiler.addInputSourceMap(sourceFile.getName(), sourceMapInput);
       }
-    } catch (IOException e) {
+    } else {
       compiler.report(
           JSError.make(AbstractCompiler.READ_ERROR, sourceFile.getName()));
     }
@@ -181,10 +292,10 @@ public class JsAst implements SourceAst {
     }
 
     if (!reporter.errors.isEmpty() || !reporter.warnings.isEmpty()) {
-      ParseResult result = new ParseResult(
+      ParseResult parseResult = new ParseResult(
           ImmutableList.copyOf(reporter.errors),
           ImmutableList.copyOf(reporter.warnings));
-      root.putProp(Node.PARSE_RESULTS, result);
+      root.putProp(Node.PARSE_RESULTS, parseResult);
     }
 
     // Set the source name so that the compiler passes can track
@@ -53,14 +53,15 @@ class LiveVariablesAnalysis extends
   public static final String ARGUMENT_ARRAY_ALIAS = "arguments";
 
   private static class LiveVariableJoinOp
-      implements JoinOp<LiveVariableLattice> {
+      extends JoinOp.InPlaceJoinOp<LiveVariableLattice> {
     @Override
-    public LiveVariableLattice apply(List<LiveVariableLattice> in) {
-      LiveVariableLattice result = new LiveVariableLattice(in.get(0));
-      for (int i = 1; i < in.size(); i++) {
-        result.liveSet.or(in.get(i).liveSet);
-      }
-      return result;
+    LiveVariableLattice copy(LiveVariableLattice value) {
+      return new LiveVariableLattice(value);
+    }
+
+    @Override
+    void joinInto(LiveVariableLattice result, LiveVariableLattice value) {
+      result.liveSet.or(value.liveSet);
     }
   }
 
@@ -100,6 +101,14 @@ class LiveVariablesAnalysis extends
       return liveSet.get(index);
     }
 
+    /**
+     * Returns the indices of the live variables. The set must not be
+     * modified.
+     */
+    BitSet getLiveSet() {
+      return liveSet;
+    }
+
     @Override
     public String toString() {
       return liveSet.toString();
@@ -115,14 +115,16 @@ class MaybeReachingVariableUse extends
    *
    * The read of A "may be" exposed to A = 1 in the beginning.
    */
-  private static class ReachingUsesJoinOp implements JoinOp<ReachingUses> {
+  private static class ReachingUsesJoinOp
+      extends JoinOp.InPlaceJoinOp<ReachingUses> {
     @Override
-    public ReachingUses apply(List<ReachingUses> from) {
-      ReachingUses result = new ReachingUses();
-      for (ReachingUses uses : from) {
-        result.mayUseMap.putAll(uses.mayUseMap);
-      }
-      return result;
+    ReachingUses copy(ReachingUses value) {
+      return new ReachingUses(value);
+    }
+
+    @Override
+    void joinInto(ReachingUses result, ReachingUses value) {
+      result.mayUseMap.putAll(value.mayUseMap);
     }
   }
 
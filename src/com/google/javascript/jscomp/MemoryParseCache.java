@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import com.google.javascript.jscomp.parsing.Config;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link ParseCache} that keeps its entries in memory, for compilations
+ * that run in the same process, such as the requests of a
+ * {@link CommandLineServer}. Like {@link DiskParseCache}, entries are keyed
+ * by the source content and the parser config.
+ *
+ * <p>Entries are kept in the format of {@link DiskParseCache} rather than as
+ * trees, so that every hit gets a fresh copy of the AST and its JSDoc, and so
+ * that they take less memory. The least recently used entries are dropped
+ * when the entries don't fit in the maximum size.
+ */
+@GwtIncompatible("java.io")
+public final class MemoryParseCache extends ParseCache {
+
+  private static final Logger logger = Logger.getLogger(MemoryParseCache.class.getName());
+
+  public static final long DEFAULT_MAX_SIZE_BYTES = 256L << 20;
+
+  private final long maxSizeBytes;
+  // In access order, so the eldest entry is the least recently used.
+  private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long sizeBytes = 0;
+
+  public MemoryParseCache() {
+    this(DEFAULT_MAX_SIZE_BYTES);
+  }
+
+  /** @param maxSizeBytes The total size of the entries that are kept. */
+  public MemoryParseCache(long maxSizeBytes) {
+    Preconditions.checkArgument(maxSizeBytes >= 0);
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  @Override
+  Entry load(SourceFile file, String code, Config config) {
+    byte[] bytes;
+    synchronized (this) {
+      bytes = entries.get(getKey(code, config));
+    }
+    if (bytes == null) {
+      return null;
+    }
+    try {
+      return DiskParseCache.readEntry(new ByteArrayInputStream(bytes), file);
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, "Ignoring unreadable parse cache entry for " + file.getName(), e);
+      return null;
+    }
+  }
+
+  @Override
+  void store(SourceFile file, String code, Config config, Entry entry) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      DiskParseCache.writeEntry(out, file, entry);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not write parse cache entry for " + file.getName(), e);
+      return;
+    }
+    byte[] bytes = out.toByteArray();
+    String key = getKey(code, config);
+    synchronized (this) {
+      byte[] previous = entries.put(key, bytes);
+      sizeBytes += bytes.length - (previous == null ? 0 : previous.length);
+      Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+      while (sizeBytes > maxSizeBytes && it.hasNext()) {
+        sizeBytes -= it.next().getValue().length;
+        it.remove();
+      }
+    }
+  }
+
+  /** The number of entries in the cache. */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private static String getKey(String code, Config config) {
+    return Hashing.sha256().newHasher()
+        .putString(config.getFingerprint(), UTF_8)
+        .putString(code, UTF_8)
+        .hash()
+        .toString();
+  }
+}
@@ -32,6 +32,7 @@ import com.google.javascript.jscomp.newtypes.FunctionTypeBuilder;
 import com.google.javascript.jscomp.newtypes.JSType;
 import com.google.javascript.jscomp.newtypes.JSTypes;
 import com.google.javascript.jscomp.newtypes.MismatchInfo;
+import com.google.javascript.jscomp.newtypes.Namespace;
 import com.google.javascript.jscomp.newtypes.NominalType;
 import com.google.javascript.jscomp.newtypes.QualifiedName;
 import com.google.javascript.jscomp.newtypes.TypeEnv;
@@ -40,9 +41,13 @@ import com.google.javascript.rhino.JSDocInfo;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.TypeI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -50,6 +55,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * New type inference algorithm.
@@ -371,10 +378,42 @@ final class NewTypeInference implements CompilerPass {
           || JSType.mockToString) {
         return;
       }
+      report(warning);
+    }
+
+    void report(JSError warning) {
       compiler.report(warning);
     }
   }
 
+  /**
+   * Keeps the warnings of a scope analyzed on a worker thread, to be reported
+   * once the scopes before it have been reported.
+   */
+  private static final class BufferedWarningReporter extends WarningReporter {
+    final List<JSError> warnings = new ArrayList<>();
+
+    BufferedWarningReporter(AbstractCompiler compiler) {
+      super(compiler);
+    }
+
+    @Override
+    void report(JSError warning) {
+      warnings.add(warning);
+    }
+  }
+
+  /** The warnings and deferred checks of a scope analyzed on a worker thread. */
+  private static final class ScopeLog {
+    final List<JSError> warnings;
+    final Map<Node, DeferredCheck> deferredChecks;
+
+    ScopeLog(List<JSError> warnings, Map<Node, DeferredCheck> deferredChecks) {
+      this.warnings = warnings;
+      this.deferredChecks = deferredChecks;
+    }
+  }
+
   private WarningReporter warnings;
   private final AbstractCompiler compiler;
   private final CodingConvention convention;
@@ -395,6 +434,7 @@ final class NewTypeInference implements CompilerPass {
   // To avoid creating warning objects for disabled warnings
   private final boolean reportUnknownTypes;
   private final boolean reportNullDeref;
+  private final int numThreads;
 
   // Fields used in the compatibility mode
   private final boolean joinTypesWhenInstantiatingGenerics;
@@ -435,6 +475,7 @@ final class NewTypeInference implements CompilerPass {
         compiler.getOptions().enables(DiagnosticGroups.REPORT_UNKNOWN_TYPES);
     this.reportNullDeref = compiler.getOptions()
         .enables(DiagnosticGroups.NEW_CHECK_TYPES_ALL_CHECKS);
+    this.numThreads = compiler.getOptions().numParallelTypeInferenceThreads;
     assertionFunctionsMap = new LinkedHashMap<>();
     for (AssertionFunctionSpec assertionFunction : convention.getAssertionFunctions()) {
       assertionFunctionsMap.put(
@@ -448,6 +489,14 @@ final class NewTypeInference implements CompilerPass {
     this.areTypeVariablesUnknown = inCompatibilityMode;
   }
 
+  /** Creates an inference that analyzes single scopes on a worker thread. */
+  private NewTypeInference(NewTypeInference parent) {
+    this(parent.compiler);
+    this.warnings = new BufferedWarningReporter(compiler);
+    this.summaries = parent.summaries;
+    initTypes(parent.symbolTable);
+  }
+
   @VisibleForTesting // Only used from tests
   public NTIScope processForTesting(Node externs, Node root) {
     process(externs, root);
@@ -457,28 +506,15 @@ final class NewTypeInference implements CompilerPass {
   @Override
   public void process(Node externs, Node root) {
     try {
-      this.symbolTable = (GlobalTypeInfo) compiler.getSymbolTable();
-      this.commonTypes = symbolTable.getCommonTypes();
-
-      this.BOOLEAN = this.commonTypes.BOOLEAN;
-      this.BOTTOM = this.commonTypes.BOTTOM;
-      this.FALSE_TYPE = this.commonTypes.FALSE_TYPE;
-      this.FALSY = this.commonTypes.FALSY;
-      this.NULL = this.commonTypes.NULL;
-      this.NULL_OR_UNDEFINED = this.commonTypes.NULL_OR_UNDEFINED;
-      this.NUMBER = this.commonTypes.NUMBER;
-      this.NUMBER_OR_STRING = this.commonTypes.NUMBER_OR_STRING;
-      this.STRING = this.commonTypes.STRING;
-      this.TOP = this.commonTypes.TOP;
-      this.TOP_OBJECT = this.commonTypes.getTopObject();
-      this.TRUE_TYPE = this.commonTypes.TRUE_TYPE;
-      this.TRUTHY = this.commonTypes.TRUTHY;
-      this.UNDEFINED = this.commonTypes.UNDEFINED;
-      this.UNKNOWN = this.commonTypes.UNKNOWN;
-
-      for (NTIScope scope : symbolTable.getScopes()) {
-        analyzeFunction(scope);
-        envs.clear();
+      initTypes((GlobalTypeInfo) compiler.getSymbolTable());
+
+      if (numThreads > 1) {
+        analyzeScopesInParallel();
+      } else {
+        for (NTIScope scope : symbolTable.getScopes()) {
+          analyzeFunction(scope);
+          envs.clear();
+        }
       }
       for (DeferredCheck check : deferredChecks.values()) {
         check.runCheck(summaries, warnings);
@@ -495,6 +531,221 @@ final class NewTypeInference implements CompilerPass {
     }
   }
 
+  private void initTypes(GlobalTypeInfo symbolTable) {
+    this.symbolTable = symbolTable;
+    this.commonTypes = symbolTable.getCommonTypes();
+
+    this.BOOLEAN = this.commonTypes.BOOLEAN;
+    this.BOTTOM = this.commonTypes.BOTTOM;
+    this.FALSE_TYPE = this.commonTypes.FALSE_TYPE;
+    this.FALSY = this.commonTypes.FALSY;
+    this.NULL = this.commonTypes.NULL;
+    this.NULL_OR_UNDEFINED = this.commonTypes.NULL_OR_UNDEFINED;
+    this.NUMBER = this.commonTypes.NUMBER;
+    this.NUMBER_OR_STRING = this.commonTypes.NUMBER_OR_STRING;
+    this.STRING = this.commonTypes.STRING;
+    this.TOP = this.commonTypes.TOP;
+    this.TOP_OBJECT = this.commonTypes.getTopObject();
+    this.TRUE_TYPE = this.commonTypes.TRUE_TYPE;
+    this.TRUTHY = this.commonTypes.TRUTHY;
+    this.UNDEFINED = this.commonTypes.UNDEFINED;
+    this.UNKNOWN = this.commonTypes.UNKNOWN;
+  }
+
+  /**
+   * Analyzes the scopes on worker threads, each scope with its own inference.
+   *
+   * <p>A scope uses the summaries of the functions defined in it, and sets the
+   * types of the nodes of the functions nested in it, so it waits for all of
+   * its inner scopes. The summary of a function namespace also updates the
+   * type of the namespace, so a scope that reads the namespace, by name or
+   * through a namespace that contains it, is analyzed after the namespace
+   * functions before it and before the ones after it. The global scope, and
+   * static methods that use super, may read any namespace, so they are
+   * analyzed alone, after all scopes before them and before all scopes after
+   * them. A single pool of workers analyzes each scope once the scopes it
+   * depends on are analyzed.
+   *
+   * <p>The warnings and deferred checks of the scopes are merged in the order
+   * of the scopes, so the result is the same as analyzing them serially.
+   */
+  private void analyzeScopesInParallel() {
+    List<NTIScope> scopes = new ArrayList<>(symbolTable.getScopes());
+    this.summaries = new ConcurrentHashMap<>();
+    List<Callable<ScopeLog>> tasks = new ArrayList<>();
+    for (final NTIScope scope : scopes) {
+      tasks.add(new Callable<ScopeLog>() {
+        @Override
+        public ScopeLog call() {
+          return new NewTypeInference(NewTypeInference.this).analyzeScope(scope);
+        }
+      });
+    }
+    List<ScopeLog> logs =
+        compiler.runInParallel(tasks, getScopeDependencies(scopes), numThreads);
+
+    for (ScopeLog log : logs) {
+      for (JSError warning : log.warnings) {
+        compiler.report(warning);
+      }
+      deferredChecks.putAll(log.deferredChecks);
+    }
+  }
+
+  /**
+   * Returns, for each of the given scopes, the indices of the scopes that must
+   * be analyzed before it; see {@link #analyzeScopesInParallel}.
+   */
+  private List<Set<Integer>> getScopeDependencies(List<NTIScope> scopes) {
+    List<Set<Integer>> dependencies = new ArrayList<>();
+    Map<NTIScope, Integer> indexOfScope = new HashMap<>();
+    List<Set<Namespace>> namespacesRead = new ArrayList<>();
+    Map<Integer, Namespace> updatedNamespaces = new LinkedHashMap<>();
+    int lastBarrier = -1;
+    for (int i = 0; i < scopes.size(); i++) {
+      NTIScope scope = scopes.get(i);
+      Set<Integer> scopeDependencies = new LinkedHashSet<>();
+      dependencies.add(scopeDependencies);
+      indexOfScope.put(scope, i);
+      Set<Namespace> read = new LinkedHashSet<>();
+      namespacesRead.add(read);
+      boolean isBarrier = !scope.isFunction() || isStaticMethodUsingSuper(scope);
+      if (!isBarrier && getFunctionNamespaceType(scope) != null) {
+        Namespace ns = getUpdatedNamespace(scope);
+        if (ns == null) {
+          isBarrier = true;
+        } else {
+          updatedNamespaces.put(i, ns);
+          read.add(ns);
+        }
+      }
+      if (isBarrier) {
+        for (int j = Math.max(lastBarrier, 0); j < i; j++) {
+          scopeDependencies.add(j);
+        }
+        lastBarrier = i;
+        read.clear();
+      } else {
+        read.addAll(getNamespacesReadBy(scope));
+        if (lastBarrier != -1) {
+          scopeDependencies.add(lastBarrier);
+        }
+      }
+    }
+    for (int i = 0; i < scopes.size(); i++) {
+      Integer parent = indexOfScope.get(scopes.get(i).getParent());
+      if (parent != null) {
+        Preconditions.checkState(parent > i, "Scope analyzed before its inner scope");
+        dependencies.get(parent).add(i);
+      }
+    }
+    Map<Namespace, List<Integer>> updatesVisibleThrough =
+        getUpdatesVisibleThrough(namespacesRead, updatedNamespaces);
+    for (int i = 0; i < scopes.size(); i++) {
+      for (Namespace ns : namespacesRead.get(i)) {
+        List<Integer> updates = updatesVisibleThrough.get(ns);
+        if (updates == null) {
+          continue;
+        }
+        for (int j : updates) {
+          if (j < i) {
+            dependencies.get(i).add(j);
+          } else if (j > i) {
+            dependencies.get(j).add(i);
+          }
+        }
+      }
+    }
+    return dependencies;
+  }
+
+  /**
+   * Returns, for each namespace read by some scope, the indices of the
+   * namespace functions whose updates can be seen through that namespace,
+   * i.e., that update it or a namespace reachable from it.
+   */
+  private static Map<Namespace, List<Integer>> getUpdatesVisibleThrough(
+      List<Set<Namespace>> namespacesRead, Map<Integer, Namespace> updatedNamespaces) {
+    // The edges of the namespace graph reachable from the namespaces read, reversed.
+    Multimap<Namespace, Namespace> containers = LinkedHashMultimap.create();
+    Set<Namespace> visited = new HashSet<>();
+    Deque<Namespace> workset = new ArrayDeque<>();
+    for (Set<Namespace> read : namespacesRead) {
+      workset.addAll(read);
+    }
+    while (!workset.isEmpty()) {
+      Namespace ns = workset.pop();
+      if (visited.add(ns)) {
+        for (Namespace subns : ns.getSubnamespaces()) {
+          containers.put(subns, ns);
+          workset.push(subns);
+        }
+      }
+    }
+    Map<Namespace, List<Integer>> updatesVisibleThrough = new HashMap<>();
+    for (Map.Entry<Integer, Namespace> update : updatedNamespaces.entrySet()) {
+      Set<Namespace> seen = new HashSet<>();
+      workset.push(update.getValue());
+      while (!workset.isEmpty()) {
+        Namespace ns = workset.pop();
+        if (seen.add(ns)) {
+          List<Integer> updates = updatesVisibleThrough.get(ns);
+          if (updates == null) {
+            updates = new ArrayList<>();
+            updatesVisibleThrough.put(ns, updates);
+          }
+          updates.add(update.getKey());
+          workset.addAll(containers.get(ns));
+        }
+      }
+    }
+    return updatesVisibleThrough;
+  }
+
+  /**
+   * Returns the namespaces that the analysis of the given scope can read,
+   * i.e., the namespaces bound to the variables in its type environment.
+   */
+  private static Set<Namespace> getNamespacesReadBy(NTIScope scope) {
+    Set<String> names = scope.getOuterVars();
+    names.addAll(scope.getLocals());
+    names.addAll(scope.getExterns());
+    names.addAll(scope.getFormals());
+    if (scope.getName() != null) {
+      names.add(scope.getName());
+    }
+    Set<Namespace> namespaces = new LinkedHashSet<>();
+    for (String name : names) {
+      Namespace ns = scope.getNamespace(QualifiedName.fromQualifiedString(name));
+      if (ns != null) {
+        namespaces.add(ns);
+      }
+    }
+    return namespaces;
+  }
+
+  /**
+   * Returns the namespace whose type is updated by the summary of the given
+   * function namespace, or null if it can't be found.
+   */
+  private static Namespace getUpdatedNamespace(NTIScope fnScope) {
+    QualifiedName qname = QualifiedName.fromNode(NodeUtil.getNameNode(fnScope.getRoot()));
+    return qname == null ? null : fnScope.getParent().getNamespace(qname);
+  }
+
+  /** A static method that uses super reads the namespace of the superclass. */
+  private static boolean isStaticMethodUsingSuper(NTIScope fnScope) {
+    return !fnScope.hasThis()
+        && NodeUtil.containsType(
+            fnScope.getRoot().getLastChild(), Token.SUPER, NodeUtil.MATCH_NOT_FUNCTION);
+  }
+
+  /** Analyzes a single scope with an inference created for it. */
+  private ScopeLog analyzeScope(NTIScope scope) {
+    analyzeFunction(scope);
+    return new ScopeLog(((BufferedWarningReporter) warnings).warnings, deferredChecks);
+  }
+
   static void updatePeakMem() {
     Runtime rt = Runtime.getRuntime();
     long currentUsedMem = (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
@@ -1191,11 +1442,26 @@ final class NewTypeInference implements CompilerPass {
   }
 
   private JSType changeTypeIfFunctionNamespace(NTIScope fnScope, JSType fnType) {
+    JSType namespaceType = getFunctionNamespaceType(fnScope);
+    if (namespaceType != null) {
+      // Replace the less-precise declared function type
+      // with the new function summary.
+      return namespaceType.withFunction(
+          fnType.getFunTypeIfSingletonObj(), commonTypes.getFunctionType());
+    }
+    return fnType;
+  }
+
+  /**
+   * Returns the namespace type of the function of the given scope, or null if
+   * the function is not a namespace.
+   */
+  private JSType getFunctionNamespaceType(NTIScope fnScope) {
     NTIScope enclosingScope = fnScope.getParent();
     Node fnNameNode = NodeUtil.getNameNode(fnScope.getRoot());
     JSType namespaceType = null;
     if (fnNameNode == null) {
-      return fnType;
+      return null;
     }
     if (fnNameNode.isName()) {
       String fnName = fnNameNode.getString();
@@ -1209,13 +1475,7 @@ final class NewTypeInference implements CompilerPass {
         namespaceType = rootNs.getProp(qname.getAllButLeftmost());
       }
     }
-    if (namespaceType != null && namespaceType.isNamespace()) {
-      // Replace the less-precise declared function type
-      // with the new function summary.
-      return namespaceType.withFunction(
-          fnType.getFunTypeIfSingletonObj(), commonTypes.getFunctionType());
-    }
-    return fnType;
+    return namespaceType != null && namespaceType.isNamespace() ? namespaceType : null;
   }
 
   // TODO(dimvar): To get the adjusted end-of-fwd type for objs, we must be
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.JsAst.RecordedDiagnostic;
+import com.google.javascript.jscomp.parsing.Config;
+import com.google.javascript.jscomp.parsing.ParserRunner;
+import javax.annotation.Nullable;
+
+/**
+ * Stores parse results across compilations, so that a source that has not
+ * changed since it was last parsed with the same parser config does not need
+ * to be parsed again.
+ *
+ * <p>Entries hold the raw parser output, before {@code PrepareAst} and the
+ * other compiler setup of the AST has run. A cache must never hand out an
+ * AST that it has handed out, or been given, before, since the compiler
+ * mutates the trees it gets. Inputs may be parsed concurrently, so
+ * {@link #load} and {@link #store} must be thread safe.
+ *
+ * @see DiskParseCache
+ */
+public abstract class ParseCache {
+
+  /** A parse result together with the errors and warnings the parser reported. */
+  static final class Entry {
+    final ParserRunner.ParseResult result;
+    final ImmutableList<RecordedDiagnostic> diagnostics;
+
+    Entry(ParserRunner.ParseResult result, ImmutableList<RecordedDiagnostic> diagnostics) {
+      this.result = result;
+      this.diagnostics = diagnostics;
+    }
+  }
+
+  private int hits = 0;
+  private int misses = 0;
+
+  /**
+   * Returns the entry for parsing {@code code} as {@code file} with the given
+   * config, or null if there is none.
+   */
+  @Nullable
+  final Entry get(SourceFile file, String code, Config config) {
+    Entry entry = load(file, code, config);
+    synchronized (this) {
+      if (entry == null) {
+        misses++;
+      } else {
+        hits++;
+      }
+    }
+    return entry;
+  }
+
+  /** Stores the entry for parsing {@code code} as {@code file} with the given config. */
+  final void put(SourceFile file, String code, Config config, Entry entry) {
+    store(file, code, config, entry);
+  }
+
+  /** The number of lookups that found an entry. */
+  public synchronized int getHitCount() {
+    return hits;
+  }
+
+  /** The number of lookups that did not find an entry. */
+  public synchronized int getMissCount() {
+    return misses;
+  }
+
+  @Nullable
+  abstract Entry load(SourceFile file, String code, Config config);
+
+  abstract void store(SourceFile file, String code, Config config, Entry entry);
+}
@@ -16,14 +16,26 @@
 
 package com.google.javascript.jscomp;
 
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
 import com.google.javascript.jscomp.NodeTraversal.AbstractShallowCallback;
 import com.google.javascript.jscomp.NodeTraversal.FunctionCallback;
 import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import javax.annotation.Nullable;
 
 /**
  * A compiler pass to run various peephole optimizations (e.g. constant folding,
  * some useless code removal, some minimizations).
  *
+ * <p>The optimizations only look at and change the function or script they
+ * are given, so different scripts can be optimized at the same time. See
+ * {@link #PeepholeOptimizationsPass(AbstractCompiler, int, Supplier)}.
+ *
  * @author dcc@google.com (Devin Coughlin)
  */
 class PeepholeOptimizationsPass implements CompilerPass {
@@ -32,6 +44,11 @@ class PeepholeOptimizationsPass implements CompilerPass {
   // Use an array here for faster iteration compared to ImmutableSet
   private final AbstractPeepholeOptimization[] peepholeOptimizations;
 
+  // Creates the optimizations for each script when scripts are optimized
+  // concurrently, and null otherwise.
+  @Nullable private final Supplier<AbstractPeepholeOptimization[]> optimizationsFactory;
+  private final int numThreads;
+
   private boolean retraverseOnChange;
   private RecentChange handler;
 
@@ -43,6 +60,26 @@ class PeepholeOptimizationsPass implements CompilerPass {
       AbstractPeepholeOptimization... optimizations) {
     this.compiler = compiler;
     this.peepholeOptimizations = optimizations;
+    this.optimizationsFactory = null;
+    this.numThreads = 1;
+    this.retraverseOnChange = true;
+    this.handler = new RecentChange();
+  }
+
+  /**
+   * Creates a peephole optimization pass that optimizes up to
+   * {@code numThreads} scripts at a time. Each script gets its own
+   * optimizations from {@code optimizationsFactory}. The optimizations may
+   * only report changes and errors through {@link AbstractPeepholeOptimization},
+   * which defers them until all scripts are done. The result is the same as
+   * when running the optimizations on one thread.
+   */
+  PeepholeOptimizationsPass(AbstractCompiler compiler, int numThreads,
+      Supplier<AbstractPeepholeOptimization[]> optimizationsFactory) {
+    this.compiler = compiler;
+    this.peepholeOptimizations = optimizationsFactory.get();
+    this.optimizationsFactory = optimizationsFactory;
+    this.numThreads = numThreads;
     this.retraverseOnChange = true;
     this.handler = new RecentChange();
   }
@@ -53,32 +90,109 @@ class PeepholeOptimizationsPass implements CompilerPass {
 
   @Override
   public void process(Node externs, Node root) {
+    if (numThreads > 1) {
+      processInParallel();
+      return;
+    }
     compiler.addChangeHandler(handler);
     beginTraversal();
+    final PeepCallback callback = new PeepCallback(peepholeOptimizations, null);
     NodeTraversal.traverseChangedFunctions(compiler, new FunctionCallback() {
         @Override
         public void enterFunction(AbstractCompiler compiler, Node root) {
-          if (root.isFunction()) {
-            root = root.getLastChild();
-          }
-          do {
-            handler.reset();
-            NodeTraversal.traverseEs6(compiler, root, new PeepCallback());
-          } while (retraverseOnChange && handler.hasCodeChanged());
+          optimizeFunction(root, callback, handler);
         }
       });
     endTraversal();
     compiler.removeChangeHandler(handler);
   }
 
-  private class PeepCallback extends AbstractShallowCallback {
+  /**
+   * Optimizes the scripts on worker threads. The change handlers, and the
+   * scope tracking of the PhaseOptimizer, are not thread safe, so the workers
+   * record the changes and errors of each script instead of reporting them.
+   * They are reported here, in script order, once all scripts are done.
+   * The workers don't tell the compiler about the scopes they enter either;
+   * the last scope of each script is set here instead.
+   */
+  private void processInParallel() {
+    List<Callable<ScriptLog>> tasks = new ArrayList<>();
+    for (final Node script : compiler.getJsRoot().children()) {
+      tasks.add(new Callable<ScriptLog>() {
+        @Override
+        public ScriptLog call() {
+          return optimizeScript(script);
+        }
+      });
+    }
+
+    for (ScriptLog log : compiler.runInParallel(tasks, numThreads)) {
+      if (log.scopeRoot != null) {
+        compiler.setScope(log.scopeRoot);
+      }
+      for (Node scope : log.changedScopes) {
+        compiler.reportChangeToChangeScope(scope);
+      }
+      for (JSError error : log.errors) {
+        compiler.report(error);
+      }
+    }
+  }
+
+  private ScriptLog optimizeScript(Node script) {
+    final ScriptLog log = new ScriptLog();
+    AbstractPeepholeOptimization[] optimizations = optimizationsFactory.get();
+    for (AbstractPeepholeOptimization optimization : optimizations) {
+      optimization.beginTraversal(compiler, log);
+    }
+    final PeepCallback callback = new PeepCallback(optimizations, log);
+    NodeTraversal.traverseChangedFunctionsWithoutSettingScope(
+        compiler, script, new FunctionCallback() {
+          @Override
+          public void enterFunction(AbstractCompiler compiler, Node root) {
+            optimizeFunction(root, callback, log.recentChange);
+          }
+        });
+    for (AbstractPeepholeOptimization optimization : optimizations) {
+      optimization.endTraversal(compiler);
+    }
+    return log;
+  }
+
+  private void optimizeFunction(Node root, PeepCallback callback, RecentChange changes) {
+    if (root.isFunction()) {
+      root = root.getLastChild();
+    }
+    do {
+      changes.reset();
+      if (callback.log == null) {
+        NodeTraversal.traverseEs6(compiler, root, callback);
+      } else {
+        NodeTraversal.traverseEs6WithoutSettingScope(compiler, root, callback);
+      }
+    } while (retraverseOnChange && changes.hasCodeChanged());
+  }
+
+  private static class PeepCallback extends AbstractShallowCallback {
+    private final AbstractPeepholeOptimization[] optimizations;
+    @Nullable private final ScriptLog log;
+
+    PeepCallback(AbstractPeepholeOptimization[] optimizations, @Nullable ScriptLog log) {
+      this.optimizations = optimizations;
+      this.log = log;
+    }
+
     @Override
     public void visit(NodeTraversal t, Node n, Node parent) {
+      if (log != null) {
+        // The scope that NodeTraversal would have told the compiler about.
+        log.scopeRoot = t.getScopeRoot();
+      }
       Node currentNode = n, newNode;
       boolean codeChanged = false;
       do {
         codeChanged = false;
-        for (AbstractPeepholeOptimization optim : peepholeOptimizations) {
+        for (AbstractPeepholeOptimization optim : optimizations) {
           newNode = optim.optimizeSubtree(currentNode);
           if (newNode != currentNode) {
             codeChanged = true;
@@ -107,4 +221,34 @@ class PeepholeOptimizationsPass implements CompilerPass {
       optimization.endTraversal(compiler);
     }
   }
+
+  /**
+   * The changes and errors of the optimizations of one script, recorded on a
+   * worker thread.
+   */
+  static final class ScriptLog {
+    private final RecentChange recentChange = new RecentChange();
+    // The functions and scripts that changed, as the PhaseOptimizer would
+    // have recorded them.
+    private final Set<Node> changedScopes = new LinkedHashSet<>();
+    private final List<JSError> errors = new ArrayList<>();
+    private Node scopeRoot;
+
+    void reportChange() {
+      Preconditions.checkNotNull(scopeRoot);
+      recentChange.reportChange();
+      // This matches PhaseOptimizer#setScope.
+      changedScopes.add(
+          scopeRoot.isFunction() ? scopeRoot : PhaseOptimizer.getEnclosingScope(scopeRoot));
+    }
+
+    void reportChangeToEnclosingScope(Node n) {
+      recentChange.reportChange();
+      changedScopes.add(PhaseOptimizer.getEnclosingScope(n));
+    }
+
+    void report(JSError error) {
+      errors.add(error);
+    }
+  }
 }
@@ -73,6 +73,9 @@ public final class PerformanceTracker {
   private int externLines = 0;
   private int externSources = 0;
 
+  private int parseCacheHits = 0;
+  private int parseCacheMisses = 0;
+
   // The following fields for tracking size changes are just estimates.
   // They do not take into account preserved license blocks, newline padding,
   // or pretty printing (if enabled), since they don't use CodePrinter.
@@ -179,6 +182,24 @@ public final class PerformanceTracker {
     }
   }
 
+  /** Records how many inputs were and were not found in the parse cache. */
+  void recordParseCacheLookups(int hits, int misses) {
+    this.parseCacheHits += hits;
+    this.parseCacheMisses += misses;
+  }
+
+  /**
+   * Records how many of the nodes walked by a changed scopes traversal of the
+   * current pass were visited, see {@link NodeTraversal#traverseChangedScopes}.
+   */
+  void recordChangedScopesTraversal(int visitedNodes, int totalNodes) {
+    Stats stats = this.currentPass.peek();
+    if (stats != null) {
+      stats.visitedNodes += visitedNodes;
+      stats.traversedNodes += totalNodes;
+    }
+  }
+
   private void recordInputCount() {
     for (Node n : this.externsRoot.children()) {
       this.externSources += 1;
@@ -316,6 +337,8 @@ public final class PerformanceTracker {
       entry.astDiff += logStat.astDiff;
       entry.diff += logStat.diff;
       entry.gzDiff += logStat.gzDiff;
+      entry.visitedNodes += logStat.visitedNodes;
+      entry.traversedNodes += logStat.traversedNodes;
       // We don't populate the size fields in the summary stats.
       // We used to put the size after the last time a pass was run, but that is
       // a pretty meaningless thing to measure.
@@ -368,6 +391,13 @@ public final class PerformanceTracker {
         "Extern lines:   " + this.externLines,
         "Extern sources: " + this.externSources + "\n\n"));
 
+    if (this.parseCacheHits + this.parseCacheMisses > 0) {
+      this.output.print(Joiner.on("\n").join(
+          "Parse cache:",
+          "Hits:   " + this.parseCacheHits,
+          "Misses: " + this.parseCacheMisses + "\n\n"));
+    }
+
     this.output.print("Summary:\n"
         + "pass,runtime,allocMem,runs,changingRuns,astReduction,reduction,gzReduction\n");
     for (Entry<String, Stats> entry : statEntries) {
@@ -387,6 +417,21 @@ public final class PerformanceTracker {
           stats.astDiff, stats.diff, stats.gzDiff, stats.astSize, stats.size, stats.gzSize));
     }
     this.output.print("\n");
+
+    if (hasChangedScopesTraversals()) {
+      // Only loopable passes that opted into changed scopes traversals show up
+      // here, one line per run, so the effect of each iteration can be seen.
+      this.output.print(Joiner.on("\n").join(
+          "Changed scopes traversals:",
+          "pass,visitedNodes,totalNodes\n"));
+      for (Stats stats : this.log) {
+        if (stats.traversedNodes > 0) {
+          this.output.print(SimpleFormat.format("%s,%d,%d\n",
+              stats.pass, stats.visitedNodes, stats.traversedNodes));
+        }
+      }
+      this.output.print("\n");
+    }
     // this.output can be System.out, so don't close it to not lose subsequent
     // error messages. Flush to ensure that you will see the tracer report.
     try {
@@ -398,6 +443,15 @@ public final class PerformanceTracker {
     }
   }
 
+  private boolean hasChangedScopesTraversals() {
+    for (Stats stats : this.log) {
+      if (stats.traversedNodes > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * A Stats object contains statistics about a pass run, such as running time,
    * size changes, etc
@@ -419,5 +473,8 @@ public final class PerformanceTracker {
     public int gzSize = 0;
     public int astDiff = 0;
     public int astSize = 0;
+    // Only set for passes that use NodeTraversal#traverseChangedScopes.
+    public int visitedNodes = 0;
+    public int traversedNodes = 0;
   }
 }
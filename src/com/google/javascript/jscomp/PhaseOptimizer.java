@@ -345,7 +345,11 @@ class PhaseOptimizer implements CompilerPass {
         || n.getChangeTime() > timeOfLastRun;
   }
 
-  private Node getEnclosingScope(Node n) {
+  /**
+   * Returns the function or script whose change time a change to {@code n}
+   * updates, or the root of the AST if {@code n} is not in a script.
+   */
+  static Node getEnclosingScope(Node n) {
     while (n.getParent() != null) {
       n = n.getParent();
       if (n.isFunction() || n.isScript()) {
@@ -356,8 +360,13 @@ class PhaseOptimizer implements CompilerPass {
   }
 
   void reportChangeToEnclosingScope(Node n) {
+    reportChangeToScope(getEnclosingScope(n));
+  }
+
+  /** Records a change to the given function or script. */
+  void reportChangeToScope(Node scope) {
     lastChange = timestamp;
-    getEnclosingScope(n).setChangeTime(timestamp);
+    scope.setChangeTime(timestamp);
     // Every code change happens at a different time
     timestamp++;
   }
@@ -213,6 +213,15 @@ public class SourceFile implements StaticSourceFile, Serializable {
     return code != null;
   }
 
+  /**
+   * Returns when the source was last modified, in milliseconds since the
+   * epoch, or 0 if that is not known. Only sources read from a file know it.
+   */
+  @GwtIncompatible("java.io.File")
+  public long getLastModified() {
+    return 0;
+  }
+
   /** Returns a unique name for the source file. */
   @Override
   public String getName() {
@@ -617,6 +626,12 @@ public class SourceFile implements StaticSourceFile, Serializable {
       super.setCode(null);
     }
 
+    @Override
+    @GwtIncompatible("java.io.File")
+    public long getLastModified() {
+      return file.lastModified();
+    }
+
     /**
      * Store the Charset specification as the string version of the name,
      * rather than the Charset itself.  This allows us to serialize the
@@ -21,6 +21,7 @@ import com.google.debugging.sourcemap.FilePosition;
 import com.google.debugging.sourcemap.SourceMapFormat;
 import com.google.debugging.sourcemap.SourceMapGenerator;
 import com.google.debugging.sourcemap.SourceMapGeneratorFactory;
+import com.google.debugging.sourcemap.SourceMapGeneratorV3;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.javascript.rhino.Node;
 
@@ -177,7 +178,7 @@ public final class SourceMap {
    * @param sourceFile The source file location to fixup.
    * @return a remapped source file.
    */
-  private String fixupSourceLocation(String sourceFile) {
+  String fixupSourceLocation(String sourceFile) {
     if (prefixMappings.isEmpty()) {
       return sourceFile;
     }
@@ -226,6 +227,16 @@ public final class SourceMap {
     generator.validate(validate);
   }
 
+  /**
+   * Encodes the mappings in chunks of {@code linesPerChunk} lines with the
+   * runner, if the format supports it.
+   */
+  void setEncodingRunner(SourceMapGeneratorV3.TaskRunner runner, int linesPerChunk) {
+    if (generator instanceof SourceMapGeneratorV3) {
+      ((SourceMapGeneratorV3) generator).setEncodingRunner(runner, linesPerChunk);
+    }
+  }
+
   /**
    * @param sourceMapLocationMappings
    */
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs tasks on worker threads that have the same stack size as the compiler
+ * thread, for the parts of the compiler and its tools that work in parallel.
+ */
+public final class WorkerThreads {
+  private WorkerThreads() {}
+
+  /**
+   * Runs the tasks on a pool of at most {@code numThreads} worker threads and
+   * waits for all of them to finish.
+   *
+   * @param threadName the name of the worker threads.
+   * @return the results of the tasks, in the order of the tasks.
+   * @throws ExecutionException if a task throws; its cause is the exception
+   *     of the first such task.
+   */
+  public static <T> List<T> runInParallel(
+      List<? extends Callable<T>> tasks, int numThreads, final String threadName)
+      throws ExecutionException {
+    ExecutorService workers = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(numThreads, tasks.size())),
+        new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread t = new Thread(null, r, threadName, CompilerExecutor.COMPILER_STACK_SIZE);
+            t.setDaemon(true);  // Do not prevent the JVM from exiting.
+            return t;
+          }
+        });
+    try {
+      List<Future<T>> futures = new ArrayList<>(tasks.size());
+      for (Callable<T> task : tasks) {
+        futures.add(workers.submit(task));
+      }
+      List<T> results = new ArrayList<>(futures.size());
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs each task after the tasks it depends on, on a pool of at most
+   * {@code numThreads} worker threads, and waits for all of them to finish.
+   * Whenever a thread is free, it runs the first task whose dependencies have
+   * finished, so running the tasks one by one runs them in their order.
+   *
+   * @param dependencies for each task, the indices of the earlier tasks that
+   *     must finish before it starts.
+   * @param threadName the name of the worker threads.
+   * @return the results of the tasks, in the order of the tasks.
+   * @throws ExecutionException if a task throws; its cause is the exception
+   *     of the first such task. The tasks that have not started by then
+   *     don't run.
+   */
+  public static <T> List<T> runInParallel(
+      final List<? extends Callable<T>> tasks,
+      List<? extends Collection<Integer>> dependencies,
+      int numThreads,
+      String threadName)
+      throws ExecutionException {
+    Preconditions.checkArgument(tasks.size() == dependencies.size());
+    final Scheduler<T> scheduler = new Scheduler<>(dependencies);
+    List<Callable<Void>> workers = new ArrayList<>();
+    for (int i = 0; i < Math.min(numThreads, tasks.size()); i++) {
+      workers.add(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          try {
+            for (int task = scheduler.take(); task != -1; task = scheduler.take()) {
+              scheduler.finish(task, tasks.get(task).call());
+            }
+            return null;
+          } catch (Throwable t) {
+            scheduler.fail();
+            throw t;
+          }
+        }
+      });
+    }
+    runInParallel(workers, numThreads, threadName);
+    return scheduler.results;
+  }
+
+  /** Hands out the tasks to the worker threads once their dependencies finish. */
+  private static final class Scheduler<T> {
+    final List<T> results = new ArrayList<>();
+    private final List<List<Integer>> dependents = new ArrayList<>();
+    private final int[] numPendingDependencies;
+    private final PriorityQueue<Integer> ready = new PriorityQueue<>();
+    private int numUnfinished;
+    private boolean failed = false;
+
+    Scheduler(List<? extends Collection<Integer>> dependencies) {
+      int numTasks = dependencies.size();
+      this.numPendingDependencies = new int[numTasks];
+      this.numUnfinished = numTasks;
+      for (int i = 0; i < numTasks; i++) {
+        results.add(null);
+        dependents.add(new ArrayList<Integer>());
+      }
+      for (int i = 0; i < numTasks; i++) {
+        for (int dependency : dependencies.get(i)) {
+          Preconditions.checkArgument(dependency < i,
+              "Task %s depends on the later task %s", i, dependency);
+          dependents.get(dependency).add(i);
+        }
+        numPendingDependencies[i] = dependencies.get(i).size();
+        if (numPendingDependencies[i] == 0) {
+          ready.add(i);
+        }
+      }
+    }
+
+    /**
+     * Returns the first task that can run, waiting for one if needed, or -1 if
+     * all tasks have finished or one of them failed.
+     */
+    synchronized int take() throws InterruptedException {
+      while (ready.isEmpty() && numUnfinished > 0 && !failed) {
+        wait();
+      }
+      return failed || ready.isEmpty() ? -1 : ready.poll();
+    }
+
+    synchronized void finish(int task, T result) {
+      results.set(task, result);
+      numUnfinished--;
+      for (int dependent : dependents.get(task)) {
+        if (--numPendingDependencies[dependent] == 0) {
+          ready.add(dependent);
+        }
+      }
+      notifyAll();
+    }
+
+    synchronized void fail() {
+      failed = true;
+      notifyAll();
+    }
+  }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.javascript.jscomp.Compiler;
+import com.google.javascript.jscomp.SourceFile;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * A persistent cache of the dependency information that {@link DepsGenerator}
+ * extracts from sources, kept in a single file.
+ *
+ * <p>Entries are found by the name of the source. An entry is used if the
+ * source file still has the recorded modification time, without reading the
+ * file, or else if the code still has the recorded hash. The information of
+ * ES6 modules depends on the other inputs, so it is not cached, and neither is
+ * the information of sources that had parse errors or warnings.
+ *
+ * <p>A failure to read or write the cache file is never fatal; the sources are
+ * just parsed again. Lookups may happen concurrently.
+ */
+@GwtIncompatible("java.io")
+public final class DepsCache {
+
+  private static final Logger logger = Logger.getLogger(DepsCache.class.getName());
+
+  // Change this whenever the format of the cache file changes.
+  private static final int FORMAT_VERSION = 1;
+
+  private static final class Entry {
+    final String closureRelativePath;
+    final String hash;
+    final ImmutableList<String> provides;
+    final ImmutableList<String> requires;
+    final ImmutableMap<String, String> loadFlags;
+    long lastModified;
+    boolean used;
+
+    Entry(String closureRelativePath, long lastModified, String hash,
+        Collection<String> provides, Collection<String> requires, Map<String, String> loadFlags) {
+      this.closureRelativePath = closureRelativePath;
+      this.lastModified = lastModified;
+      this.hash = hash;
+      this.provides = ImmutableList.copyOf(provides);
+      this.requires = ImmutableList.copyOf(requires);
+      this.loadFlags = ImmutableMap.copyOf(loadFlags);
+    }
+  }
+
+  private final File file;
+  // The dependency information may differ between compiler versions.
+  private final String compilerVersion = Compiler.getReleaseVersion();
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+  private int hits = 0;
+  private int misses = 0;
+
+  /**
+   * @param file The file holding the cache. It is read now, if it exists, and
+   *     written by {@link #save}.
+   */
+  public DepsCache(File file) {
+    this.file = file;
+    if (file.isFile()) {
+      try (DataInputStream in =
+          new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+        read(in);
+      } catch (IOException | RuntimeException e) {
+        // Most likely written by another version of the compiler.
+        logger.log(Level.FINE, "Ignoring unreadable deps cache " + file, e);
+        entries.clear();
+      }
+    }
+  }
+
+  /**
+   * Returns the cached dependency information of {@code source}, or null if
+   * there is none or the source has changed.
+   */
+  @Nullable
+  DependencyInfo get(SourceFile source, String closureRelativePath) throws IOException {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(source.getName());
+    }
+    boolean hit = false;
+    long lastModified = source.getLastModified();
+    if (entry != null && entry.closureRelativePath.equals(closureRelativePath)) {
+      // A file that was touched but not changed is found by its hash.
+      hit = (lastModified != 0 && lastModified == entry.lastModified)
+          || entry.hash.equals(hash(source.getCode()));
+    }
+    synchronized (this) {
+      if (hit) {
+        hits++;
+        entry.lastModified = lastModified;
+        entry.used = true;
+      } else {
+        misses++;
+      }
+    }
+    return hit
+        ? new SimpleDependencyInfo(entry.closureRelativePath, source.getName(),
+            entry.provides, entry.requires, entry.loadFlags)
+        : null;
+  }
+
+  /**
+   * Stores the dependency information that was parsed from {@code code}.
+   *
+   * @param lastModified The modification time of the source before the code
+   *     was read.
+   */
+  void put(SourceFile source, long lastModified, String code, DependencyInfo info) {
+    if ("es6".equals(info.getLoadFlags().get("module"))) {
+      return;
+    }
+    Entry entry = new Entry(info.getPathRelativeToClosureBase(), lastModified,
+        hash(code), info.getProvides(), info.getRequires(), info.getLoadFlags());
+    entry.used = true;
+    synchronized (this) {
+      entries.put(source.getName(), entry);
+    }
+  }
+
+  /**
+   * Writes the cache file. Entries of sources that have not been looked up
+   * since the cache was read are dropped, so deleted sources do not pile up.
+   */
+  public synchronized void save() {
+    File tempFile = null;
+    try {
+      // Write to a temporary file first, so that concurrent runs never see a
+      // partially written cache.
+      File directory = file.getAbsoluteFile().getParentFile();
+      directory.mkdirs();
+      tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        write(out);
+      }
+      Files.move(tempFile.toPath(), file.toPath(),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not write deps cache " + file, e);
+      if (tempFile != null) {
+        tempFile.delete();
+      }
+    }
+  }
+
+  /** The number of lookups that found an entry. */
+  public synchronized int getHitCount() {
+    return hits;
+  }
+
+  /** The number of lookups that did not find an entry. */
+  public synchronized int getMissCount() {
+    return misses;
+  }
+
+  private static String hash(String code) {
+    return Hashing.sha256().hashString(code, UTF_8).toString();
+  }
+
+  private void read(DataInputStream in) throws IOException {
+    if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(compilerVersion)) {
+      return;
+    }
+    for (int i = in.readInt(); i > 0; i--) {
+      String name = in.readUTF();
+      String closureRelativePath = in.readUTF();
+      long lastModified = in.readLong();
+      String hash = in.readUTF();
+      ImmutableList<String> provides = readStrings(in);
+      ImmutableList<String> requires = readStrings(in);
+      ImmutableMap.Builder<String, String> loadFlags = ImmutableMap.builder();
+      for (int j = in.readInt(); j > 0; j--) {
+        loadFlags.put(in.readUTF(), in.readUTF());
+      }
+      entries.put(name, new Entry(
+          closureRelativePath, lastModified, hash, provides, requires, loadFlags.build()));
+    }
+  }
+
+  private static ImmutableList<String> readStrings(DataInputStream in) throws IOException {
+    ImmutableList.Builder<String> strings = ImmutableList.builder();
+    for (int i = in.readInt(); i > 0; i--) {
+      strings.add(in.readUTF());
+    }
+    return strings.build();
+  }
+
+  private void write(DataOutputStream out) throws IOException {
+    out.writeInt(FORMAT_VERSION);
+    out.writeUTF(compilerVersion);
+    int count = 0;
+    for (Entry entry : entries.values()) {
+      if (entry.used) {
+        count++;
+      }
+    }
+    out.writeInt(count);
+    for (Map.Entry<String, Entry> e : entries.entrySet()) {
+      Entry entry = e.getValue();
+      if (!entry.used) {
+        continue;
+      }
+      out.writeUTF(e.getKey());
+      out.writeUTF(entry.closureRelativePath);
+      out.writeLong(entry.lastModified);
+      out.writeUTF(entry.hash);
+      writeStrings(out, entry.provides);
+      writeStrings(out, entry.requires);
+      out.writeInt(entry.loadFlags.size());
+      for (Map.Entry<String, String> flag : entry.loadFlags.entrySet()) {
+        out.writeUTF(flag.getKey());
+        out.writeUTF(flag.getValue());
+      }
+    }
+  }
+
+  private static void writeStrings(DataOutputStream out, Collection<String> strings)
+      throws IOException {
+    out.writeInt(strings.size());
+    for (String s : strings) {
+      out.writeUTF(s);
+    }
+  }
+}
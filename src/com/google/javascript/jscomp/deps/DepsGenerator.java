@@ -19,9 +19,11 @@ package com.google.javascript.jscomp.deps;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Function;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
+import com.google.javascript.jscomp.BasicErrorManager;
 import com.google.javascript.jscomp.CheckLevel;
 import com.google.javascript.jscomp.Compiler;
 import com.google.javascript.jscomp.CompilerOptions;
@@ -31,6 +33,7 @@ import com.google.javascript.jscomp.JSError;
 import com.google.javascript.jscomp.JsAst;
 import com.google.javascript.jscomp.LazyParsedDependencyInfo;
 import com.google.javascript.jscomp.SourceFile;
+import com.google.javascript.jscomp.WorkerThreads;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -42,8 +45,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
 /**
  * Generates deps.js files by scanning JavaScript files for
@@ -69,6 +75,9 @@ public class DepsGenerator {
   private final InclusionStrategy mergeStrategy;
   private final ModuleLoader loader;
   final ErrorManager errorManager;
+  private boolean useScanner = false;
+  private int numThreads = 1;
+  @Nullable private DepsCache cache = null;
 
   static final DiagnosticType SAME_FILE_WARNING = DiagnosticType.warning(
       "DEPS_SAME_FILE",
@@ -112,6 +121,35 @@ public class DepsGenerator {
     this.loader = loader;
   }
 
+  /**
+   * Sets whether sources are scanned with {@link JsFileScanner} instead of
+   * the line and regular expression based {@link JsFileParser}. Both find the
+   * same dependencies; the scanner is faster on large sources.
+   */
+  public DepsGenerator setUseScanner(boolean useScanner) {
+    this.useScanner = useScanner;
+    return this;
+  }
+
+  /**
+   * Sets the number of threads that parse the sources. With more than one
+   * thread, the ASTs that the load flags are read from are also parsed in
+   * parallel, instead of when the flags are written.
+   */
+  public DepsGenerator setNumThreads(int numThreads) {
+    this.numThreads = numThreads;
+    return this;
+  }
+
+  /**
+   * Sets a cache of the dependency information of sources, or null for none.
+   * The cache is saved after the sources are parsed.
+   */
+  public DepsGenerator setCache(@Nullable DepsCache cache) {
+    this.cache = cache;
+    return this;
+  }
+
   /**
    * Performs the parsing inputs and writing of outputs.
    * @throws IOException Occurs upon an IO error.
@@ -324,12 +362,8 @@ public class DepsGenerator {
    */
   private Map<String, DependencyInfo> parseSources(
       Set<String> preparsedFiles) throws IOException {
-    Map<String, DependencyInfo> parsedFiles = new LinkedHashMap<>();
-    JsFileParser jsParser = new JsFileParser(errorManager).setModuleLoader(loader);
-    Compiler compiler = new Compiler();
-    compiler.init(
-        ImmutableList.<SourceFile>of(), ImmutableList.<SourceFile>of(), new CompilerOptions());
-
+    List<SourceFile> files = new ArrayList<>();
+    List<String> closureRelativePaths = new ArrayList<>();
     for (SourceFile file : srcs) {
       String closureRelativePath =
           PathUtil.makeRelative(
@@ -339,19 +373,151 @@ public class DepsGenerator {
       }
       if (InclusionStrategy.WHEN_IN_SRCS == mergeStrategy ||
           !preparsedFiles.contains(closureRelativePath)) {
-        DependencyInfo depInfo =
-            jsParser.parseFile(
-                file.getName(), closureRelativePath,
-                file.getCode());
-        depInfo = new LazyParsedDependencyInfo(depInfo, new JsAst(file), compiler);
+        files.add(file);
+        closureRelativePaths.add(closureRelativePath);
+      }
+    }
+
+    Map<String, DependencyInfo> parsedFiles = new LinkedHashMap<>();
+    if (numThreads <= 1 && cache == null) {
+      SourceParser parser = new SourceParser(errorManager);
+      for (int i = 0; i < files.size(); i++) {
+        parsedFiles.put(
+            closureRelativePaths.get(i), parser.parse(files.get(i), closureRelativePaths.get(i)));
+      }
+      return parsedFiles;
+    }
+
+    // Each task parses a consecutive part of the sources, so that the
+    // diagnostics can be reported in the order of the sources.
+    int taskCount = Math.max(1, Math.min(files.size(), numThreads * 4));
+    List<ParseTask> tasks = new ArrayList<>(taskCount);
+    for (int i = 0; i < taskCount; i++) {
+      int start = i * files.size() / taskCount;
+      int end = (i + 1) * files.size() / taskCount;
+      tasks.add(new ParseTask(files.subList(start, end), closureRelativePaths.subList(start, end)));
+    }
+    List<List<DependencyInfo>> results = runInParallel(tasks, numThreads);
+    for (int i = 0; i < taskCount; i++) {
+      tasks.get(i).diagnostics.reportTo(errorManager);
+      List<String> paths = tasks.get(i).closureRelativePaths;
+      for (int j = 0; j < paths.size(); j++) {
+        parsedFiles.put(paths.get(j), results.get(i).get(j));
+      }
+    }
+    if (cache != null) {
+      cache.save();
+    }
+    return parsedFiles;
+  }
 
+  private static <T> List<T> runInParallel(List<? extends Callable<T>> tasks, int numThreads)
+      throws IOException {
+    try {
+      return WorkerThreads.runInParallel(tasks, numThreads, "jscomp-deps-worker");
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+
+  /** Parses sources with its own parser and compiler. Not thread safe. */
+  private final class SourceParser {
+    private final JsFileParser jsParser;
+    private final JsFileScanner jsScanner;
+    private final Compiler compiler = new Compiler();
+
+    SourceParser(ErrorManager errorManager) {
+      jsParser = new JsFileParser(errorManager).setModuleLoader(loader);
+      jsScanner = new JsFileScanner(errorManager).setModuleLoader(loader);
+      compiler.init(
+          ImmutableList.<SourceFile>of(), ImmutableList.<SourceFile>of(), new CompilerOptions());
+    }
+
+    /**
+     * Parses a source. The load flags are only parsed from the AST when they
+     * are first asked for.
+     */
+    DependencyInfo parse(SourceFile file, String closureRelativePath) throws IOException {
+      DependencyInfo depInfo = parseWithoutClearing(file, closureRelativePath);
+      // Kick the source out of memory.
+      file.clearCachedSource();
+      return depInfo;
+    }
+
+    private DependencyInfo parseWithoutClearing(SourceFile file, String closureRelativePath)
+        throws IOException {
+      DependencyInfo depInfo = useScanner
+          ? jsScanner.parseFile(file.getName(), closureRelativePath, file.getCode())
+          : jsParser.parseFile(file.getName(), closureRelativePath, file.getCode());
+      return new LazyParsedDependencyInfo(depInfo, new JsAst(file), compiler);
+    }
+  }
+
+  /** Parses consecutive sources, using and filling the cache. */
+  private final class ParseTask implements Callable<List<DependencyInfo>> {
+    final List<SourceFile> files;
+    final List<String> closureRelativePaths;
+    final DiagnosticRecorder diagnostics = new DiagnosticRecorder();
+
+    ParseTask(List<SourceFile> files, List<String> closureRelativePaths) {
+      this.files = files;
+      this.closureRelativePaths = closureRelativePaths;
+    }
+
+    @Override
+    public List<DependencyInfo> call() throws IOException {
+      SourceParser parser = new SourceParser(diagnostics);
+      List<DependencyInfo> depInfos = new ArrayList<>(files.size());
+      for (int i = 0; i < files.size(); i++) {
+        SourceFile file = files.get(i);
+        String closureRelativePath = closureRelativePaths.get(i);
+        DependencyInfo depInfo = cache != null ? cache.get(file, closureRelativePath) : null;
+        if (depInfo == null) {
+          long lastModified = file.getLastModified();
+          int diagnosticCount = diagnostics.size();
+          depInfo = parser.parseWithoutClearing(file, closureRelativePath);
+          // Parse the AST for the load flags here, while the code is in memory.
+          depInfo.getLoadFlags();
+          if (cache != null && diagnostics.size() == diagnosticCount) {
+            cache.put(file, lastModified, file.getCode(), depInfo);
+          }
+        }
         // Kick the source out of memory.
         file.clearCachedSource();
-        parsedFiles.put(closureRelativePath, depInfo);
+        depInfos.add(depInfo);
       }
+      return depInfos;
     }
+  }
 
-    return parsedFiles;
+  /** Records errors and warnings, to report them later in the same order. */
+  private static final class DiagnosticRecorder extends BasicErrorManager {
+    private final List<CheckLevel> levels = new ArrayList<>();
+    private final List<JSError> errors = new ArrayList<>();
+
+    @Override
+    public void report(CheckLevel level, JSError error) {
+      levels.add(level);
+      errors.add(error);
+    }
+
+    @Override
+    public void println(CheckLevel level, JSError error) {}
+
+    @Override
+    protected void printSummary() {}
+
+    int size() {
+      return errors.size();
+    }
+
+    void reportTo(ErrorManager errorManager) {
+      for (int i = 0; i < errors.size(); i++) {
+        errorManager.report(levels.get(i), errors.get(i));
+      }
+    }
   }
 
   /**
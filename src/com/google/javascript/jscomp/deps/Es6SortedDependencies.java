@@ -19,19 +19,13 @@ package com.google.javascript.jscomp.deps;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.Multimap;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * A sorted list of inputs following the ES6 module ordering spec.
@@ -47,46 +41,82 @@ import java.util.Set;
  * <p>
  * Also exposes other information about the inputs, like which inputs
  * do not provide symbols.
+ * <p>
+ * Inputs are numbered by their first position in the user-provided order and
+ * the imports are kept as a compressed sparse row graph of those numbers, so
+ * sorting and collecting the dependencies of roots take linear time.
  *
  */
 public final class Es6SortedDependencies<INPUT extends DependencyInfo>
     implements SortedDependencies<INPUT> {
 
-  private final List<INPUT> userOrderedInputs = new ArrayList<>();
-  private final List<INPUT> importOrderedInputs = new ArrayList<>();
-  private final Set<INPUT> completedInputs = new HashSet<>();
+  private final ImmutableList<INPUT> userOrderedInputs;
+  private final ImmutableList<INPUT> importOrderedInputs;
+  // The number of each input, which is the position of its first occurrence in the user order.
+  private final Map<INPUT, Integer> inputIds = new HashMap<>();
+  // The number of the input at each position in the user order.
+  private final int[] userOrderedIds;
+  // The numbers of the inputs in import order.
+  private final int[] importOrderedIds;
   private final Map<String, INPUT> nonExportingInputs = new LinkedHashMap<>();
-  private final Map<String, INPUT> exportingInputBySymbolName = new HashMap<>();
-  // Maps an input A to the inputs it depends on, ie, inputs that provide stuff that A requires.
-  private final Multimap<INPUT, INPUT> importedInputByImportingInput = LinkedHashMultimap.create();
+  private final Map<String, Integer> exportingInputBySymbolName = new HashMap<>();
+  // The inputs that input i depends on, ie, inputs that provide stuff that i requires, are
+  // importedInputs[importsStart[i]] to importedInputs[importsStart[i + 1] - 1].
+  private final int[] importsStart;
+  private final int[] importedInputs;
 
   public Es6SortedDependencies(List<INPUT> userOrderedInputs) {
-    this.userOrderedInputs.addAll(userOrderedInputs);
-    processInputs();
+    this.userOrderedInputs = ImmutableList.copyOf(userOrderedInputs);
+    int inputCount = this.userOrderedInputs.size();
+    this.userOrderedIds = new int[inputCount];
+    this.importsStart = new int[inputCount + 1];
+    indexInputs();
+    this.importedInputs = indexImports();
+    this.importOrderedIds = orderInputs();
+
+    ImmutableList.Builder<INPUT> builder = ImmutableList.builder();
+    for (int id : importOrderedIds) {
+      builder.add(this.userOrderedInputs.get(id));
+    }
+    this.importOrderedInputs = builder.build();
   }
 
   @Override
   public List<INPUT> getDependenciesOf(List<INPUT> rootInputs, boolean sorted) {
-    Preconditions.checkArgument(userOrderedInputs.containsAll(rootInputs));
-
-    Set<INPUT> includedInputs = new HashSet<>();
-    Deque<INPUT> worklist = new ArrayDeque<>(rootInputs);
-    while (!worklist.isEmpty()) {
-      INPUT input = worklist.pop();
-      if (includedInputs.add(input)) {
-        for (String symbolName : input.getRequires()) {
-          INPUT importedSymbolName = exportingInputBySymbolName.get(symbolName);
-          if (importedSymbolName != null) {
-            worklist.add(importedSymbolName);
-          }
+    BitSet includedInputs = new BitSet(userOrderedIds.length);
+    int[] worklist = new int[userOrderedIds.length];
+    int worklistSize = 0;
+    for (INPUT rootInput : rootInputs) {
+      Integer id = inputIds.get(rootInput);
+      Preconditions.checkArgument(id != null, "Unknown input %s", rootInput);
+      if (!includedInputs.get(id)) {
+        includedInputs.set(id);
+        worklist[worklistSize++] = id;
+      }
+    }
+    while (worklistSize > 0) {
+      int id = worklist[--worklistSize];
+      for (int i = importsStart[id]; i < importsStart[id + 1]; i++) {
+        int importedId = importedInputs[i];
+        if (!includedInputs.get(importedId)) {
+          includedInputs.set(importedId);
+          worklist[worklistSize++] = importedId;
         }
       }
     }
 
     ImmutableList.Builder<INPUT> builder = ImmutableList.builder();
-    for (INPUT input : (sorted ? importOrderedInputs : userOrderedInputs)) {
-      if (includedInputs.contains(input)) {
-        builder.add(input);
+    if (sorted) {
+      for (int id : importOrderedIds) {
+        if (includedInputs.get(id)) {
+          builder.add(userOrderedInputs.get(id));
+        }
+      }
+    } else {
+      for (int i = 0; i < userOrderedIds.length; i++) {
+        if (includedInputs.get(userOrderedIds[i])) {
+          builder.add(userOrderedInputs.get(i));
+        }
       }
     }
     return builder.build();
@@ -114,35 +144,31 @@ public final class Es6SortedDependencies<INPUT extends DependencyInfo>
 
   @Override
   public List<INPUT> getSortedList() {
-    return Collections.unmodifiableList(importOrderedInputs);
+    return importOrderedInputs;
   }
 
   @Override
   public INPUT maybeGetInputProviding(String symbol) {
-    if (exportingInputBySymbolName.containsKey(symbol)) {
-      return exportingInputBySymbolName.get(symbol);
+    Integer id = exportingInputBySymbolName.get(symbol);
+    if (id != null) {
+      return userOrderedInputs.get(id);
     }
 
     return nonExportingInputs.get(ModuleNames.fileToModuleName(symbol));
   }
 
-  private void orderInput(INPUT input) {
-    if (completedInputs.contains(input)) {
-      return;
-    }
-
-    completedInputs.add(input);
-    for (INPUT importedInput : importedInputByImportingInput.get(input)) {
-      orderInput(importedInput);
-    }
-
-    // Emit an input after its imports have been emitted.
-    importOrderedInputs.add(input);
-  }
+  private void indexInputs() {
+    for (int i = 0; i < userOrderedIds.length; i++) {
+      INPUT userOrderedInput = userOrderedInputs.get(i);
+      Integer id = inputIds.get(userOrderedInput);
+      if (id != null) {
+        // Equal inputs are the same node of the graph.
+        userOrderedIds[i] = id;
+        continue;
+      }
+      inputIds.put(userOrderedInput, i);
+      userOrderedIds[i] = i;
 
-  private void processInputs() {
-    // Index.
-    for (INPUT userOrderedInput : userOrderedInputs) {
       Collection<String> provides = userOrderedInput.getProvides();
       String firstProvide = Iterables.getFirst(provides, null);
       if (firstProvide == null
@@ -156,29 +182,79 @@ public final class Es6SortedDependencies<INPUT extends DependencyInfo>
         nonExportingInputs.put(
             ModuleNames.fileToModuleName(userOrderedInput.getName()), userOrderedInput);
       }
-      for (String providedSymbolName : userOrderedInput.getProvides()) {
-        exportingInputBySymbolName.put(providedSymbolName, userOrderedInput);
+      for (String providedSymbolName : provides) {
+        exportingInputBySymbolName.put(providedSymbolName, i);
       }
     }
-    for (INPUT userOrderedInput : userOrderedInputs) {
-      for (String symbolName : userOrderedInput.getRequires()) {
-        INPUT importedInput = exportingInputBySymbolName.get(symbolName);
-        if (importedInput != null) {
-          importedInputByImportingInput.put(userOrderedInput, importedInput);
+  }
+
+  private int[] indexImports() {
+    // Count first, so that the imports of all inputs fit in a single array.
+    int importCount = 0;
+    for (int i = 0; i < userOrderedIds.length; i++) {
+      if (userOrderedIds[i] == i) {
+        for (String symbolName : userOrderedInputs.get(i).getRequires()) {
+          if (exportingInputBySymbolName.containsKey(symbolName)) {
+            importCount++;
+          }
         }
       }
     }
 
-    // Order.
-    // For each input, traverse in user-provided order.
-    for (INPUT userOrderedInput : userOrderedInputs) {
-      // Traverse the graph starting from this input and record any
-      // newly-reached inputs.
-      orderInput(userOrderedInput);
+    int[] imports = new int[importCount];
+    int next = 0;
+    for (int i = 0; i < userOrderedIds.length; i++) {
+      importsStart[i] = next;
+      if (userOrderedIds[i] == i) {
+        for (String symbolName : userOrderedInputs.get(i).getRequires()) {
+          Integer importedId = exportingInputBySymbolName.get(symbolName);
+          if (importedId != null) {
+            imports[next++] = importedId;
+          }
+        }
+      }
     }
+    importsStart[userOrderedIds.length] = next;
+    return imports;
+  }
 
-    // Free temporary indexes.
-    completedInputs.clear();
-    importedInputByImportingInput.clear();
+  /**
+   * Traverses the graph depth first from each input in user-provided order and
+   * emits an input after its imports have been emitted. Uses an explicit stack,
+   * since long chains of imports would overflow the call stack.
+   */
+  private int[] orderInputs() {
+    int inputCount = userOrderedIds.length;
+    int[] order = new int[inputCount];
+    int orderSize = 0;
+    BitSet completedInputs = new BitSet(inputCount);
+    int[] stack = new int[inputCount];
+    // The next import to traverse for each input on the stack.
+    int[] nextImport = new int[inputCount];
+    for (int i = 0; i < inputCount; i++) {
+      int root = userOrderedIds[i];
+      if (completedInputs.get(root)) {
+        continue;
+      }
+      completedInputs.set(root);
+      int stackSize = 0;
+      stack[stackSize++] = root;
+      nextImport[root] = importsStart[root];
+      while (stackSize > 0) {
+        int id = stack[stackSize - 1];
+        if (nextImport[id] < importsStart[id + 1]) {
+          int importedId = importedInputs[nextImport[id]++];
+          if (!completedInputs.get(importedId)) {
+            completedInputs.set(importedId);
+            stack[stackSize++] = importedId;
+            nextImport[importedId] = importsStart[importedId];
+          }
+        } else {
+          stackSize--;
+          order[orderSize++] = id;
+        }
+      }
+    }
+    return orderSize == inputCount ? order : Arrays.copyOf(order, orderSize);
   }
 }
@@ -101,7 +101,7 @@ public final class JsFileParser extends JsFileLineParser {
   private ModuleLoader loader = ModuleLoader.EMPTY;
   private ModuleLoader.ModulePath file;
 
-  private enum ModuleType {
+  enum ModuleType {
     NON_MODULE,
     UNWRAPPED_GOOG_MODULE,
     WRAPPED_GOOG_MODULE,
@@ -179,6 +179,17 @@ public final class JsFileParser extends JsFileLineParser {
     }
     doParse(filePath, fileContents);
 
+    return createDependencyInfo(
+        filePath, closureRelativePath, file, moduleType, provides, requires);
+  }
+
+  /**
+   * Creates the dependency information for a parsed file. Shared with
+   * {@link JsFileScanner}.
+   */
+  static DependencyInfo createDependencyInfo(String filePath, String closureRelativePath,
+      ModuleLoader.ModulePath file, ModuleType moduleType, List<String> provides,
+      List<String> requires) {
     if (moduleType == ModuleType.ES6_MODULE) {
       provides.add(file.toModuleName());
     }
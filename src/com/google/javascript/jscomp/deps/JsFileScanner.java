@@ -0,0 +1,610 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.CharMatcher;
+import com.google.javascript.jscomp.CheckLevel;
+import com.google.javascript.jscomp.ErrorManager;
+import com.google.javascript.jscomp.JSError;
+import com.google.javascript.jscomp.deps.JsFileLineParser.ParseException;
+import com.google.javascript.jscomp.deps.JsFileParser.ModuleType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A single pass scanner that extracts the same dependency information as
+ * {@link JsFileParser}: goog.provide, goog.require, goog.module, import and
+ * export statements.
+ *
+ * <p>The file is read from a {@link CharSequence}, so a {@code String} or a
+ * {@code CharBuffer} can be scanned without copying. Comments are stripped
+ * the way {@link JsFileLineParser} strips them, into a buffer that is reused
+ * for every line, and the statements are matched by hand instead of with
+ * JsFileParser's regular expressions. Strings are only created for the
+ * extracted names and for the lines that are reported in errors.
+ */
+@GwtIncompatible("Character.getType")
+public final class JsFileScanner {
+
+  private static final Logger logger = Logger.getLogger(JsFileScanner.class.getName());
+
+  /** The first non-comment line of base.js */
+  private static final String BASE_JS_START = "var COMPILED = false;";
+
+  /** The start of a bundled goog.module, i.e. one that is wrapped in a goog.loadModule call */
+  private static final String BUNDLED_GOOG_MODULE_START = "goog.loadModule(function(";
+
+  private final ErrorManager errorManager;
+  private boolean shortcutMode = false;
+  private boolean includeGoogBase = false;
+  private ModuleLoader loader = ModuleLoader.EMPTY;
+  private boolean parseSucceeded;
+
+  /** The characters of the current line, without comments. */
+  private char[] line = new char[256];
+  private int length;
+
+  /** The info for the file we are currently scanning. */
+  private List<String> provides;
+  private List<String> requires;
+  private boolean fileHasProvidesOrRequires;
+  private ModuleLoader.ModulePath file;
+  private ModuleType moduleType;
+
+  public JsFileScanner(ErrorManager errorManager) {
+    this.errorManager = errorManager;
+  }
+
+  /** @see JsFileLineParser#setShortcutMode */
+  public JsFileScanner setShortcutMode(boolean mode) {
+    this.shortcutMode = mode;
+    return this;
+  }
+
+  /** @see JsFileParser#setIncludeGoogBase */
+  public JsFileScanner setIncludeGoogBase(boolean include) {
+    includeGoogBase = include;
+    return this;
+  }
+
+  /** @see JsFileParser#setModuleLoader */
+  public JsFileScanner setModuleLoader(ModuleLoader loader) {
+    this.loader = loader;
+    return this;
+  }
+
+  public boolean didParseSucceed() {
+    return parseSucceeded;
+  }
+
+  /**
+   * Scans the given file and returns the dependency information that it
+   * contained.
+   *
+   * @param filePath Path to the file to scan.
+   * @param closureRelativePath Path of the file relative to closure.
+   * @param fileContents The contents to scan.
+   * @return A DependencyInfo containing all provides/requires found in the
+   *     file.
+   */
+  public DependencyInfo parseFile(
+      String filePath, String closureRelativePath, CharSequence fileContents) {
+    this.provides = new ArrayList<>();
+    this.requires = new ArrayList<>();
+    this.fileHasProvidesOrRequires = false;
+    this.file = loader.resolve(filePath);
+    this.moduleType = ModuleType.NON_MODULE;
+
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Scanning Source: " + filePath);
+    }
+    scan(filePath, fileContents);
+
+    return JsFileParser.createDependencyInfo(
+        filePath, closureRelativePath, file, moduleType, provides, requires);
+  }
+
+  /**
+   * Splits the contents into lines like {@link java.io.BufferedReader#readLine}
+   * does, strips the comments and scans each line that is not empty.
+   */
+  private void scan(String filePath, CharSequence contents) {
+    parseSucceeded = true;
+    int end = contents.length();
+    Occurrences newlines = new Occurrences(contents, "\n");
+    Occurrences returns = new Occurrences(contents, "\r");
+    Occurrences slashes = new Occurrences(contents, "/");
+    Occurrences commentEnds = new Occurrences(contents, "*/");
+    Occurrences googs = new Occurrences(contents, "goog.");
+    int pos = 0;
+    int lineNum = 0;
+    boolean inMultilineComment = false;
+    while (pos < end) {
+      int lineStart = pos;
+      int lineEnd = Math.min(newlines.from(pos), returns.from(pos));
+      lineNum++;
+      length = 0;
+      boolean hasComments = inMultilineComment;
+      while (pos < lineEnd) {
+        if (inMultilineComment) {
+          int commentEnd = commentEnds.from(pos);
+          if (commentEnd < lineEnd) {
+            inMultilineComment = false;
+            pos = commentEnd + 2;
+          } else {
+            pos = lineEnd;
+          }
+          continue;
+        }
+        int slash = slashes.from(pos);
+        if (slash >= lineEnd) {
+          append(contents, pos, lineEnd);
+          pos = lineEnd;
+          continue;
+        }
+        append(contents, pos, slash);
+        char next = slash + 1 < lineEnd ? contents.charAt(slash + 1) : 0;
+        if (next == '/') {
+          hasComments = true;
+          pos = lineEnd;
+        } else if (next == '*') {
+          hasComments = true;
+          inMultilineComment = true;
+          pos = slash + 2;
+        } else {
+          append(contents, slash, slash + 1);
+          pos = slash + 1;
+        }
+      }
+      if (pos < end) {
+        pos += contents.charAt(pos) == '\r' && pos + 1 < end && contents.charAt(pos + 1) == '\n'
+            ? 2 : 1;
+      }
+
+      if (length > 0) {
+        try {
+          // Removing a comment can join the parts of a goog call.
+          boolean mayHaveGoogCalls = hasComments || googs.from(lineStart) < lineEnd;
+          if (!scanLine(mayHaveGoogCalls) && shortcutMode) {
+            break;
+          }
+        } catch (ParseException e) {
+          // Report the error the same way JsFileLineParser does.
+          errorManager.report(
+              e.isFatal() ? CheckLevel.ERROR : CheckLevel.WARNING,
+              JSError.make(filePath, lineNum, 0 /* char offset */,
+                  e.isFatal() ? JsFileLineParser.PARSE_ERROR : JsFileLineParser.PARSE_WARNING,
+                  e.getMessage(), contents.subSequence(lineStart, lineEnd).toString()));
+          parseSucceeded = parseSucceeded && !e.isFatal();
+        }
+      }
+    }
+  }
+
+  /** Appends the characters from {@code start} to {@code end} to the current line. */
+  private void append(CharSequence contents, int start, int end) {
+    int newLength = length + end - start;
+    if (newLength > line.length) {
+      line = Arrays.copyOf(line, Math.max(newLength, line.length * 2));
+    }
+    if (contents instanceof String) {
+      ((String) contents).getChars(start, end, line, length);
+    } else {
+      for (int i = start; i < end; i++) {
+        line[length + i - start] = contents.charAt(i);
+      }
+    }
+    length = newLength;
+  }
+
+  /**
+   * Scans the current line for goog.provide, goog.require, import and
+   * export statements. See {@link JsFileParser#parseLine}.
+   *
+   * @return true to keep going, false otherwise.
+   */
+  private boolean scanLine(boolean mayHaveGoogCalls) throws ParseException {
+    boolean lineHasProvidesOrRequires = false;
+
+    if (startsWith(BUNDLED_GOOG_MODULE_START)) {
+      setModuleType(ModuleType.WRAPPED_GOOG_MODULE);
+    }
+
+    if (mayHaveGoogCalls && scanGoogCalls()) {
+      lineHasProvidesOrRequires = true;
+    } else if (includeGoogBase && startsWith(BASE_JS_START)
+        && indexOf("provide") == -1
+        && indexOf("require") == -1
+        && indexOf("module") == -1
+        && indexOf("addDependency") == -1
+        && provides.isEmpty() && requires.isEmpty()) {
+      provides.add("goog");
+
+      // base.js can't provide or require anything else.
+      return false;
+    }
+
+    if (startsWith("import") || startsWith("export")) {
+      if (scanImportOrExport()) {
+        lineHasProvidesOrRequires = true;
+      }
+
+      // This check is only relevant for modules that don't import anything.
+      if (moduleType != ModuleType.ES6_MODULE
+          && startsWith("export") && !isWordStart(6)) {
+        setModuleType(ModuleType.ES6_MODULE);
+      }
+    }
+
+    return !shortcutMode || lineHasProvidesOrRequires
+        || isAllWhitespace()
+        || indexOf(";") == -1
+        || indexOf("goog.setTestOnly") != -1
+        || indexOf("goog.module.declareLegacyNamespace") != -1;
+  }
+
+  /**
+   * Finds the goog calls that start the line or follow a semicolon, like
+   * {@code Matcher.find} does with JsFileParser's GOOG_PROVIDE_REQUIRE_PATTERN.
+   *
+   * @return Whether the line has a goog call.
+   */
+  private boolean scanGoogCalls() throws ParseException {
+    boolean found = false;
+    int i = 0;
+    int end = scanGoogCall(0);
+    if (end != -1) {
+      found = true;
+      i = end;
+    }
+    for (; i < length; i++) {
+      if (line[i] == ';') {
+        end = scanGoogCall(i + 1);
+        if (end != -1) {
+          found = true;
+          i = end - 1;
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Scans a goog call that may be assigned to a name or destructuring
+   * pattern, like {@code var {A, B} = goog.require('a');}.
+   *
+   * @return The end of the call, or -1 if there is no call at {@code start}.
+   */
+  private int scanGoogCall(int start) throws ParseException {
+    int pos = start;
+    while (pos < length && isAssignmentTargetChar(line[pos])) {
+      pos++;
+    }
+    if (pos > start && pos < length && line[pos] == '=') {
+      int end = scanGoogCallExpression(pos + 1);
+      if (end != -1) {
+        return end;
+      }
+    }
+    return scanGoogCallExpression(start);
+  }
+
+  private int scanGoogCallExpression(int start) throws ParseException {
+    int pos = skipWhitespace(start);
+    if (!regionMatches(pos, "goog.")) {
+      return -1;
+    }
+    pos += "goog.".length();
+    String method;
+    if (regionMatches(pos, "provide")) {
+      method = "provide";
+    } else if (regionMatches(pos, "module")) {
+      method = "module";
+    } else if (regionMatches(pos, "require")) {
+      method = "require";
+    } else if (regionMatches(pos, "addDependency")) {
+      method = "addDependency";
+    } else {
+      return -1;
+    }
+    pos = skipWhitespace(pos + method.length());
+    if (pos == length || line[pos] != '(') {
+      return -1;
+    }
+    int argStart = pos + 1;
+    int argEnd = argStart;
+    while (argEnd < length && line[argEnd] != ')') {
+      if (isRegexLineTerminator(line[argEnd])) {
+        return -1;
+      }
+      argEnd++;
+    }
+    if (argEnd == length) {
+      return -1;
+    }
+
+    if (includeGoogBase && !fileHasProvidesOrRequires) {
+      fileHasProvidesOrRequires = true;
+      requires.add("goog");
+    }
+    switch (method) {
+      case "module":
+        if (moduleType != ModuleType.WRAPPED_GOOG_MODULE) {
+          setModuleType(ModuleType.UNWRAPPED_GOOG_MODULE);
+        }
+        provides.add(parseJsString(argStart, argEnd));
+        break;
+      case "provide":
+        provides.add(parseJsString(argStart, argEnd));
+        break;
+      case "require":
+        String arg = parseJsString(argStart, argEnd);
+        // goog is always implicit.
+        if (!"goog".equals(arg)) {
+          requires.add(arg);
+        }
+        break;
+      default:
+        // goog.addDependency is handled by the DepsFileParser.
+    }
+    return argEnd + 1;
+  }
+
+  /**
+   * Parses a JS string literal with surrounding whitespace. Like
+   * {@link JsFileLineParser#parseJsString}, escapes are left as they are and a
+   * quote inside the literal must follow a backslash.
+   */
+  private String parseJsString(int start, int end) throws ParseException {
+    while (start < end && isRegexWhitespace(line[start])) {
+      start++;
+    }
+    int last = end - 1;
+    while (last > start && isRegexWhitespace(line[last])) {
+      last--;
+    }
+    char quote = start < end ? line[start] : 0;
+    if (last <= start || (quote != '\'' && quote != '"') || line[last] != quote) {
+      throw new ParseException("Syntax error in JS String literal", true /* fatal */);
+    }
+    for (int i = start + 1; i < last; i++) {
+      if (line[i] == quote && line[i - 1] != '\\') {
+        throw new ParseException("Syntax error in JS String literal", true /* fatal */);
+      }
+    }
+    return new String(line, start + 1, last - start - 1);
+  }
+
+  /**
+   * Scans an import or export statement at the start of the line, matching
+   * what JsFileParser's ES6_MODULE_PATTERN matches. The pattern matches the
+   * names before "from" greedily, so the last "from" that leads to a valid
+   * statement is used.
+   *
+   * @return Whether the line has an import or export statement.
+   */
+  private boolean scanImportOrExport() {
+    // "import" and "export" have the same length.
+    int keywordEnd = 6;
+    if (isWordStart(keywordEnd)) {
+      return false;
+    }
+    int clauseEnd = keywordEnd;
+    while (clauseEnd < length && isImportClauseChar(line[clauseEnd])) {
+      clauseEnd++;
+    }
+    for (int from = clauseEnd - "from".length(); from > keywordEnd; from--) {
+      if (regionMatches(from, "from") && !isWordChar(line[from - 1])
+          && scanModuleSpecifier(skipWhitespace(from + "from".length()))) {
+        return true;
+      }
+    }
+    return scanModuleSpecifier(skipWhitespace(keywordEnd));
+  }
+
+  /**
+   * Scans the optional module specifier and the semicolon that end an import
+   * or export statement.
+   */
+  private boolean scanModuleSpecifier(int start) {
+    if (start < length && isQuote(line[start])) {
+      int end = start + 1;
+      while (end < length && !isQuote(line[end])) {
+        end++;
+      }
+      if (end > start + 1 && end < length) {
+        int semicolon = skipWhitespace(end + 1);
+        if (semicolon < length && line[semicolon] == ';') {
+          addEs6Require(new String(line, start + 1, end - start - 1));
+          return true;
+        }
+      }
+    }
+    if (start < length && line[start] == ';') {
+      addEs6Require(null);
+      return true;
+    }
+    return false;
+  }
+
+  private void addEs6Require(String arg) {
+    setModuleType(ModuleType.ES6_MODULE);
+    if (arg != null) {
+      if (arg.startsWith("goog:")) {
+        requires.add(arg.substring(5)); // cut off the "goog:" prefix
+      } else {
+        ModuleLoader.ModulePath path = file.resolveJsModule(arg);
+        if (path == null) {
+          path = file.resolveModuleAsPath(arg);
+        }
+        requires.add(path.toModuleName());
+      }
+    }
+  }
+
+  private void setModuleType(ModuleType type) {
+    if (moduleType != type && moduleType != ModuleType.NON_MODULE) {
+      errorManager.report(
+          CheckLevel.WARNING, JSError.make(ModuleLoader.MODULE_CONFLICT, file.toString()));
+    }
+    moduleType = type;
+  }
+
+  private boolean startsWith(String prefix) {
+    return regionMatches(0, prefix);
+  }
+
+  private boolean regionMatches(int start, String s) {
+    if (start + s.length() > length) {
+      return false;
+    }
+    for (int i = 0; i < s.length(); i++) {
+      if (line[start + i] != s.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int indexOf(String s) {
+    char first = s.charAt(0);
+    for (int i = 0; i + s.length() <= length; i++) {
+      if (line[i] == first && regionMatches(i, s)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private boolean isAllWhitespace() {
+    for (int i = 0; i < length; i++) {
+      if (!CharMatcher.whitespace().matches(line[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int skipWhitespace(int pos) {
+    while (pos < length && isRegexWhitespace(line[pos])) {
+      pos++;
+    }
+    return pos;
+  }
+
+  /**
+   * Whether the character at {@code pos} continues a word that ends before
+   * it, i.e. whether there is no {@code \b} boundary at {@code pos} in a
+   * regular expression.
+   */
+  private boolean isWordStart(int pos) {
+    if (pos == length) {
+      return false;
+    }
+    int codePoint = Character.codePointAt(line, pos, length);
+    return isWordChar(codePoint) || Character.getType(codePoint) == Character.NON_SPACING_MARK;
+  }
+
+  /** Matches {@code \w} as {@code \b} in a regular expression sees it. */
+  private static boolean isWordChar(int c) {
+    return c == '_' || Character.isLetterOrDigit(c);
+  }
+
+  /** Matches {@code \s} in a regular expression. */
+  private static boolean isRegexWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  /** Matches the line terminators that {@code .} does not match in a regular expression. */
+  private static boolean isRegexLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  private static boolean isAsciiLetterOrDigit(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+  }
+
+  /** Matches {@code [a-zA-Z0-9$_,:{}\s]}. */
+  private static boolean isAssignmentTargetChar(char c) {
+    return isAsciiLetterOrDigit(c) || c == '$' || c == '_' || c == ',' || c == ':'
+        || c == '{' || c == '}' || isRegexWhitespace(c);
+  }
+
+  /** Matches {@code [a-zA-Z0-9$_*,{}\s]}. */
+  private static boolean isImportClauseChar(char c) {
+    return isAsciiLetterOrDigit(c) || c == '$' || c == '_' || c == '*' || c == ','
+        || c == '{' || c == '}' || isRegexWhitespace(c);
+  }
+
+  private static boolean isQuote(char c) {
+    return c == '\'' || c == '"';
+  }
+
+  /**
+   * Finds the occurrences of a string in order. Lines are scanned front to
+   * back, so the next occurrence only has to be searched for once it has
+   * been passed.
+   */
+  private static final class Occurrences {
+    private final CharSequence contents;
+    private final String target;
+    private int next = -1;
+
+    Occurrences(CharSequence contents, String target) {
+      this.contents = contents;
+      this.target = target;
+    }
+
+    /**
+     * Returns the first occurrence at or after {@code start}, or the length
+     * of the contents if there is none. Must be called with increasing starts.
+     */
+    int from(int start) {
+      if (next < start) {
+        next = indexOf(start);
+      }
+      return next;
+    }
+
+    private int indexOf(int start) {
+      if (contents instanceof String) {
+        int index = ((String) contents).indexOf(target, start);
+        return index == -1 ? contents.length() : index;
+      }
+      char first = target.charAt(0);
+      for (int i = start; i + target.length() <= contents.length(); i++) {
+        if (contents.charAt(i) == first && matchesAt(i)) {
+          return i;
+        }
+      }
+      return contents.length();
+    }
+
+    private boolean matchesAt(int start) {
+      for (int i = 1; i < target.length(); i++) {
+        if (contents.charAt(start + i) != target.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
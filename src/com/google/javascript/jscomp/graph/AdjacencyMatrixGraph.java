@@ -0,0 +1,233 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An undirected graph without edge values, whose nodes have fixed indices
+ * and whose edges are stored as one bit set of neighbor indices per node.
+ *
+ * <p>Unlike {@link LinkedUndirectedGraph}, edges don't need an object each,
+ * a node can be connected to a whole set of nodes at once, and checking if a
+ * node is independent of a {@link SubGraph} takes a single bit set
+ * intersection. This suits dense graphs such as interference graphs.
+ *
+ * @param <N> Value type that the graph node stores.
+ */
+public final class AdjacencyMatrixGraph<N> implements AdjacencyGraph<N, Void> {
+  private final List<MatrixGraphNode<N>> nodes = new ArrayList<>();
+  private final Map<N, MatrixGraphNode<N>> nodesByValue = new HashMap<>();
+  private final BitSet nodeIndices = new BitSet();
+  private final BitSet[] neighbors;
+  // Whether each edge is in the neighbor sets of both of its nodes. Connecting
+  // a node to many others only updates its own neighbor set, and the others
+  // are updated at once before the graph is read.
+  private boolean symmetric = true;
+
+  private AdjacencyMatrixGraph(int maxNodeCount) {
+    this.neighbors = new BitSet[maxNodeCount];
+  }
+
+  /**
+   * Creates a graph whose nodes will have indices between 0 and
+   * {@code maxNodeCount - 1}.
+   */
+  public static <N> AdjacencyMatrixGraph<N> create(int maxNodeCount) {
+    return new AdjacencyMatrixGraph<>(maxNodeCount);
+  }
+
+  /**
+   * Creates a node with the given index, which need not be consecutive with
+   * the indices of the other nodes.
+   */
+  public void createNode(int index, N value) {
+    Preconditions.checkArgument(!nodeIndices.get(index), "Index %s is already in use", index);
+    Preconditions.checkArgument(!nodesByValue.containsKey(value), "Duplicate node %s", value);
+    MatrixGraphNode<N> node = new MatrixGraphNode<>(index, value);
+    nodes.add(node);
+    nodesByValue.put(value, node);
+    nodeIndices.set(index);
+    neighbors[index] = new BitSet();
+  }
+
+  /** Returns whether there is a node with the given index. */
+  public boolean hasNode(int index) {
+    return nodeIndices.get(index);
+  }
+
+  /** Returns the index of a node. */
+  public int getIndex(N value) {
+    return getNodeOrFail(value).index;
+  }
+
+  /** Connects two nodes, unless they are the same node. */
+  public void connect(int index1, int index2) {
+    Preconditions.checkArgument(hasNode(index1) && hasNode(index2));
+    if (index1 != index2) {
+      neighbors[index1].set(index2);
+      neighbors[index2].set(index1);
+    }
+  }
+
+  /**
+   * Connects a node to each node whose index is in {@code indices}, except
+   * itself. Indices without a node are ignored.
+   */
+  public void connectToAll(int index, BitSet indices) {
+    Preconditions.checkArgument(hasNode(index));
+    BitSet row = neighbors[index];
+    row.or(indices);
+    row.and(nodeIndices);
+    row.clear(index);
+    symmetric = false;
+  }
+
+  /**
+   * Connects each pair of nodes whose indices are in {@code indices}. Indices
+   * without a node are ignored.
+   */
+  public void connectAll(BitSet indices) {
+    for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+      if (nodeIndices.get(i)) {
+        neighbors[i].or(indices);
+        neighbors[i].and(nodeIndices);
+        neighbors[i].clear(i);
+      }
+    }
+  }
+
+  public boolean isConnected(int index1, int index2) {
+    makeSymmetric();
+    return hasNode(index1) && neighbors[index1].get(index2);
+  }
+
+  /** Returns the indices of the neighbors of a node, which must not be modified. */
+  public BitSet getNeighborIndices(int index) {
+    Preconditions.checkArgument(hasNode(index));
+    makeSymmetric();
+    return neighbors[index];
+  }
+
+  private void makeSymmetric() {
+    if (symmetric) {
+      return;
+    }
+    for (int i = nodeIndices.nextSetBit(0); i >= 0; i = nodeIndices.nextSetBit(i + 1)) {
+      BitSet row = neighbors[i];
+      for (int j = row.nextSetBit(0); j >= 0; j = row.nextSetBit(j + 1)) {
+        neighbors[j].set(i);
+      }
+    }
+    symmetric = true;
+  }
+
+  @Override
+  public Collection<MatrixGraphNode<N>> getNodes() {
+    return Collections.unmodifiableList(nodes);
+  }
+
+  @Override
+  public MatrixGraphNode<N> getNode(N value) {
+    return nodesByValue.get(value);
+  }
+
+  private MatrixGraphNode<N> getNodeOrFail(N value) {
+    MatrixGraphNode<N> node = getNode(value);
+    Preconditions.checkArgument(node != null, "%s does not exist in graph", value);
+    return node;
+  }
+
+  @Override
+  public SubGraph<N, Void> newSubGraph() {
+    makeSymmetric();
+    return new MatrixSubGraph();
+  }
+
+  @Override
+  public void clearNodeAnnotations() {
+    for (MatrixGraphNode<N> node : nodes) {
+      node.setAnnotation(null);
+    }
+  }
+
+  /** Returns the degree of the node. */
+  @Override
+  public int getWeight(N value) {
+    makeSymmetric();
+    return neighbors[getNodeOrFail(value).index].cardinality();
+  }
+
+  /** A subgraph that tracks its nodes with a bit set of their indices. */
+  private final class MatrixSubGraph implements SubGraph<N, Void> {
+    private final BitSet indices = new BitSet();
+
+    @Override
+    public boolean isIndependentOf(N value) {
+      return !neighbors[getNodeOrFail(value).index].intersects(indices);
+    }
+
+    @Override
+    public void addNode(N value) {
+      indices.set(getNodeOrFail(value).index);
+    }
+  }
+
+  /** A node of the graph, which knows its index. */
+  public static final class MatrixGraphNode<N> implements GraphNode<N, Void> {
+    private final int index;
+    private final N value;
+    private Annotation annotation;
+
+    private MatrixGraphNode(int index, N value) {
+      this.index = index;
+      this.value = value;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    @Override
+    public N getValue() {
+      return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <A extends Annotation> A getAnnotation() {
+      return (A) annotation;
+    }
+
+    @Override
+    public void setAnnotation(Annotation data) {
+      annotation = data;
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(value);
+    }
+  }
+}
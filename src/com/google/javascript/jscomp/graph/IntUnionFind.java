@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * A Union-Find of non-negative ints, such as ids given to the objects of a
+ * compilation, with union by rank and path halving.
+ *
+ * <p>Unlike {@link StandardUnionFind}, it doesn't allocate an object per
+ * element: elements are stored in insertion order in int arrays, and an open
+ * addressing hash table maps them to their position. This suits the many small
+ * union-finds built over the same set of ids, where only a few ids are in each.
+ */
+public final class IntUnionFind {
+  private static final int INITIAL_CAPACITY = 4;
+
+  /** The elements, in the order they were added. */
+  private int[] elements = new int[INITIAL_CAPACITY];
+  /** The position of the parent of the element at each position. */
+  private int[] parents = new int[INITIAL_CAPACITY];
+  /** A bound on the depth of the tree rooted at each position. */
+  private byte[] ranks = new byte[INITIAL_CAPACITY];
+  /** Positions plus one indexed by element hash, with zero for empty slots. */
+  private int[] table = new int[2 * INITIAL_CAPACITY];
+  private int size;
+  private int classCount;
+
+  /** Adds the given element to a new set if it is not already in a set. */
+  public void add(int e) {
+    findPositionOrAdd(e);
+  }
+
+  /**
+   * Unions the equivalence classes of {@code a} and {@code b} and returns the
+   * representative of the resulting equivalence class. The elements will be
+   * added if they are not already present.
+   */
+  public int union(int a, int b) {
+    int rootA = findRoot(findPositionOrAdd(a));
+    int rootB = findRoot(findPositionOrAdd(b));
+    if (rootA == rootB) {
+      return elements[rootA];
+    }
+    classCount--;
+    if (ranks[rootA] > ranks[rootB]) {
+      parents[rootB] = rootA;
+      return elements[rootA];
+    }
+    parents[rootA] = rootB;
+    if (ranks[rootA] == ranks[rootB]) {
+      ranks[rootB]++;
+    }
+    return elements[rootB];
+  }
+
+  /** Returns the representative of the equivalence class of {@code e}. */
+  public int find(int e) {
+    int position = findPosition(e);
+    checkArgument(position >= 0, "Element does not exist: %s", e);
+    return elements[findRoot(position)];
+  }
+
+  /**
+   * Returns true if {@code a} and {@code b} belong to the same equivalence
+   * class.
+   *
+   * @throws IllegalArgumentException if any argument is not an element of this
+   *     structure.
+   */
+  public boolean areEquivalent(int a, int b) {
+    return find(a) == find(b);
+  }
+
+  /** Returns whether the element was added to the union-find. */
+  public boolean contains(int e) {
+    return findPosition(e) >= 0;
+  }
+
+  /** Returns the number of elements. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns the number of equivalence classes. */
+  public int getClassCount() {
+    return classCount;
+  }
+
+  /** Returns the elements in the order they were added. */
+  public int[] elements() {
+    return Arrays.copyOf(elements, size);
+  }
+
+  /**
+   * Returns all equivalence classes, each with its elements in the order they
+   * were added. The classes are ordered by their first element. The result is
+   * a snapshot that doesn't reflect later changes.
+   */
+  public int[][] allEquivalenceClasses() {
+    // Number the classes by their first element, and count their elements.
+    int[] classOfRoot = new int[size];
+    Arrays.fill(classOfRoot, -1);
+    int[] classOfPosition = new int[size];
+    int[] classSizes = new int[classCount];
+    int classes = 0;
+    for (int i = 0; i < size; i++) {
+      int root = findRoot(i);
+      if (classOfRoot[root] < 0) {
+        classOfRoot[root] = classes++;
+      }
+      classOfPosition[i] = classOfRoot[root];
+      classSizes[classOfPosition[i]]++;
+    }
+    int[][] result = new int[classes][];
+    for (int c = 0; c < classes; c++) {
+      result[c] = new int[classSizes[c]];
+      classSizes[c] = 0;
+    }
+    for (int i = 0; i < size; i++) {
+      int c = classOfPosition[i];
+      result[c][classSizes[c]++] = elements[i];
+    }
+    return result;
+  }
+
+  /**
+   * Walks up to the root of the tree of the element at the given position,
+   * making every other node on the way point to its grandparent.
+   */
+  private int findRoot(int position) {
+    while (parents[position] != position) {
+      parents[position] = parents[parents[position]];
+      position = parents[position];
+    }
+    return position;
+  }
+
+  /** Returns the position of the element, or -1 if it was not added. */
+  private int findPosition(int e) {
+    checkArgument(e >= 0, "Negative element: %s", e);
+    int mask = table.length - 1;
+    for (int slot = hash(e) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+      if (elements[table[slot] - 1] == e) {
+        return table[slot] - 1;
+      }
+    }
+    return -1;
+  }
+
+  private int findPositionOrAdd(int e) {
+    int position = findPosition(e);
+    if (position >= 0) {
+      return position;
+    }
+    if (size == elements.length) {
+      grow();
+    }
+    position = size++;
+    elements[position] = e;
+    parents[position] = position;
+    classCount++;
+    insert(position);
+    return position;
+  }
+
+  private void grow() {
+    int capacity = 2 * elements.length;
+    elements = Arrays.copyOf(elements, capacity);
+    parents = Arrays.copyOf(parents, capacity);
+    ranks = Arrays.copyOf(ranks, capacity);
+    table = new int[2 * capacity];
+    for (int i = 0; i < size; i++) {
+      insert(i);
+    }
+  }
+
+  private void insert(int position) {
+    int mask = table.length - 1;
+    int slot = hash(elements[position]) & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = position + 1;
+  }
+
+  private static int hash(int e) {
+    int h = e * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -16,6 +16,9 @@
 
 package com.google.javascript.jscomp;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 /** GWT compatible replacement for {@code CompilerExecutor} */
@@ -28,6 +31,26 @@ final class CompilerExecutor {
     }
   }
 
+  <T> List<T> runInParallel(List<? extends Callable<T>> tasks, int numThreads) {
+    List<T> results = new ArrayList<>(tasks.size());
+    for (Callable<T> task : tasks) {
+      try {
+        results.add(task.call());
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return results;
+  }
+
+  <T> List<T> runInParallel(
+      List<? extends Callable<T>> tasks,
+      List<? extends Collection<Integer>> dependencies,
+      int numThreads) {
+    // The tasks only depend on earlier tasks, so running them in order is enough.
+    return runInParallel(tasks, numThreads);
+  }
+
   void disableThreads() {
   }
 
@@ -121,13 +121,13 @@ public final class EnumType extends Namespace implements TypeWithProperties {
   protected JSType computeJSType() {
     Preconditions.checkNotNull(enumPropType);
     Preconditions.checkState(this.namespaceType == null);
-    PersistentMap<String, Property> propMap = PersistentMap.create();
+    PersistentMap.Builder<String, Property> propMap =
+        PersistentMap.<String, Property>create().toBuilder();
     for (String s : this.props) {
-      propMap = propMap.with(s,
-          Property.makeConstant(null, enumPropType, enumPropType));
+      propMap.put(s, Property.makeConstant(null, enumPropType, enumPropType));
     }
     return JSType.fromObjectType(ObjectType.makeObjectType(
-        this.commonTypes, this.commonTypes.getLiteralObjNominalType(), propMap,
+        this.commonTypes, this.commonTypes.getLiteralObjNominalType(), propMap.build(),
         null, this, false, ObjectKind.UNRESTRICTED));
   }
 
@@ -0,0 +1,742 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import com.google.common.base.Preconditions;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A persistent map implemented as a hash array mapped trie.
+ *
+ * <p>Small maps keep their entries in a flat array of alternating keys and
+ * values instead, which is smaller and faster to search than a trie. Larger
+ * maps are tries of nodes with up to 32 slots, indexed by 5 bits of the hash
+ * of the keys at each level, which share all unchanged nodes with the maps
+ * they were derived from.
+ *
+ * <p>A {@link Builder} mutates the nodes that it created itself in place, so
+ * a batch of updates copies each node at most once. {@link #reconcile}
+ * combines two maps without visiting the nodes that they share.
+ *
+ * <p>Keys must not be null.
+ */
+final class HamtPersistentMap<K, V> extends PersistentMap<K, V> {
+
+  // The largest map that keeps its entries in a flat array.
+  private static final int MAX_INLINE_SIZE = 8;
+
+  private static final int BITS = 5;
+
+  private static final Object NOT_FOUND = new Object();
+
+  private static final HamtPersistentMap<Object, Object> EMPTY =
+      new HamtPersistentMap<>(new Object[0], null, 0);
+
+  // The entries of a small map as alternating keys and values, or null if
+  // the map is a trie.
+  private final Object[] inline;
+  private final TrieNode root;
+  private final int size;
+
+  private HamtPersistentMap(Object[] inline, TrieNode root, int size) {
+    this.inline = inline;
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <K, V> HamtPersistentMap<K, V> empty() {
+    return (HamtPersistentMap<K, V>) EMPTY;
+  }
+
+  @Override
+  public PersistentMap<K, V> with(K key, V value) {
+    Preconditions.checkNotNull(key);
+    if (inline != null) {
+      int index = indexOfInline(inline, inline.length, key);
+      if (index >= 0) {
+        if (inline[index + 1] == value) {
+          return this;
+        }
+        Object[] newInline = inline.clone();
+        newInline[index + 1] = value;
+        return new HamtPersistentMap<>(newInline, null, size);
+      }
+      if (size < MAX_INLINE_SIZE) {
+        Object[] newInline = Arrays.copyOf(inline, inline.length + 2);
+        newInline[inline.length] = key;
+        newInline[inline.length + 1] = value;
+        return new HamtPersistentMap<>(newInline, null, size + 1);
+      }
+      return toBuilder().put(key, value).build();
+    }
+    Change change = new Change();
+    TrieNode newRoot = root.with(null, 0, hash(key), key, value, change);
+    return newRoot == root
+        ? this : new HamtPersistentMap<K, V>(null, newRoot, size + change.sizeDelta);
+  }
+
+  @Override
+  public PersistentMap<K, V> without(K key) {
+    Preconditions.checkNotNull(key);
+    if (inline != null) {
+      int index = indexOfInline(inline, inline.length, key);
+      if (index < 0) {
+        return this;
+      }
+      Object[] newInline = new Object[inline.length - 2];
+      System.arraycopy(inline, 0, newInline, 0, index);
+      System.arraycopy(inline, index + 2, newInline, index, inline.length - index - 2);
+      return new HamtPersistentMap<>(newInline, null, size - 1);
+    }
+    Change change = new Change();
+    TrieNode newRoot = root.without(null, 0, hash(key), key, change);
+    if (newRoot == root) {
+      return this;
+    }
+    return newRoot == null ? HamtPersistentMap.<K, V>empty()
+        : new HamtPersistentMap<K, V>(null, newRoot, size + change.sizeDelta);
+  }
+
+  @Override
+  public Builder<K, V> toBuilder() {
+    return new HamtBuilder<>(this);
+  }
+
+  @Override
+  public PersistentMap<K, V> reconcile(PersistentMap<K, V> other, Reconciler<K, V> reconciler) {
+    if (this == other || other.isEmpty()) {
+      return this;
+    }
+    if (this.isEmpty()) {
+      return other;
+    }
+    if (this.root != null && other instanceof HamtPersistentMap) {
+      HamtPersistentMap<K, V> that = (HamtPersistentMap<K, V>) other;
+      if (that.root != null) {
+        Change change = new Change();
+        TrieNode newRoot = reconcileNodes(0, this.root, that.root, reconciler, change);
+        return newRoot == this.root ? this
+            : new HamtPersistentMap<K, V>(null, newRoot, size + change.sizeDelta);
+      }
+    }
+    Builder<K, V> builder = null;
+    for (Map.Entry<K, V> entry : other.entrySet()) {
+      K key = entry.getKey();
+      Object value = find(key);
+      Object newValue = value == NOT_FOUND
+          ? entry.getValue() : reconcileValues(key, value, entry.getValue(), reconciler);
+      if (newValue != value) {
+        if (builder == null) {
+          builder = toBuilder();
+        }
+        @SuppressWarnings("unchecked")
+        V v = (V) newValue;
+        builder.put(key, v);
+      }
+    }
+    return builder == null ? this : builder.build();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    Object value = find(key);
+    return value == NOT_FOUND ? null : (V) value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return find(key) != NOT_FOUND;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(inline, root);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private Object find(Object key) {
+    if (key == null) {
+      return NOT_FOUND;
+    }
+    if (inline != null) {
+      int index = indexOfInline(inline, inline.length, key);
+      return index < 0 ? NOT_FOUND : inline[index + 1];
+    }
+    return root.find(0, hash(key), key);
+  }
+
+  /** Returns the index of the key in an array of alternating keys and values, or -1. */
+  private static int indexOfInline(Object[] entries, int length, Object key) {
+    for (int i = 0; i < length; i += 2) {
+      Object k = entries[i];
+      if (k == key || k.equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & 31);
+  }
+
+  private static boolean sameValue(Object v1, Object v2) {
+    return v1 == v2 || (v1 != null && v1.equals(v2));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K, V> Object reconcileValues(
+      Object key, Object v1, Object v2, Reconciler<K, V> reconciler) {
+    return sameValue(v1, v2) ? v1 : reconciler.reconcile((K) key, (V) v1, (V) v2);
+  }
+
+  /**
+   * Combines two nodes at the same position of two tries. Entries that are
+   * only in n2 are added to n1, and {@code change} records how many.
+   */
+  private static <K, V> TrieNode reconcileNodes(
+      int shift, TrieNode n1, TrieNode n2, Reconciler<K, V> reconciler, Change change) {
+    if (n1 == n2) {
+      return n1;
+    }
+    if (!(n1 instanceof BitmapNode) || !(n2 instanceof BitmapNode)) {
+      // Hash collisions are rare; add the entries one at a time.
+      TrieNode result = n1;
+      for (EntryIterator<Object, Object> it = new EntryIterator<>(null, n2); it.hasNext(); ) {
+        Map.Entry<Object, Object> entry = it.next();
+        Object key = entry.getKey();
+        int hash = hash(key);
+        Object value = result.find(shift, hash, key);
+        Object newValue = value == NOT_FOUND
+            ? entry.getValue() : reconcileValues(key, value, entry.getValue(), reconciler);
+        if (newValue != value) {
+          result = result.with(null, shift, hash, key, newValue, change);
+        }
+      }
+      return result;
+    }
+    BitmapNode b1 = (BitmapNode) n1;
+    BitmapNode b2 = (BitmapNode) n2;
+    int bitmap = b1.bitmap | b2.bitmap;
+    Object[] array = null;
+    for (int remaining = bitmap; remaining != 0; remaining &= remaining - 1) {
+      int bit = remaining & -remaining;
+      if ((b2.bitmap & bit) == 0) {
+        continue;
+      }
+      int i2 = 2 * b2.index(bit);
+      Object k2 = b2.array[i2];
+      Object v2 = b2.array[i2 + 1];
+      Object newKey;
+      Object newValue;
+      if ((b1.bitmap & bit) == 0) {
+        newKey = k2;
+        newValue = v2;
+        change.sizeDelta += k2 == null ? ((TrieNode) v2).count() : 1;
+      } else {
+        int i1 = 2 * b1.index(bit);
+        Object k1 = b1.array[i1];
+        Object v1 = b1.array[i1 + 1];
+        if (k1 != null && k2 != null) {
+          if (k1.equals(k2)) {
+            newKey = k1;
+            newValue = reconcileValues(k1, v1, v2, reconciler);
+          } else {
+            newKey = null;
+            newValue = createNode(null, shift + BITS, k1, v1, hash(k2), k2, v2);
+            change.sizeDelta++;
+          }
+        } else if (k1 != null) {
+          // Put the entry of n1 into the subtree of n2.
+          TrieNode child2 = (TrieNode) v2;
+          int hash = hash(k1);
+          Object value2 = child2.find(shift + BITS, hash, k1);
+          Change childChange = new Change();
+          newKey = null;
+          newValue = child2.with(null, shift + BITS, hash, k1,
+              value2 == NOT_FOUND ? v1 : reconcileValues(k1, v1, value2, reconciler),
+              childChange);
+          change.sizeDelta += child2.count() - 1 + childChange.sizeDelta;
+        } else if (k2 != null) {
+          TrieNode child1 = (TrieNode) v1;
+          int hash = hash(k2);
+          Object value1 = child1.find(shift + BITS, hash, k2);
+          newKey = null;
+          newValue = value1 == NOT_FOUND
+              ? child1.with(null, shift + BITS, hash, k2, v2, change)
+              : child1.with(null, shift + BITS, hash, k2,
+                  reconcileValues(k2, value1, v2, reconciler), change);
+        } else {
+          newKey = null;
+          newValue = reconcileNodes(shift + BITS, (TrieNode) v1, (TrieNode) v2, reconciler, change);
+        }
+        if (newKey == k1 && newValue == v1) {
+          continue;
+        }
+      }
+      if (array == null) {
+        array = new Object[2 * Integer.bitCount(bitmap)];
+        for (int rest = b1.bitmap; rest != 0; rest &= rest - 1) {
+          int b = rest & -rest;
+          int from = 2 * b1.index(b);
+          int to = 2 * Integer.bitCount(bitmap & (b - 1));
+          array[to] = b1.array[from];
+          array[to + 1] = b1.array[from + 1];
+        }
+      }
+      int to = 2 * Integer.bitCount(bitmap & (bit - 1));
+      array[to] = newKey;
+      array[to + 1] = newValue;
+    }
+    return array == null ? n1 : new BitmapNode(null, bitmap, array);
+  }
+
+  private static TrieNode createNode(
+      Object owner, int shift, Object k1, Object v1, int h2, Object k2, Object v2) {
+    int h1 = hash(k1);
+    if (h1 == h2) {
+      return new CollisionNode(h1, new Object[] {k1, v1, k2, v2});
+    }
+    Change change = new Change();
+    return new BitmapNode(owner, 0, new Object[0])
+        .with(owner, shift, h1, k1, v1, change)
+        .with(owner, shift, h2, k2, v2, change);
+  }
+
+  /** Records how an update changed the size of a map. */
+  private static final class Change {
+    int sizeDelta;
+  }
+
+  private abstract static class TrieNode {
+    Object[] array;
+
+    TrieNode(Object[] array) {
+      this.array = array;
+    }
+
+    /** Returns the value of the key, or NOT_FOUND. */
+    abstract Object find(int shift, int hash, Object key);
+
+    /**
+     * Returns the node with the key mapped to the value. Nodes created by the
+     * given owner are updated in place; a null owner never matches.
+     */
+    abstract TrieNode with(
+        Object owner, int shift, int hash, Object key, Object value, Change change);
+
+    /** Returns the node without the key, or null if the node becomes empty. */
+    abstract TrieNode without(Object owner, int shift, int hash, Object key, Change change);
+
+    /** The number of slots in use in the array, which may be longer. */
+    abstract int length();
+
+    int count() {
+      int count = 0;
+      for (int i = 0; i < length(); i += 2) {
+        count += array[i] == null ? ((TrieNode) array[i + 1]).count() : 1;
+      }
+      return count;
+    }
+  }
+
+  /**
+   * A node with a slot pair for each bit set in the bitmap, holding either a
+   * key and its value, or null and a child node.
+   */
+  private static final class BitmapNode extends TrieNode {
+    final Object owner;
+    int bitmap;
+
+    BitmapNode(Object owner, int bitmap, Object[] array) {
+      super(array);
+      this.owner = owner;
+      this.bitmap = bitmap;
+    }
+
+    int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    @Override
+    int length() {
+      return 2 * Integer.bitCount(bitmap);
+    }
+
+    @Override
+    Object find(int shift, int hash, Object key) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return NOT_FOUND;
+      }
+      int i = 2 * index(bit);
+      Object k = array[i];
+      if (k == null) {
+        return ((TrieNode) array[i + 1]).find(shift + BITS, hash, key);
+      }
+      return k == key || k.equals(key) ? array[i + 1] : NOT_FOUND;
+    }
+
+    @Override
+    TrieNode with(Object owner, int shift, int hash, Object key, Object value, Change change) {
+      int bit = bit(hash, shift);
+      int i = 2 * index(bit);
+      if ((bitmap & bit) != 0) {
+        Object k = array[i];
+        Object v = array[i + 1];
+        if (k == null) {
+          TrieNode child = (TrieNode) v;
+          TrieNode newChild = child.with(owner, shift + BITS, hash, key, value, change);
+          return newChild == child ? this : set(owner, i + 1, newChild);
+        }
+        if (k == key || k.equals(key)) {
+          return v == value ? this : set(owner, i + 1, value);
+        }
+        change.sizeDelta++;
+        TrieNode newChild = createNode(owner, shift + BITS, k, v, hash, key, value);
+        BitmapNode node = (BitmapNode) set(owner, i, null);
+        node.array[i + 1] = newChild;
+        return node;
+      }
+      change.sizeDelta++;
+      int length = length();
+      if (owner != null && owner == this.owner && length < array.length) {
+        System.arraycopy(array, i, array, i + 2, length - i);
+        array[i] = key;
+        array[i + 1] = value;
+        bitmap |= bit;
+        return this;
+      }
+      // Nodes of builders get some room to grow in place.
+      Object[] newArray = new Object[owner == null ? length + 2 : Math.min(64, length + 8)];
+      System.arraycopy(array, 0, newArray, 0, i);
+      newArray[i] = key;
+      newArray[i + 1] = value;
+      System.arraycopy(array, i, newArray, i + 2, length - i);
+      return new BitmapNode(owner, bitmap | bit, newArray);
+    }
+
+    @Override
+    TrieNode without(Object owner, int shift, int hash, Object key, Change change) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+      int i = 2 * index(bit);
+      Object k = array[i];
+      if (k == null) {
+        TrieNode child = (TrieNode) array[i + 1];
+        TrieNode newChild = child.without(owner, shift + BITS, hash, key, change);
+        if (newChild == child) {
+          return this;
+        }
+        if (newChild != null) {
+          return set(owner, i + 1, newChild);
+        }
+      } else if (k == key || k.equals(key)) {
+        change.sizeDelta--;
+      } else {
+        return this;
+      }
+      if (bitmap == bit) {
+        return null;
+      }
+      int length = length();
+      if (owner != null && owner == this.owner) {
+        System.arraycopy(array, i + 2, array, i, length - i - 2);
+        array[length - 2] = null;
+        array[length - 1] = null;
+        bitmap ^= bit;
+        return this;
+      }
+      Object[] newArray = new Object[length - 2];
+      System.arraycopy(array, 0, newArray, 0, i);
+      System.arraycopy(array, i + 2, newArray, i, length - i - 2);
+      return new BitmapNode(null, bitmap ^ bit, newArray);
+    }
+
+    private TrieNode set(Object owner, int i, Object o) {
+      if (owner != null && owner == this.owner) {
+        array[i] = o;
+        return this;
+      }
+      Object[] newArray = Arrays.copyOf(array, length());
+      newArray[i] = o;
+      return new BitmapNode(owner, bitmap, newArray);
+    }
+  }
+
+  /** A node of keys whose hashes are all the same. It is always copied. */
+  private static final class CollisionNode extends TrieNode {
+    final int hash;
+
+    CollisionNode(int hash, Object[] array) {
+      super(array);
+      this.hash = hash;
+    }
+
+    @Override
+    int length() {
+      return array.length;
+    }
+
+    @Override
+    Object find(int shift, int hash, Object key) {
+      int i = indexOfInline(array, array.length, key);
+      return i < 0 ? NOT_FOUND : array[i + 1];
+    }
+
+    @Override
+    TrieNode with(Object owner, int shift, int hash, Object key, Object value, Change change) {
+      if (hash != this.hash) {
+        return new BitmapNode(owner, bit(this.hash, shift), new Object[] {null, this})
+            .with(owner, shift, hash, key, value, change);
+      }
+      int i = indexOfInline(array, array.length, key);
+      if (i >= 0) {
+        if (array[i + 1] == value) {
+          return this;
+        }
+        Object[] newArray = array.clone();
+        newArray[i + 1] = value;
+        return new CollisionNode(hash, newArray);
+      }
+      change.sizeDelta++;
+      Object[] newArray = Arrays.copyOf(array, array.length + 2);
+      newArray[array.length] = key;
+      newArray[array.length + 1] = value;
+      return new CollisionNode(hash, newArray);
+    }
+
+    @Override
+    TrieNode without(Object owner, int shift, int hash, Object key, Change change) {
+      int i = indexOfInline(array, array.length, key);
+      if (i < 0) {
+        return this;
+      }
+      change.sizeDelta--;
+      if (array.length == 2) {
+        return null;
+      }
+      Object[] newArray = new Object[array.length - 2];
+      System.arraycopy(array, 0, newArray, 0, i);
+      System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+      return new CollisionNode(hash, newArray);
+    }
+  }
+
+  /** Iterates over the entries of a flat array or of a trie, depth first. */
+  private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+    // The arrays and positions of the nodes from the root to the current one.
+    private final Object[][] arrays = new Object[8][];
+    private final int[] lengths = new int[8];
+    private final int[] positions = new int[8];
+    private int depth;
+
+    EntryIterator(Object[] inline, TrieNode root) {
+      if (inline != null) {
+        arrays[0] = inline;
+        lengths[0] = inline.length;
+      } else {
+        arrays[0] = root.array;
+        lengths[0] = root.length();
+      }
+      advance();
+    }
+
+    /** Moves to the next entry, or makes depth negative at the end. */
+    private void advance() {
+      while (depth >= 0) {
+        if (positions[depth] == lengths[depth]) {
+          depth--;
+          continue;
+        }
+        Object[] array = arrays[depth];
+        int position = positions[depth];
+        if (array[position] != null) {
+          return;
+        }
+        positions[depth] += 2;
+        TrieNode child = (TrieNode) array[position + 1];
+        depth++;
+        arrays[depth] = child.array;
+        lengths[depth] = child.length();
+        positions[depth] = 0;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return depth >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map.Entry<K, V> next() {
+      if (depth < 0) {
+        throw new NoSuchElementException();
+      }
+      Object[] array = arrays[depth];
+      int position = positions[depth];
+      positions[depth] += 2;
+      Map.Entry<K, V> entry =
+          new AbstractMap.SimpleImmutableEntry<>((K) array[position], (V) array[position + 1]);
+      advance();
+      return entry;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * Updates a copy of a map in place. The nodes that the builder creates are
+   * owned by it, until the map is built.
+   */
+  private static final class HamtBuilder<K, V> implements Builder<K, V> {
+    private Object owner = new Object();
+    // Like the fields of a map, except that an inline array may be longer
+    // than needed and is owned by the builder if inlineOwned is set.
+    private Object[] inline;
+    private boolean inlineOwned;
+    private TrieNode root;
+    private int size;
+
+    HamtBuilder(HamtPersistentMap<K, V> map) {
+      this.inline = map.inline;
+      this.root = map.root;
+      this.size = map.size;
+    }
+
+    @Override
+    public Builder<K, V> put(K key, V value) {
+      Preconditions.checkNotNull(key);
+      if (inline != null) {
+        int index = indexOfInline(inline, 2 * size, key);
+        if (index >= 0) {
+          if (inline[index + 1] != value) {
+            ownInline(inline.length);
+            inline[index + 1] = value;
+          }
+          return this;
+        }
+        if (size < MAX_INLINE_SIZE) {
+          ownInline(2 * MAX_INLINE_SIZE);
+          inline[2 * size] = key;
+          inline[2 * size + 1] = value;
+          size++;
+          return this;
+        }
+        // Move the entries to a trie.
+        Change change = new Change();
+        TrieNode newRoot = new BitmapNode(owner, 0, new Object[0]);
+        for (int i = 0; i < 2 * size; i += 2) {
+          newRoot = newRoot.with(owner, 0, hash(inline[i]), inline[i], inline[i + 1], change);
+        }
+        inline = null;
+        root = newRoot;
+      }
+      Change change = new Change();
+      root = root.with(owner, 0, hash(key), key, value, change);
+      size += change.sizeDelta;
+      return this;
+    }
+
+    @Override
+    public Builder<K, V> remove(K key) {
+      Preconditions.checkNotNull(key);
+      if (inline != null) {
+        int index = indexOfInline(inline, 2 * size, key);
+        if (index >= 0) {
+          ownInline(inline.length);
+          System.arraycopy(inline, index + 2, inline, index, 2 * size - index - 2);
+          size--;
+          inline[2 * size] = null;
+          inline[2 * size + 1] = null;
+        }
+        return this;
+      }
+      Change change = new Change();
+      TrieNode newRoot = root.without(owner, 0, hash(key), key, change);
+      size += change.sizeDelta;
+      if (newRoot == null) {
+        inline = new Object[0];
+        inlineOwned = false;
+      }
+      root = newRoot;
+      return this;
+    }
+
+    @Override
+    public PersistentMap<K, V> build() {
+      // The built map must not change, so later updates need a new owner.
+      owner = new Object();
+      if (inline == null) {
+        return new HamtPersistentMap<>(null, root, size);
+      }
+      if (size == 0) {
+        return HamtPersistentMap.empty();
+      }
+      inlineOwned = false;
+      if (inline.length != 2 * size) {
+        inline = Arrays.copyOf(inline, 2 * size);
+      }
+      return new HamtPersistentMap<>(inline, null, size);
+    }
+
+    private void ownInline(int capacity) {
+      if (!inlineOwned || inline.length < capacity) {
+        inline = Arrays.copyOf(inline, Math.max(capacity, inline.length));
+        inlineOwned = true;
+      }
+    }
+  }
+}
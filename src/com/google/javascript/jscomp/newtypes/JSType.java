@@ -86,8 +86,8 @@ public abstract class JSType implements TypeI, FunctionTypeI, ObjectTypeI {
   private static final int NULL_OR_NUMBER_MASK = NULL_MASK | NUMBER_MASK;
   private static final int NULL_OR_STRING_MASK = NULL_MASK | STRING_MASK;
 
-  private static final ImmutableSet<ObjectType> NO_OBJS = ImmutableSet.<ObjectType>of();
-  private static final ImmutableSet<EnumType> NO_ENUMS = ImmutableSet.<EnumType>of();
+  static final ImmutableSet<ObjectType> NO_OBJS = ImmutableSet.<ObjectType>of();
+  static final ImmutableSet<EnumType> NO_ENUMS = ImmutableSet.<EnumType>of();
 
   private final JSTypes commonTypes;
 
@@ -124,10 +124,17 @@ public abstract class JSType implements TypeI, FunctionTypeI, ObjectTypeI {
       return commonTypes.BOTTOM;
     }
     if (mask == NON_SCALAR_MASK) {
-      return new ObjsType(commonTypes, objs);
+      return objs.size() == 1
+          ? Iterables.getOnlyElement(objs).toJSType()
+          : new ObjsType(commonTypes, objs);
     }
     if (mask == (NON_SCALAR_MASK | NULL_MASK)) {
-      return new NullableObjsType(commonTypes, objs);
+      return objs.size() == 1
+          ? Iterables.getOnlyElement(objs).toNullableJSType()
+          : new NullableObjsType(commonTypes, objs);
+    }
+    if (typeVar != null && objs.isEmpty() && enums.isEmpty()) {
+      return commonTypes.typeInterner.getScalarType(mask | TYPEVAR_MASK, typeVar);
     }
     return new UnionType(commonTypes, mask, objs, typeVar, enums);
   }
@@ -179,7 +186,7 @@ public abstract class JSType implements TypeI, FunctionTypeI, ObjectTypeI {
       case NULL_OR_STRING_MASK:
         return commonTypes.NULL_OR_STRING;
       default:
-        return new MaskType(commonTypes, mask);
+        return commonTypes.typeInterner.getScalarType(mask, null);
     }
   }
 
@@ -583,6 +590,9 @@ public abstract class JSType implements TypeI, FunctionTypeI, ObjectTypeI {
       // For now return ? when joining two type vars. This is probably uncommon.
       return commonTypes.UNKNOWN;
     }
+    if (lhs == rhs) {
+      return lhs;
+    }
 
     int newMask = lhs.getMask() | rhs.getMask();
     ImmutableSet<ObjectType> newObjs =
@@ -2088,7 +2098,7 @@ class MaskType extends JSType {
 }
 
 final class ObjsType extends JSType {
-  private ImmutableSet<ObjectType> objs;
+  private final ImmutableSet<ObjectType> objs;
 
   ObjsType(JSTypes commonTypes, ImmutableSet<ObjectType> objs) {
     super(commonTypes);
@@ -2117,7 +2127,7 @@ final class ObjsType extends JSType {
 }
 
 final class NullableObjsType extends JSType {
-  private ImmutableSet<ObjectType> objs;
+  private final ImmutableSet<ObjectType> objs;
 
   NullableObjsType(JSTypes commonTypes, ImmutableSet<ObjectType> objs) {
     super(commonTypes);
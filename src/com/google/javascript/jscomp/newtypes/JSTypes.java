@@ -136,6 +136,10 @@ public final class JSTypes {
   final boolean looseSubtypingForLooseObjects;
   final boolean bivariantArrayGenerics;
 
+  // Shares the scalar types and type variables that the type checker creates
+  // over and over, during joins and specializations.
+  final TypeInterner typeInterner = new TypeInterner(this);
+
   private JSTypes(boolean inCompatibilityMode) {
     Map<String, JSType> types = JSType.createScalars(this);
     this.BOOLEAN = Preconditions.checkNotNull(types.get("BOOLEAN"));
@@ -19,6 +19,8 @@ package com.google.javascript.jscomp.newtypes;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.javascript.rhino.Node;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -160,6 +162,11 @@ public abstract class Namespace {
     return getSubnamespace(qname) != null;
   }
 
+  /** Returns the namespaces that are direct properties of this namespace. */
+  public final Collection<Namespace> getSubnamespaces() {
+    return Collections.unmodifiableCollection(this.namespaces.values());
+  }
+
   // Static properties
 
   public final boolean hasProp(String pname) {
@@ -49,6 +49,11 @@ final class ObjectType implements TypeWithProperties {
 
   private final JSTypes commonTypes;
 
+  // The types of just this object, and of this object or null, shared by the
+  // joins and specializations that produce them. Created on demand.
+  private JSType jsType;
+  private JSType nullableJsType;
+
   static ObjectType createBottomObject(JSTypes commonTypes) {
     return new ObjectType(commonTypes, commonTypes.getObjectType(),
         Preconditions.checkNotNull(commonTypes.BOTTOM_PROPERTY_MAP),
@@ -90,18 +95,19 @@ final class ObjectType implements TypeWithProperties {
   // This function makes sure we mark these object properties as loose.
   private static PersistentMap<String, Property> loosenProps(
       PersistentMap<String, Property> props) {
-    PersistentMap<String, Property> newProps = props;
+    PersistentMap.Builder<String, Property> newProps = null;
     for (Map.Entry<String, Property> entry : props.entrySet()) {
       JSType propType = entry.getValue().getType();
       ObjectType objType = propType.getObjTypeIfSingletonObj();
       if (objType != null
           && !objType.nominalType.isClassy() && !objType.isLoose()) {
-        newProps = newProps.with(
-            entry.getKey(),
-            Property.make(propType.withLoose(), null));
+        if (newProps == null) {
+          newProps = props.toBuilder();
+        }
+        newProps.put(entry.getKey(), Property.make(propType.withLoose(), null));
       }
     }
-    return newProps;
+    return newProps == null ? props : newProps.build();
   }
 
   static ObjectType makeObjectType(JSTypes commonTypes, NominalType nominalType,
@@ -129,17 +135,35 @@ final class ObjectType implements TypeWithProperties {
     return makeObjectType(cl.getCommonTypes(), cl, null, null, null, false, cl.getObjectKind());
   }
 
+  JSType toJSType() {
+    // Threads that race here may create different types, which is harmless.
+    JSType type = this.jsType;
+    if (type == null) {
+      type = this.jsType = new ObjsType(this.commonTypes, ImmutableSet.of(this));
+    }
+    return type;
+  }
+
+  JSType toNullableJSType() {
+    JSType type = this.nullableJsType;
+    if (type == null) {
+      type = this.nullableJsType = new NullableObjsType(this.commonTypes, ImmutableSet.of(this));
+    }
+    return type;
+  }
+
   /** Construct an object with the given declared properties. */
   static ObjectType fromProperties(JSTypes commonTypes, Map<String, Property> oldProps) {
-    PersistentMap<String, Property> newProps = PersistentMap.create();
+    PersistentMap.Builder<String, Property> newProps =
+        PersistentMap.<String, Property>create().toBuilder();
     for (Map.Entry<String, Property> entry : oldProps.entrySet()) {
       Property prop = entry.getValue();
       if (prop.getDeclaredType().isBottom()) {
         return commonTypes.getBottomObject();
       }
-      newProps = newProps.with(entry.getKey(), prop);
+      newProps.put(entry.getKey(), prop);
     }
-    return new ObjectType(commonTypes, commonTypes.getObjectType(), newProps,
+    return new ObjectType(commonTypes, commonTypes.getObjectType(), newProps.build(),
         null, null, false, ObjectKind.UNRESTRICTED);
   }
 
@@ -260,16 +284,16 @@ final class ObjectType implements TypeWithProperties {
       return this;
     }
     FunctionType fn = this.fn == null ? null : this.fn.withLoose();
-    PersistentMap<String, Property> newProps = PersistentMap.create();
+    PersistentMap.Builder<String, Property> newProps = this.props.toBuilder();
     for (Map.Entry<String, Property> propsEntry : this.props.entrySet()) {
       String pname = propsEntry.getKey();
       Property prop = propsEntry.getValue();
       // It's wrong to warn about a possibly absent property on loose objects.
-      newProps = newProps.with(pname, prop.withRequired());
+      newProps.put(pname, prop.withRequired());
     }
     // No need to call makeObjectType; we know that the new object is inhabitable.
     return new ObjectType(
-        this.commonTypes, this.nominalType, newProps, fn, null, true, this.objectKind);
+        this.commonTypes, this.nominalType, newProps.build(), fn, null, true, this.objectKind);
   }
 
   ObjectType withFunction(FunctionType ft, NominalType fnNominal) {
@@ -489,7 +513,8 @@ final class ObjectType implements TypeWithProperties {
   private static PersistentMap<String, Property> joinProps(
       Map<String, Property> props1, Map<String, Property> props2,
       NominalType nom1, NominalType nom2) {
-    PersistentMap<String, Property> newProps = PersistentMap.create();
+    PersistentMap.Builder<String, Property> newProps =
+        PersistentMap.<String, Property>create().toBuilder();
     for (String pname : Sets.union(props1.keySet(), props2.keySet())) {
       Property prop1 = getProp(props1, nom1, pname);
       Property prop2 = getProp(props2, nom2, pname);
@@ -501,9 +526,9 @@ final class ObjectType implements TypeWithProperties {
       } else {
         newProp = Property.join(prop1, prop2);
       }
-      newProps = newProps.with(pname, newProp);
+      newProps.put(pname, newProp);
     }
-    return newProps;
+    return newProps.build();
   }
 
   private static PersistentMap<String, Property> joinPropsLoosely(
@@ -1246,7 +1271,8 @@ final class ObjectType implements TypeWithProperties {
         return null;
       }
     }
-    PersistentMap<String, Property> newProps = PersistentMap.create();
+    PersistentMap.Builder<String, Property> newProps =
+        PersistentMap.<String, Property>create().toBuilder();
     for (String propName : t1.props.keySet()) {
       Property prop1 = t1.props.get(propName);
       Property prop2 = t2.props.get(propName);
@@ -1257,9 +1283,9 @@ final class ObjectType implements TypeWithProperties {
       if (p == null) {
         return null;
       }
-      newProps = newProps.with(propName, p);
+      newProps.put(propName, p);
     }
-    return makeObjectType(t1.commonTypes, nt, newProps, newFn, t1.ns, false,
+    return makeObjectType(t1.commonTypes, nt, newProps.build(), newFn, t1.ns, false,
         ObjectKind.join(t1.objectKind, t2.objectKind));
   }
 
@@ -1332,18 +1358,18 @@ final class ObjectType implements TypeWithProperties {
     if (isTopObject() || concreteTypes.isEmpty()) {
       return this;
     }
-    PersistentMap<String, Property> newProps = PersistentMap.create();
+    PersistentMap.Builder<String, Property> newProps = this.props.toBuilder();
     for (Map.Entry<String, Property> propsEntry : this.props.entrySet()) {
       String pname = propsEntry.getKey();
       Property newProp =
           propsEntry.getValue().substituteGenerics(concreteTypes);
-      newProps = newProps.with(pname, newProp);
+      newProps.put(pname, newProp);
     }
     FunctionType newFn = fn == null ? null : fn.substituteGenerics(concreteTypes);
     return makeObjectType(
         this.commonTypes,
         this.nominalType.instantiateGenerics(concreteTypes),
-        newProps,
+        newProps.build(),
         newFn,
         this.ns,
         newFn != null && newFn.isQmarkFunction() || isLoose,
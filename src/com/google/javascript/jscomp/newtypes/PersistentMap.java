@@ -16,34 +16,48 @@
 
 package com.google.javascript.jscomp.newtypes;
 
-import com.google.common.annotations.GwtIncompatible;
-
 import java.util.AbstractMap;
-import java.util.Map;
 
-@GwtIncompatible("Class.forName")
-/** A persistent map with non-destructive additions and removals  */
+/**
+ * An immutable map whose updates return new maps, which share most of their
+ * structure with the maps they were derived from.
+ */
 abstract class PersistentMap<K, V> extends AbstractMap<K, V> {
 
-  private static PersistentMap EMPTY;
-  static {
-    try {
-      @SuppressWarnings("unchecked")
-      Class<? extends Map> c =
-          (Class<? extends Map>) Class.forName("clojure.lang.PersistentHashMap");
-      EMPTY = ClojurePersistentHashMap.create(c);
-    } catch (ClassNotFoundException e) {
-      EMPTY = NaivePersistentMap.create();
-    }
+  /** Collects many updates of a map, which is cheaper than a chain of {@code with} calls. */
+  interface Builder<K, V> {
+    Builder<K, V> put(K key, V value);
+
+    Builder<K, V> remove(K key);
+
+    PersistentMap<K, V> build();
+  }
+
+  /** Combines the values of a key that two maps map to different values. */
+  interface Reconciler<K, V> {
+    V reconcile(K key, V value1, V value2);
   }
 
   public abstract PersistentMap<K, V> with(K key, V value);
 
   public abstract PersistentMap<K, V> without(K key);
 
-  @SuppressWarnings("unchecked")
+  /** Returns a builder that starts out with the entries of this map. */
+  public abstract Builder<K, V> toBuilder();
+
+  /**
+   * Returns the union of this map and the other map. The keys that only one
+   * of the maps contains keep their values; for the keys that both contain,
+   * the reconciler combines the values if they are not equal.
+   *
+   * <p>Returns this map, without calling the reconciler, for the parts of
+   * the maps that are shared.
+   */
+  public abstract PersistentMap<K, V> reconcile(
+      PersistentMap<K, V> other, Reconciler<K, V> reconciler);
+
   public static <K, V> PersistentMap<K, V> create() {
-    return EMPTY;
+    return HamtPersistentMap.empty();
   }
 
   public static <K, V> PersistentMap<K, V> of(K key, V value) {
@@ -17,31 +17,47 @@
 package com.google.javascript.jscomp.newtypes;
 
 import java.util.AbstractSet;
-import java.util.Set;
-
-/** A persistent set with non-destructive additions and removals */
-abstract class PersistentSet<K> extends AbstractSet<K> {
-
-  private static PersistentSet EMPTY;
-
-  static {
-    try {
-      @SuppressWarnings("unchecked")
-      Class<? extends Set> c =
-          (Class<? extends Set>) Class.forName("clojure.lang.PersistentHashSet");
-      EMPTY = ClojurePersistentHashSet.create(c);
-    } catch (ClassNotFoundException e) {
-      EMPTY = NaivePersistentSet.create();
-    }
+import java.util.Iterator;
+
+/** An immutable set whose updates return new sets, backed by a {@link PersistentMap}. */
+final class PersistentSet<K> extends AbstractSet<K> {
+
+  private static final PersistentSet<Object> EMPTY =
+      new PersistentSet<>(PersistentMap.<Object, Boolean>create());
+
+  private final PersistentMap<K, Boolean> map;
+
+  private PersistentSet(PersistentMap<K, Boolean> map) {
+    this.map = map;
   }
 
-  public abstract PersistentSet<K> with(K key);
+  public PersistentSet<K> with(K key) {
+    PersistentMap<K, Boolean> newMap = this.map.with(key, Boolean.TRUE);
+    return newMap == this.map ? this : new PersistentSet<>(newMap);
+  }
 
-  public abstract PersistentSet<K> without(K key);
+  public PersistentSet<K> without(K key) {
+    PersistentMap<K, Boolean> newMap = this.map.without(key);
+    return newMap == this.map ? this : new PersistentSet<>(newMap);
+  }
 
   @SuppressWarnings("unchecked")
   public static <K> PersistentSet<K> create() {
-    return EMPTY;
+    return (PersistentSet<K>) EMPTY;
   }
 
+  @Override
+  public boolean contains(Object key) {
+    return this.map.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return this.map.size();
+  }
+
+  @Override
+  public Iterator<K> iterator() {
+    return this.map.keySet().iterator();
+  }
 }
@@ -21,6 +21,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -38,6 +39,14 @@ public final class TypeEnv {
   private static final int SIZE_THRESHOLD = 100;
   private PersistentSet<String> changedVars = null;
 
+  private static final PersistentMap.Reconciler<String, JSType> TYPE_JOINER =
+      new PersistentMap.Reconciler<String, JSType>() {
+        @Override
+        public JSType reconcile(String name, JSType type1, JSType type2) {
+          return JSType.join(type1, type2);
+        }
+      };
+
   public TypeEnv() {
     this.typeMap = PersistentMap.create();
   }
@@ -107,22 +116,13 @@ public final class TypeEnv {
     PersistentMap<String, JSType> newMap = firstEnv.typeMap;
 
     if (firstEnv.changedVars == null) {
+      int size = newMap.size();
       while (envsIter.hasNext()) {
-        TypeEnv env = envsIter.next();
-        for (Map.Entry<String, JSType> entry : env.typeMap.entrySet()) {
-          String name = entry.getKey();
-          // TODO(dimvar):
-          // If the iteration order in the type envs is guaranteed to get the
-          // keys in the same order for any env, then we can iterate through the
-          // two type envs at the same time, to avoid the map lookup here.
-          JSType currentType = newMap.get(name);
-          JSType otherType = entry.getValue();
-          Preconditions.checkNotNull(
-              currentType, "%s is missing from an env", name);
-          if (!currentType.equals(otherType)) {
-            newMap = newMap.with(name, JSType.join(currentType, otherType));
-          }
-        }
+        // The envs of a scope usually share most of their entries, which the
+        // join does not visit.
+        newMap = newMap.reconcile(envsIter.next().typeMap, TYPE_JOINER);
+        Preconditions.checkState(
+            newMap.size() == size, "An env has variables that others are missing");
       }
       return new TypeEnv(newMap);
     }
@@ -133,16 +133,24 @@ public final class TypeEnv {
         newLog = newLog.with(varName);
       }
     }
+    PersistentMap.Builder<String, JSType> builder = newMap.toBuilder();
+    Map<String, JSType> joinedTypes = new HashMap<>();
+    for (String changedVar : newLog) {
+      joinedTypes.put(changedVar, newMap.get(changedVar));
+    }
     while (envsIter.hasNext()) {
       TypeEnv env = envsIter.next();
-      for (String changedVar : newLog) {
-        JSType currentType = newMap.get(changedVar);
-        JSType otherType = env.typeMap.get(changedVar);
+      for (Map.Entry<String, JSType> entry : joinedTypes.entrySet()) {
+        JSType currentType = entry.getValue();
+        JSType otherType = env.typeMap.get(entry.getKey());
         if (!currentType.equals(otherType)) {
-          newMap = newMap.with(changedVar, JSType.join(currentType, otherType));
+          JSType joinedType = JSType.join(currentType, otherType);
+          entry.setValue(joinedType);
+          builder.put(entry.getKey(), joinedType);
         }
       }
     }
+    newMap = builder.build();
     return new TypeEnv(newMap, newLog);
   }
 
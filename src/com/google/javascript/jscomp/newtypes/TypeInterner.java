@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shares the scalar types and type variables of a compilation, so that the
+ * type checker can compare them by reference before comparing them
+ * structurally. There are few such types, since they only differ in their
+ * mask and type variable, so they are never freed.
+ *
+ * <p>Types of a single object are shared by the {@link ObjectType} instead;
+ * see {@code ObjectType#toJSType}. Other unions are not shared.
+ *
+ * <p>The interner is thread safe, so that function bodies can be analyzed in
+ * parallel.
+ */
+final class TypeInterner {
+  private final JSTypes commonTypes;
+  private final ConcurrentMap<Key, JSType> scalarTypes = new ConcurrentHashMap<>();
+
+  TypeInterner(JSTypes commonTypes) {
+    this.commonTypes = commonTypes;
+  }
+
+  /** Returns the type with the given mask and type variable, which has no objects or enums. */
+  JSType getScalarType(int mask, String typeVar) {
+    Key key = new Key(mask, typeVar);
+    JSType type = scalarTypes.get(key);
+    if (type == null) {
+      JSType newType = typeVar == null
+          ? new MaskType(commonTypes, mask)
+          : new UnionType(commonTypes, mask,
+              JSType.NO_OBJS, typeVar, JSType.NO_ENUMS);
+      type = scalarTypes.putIfAbsent(key, newType);
+      if (type == null) {
+        type = newType;
+      }
+    }
+    return type;
+  }
+
+  private static final class Key {
+    private final int mask;
+    private final String typeVar;
+
+    Key(int mask, String typeVar) {
+      this.mask = mask;
+      this.typeVar = typeVar;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return this.mask == other.mask && Objects.equals(this.typeVar, other.typeVar);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * mask + Objects.hashCode(typeVar);
+    }
+  }
+}
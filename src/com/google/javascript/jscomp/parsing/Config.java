@@ -18,8 +18,10 @@ package com.google.javascript.jscomp.parsing;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet;
 import java.util.Set;
 
@@ -150,6 +152,21 @@ public final class Config {
     this.strictMode = strictMode;
   }
 
+  /**
+   * Returns a string that is the same for two configs exactly when they parse
+   * any source the same way. Used to key parse results that are persisted.
+   */
+  public String getFingerprint() {
+    return Joiner.on(';').join(
+        languageMode,
+        strictMode,
+        parseJsDocDocumentation,
+        keepGoing,
+        parseInlineSourceMaps,
+        Joiner.on(',').join(ImmutableSortedSet.copyOf(annotationNames.keySet())),
+        Joiner.on(',').join(ImmutableSortedSet.copyOf(suppressionNames)));
+  }
+
   /**
    * Create the annotation names from the user-specified
    * annotation whitelist.
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.rhino;
+
+import static com.google.javascript.rhino.BinaryNodeWriter.FLAG_HAS_CHILDREN;
+import static com.google.javascript.rhino.BinaryNodeWriter.FLAG_HAS_PROPS;
+import static com.google.javascript.rhino.BinaryNodeWriter.FLAG_IN_SOURCE_FILE;
+import static com.google.javascript.rhino.BinaryNodeWriter.KIND_INT_NUMBER;
+import static com.google.javascript.rhino.BinaryNodeWriter.KIND_MASK;
+import static com.google.javascript.rhino.BinaryNodeWriter.KIND_NUMBER;
+import static com.google.javascript.rhino.BinaryNodeWriter.KIND_PLAIN;
+import static com.google.javascript.rhino.BinaryNodeWriter.KIND_STRING;
+import static com.google.javascript.rhino.BinaryNodeWriter.KIND_TYPE_DECLARATION;
+import static com.google.javascript.rhino.BinaryNodeWriter.KIND_TYPE_DECLARATION_WITH_STRING;
+import static com.google.javascript.rhino.BinaryNodeWriter.PROP_INT;
+import static com.google.javascript.rhino.BinaryNodeWriter.PROP_NODE;
+import static com.google.javascript.rhino.BinaryNodeWriter.PROP_OBJECT;
+import static com.google.javascript.rhino.BinaryNodeWriter.PROP_STRING;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.javascript.rhino.BinaryNodeWriter.SourceFilePlaceholder;
+import com.google.javascript.rhino.Node.TypeDeclarationNode;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Reads {@link Node} trees written by {@link BinaryNodeWriter}. Values must
+ * be read in the order they were written.
+ *
+ * <p>Malformed input results in an {@link IOException}, or possibly a
+ * {@link RuntimeException} if it is malformed in a way that is only noticed
+ * when building the tree.
+ */
+@GwtIncompatible("java.io")
+public final class BinaryNodeReader {
+
+  private static final Token[] TOKENS = Token.values();
+
+  private final ObjectInputStream in;
+  @Nullable private final Node sourceFileTemplate;
+  private final List<String> strings = new ArrayList<>();
+  private final List<Object> objects = new ArrayList<>();
+  private int previousPosition = -1;
+
+  /**
+   * @param is The stream to read from.
+   * @param sourceFile The source file given for the stream when it was
+   *     written, or another file with the same content. May only be null if
+   *     it was null when the stream was written.
+   */
+  public BinaryNodeReader(InputStream is, @Nullable StaticSourceFile sourceFile)
+      throws IOException {
+    this.in = new SourceFileResolvingInputStream(is, sourceFile);
+    if (sourceFile == null) {
+      this.sourceFileTemplate = null;
+    } else {
+      this.sourceFileTemplate = new Node(Token.SCRIPT);
+      sourceFileTemplate.setStaticSourceFile(sourceFile);
+    }
+    if (in.readInt() != BinaryNodeWriter.MAGIC) {
+      throw new IOException("Not a binary node stream");
+    }
+    int version = readUnsigned();
+    if (version != BinaryNodeWriter.VERSION) {
+      throw new IOException("Unsupported binary node stream version " + version);
+    }
+  }
+
+  /** Reads a tree written by {@link BinaryNodeWriter#writeNode}. */
+  public Node readNode() throws IOException {
+    int ordinal = in.readUnsignedByte();
+    if (ordinal >= TOKENS.length) {
+      throw new IOException("Unknown token " + ordinal);
+    }
+    Token token = TOKENS[ordinal];
+    int flags = in.readUnsignedByte();
+
+    Node n;
+    switch (flags & KIND_MASK) {
+      case KIND_PLAIN:
+        n = new Node(token);
+        break;
+      case KIND_STRING:
+        n = Node.newString(token, readString());
+        break;
+      case KIND_NUMBER:
+        n = Node.newNumber(in.readDouble());
+        break;
+      case KIND_INT_NUMBER:
+        n = Node.newNumber(readInt());
+        break;
+      case KIND_TYPE_DECLARATION:
+        n = new TypeDeclarationNode(token);
+        break;
+      case KIND_TYPE_DECLARATION_WITH_STRING:
+        n = new TypeDeclarationNode(token, readString());
+        break;
+      default:
+        throw new IOException("Unknown node kind " + (flags & KIND_MASK));
+    }
+
+    previousPosition += readInt();
+    n.setSourceEncodedPosition(previousPosition);
+    n.setLength(readUnsigned());
+
+    if ((flags & FLAG_IN_SOURCE_FILE) != 0) {
+      if (sourceFileTemplate == null) {
+        throw new IOException("Stream was written for a source file");
+      }
+      n.clonePropsFrom(sourceFileTemplate);
+    }
+
+    if ((flags & FLAG_HAS_PROPS) != 0) {
+      int propCount = readUnsigned();
+      for (int i = 0; i < propCount; i++) {
+        readProp(n);
+      }
+    }
+
+    if ((flags & FLAG_HAS_CHILDREN) != 0) {
+      int childCount = readUnsigned();
+      for (int i = 0; i < childCount; i++) {
+        n.addChildToBack(readNode());
+      }
+    }
+    return n;
+  }
+
+  private void readProp(Node n) throws IOException {
+    int propType = readUnsigned();
+    int valueKind = in.readUnsignedByte();
+    switch (valueKind) {
+      case PROP_INT:
+        n.putIntProp(propType, readInt());
+        break;
+      case PROP_STRING:
+        n.putProp(propType, readString());
+        break;
+      case PROP_NODE:
+        n.putProp(propType, readNode());
+        break;
+      case PROP_OBJECT:
+        n.putProp(propType, readObject());
+        break;
+      default:
+        throw new IOException("Unknown property kind " + valueKind);
+    }
+  }
+
+  /** Reads a string written by {@link BinaryNodeWriter#writeString}. */
+  @Nullable
+  public String readString() throws IOException {
+    int index = readUnsigned() - 1;
+    if (index < 0) {
+      return null;
+    } else if (index < strings.size()) {
+      return strings.get(index);
+    } else if (index > strings.size()) {
+      throw new IOException("Bad string reference " + index);
+    }
+    int length = readUnsigned();
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = (char) readUnsigned();
+    }
+    String s = new String(chars);
+    strings.add(s);
+    return s;
+  }
+
+  /** Reads an int written by {@link BinaryNodeWriter#writeInt}. */
+  public int readInt() throws IOException {
+    int value = readUnsigned();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /** Reads an object written by {@link BinaryNodeWriter#writeObject}. */
+  @Nullable
+  public Object readObject() throws IOException {
+    int index = readUnsigned() - 1;
+    if (index < 0) {
+      return null;
+    } else if (index < objects.size()) {
+      return objects.get(index);
+    } else if (index > objects.size()) {
+      throw new IOException("Bad object reference " + index);
+    }
+    Object value;
+    try {
+      value = in.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IOException(e);
+    }
+    objects.add(value);
+    return value;
+  }
+
+  private int readUnsigned() throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed int");
+  }
+
+  private static final class SourceFileResolvingInputStream extends ObjectInputStream {
+    @Nullable private final StaticSourceFile sourceFile;
+
+    SourceFileResolvingInputStream(InputStream in, @Nullable StaticSourceFile sourceFile)
+        throws IOException {
+      super(in);
+      this.sourceFile = sourceFile;
+      enableResolveObject(sourceFile != null);
+    }
+
+    @Override
+    protected Object resolveObject(Object obj) {
+      return obj == SourceFilePlaceholder.INSTANCE ? sourceFile : obj;
+    }
+  }
+}
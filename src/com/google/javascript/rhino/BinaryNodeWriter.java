@@ -0,0 +1,269 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.rhino;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.javascript.rhino.Node.TypeDeclarationNode;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Writes {@link Node} trees in a compact binary format, to be read back with
+ * {@link BinaryNodeReader}. This is much smaller and faster than Java
+ * serialization of the nodes, which writes every node and property list item
+ * as a separate object.
+ *
+ * <p>Nodes are written in pre-order. Each node is a token, a kind and flags
+ * byte, its string or number, its source position as the difference to the
+ * position of the previous node, its length, its properties, and its
+ * children. Strings go through a string table, so each distinct string is
+ * written once. Property values that are neither ints, strings nor nodes,
+ * such as {@link JSDocInfo}, are interned by identity and written once with
+ * Java serialization.
+ *
+ * <p>The nodes of the given source file share a single property list for
+ * the file when they are read back, like the nodes created by the parser.
+ * References to the file from property values are written as a placeholder
+ * too, so a stream can be read back for another file with the same content.
+ * Types are not written.
+ */
+@GwtIncompatible("java.io")
+public final class BinaryNodeWriter {
+
+  static final int MAGIC = 0x4a534e42; // "JSNB"
+  // Change this whenever the format changes.
+  static final int VERSION = 1;
+
+  // The kinds of nodes, in the low bits of the flags byte.
+  static final int KIND_PLAIN = 0;
+  static final int KIND_STRING = 1;
+  static final int KIND_NUMBER = 2;
+  static final int KIND_INT_NUMBER = 3;
+  static final int KIND_TYPE_DECLARATION = 4;
+  static final int KIND_TYPE_DECLARATION_WITH_STRING = 5;
+  static final int KIND_MASK = 7;
+
+  static final int FLAG_IN_SOURCE_FILE = 1 << 3;
+  static final int FLAG_HAS_PROPS = 1 << 4;
+  static final int FLAG_HAS_CHILDREN = 1 << 5;
+
+  // The kinds of property values.
+  static final int PROP_INT = 0;
+  static final int PROP_STRING = 1;
+  static final int PROP_NODE = 2;
+  static final int PROP_OBJECT = 3;
+
+  /** Stands in for the source file in Java serialized property values. */
+  enum SourceFilePlaceholder {
+    INSTANCE
+  }
+
+  private final ObjectOutputStream out;
+  @Nullable private final StaticSourceFile sourceFile;
+  private final Map<String, Integer> strings = new HashMap<>();
+  private final Map<Object, Integer> objects = new IdentityHashMap<>();
+  private int previousPosition = -1;
+
+  /**
+   * @param os The stream to write to.
+   * @param sourceFile The source file whose nodes share their source file
+   *     property, or null if there is none.
+   */
+  public BinaryNodeWriter(OutputStream os, @Nullable StaticSourceFile sourceFile)
+      throws IOException {
+    this.out = new SourceFileReplacingOutputStream(os, sourceFile);
+    this.sourceFile = sourceFile;
+    out.writeInt(MAGIC);
+    writeUnsigned(VERSION);
+  }
+
+  /** Writes the tree rooted at {@code n}. */
+  public void writeNode(Node n) throws IOException {
+    out.writeByte(n.getToken().ordinal());
+
+    int kind;
+    if (n instanceof TypeDeclarationNode) {
+      kind = n.getString() == null ? KIND_TYPE_DECLARATION : KIND_TYPE_DECLARATION_WITH_STRING;
+    } else if (n.isNumberNode()) {
+      kind = isSmallInt(n.getDouble()) ? KIND_INT_NUMBER : KIND_NUMBER;
+    } else if (n.isStringNode()) {
+      kind = KIND_STRING;
+    } else {
+      kind = KIND_PLAIN;
+    }
+
+    int[] propTypes = n.getSortedPropTypes();
+    int propCount = propTypes.length;
+    boolean inSourceFile = sourceFile != null && n.getStaticSourceFile() == sourceFile;
+    if (inSourceFile) {
+      propCount--;
+    }
+
+    int flags = kind;
+    if (inSourceFile) {
+      flags |= FLAG_IN_SOURCE_FILE;
+    }
+    if (propCount > 0) {
+      flags |= FLAG_HAS_PROPS;
+    }
+    if (n.hasChildren()) {
+      flags |= FLAG_HAS_CHILDREN;
+    }
+    out.writeByte(flags);
+
+    switch (kind) {
+      case KIND_STRING:
+      case KIND_TYPE_DECLARATION_WITH_STRING:
+        writeString(n.getString());
+        break;
+      case KIND_NUMBER:
+        out.writeDouble(n.getDouble());
+        break;
+      case KIND_INT_NUMBER:
+        writeInt((int) n.getDouble());
+        break;
+      default:
+        break;
+    }
+
+    writeInt(n.getSourcePosition() - previousPosition);
+    previousPosition = n.getSourcePosition();
+    writeUnsigned(n.getLength());
+
+    if (propCount > 0) {
+      writeUnsigned(propCount);
+      for (int propType : propTypes) {
+        if (inSourceFile && propType == Node.STATIC_SOURCE_FILE) {
+          continue;
+        }
+        writeUnsigned(propType);
+        writeProp(n, propType);
+      }
+    }
+
+    if (n.hasChildren()) {
+      writeUnsigned(n.getChildCount());
+      for (Node child = n.getFirstChild(); child != null; child = child.getNext()) {
+        writeNode(child);
+      }
+    }
+  }
+
+  private void writeProp(Node n, int propType) throws IOException {
+    if (n.hasIntProp(propType)) {
+      out.writeByte(PROP_INT);
+      writeInt(n.getIntProp(propType));
+      return;
+    }
+    Object value = n.getProp(propType);
+    if (value instanceof String) {
+      out.writeByte(PROP_STRING);
+      writeString((String) value);
+    } else if (value instanceof Node) {
+      out.writeByte(PROP_NODE);
+      writeNode((Node) value);
+    } else {
+      out.writeByte(PROP_OBJECT);
+      writeObject(value);
+    }
+  }
+
+  /** Writes a string, which may be null, through the string table. */
+  public void writeString(@Nullable String s) throws IOException {
+    if (s == null) {
+      writeUnsigned(0);
+      return;
+    }
+    Integer index = strings.get(s);
+    if (index != null) {
+      writeUnsigned(index + 1);
+      return;
+    }
+    index = strings.size();
+    strings.put(s, index);
+    writeUnsigned(index + 1);
+    // Chars rather than UTF-8, as JavaScript strings may hold unpaired
+    // surrogates.
+    writeUnsigned(s.length());
+    for (int i = 0; i < s.length(); i++) {
+      writeUnsigned(s.charAt(i));
+    }
+  }
+
+  /** Writes an int, in fewer bytes the closer it is to zero. */
+  public void writeInt(int value) throws IOException {
+    writeUnsigned((value << 1) ^ (value >> 31));
+  }
+
+  /**
+   * Writes an object, which may be null, with Java serialization. An object
+   * that was written before is only written as a reference.
+   */
+  public void writeObject(@Nullable Object value) throws IOException {
+    if (value == null) {
+      writeUnsigned(0);
+      return;
+    }
+    Integer index = objects.get(value);
+    if (index != null) {
+      writeUnsigned(index + 1);
+      return;
+    }
+    index = objects.size();
+    objects.put(value, index);
+    writeUnsigned(index + 1);
+    out.writeObject(value);
+  }
+
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  private void writeUnsigned(int value) throws IOException {
+    while ((value & ~0x7f) != 0) {
+      out.writeByte((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static boolean isSmallInt(double d) {
+    // Excludes -0.0, which would be read back as 0.0.
+    return d == (int) d && (d != 0 || 1 / d > 0);
+  }
+
+  private static final class SourceFileReplacingOutputStream extends ObjectOutputStream {
+    @Nullable private final StaticSourceFile sourceFile;
+
+    SourceFileReplacingOutputStream(OutputStream out, @Nullable StaticSourceFile sourceFile)
+        throws IOException {
+      super(out);
+      this.sourceFile = sourceFile;
+      enableReplaceObject(sourceFile != null);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      return obj == sourceFile ? SourceFilePlaceholder.INSTANCE : obj;
+    }
+  }
+}
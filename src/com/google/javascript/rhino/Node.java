@@ -1001,6 +1001,11 @@ public class Node implements Serializable {
     return item.getIntValue();
   }
 
+  /** Whether the property is set and holds an int rather than an object. */
+  boolean hasIntProp(int propType) {
+    return lookupProperty(propType) instanceof IntPropListItem;
+  }
+
   public int getExistingIntProp(int propType) {
     PropListItem item = lookupProperty(propType);
     if (item == null) {
@@ -1067,7 +1072,7 @@ public class Node implements Serializable {
   }
 
   // Gets all the property types, in sorted order.
-  private int[] getSortedPropTypes() {
+  int[] getSortedPropTypes() {
     int count = 0;
     for (PropListItem x = propListHead; x != null; x = x.getNext()) {
       count++;
@@ -1083,6 +1088,16 @@ public class Node implements Serializable {
     return keys;
   }
 
+  /** Whether this node was created with {@link #newString}. */
+  boolean isStringNode() {
+    return this instanceof StringNode;
+  }
+
+  /** Whether this node was created with {@link #newNumber}. */
+  boolean isNumberNode() {
+    return this instanceof NumberNode;
+  }
+
   /** Can only be called when <tt>getType() == TokenStream.NUMBER</tt> */
   public double getDouble() {
     if (this.token == Token.NUMBER) {
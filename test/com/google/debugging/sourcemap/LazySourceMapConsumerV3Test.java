@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.debugging.sourcemap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.debugging.sourcemap.SourceMapConsumerV3.EntryVisitor;
+import com.google.javascript.jscomp.Compiler;
+import com.google.javascript.jscomp.CompilerOptions;
+import com.google.javascript.jscomp.Result;
+import com.google.javascript.jscomp.SourceFile;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link LazySourceMapConsumerV3}. */
+public final class LazySourceMapConsumerV3Test extends TestCase {
+
+  public void testMatchesEagerConsumer() throws Exception {
+    String sourceMap = compile(
+        SourceFile.fromCode("a.js", "function f(a, b) {\n  return a + b;\n}\nvar x = f(1, 2);"),
+        SourceFile.fromCode("b.js", "/** @constructor */ function C() {}\n\n\nalert(new C, x);"));
+    SourceMapConsumerV3 eager = new SourceMapConsumerV3();
+    eager.parse(sourceMap);
+    LazySourceMapConsumerV3 lazy = new LazySourceMapConsumerV3();
+    lazy.parse(sourceMap);
+
+    // Start looking up the last lines, so that the earlier lines are only
+    // found and not decoded.
+    for (int line = 12; line >= 0; line--) {
+      for (int column = 1; column < 30; column++) {
+        assertEquals("line " + line + ", column " + column,
+            eager.getMappingForLine(line, column), lazy.getMappingForLine(line, column));
+      }
+    }
+
+    for (String source : ImmutableList.of("a.js", "b.js", "c.js")) {
+      for (int line = 0; line < 6; line++) {
+        assertEquals(ImmutableList.copyOf(eager.getReverseMapping(source, line, 1)),
+            ImmutableList.copyOf(lazy.getReverseMapping(source, line, 1)));
+      }
+    }
+
+    assertEquals(visit(eager), visit(lazy));
+    assertEquals(eager.getOriginalSources(), lazy.getOriginalSources());
+  }
+
+  public void testEmptyAndUnterminatedLines() throws Exception {
+    String sourceMap = "{\n"
+        + "\"version\":3,\n"
+        + "\"file\":\"testcode\",\n"
+        + "\"mappings\":\"AAAAA,QAASA;;;UAAS,EAAG;C,AAAA\",\n"
+        + "\"sources\":[\"testcode\"],\n"
+        + "\"names\":[\"__BASIC__\"]\n"
+        + "}\n";
+    SourceMapConsumerV3 eager = new SourceMapConsumerV3();
+    eager.parse(sourceMap);
+    LazySourceMapConsumerV3 lazy = new LazySourceMapConsumerV3();
+    lazy.parse(sourceMap);
+
+    for (int line = 1; line <= 7; line++) {
+      for (int column = 1; column < 20; column++) {
+        assertEquals("line " + line + ", column " + column,
+            eager.getMappingForLine(line, column), lazy.getMappingForLine(line, column));
+      }
+    }
+    assertNull(lazy.getMappingForLine(6, 1));
+    assertEquals(visit(eager), visit(lazy));
+  }
+
+  public void testMalformedLinesAreReportedWhenDecoded() throws Exception {
+    String sourceMap = "{\n"
+        + "\"version\":3,\n"
+        + "\"file\":\"testcode\",\n"
+        + "\"mappings\":\"AAAA;AA\",\n"
+        + "\"sources\":[\"testcode\"],\n"
+        + "\"names\":[]\n"
+        + "}\n";
+    LazySourceMapConsumerV3 lazy = new LazySourceMapConsumerV3();
+    lazy.parse(sourceMap);
+
+    assertEquals(1, lazy.getMappingForLine(1, 1).getLineNumber());
+    try {
+      lazy.getMappingForLine(2, 1);
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage()).contains("Unexpected number of values");
+    }
+    try {
+      lazy.getMappingForLine(2, 1);
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage()).contains("Unexpected number of values");
+    }
+  }
+
+  public void testIndexMap() throws Exception {
+    String sourceMap = ""
+        + "{"
+        + "  \"version\": 3,"
+        + "  \"file\": \"testcode.js\","
+        + "  \"sections\": ["
+        + "    {"
+        + "      \"map\": {"
+        + "         \"version\": 3,"
+        + "         \"mappings\": \"AAAAA,QAASA,UAAS,EAAG;\","
+        + "         \"sources\": [\"testcode.js\"],"
+        + "         \"names\": [\"foo\"]"
+        + "      },"
+        + "      \"offset\": {"
+        + "        \"line\": 1,"
+        + "        \"column\": 1"
+        + "      }"
+        + "    }"
+        + "  ]"
+        + "}";
+    SourceMapConsumerV3 eager = new SourceMapConsumerV3();
+    eager.parse(sourceMap);
+    LazySourceMapConsumerV3 lazy = new LazySourceMapConsumerV3();
+    lazy.parse(sourceMap);
+
+    assertEquals(visit(eager), visit(lazy));
+    assertThat(lazy.getOriginalSources()).containsExactly("testcode.js");
+  }
+
+  private static String compile(SourceFile... inputs) throws Exception {
+    CompilerOptions options = new CompilerOptions();
+    options.setSourceMapOutputPath("testcode_source_map.out");
+    options.setPrettyPrint(true);
+    Compiler compiler = new Compiler();
+    Result result = compiler.compile(
+        ImmutableList.<SourceFile>of(), ImmutableList.copyOf(inputs), options);
+    assertTrue(result.success);
+    compiler.toSource();
+    StringBuilder sb = new StringBuilder();
+    result.sourceMap.appendTo(sb, "testcode");
+    return sb.toString();
+  }
+
+  private static List<String> visit(SourceMapConsumerV3 consumer) {
+    Visitor visitor = new Visitor();
+    consumer.visitMappings(visitor);
+    return visitor.visits;
+  }
+
+  private static List<String> visit(LazySourceMapConsumerV3 consumer) {
+    Visitor visitor = new Visitor();
+    consumer.visitMappings(visitor);
+    return visitor.visits;
+  }
+
+  private static final class Visitor implements EntryVisitor {
+    final List<String> visits = new ArrayList<>();
+
+    @Override
+    public void visit(String sourceName, String symbolName, FilePosition sourceStartPosition,
+        FilePosition startPosition, FilePosition endPosition) {
+      visits.add(sourceName + ":" + symbolName + ":" + format(sourceStartPosition) + ":"
+          + format(startPosition) + "-" + format(endPosition));
+    }
+
+    private static String format(FilePosition position) {
+      return position.getLine() + "," + position.getColumn();
+    }
+  }
+}
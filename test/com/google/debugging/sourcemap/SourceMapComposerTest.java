@@ -0,0 +1,261 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.debugging.sourcemap;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.javascript.jscomp.Compiler;
+import com.google.javascript.jscomp.CompilerOptions;
+import com.google.javascript.jscomp.SourceFile;
+import com.google.javascript.jscomp.SourceMapInput;
+import java.io.File;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+/** Tests for {@link SourceMapComposer}. */
+public final class SourceMapComposerTest extends TestCase {
+
+  private File dir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    dir = Files.createTempDir();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    for (File f : dir.listFiles()) {
+      f.delete();
+    }
+    dir.delete();
+    super.tearDown();
+  }
+
+  public void testMatchesApplyingInputSourceMaps() throws Exception {
+    String inputMap = createInputMap();
+    File inputMapFile = write("input.js.map", inputMap);
+    SourceFile input = SourceFile.fromCode("input.js",
+        "var x = 1;\nfunction f(a) {\n  return a + x;\n}\nalert(f(2));\nvar y = f(x);");
+
+    // The compiler applies the input map while it generates the map.
+    CompilerOptions options = createOptions();
+    options.setInputSourceMaps(ImmutableMap.of("input.js",
+        new SourceMapInput(SourceFile.fromCode(inputMapFile.getPath(), inputMap))));
+    options.setApplyInputSourceMaps(true);
+    String appliedMap = compile(input, options);
+
+    File outputMapFile = write("output.js.map", compile(input, createOptions()));
+    SourceMapComposer composer = new SourceMapComposer();
+    composer.addInputMap("input.js", inputMapFile);
+    StringBuilder composedMap = new StringBuilder();
+    composer.compose(outputMapFile, composedMap, "output.js");
+
+    SourceMapConsumerV3 applied = new SourceMapConsumerV3();
+    applied.parse(appliedMap);
+    SourceMapConsumerV3 composed = new SourceMapConsumerV3();
+    composed.parse(composedMap.toString());
+    int mapped = 0;
+    for (int line = 1; line <= 8; line++) {
+      for (int column = 1; column < 30; column++) {
+        OriginalMapping expected = applied.getMappingForLine(line, column);
+        OriginalMapping actual = composed.getMappingForLine(line, column);
+        String position = "line " + line + ", column " + column;
+        if (expected == null) {
+          assertNull(position, actual);
+          continue;
+        }
+        mapped++;
+        assertEquals(position, expected.getOriginalFile(), actual.getOriginalFile());
+        assertEquals(position, expected.getLineNumber(), actual.getLineNumber());
+        assertEquals(position, expected.getColumnPosition(), actual.getColumnPosition());
+      }
+    }
+    assertThat(mapped).isGreaterThan(0);
+    assertThat(composed.getOriginalSources())
+        .containsExactly(new File(dir, "input.ts").getPath().replace(File.separator, "/"));
+  }
+
+  public void testKeepsSegmentsWithoutInputMappings() throws Exception {
+    SourceMapGeneratorV3 output = new SourceMapGeneratorV3();
+    output.addMapping("a.js", "foo", new FilePosition(0, 4),
+        new FilePosition(0, 0), new FilePosition(0, 3));
+    output.addMapping("b.js", "bar", new FilePosition(6, 2),
+        new FilePosition(0, 3), new FilePosition(0, 8));
+    output.addMapping("a.js", null, new FilePosition(9, 0),
+        new FilePosition(1, 0), new FilePosition(1, 5));
+    File outputMapFile = write("output.js.map", appendTo(output, "output.js"));
+
+    // Only maps line 0 of a.js, with a name.
+    SourceMapGeneratorV3 input = new SourceMapGeneratorV3();
+    input.addMapping("a.ts", "original", new FilePosition(2, 1),
+        new FilePosition(0, 0), new FilePosition(0, 20));
+    File inputMapFile = write("a.js.map", appendTo(input, "a.js"));
+
+    SourceMapComposer composer = new SourceMapComposer();
+    composer.addInputMap("a.js", inputMapFile);
+    StringBuilder composedMap = new StringBuilder();
+    composer.compose(outputMapFile, composedMap, "output.js");
+
+    LazySourceMapConsumerV3 composed = new LazySourceMapConsumerV3();
+    composed.parse(composedMap.toString());
+    OriginalMapping first = composed.getMappingForLine(1, 1);
+    assertThat(first.getOriginalFile()).endsWith("/a.ts");
+    assertEquals(3, first.getLineNumber());
+    assertEquals(2, first.getColumnPosition());
+    assertEquals("original", first.getIdentifier());
+
+    OriginalMapping second = composed.getMappingForLine(1, 4);
+    assertEquals("b.js", second.getOriginalFile());
+    assertEquals(7, second.getLineNumber());
+    assertEquals("bar", second.getIdentifier());
+
+    // Line 9 of a.js is not in the input map.
+    OriginalMapping third = composed.getMappingForLine(2, 1);
+    assertEquals("a.js", third.getOriginalFile());
+    assertEquals(10, third.getLineNumber());
+  }
+
+  public void testKeepsSourcesContent() throws Exception {
+    SourceMapGeneratorV3 output = new SourceMapGeneratorV3();
+    output.addMapping("a.js", null, new FilePosition(0, 4),
+        new FilePosition(0, 0), new FilePosition(0, 3));
+    output.addMapping("b.js", null, new FilePosition(6, 2),
+        new FilePosition(0, 3), new FilePosition(0, 8));
+    output.addSourcesContent("a.js", "generated a");
+    output.addSourcesContent("b.js", "original b");
+
+    SourceMapGeneratorV3 input = new SourceMapGeneratorV3();
+    input.addMapping("a.ts", null, new FilePosition(2, 1),
+        new FilePosition(0, 0), new FilePosition(0, 20));
+    input.addSourcesContent("a.ts", "original a");
+    File inputMapFile = write("a.js.map", appendTo(input, "a.js"));
+
+    SourceMapComposer composer = new SourceMapComposer();
+    composer.addInputMap("a.js", inputMapFile);
+    StringBuilder composedMap = new StringBuilder();
+    composer.compose(appendTo(output, "output.js"), composedMap, "output.js");
+
+    JsonObject composed = new Gson().fromJson(composedMap.toString(), JsonObject.class);
+    JsonArray sources = composed.getAsJsonArray("sources");
+    JsonArray sourcesContent = composed.getAsJsonArray("sourcesContent");
+    assertEquals(2, sources.size());
+    assertThat(sources.get(0).getAsString()).endsWith("/a.ts");
+    assertEquals("original a", sourcesContent.get(0).getAsString());
+    assertEquals("b.js", sources.get(1).getAsString());
+    assertEquals("original b", sourcesContent.get(1).getAsString());
+  }
+
+  public void testOmitsMissingSourcesContent() throws Exception {
+    SourceMapGeneratorV3 output = new SourceMapGeneratorV3();
+    output.addMapping("a.js", null, new FilePosition(0, 4),
+        new FilePosition(0, 0), new FilePosition(0, 3));
+    output.addMapping("b.js", null, new FilePosition(6, 2),
+        new FilePosition(0, 3), new FilePosition(0, 8));
+    output.addSourcesContent("b.js", "original b");
+
+    // The input map has no sources content.
+    SourceMapGeneratorV3 input = new SourceMapGeneratorV3();
+    input.addMapping("a.ts", null, new FilePosition(2, 1),
+        new FilePosition(0, 0), new FilePosition(0, 20));
+    File inputMapFile = write("a.js.map", appendTo(input, "a.js"));
+
+    SourceMapComposer composer = new SourceMapComposer();
+    composer.addInputMap("a.js", inputMapFile);
+    StringBuilder composedMap = new StringBuilder();
+    composer.compose(appendTo(output, "output.js"), composedMap, "output.js");
+    JsonObject composed = new Gson().fromJson(composedMap.toString(), JsonObject.class);
+    JsonArray sourcesContent = composed.getAsJsonArray("sourcesContent");
+    assertTrue(sourcesContent.get(0).isJsonNull());
+    assertEquals("original b", sourcesContent.get(1).getAsString());
+
+    output.reset();
+    output.addMapping("a.js", null, new FilePosition(0, 4),
+        new FilePosition(0, 0), new FilePosition(0, 3));
+    composedMap = new StringBuilder();
+    composer.compose(appendTo(output, "output.js"), composedMap, "output.js");
+    assertThat(composedMap.toString()).doesNotContain("sourcesContent");
+  }
+
+  public void testReadMappedSkipsSourcesContent() throws Exception {
+    SourceMapGeneratorV3 generator = new SourceMapGeneratorV3();
+    generator.addMapping("a.js", null, new FilePosition(3, 1),
+        new FilePosition(0, 0), new FilePosition(0, 5));
+    // Content that looks like the fields of the map.
+    generator.addSourcesContent("a.js", "x = {\"mappings\": \"QAAA\", \"sources\": [\"b.js\"]};");
+    String map = appendTo(generator, "out.js");
+    assertThat(map).contains("sourcesContent");
+
+    LazySourceMapConsumerV3 mapped = SourceMapComposer.readMapped(write("out.js.map", map));
+    assertThat(mapped.getOriginalSources()).containsExactly("a.js");
+    OriginalMapping mapping = mapped.getMappingForLine(1, 1);
+    assertEquals(4, mapping.getLineNumber());
+    assertEquals(2, mapping.getColumnPosition());
+  }
+
+  /**
+   * Creates a map of each line of input.js to a line of input.ts, with
+   * columns shifted by two.
+   */
+  private static String createInputMap() throws IOException {
+    SourceMapGeneratorV3 generator = new SourceMapGeneratorV3();
+    for (int line = 0; line < 6; line++) {
+      for (int column = 0; column < 20; column += 4) {
+        generator.addMapping("input.ts", null, new FilePosition(line * 3 + 1, column + 2),
+            new FilePosition(line, column), new FilePosition(line, column + 4));
+      }
+    }
+    return appendTo(generator, "input.js");
+  }
+
+  private static CompilerOptions createOptions() {
+    CompilerOptions options = new CompilerOptions();
+    options.setSourceMapOutputPath("output.js.map");
+    options.setPrettyPrint(true);
+    return options;
+  }
+
+  private static String compile(SourceFile input, CompilerOptions options) throws IOException {
+    Compiler compiler = new Compiler();
+    compiler.compile(ImmutableList.<SourceFile>of(), ImmutableList.of(input), options);
+    compiler.toSource();
+    StringBuilder map = new StringBuilder();
+    compiler.getSourceMap().appendTo(map, "output.js");
+    return map.toString();
+  }
+
+  private static String appendTo(SourceMapGeneratorV3 generator, String name)
+      throws IOException {
+    StringBuilder sb = new StringBuilder();
+    generator.appendTo(sb, name);
+    return sb.toString();
+  }
+
+  private File write(String name, String content) throws IOException {
+    File file = new File(dir, name);
+    Files.write(content, file, UTF_8);
+    return file;
+  }
+}
@@ -19,6 +19,7 @@ package com.google.debugging.sourcemap;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.debugging.sourcemap.SourceMapGeneratorV3.ExtensionMergeAction;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
@@ -33,6 +34,7 @@ import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * @author johnlenz@google.com (John Lenz)
@@ -462,6 +464,81 @@ public final class SourceMapGeneratorV3Test extends SourceMapTestCase {
             + "}\n");
   }
 
+  public void testWriteMetaMapWithGenerators() throws IOException {
+    SourceMapGeneratorV3 part1 = createGeneratorWithMappings(5);
+    SourceMapGeneratorV3 part2 = createGeneratorWithMappings(3);
+    StringBuilder part1Map = new StringBuilder();
+    part1.appendTo(part1Map, "./app.js");
+    StringBuilder part2Map = new StringBuilder();
+    part2.appendTo(part2Map, "./app.js");
+
+    StringBuilder fromStrings = new StringBuilder();
+    new SourceMapGeneratorV3().appendIndexMapTo(fromStrings, "./app.js", ImmutableList.of(
+        SourceMapSection.forMap(part1Map.toString(), 0, 0),
+        SourceMapSection.forMap(part2Map.toString(), 5, 0)));
+    StringBuilder fromGenerators = new StringBuilder();
+    new SourceMapGeneratorV3().appendIndexMapTo(fromGenerators, "./app.js", ImmutableList.of(
+        SourceMapSection.forGenerator(part1, 0, 0),
+        SourceMapSection.forGenerator(part2, 5, 0)));
+
+    assertThat(fromGenerators.toString()).isEqualTo(fromStrings.toString());
+  }
+
+  public void testChunkedEncodingMatchesSerialEncoding() throws IOException {
+    StringBuilder serial = new StringBuilder();
+    createGeneratorWithMappings(20).appendTo(serial, "out.js");
+
+    // Run the chunks in reverse, to check that they don't depend on each other.
+    final List<Integer> chunkCounts = new ArrayList<>();
+    SourceMapGeneratorV3.TaskRunner runner = new SourceMapGeneratorV3.TaskRunner() {
+      @Override
+      public <T> List<T> runAll(List<? extends Callable<T>> tasks) {
+        chunkCounts.add(tasks.size());
+        List<T> results = new ArrayList<>();
+        for (Callable<T> task : Lists.reverse(tasks)) {
+          try {
+            results.add(0, task.call());
+          } catch (Exception e) {
+            throw new AssertionError(e);
+          }
+        }
+        return results;
+      }
+    };
+    for (int linesPerChunk : new int[] {1, 3, 7, 100}) {
+      SourceMapGeneratorV3 generator = createGeneratorWithMappings(20);
+      generator.setEncodingRunner(runner, linesPerChunk);
+      StringBuilder chunked = new StringBuilder();
+      generator.appendTo(chunked, "out.js");
+      assertThat(chunked.toString()).isEqualTo(serial.toString());
+    }
+    // 100 lines per chunk is one chunk, which is encoded without the runner.
+    assertThat(chunkCounts).containsExactly(20, 7, 3).inOrder();
+  }
+
+  /**
+   * Creates a generator with mappings on the given number of lines. The
+   * lines alternate between source files, some mappings have names and some
+   * lines have no mappings.
+   */
+  private static SourceMapGeneratorV3 createGeneratorWithMappings(int lineCount) {
+    SourceMapGeneratorV3 generator = new SourceMapGeneratorV3();
+    for (int line = 0; line < lineCount; line++) {
+      if (line % 4 == 2) {
+        continue;
+      }
+      for (int i = 0; i < 3; i++) {
+        generator.addMapping(
+            "file" + (line % 3) + ".js",
+            i == 1 ? "name" + (line % 5) : null,
+            new FilePosition(line * 2 + 1, i * 3),
+            new FilePosition(line, i * 10),
+            new FilePosition(line, i * 10 + 5));
+      }
+    }
+    return generator;
+  }
+
   public void testParseSourceMetaMap() throws Exception {
     final String INPUT1 = "file1";
     final String INPUT2 = "file2";
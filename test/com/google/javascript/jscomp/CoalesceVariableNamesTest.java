@@ -433,12 +433,23 @@ public final class CoalesceVariableNamesTest extends CompilerTestCase {
   }
 
   public void testMaxVars() {
-    String code = "";
-    for (int i = 0;
-         i < LiveVariablesAnalysis.MAX_VARIABLES_TO_ANALYZE + 1; i++) {
-      code += String.format("var x%d = 0; print(x%d);", i, i);
+    StringBuilder code = new StringBuilder();
+    for (int i = 0; i < CoalesceVariableNames.MAX_VARIABLES_TO_COALESCE + 1; i++) {
+      code.append(String.format("var x%d = 0; print(x%d);", i, i));
     }
-    inFunction(code);
+    inFunction(code.toString());
+  }
+
+  public void testManyVars() {
+    StringBuilder code = new StringBuilder();
+    StringBuilder expected = new StringBuilder("var x0 = 0; print(x0);");
+    for (int i = 0; i < LiveVariablesAnalysis.MAX_VARIABLES_TO_ANALYZE * 2; i++) {
+      code.append(String.format("var x%d = 0; print(x%d);", i, i));
+      if (i > 0) {
+        expected.append("x0 = 0; print(x0);");
+      }
+    }
+    inFunction(code.toString(), expected.toString());
   }
 
   private void inFunction(String src) {
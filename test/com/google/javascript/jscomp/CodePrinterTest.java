@@ -22,6 +22,7 @@ import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -2556,4 +2557,78 @@ public final class CodePrinterTest extends CodePrinterTestBase {
             .setLineBreak(true)
             .build());
   }
+
+  public void testWriteToMatchesBuild() throws IOException {
+    // Enough code to be written out in several chunks, with functions to give
+    // the compact printer preferred line breaks.
+    StringBuilder js = new StringBuilder();
+    for (int i = 0; i < 3000; i++) {
+      js.append("function f").append(i).append("(a) { return a + 'some string'; }\n");
+      js.append("var x").append(i).append(" = f").append(i).append("(").append(i).append(");\n");
+    }
+    Node root = parse(js.toString());
+
+    for (boolean prettyPrint : new boolean[] {false, true}) {
+      for (boolean lineBreak : new boolean[] {true, false}) {
+        CompilerOptions options = new CompilerOptions();
+        options.setPrettyPrint(prettyPrint);
+        options.setLineBreak(lineBreak);
+        options.setPreferLineBreakAtEndOfFile(true);
+        options.setLineLengthThreshold(100);
+
+        SourceMap builtMap = SourceMap.Format.V3.getInstance();
+        String built = new CodePrinter.Builder(root)
+            .setCompilerOptions(options)
+            .setSourceMap(builtMap)
+            .build();
+
+        SourceMap writtenMap = SourceMap.Format.V3.getInstance();
+        ChunkRecorder written = new ChunkRecorder();
+        new CodePrinter.Builder(root)
+            .setCompilerOptions(options)
+            .setSourceMap(writtenMap)
+            .writeTo(written);
+
+        assertEquals(built, written.code.toString());
+        assertEquals(appendSourceMap(builtMap), appendSourceMap(writtenMap));
+        // The code was written while printing, not only once it was done.
+        assertTrue(written.chunks > 1);
+        assertTrue(written.maxChunkLength < CodePrinter.FLUSH_THRESHOLD + 1000);
+      }
+    }
+  }
+
+  /** Records the code written to it and the chunks it came in. */
+  private static final class ChunkRecorder implements Appendable {
+    final StringBuilder code = new StringBuilder();
+    int chunks;
+    int maxChunkLength;
+
+    @Override
+    public Appendable append(CharSequence csq) {
+      return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+      chunks++;
+      maxChunkLength = Math.max(maxChunkLength, end - start);
+      code.append(csq, start, end);
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+      chunks++;
+      maxChunkLength = Math.max(maxChunkLength, 1);
+      code.append(c);
+      return this;
+    }
+  }
+
+  private static String appendSourceMap(SourceMap sourceMap) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sourceMap.appendTo(sb, "out.js");
+    return sb.toString();
+  }
 }
@@ -31,6 +31,8 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.io.Files;
+import com.google.debugging.sourcemap.SourceMapConsumerV3;
+import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.javascript.jscomp.AbstractCommandLineRunner.FlagEntry;
 import com.google.javascript.jscomp.AbstractCommandLineRunner.FlagUsageException;
 import com.google.javascript.jscomp.AbstractCommandLineRunner.JsSourceType;
@@ -1290,6 +1292,48 @@ public final class CommandLineRunnerTest extends TestCase {
         .isEqualTo("input2.sourcemap");
   }
 
+  public void testComposeInputSourceMaps() throws Exception {
+    FlagEntry<JsSourceType> jsFile =
+        createJsFile("one.out", "function log(a){console.log(a)}log(\"one.js\");");
+    File dir = new File(jsFile.getValue()).getParentFile();
+    File inputMap = new File(dir, "one.out.js.map");
+    Files.write(
+        "{\n"
+            + "\"version\":3,\n"
+            + "\"file\":\"one.out.js\",\n"
+            + "\"lineCount\":1,\n"
+            + "\"mappings\":\"AAAAA,QAASA,IAAG,CAACC,CAAD,CAAI,CACdC,"
+            + "OAAAF,IAAA,CAAYC,CAAZ,CADc,CAGhBD,GAAA,CAAI,QAAJ;\",\n"
+            + "\"sources\":[\"one.js\"],\n"
+            + "\"sourcesContent\":[\"function log(a) { console.log(a); }\"],\n"
+            + "\"names\":[\"log\",\"a\",\"console\"]\n"
+            + "}",
+        inputMap, UTF_8);
+    File outputMap = new File(dir, "bar.js.map");
+    args.add("--js=" + jsFile.getValue());
+    args.add("--js_output_file=" + new File(dir, "bar.js").getPath());
+    args.add("--create_source_map=" + outputMap.getPath());
+    args.add("--source_map_input=" + jsFile.getValue() + "|" + inputMap.getPath());
+    args.add("--compose_input_source_maps");
+
+    CommandLineRunner runner =
+        new CommandLineRunner(
+            args.toArray(new String[] {}), new PrintStream(outReader), new PrintStream(errReader));
+    lastCompiler = runner.getCompiler();
+    assertThat(runner.doRun()).isEqualTo(0);
+    // The input map is not parsed by the compiler.
+    assertThat(lastCompiler.getOptions().inputSourceMaps).isEmpty();
+
+    String composedMap = Files.toString(outputMap, UTF_8);
+    SourceMapConsumerV3 sourceMap = new SourceMapConsumerV3();
+    sourceMap.parse(composedMap);
+    OriginalMapping mapping = sourceMap.getMappingForLine(1, 1);
+    assertThat(mapping.getOriginalFile())
+        .isEqualTo(new File(dir, "one.js").getPath().replace(File.separator, "/"));
+    assertThat(composedMap)
+        .contains("\"sourcesContent\":[\"function log(a) { console.log(a); }\"]");
+  }
+
   public void testModuleWrapperBaseNameExpansion() throws Exception {
     useModules = ModulePattern.CHAIN;
     args.add("--module_wrapper=m0:%s // %basename%");
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.javascript.jscomp.CompilerOptions.JsonStreamMode;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link CommandLineServer}. */
+public final class CommandLineServerTest extends TestCase {
+
+  private final Gson gson = new Gson();
+  private final List<List<String>> requestArgs = new ArrayList<>();
+  private final List<String> requestInputs = new ArrayList<>();
+
+  /** Records the requests and answers them with a fixed output. */
+  private final CommandLineServer.RequestRunner fakeRunner =
+      new CommandLineServer.RequestRunner() {
+        @Override
+        public int run(CommandLineServer server, String[] args, InputStream in,
+            PrintStream out, PrintStream err) {
+          requestArgs.add(Arrays.asList(args));
+          try {
+            requestInputs.add(new String(ByteStreams.toByteArray(in), UTF_8));
+          } catch (IOException e) {
+            throw new AssertionError(e);
+          }
+          out.print("[{\"src\":\"alert(1);\",\"path\":\"out.js\"}]");
+          err.println("a warning");
+          return 3;
+        }
+      };
+
+  public void testRequestWithFiles() {
+    CommandLineServer server = new CommandLineServer(fakeRunner);
+    JsonObject response = handleRequest(server,
+        "{\"args\": [\"--compilation_level=ADVANCED\"],"
+            + " \"files\": [{\"path\": \"a.js\", \"src\": \"alert(1)\"}]}");
+
+    assertThat(requestArgs).containsExactly(
+        Arrays.asList("--compilation_level=ADVANCED", "--json_streams=BOTH"));
+    assertEquals("[{\"src\":\"alert(1)\",\"path\":\"a.js\"}]", requestInputs.get(0));
+
+    assertEquals(3, response.get("exit_code").getAsInt());
+    JsonArray files = response.getAsJsonArray("files");
+    assertEquals(1, files.size());
+    assertEquals("out.js", files.get(0).getAsJsonObject().get("path").getAsString());
+    assertEquals("a warning\n", response.get("errors").getAsString());
+    assertThat(response.get("latency_ms").getAsLong()).isAtLeast(0L);
+  }
+
+  public void testRequestWithoutFiles() {
+    CommandLineServer server = new CommandLineServer(fakeRunner);
+    handleRequest(server, "{\"args\": [\"--js=a.js\"]}");
+    assertThat(requestArgs).containsExactly(Arrays.asList("--js=a.js", "--json_streams=OUT"));
+    assertEquals("", requestInputs.get(0));
+  }
+
+  public void testBadRequest() {
+    CommandLineServer server = new CommandLineServer(fakeRunner);
+    JsonObject response = handleRequest(server, "{\"args\": ");
+
+    assertThat(requestArgs).isEmpty();
+    assertEquals(-1, response.get("exit_code").getAsInt());
+    assertEquals(0, response.getAsJsonArray("files").size());
+    assertThat(response.get("errors").getAsString()).startsWith("Bad request");
+  }
+
+  public void testServeAnswersEachLine() throws IOException {
+    CommandLineServer server = new CommandLineServer(fakeRunner);
+    String requests = "{\"args\": [\"--js=a.js\"]}\n\n{\"args\": [\"--js=b.js\"]}\n";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    server.serve(new ByteArrayInputStream(requests.getBytes(UTF_8)), out);
+
+    String[] responses = new String(out.toByteArray(), UTF_8).split("\n");
+    assertThat(responses).hasLength(2);
+    assertThat(requestArgs).hasSize(2);
+    for (String response : responses) {
+      assertEquals(3, gson.fromJson(response, JsonObject.class).get("exit_code").getAsInt());
+    }
+  }
+
+  public void testCachesAreSharedBetweenRequests() {
+    MemoryParseCache parseCache = new MemoryParseCache();
+    final List<List<SourceFile>> externs = new ArrayList<>();
+    CommandLineServer server = new CommandLineServer(new CommandLineServer.RequestRunner() {
+      @Override
+      public int run(CommandLineServer server, String[] args, InputStream in,
+          PrintStream out, PrintStream err) {
+        TestRunner runner = new TestRunner(in, out, err);
+        server.shareCaches(runner);
+        int exitCode = runner.compile();
+        externs.add(runner.externs);
+        return exitCode;
+      }
+    }, parseCache);
+
+    String request = "{\"files\": [{\"path\": \"a.js\", \"src\": \"var a = 1 + 2; alert(a);\"}]}";
+    JsonObject first = handleRequest(server, request);
+    int missCount = parseCache.getMissCount();
+    JsonObject second = handleRequest(server, request);
+
+    assertEquals(0, first.get("exit_code").getAsInt());
+    assertEquals(first.get("files"), second.get("files"));
+    assertEquals(missCount, parseCache.getMissCount());
+    assertThat(parseCache.getHitCount()).isEqualTo(missCount);
+    assertThat(externs.get(0)).isNotEmpty();
+    assertSame(externs.get(0).get(0), externs.get(1).get(0));
+  }
+
+  private JsonObject handleRequest(CommandLineServer server, String request) {
+    return gson.fromJson(server.handleRequest(request), JsonObject.class);
+  }
+
+  /** A runner that reads the inputs from a JSON stream and uses the shared externs. */
+  private static final class TestRunner
+      extends AbstractCommandLineRunner<Compiler, CompilerOptions> {
+    List<SourceFile> externs;
+
+    TestRunner(InputStream in, PrintStream out, PrintStream err) {
+      super(in, out, err);
+      getCommandLineConfig().setJsonStreamMode(JsonStreamMode.BOTH);
+    }
+
+    int compile() {
+      try {
+        return doRun();
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    @Override
+    protected Compiler createCompiler() {
+      return new Compiler(getErrorPrintStream());
+    }
+
+    @Override
+    protected CompilerOptions createOptions() {
+      CompilerOptions options = new CompilerOptions();
+      CompilationLevel.SIMPLE_OPTIMIZATIONS.setOptionsForCompilationLevel(options);
+      return options;
+    }
+
+    @Override
+    protected List<SourceFile> createExterns(CompilerOptions options) throws IOException {
+      externs = loadBuiltinExterns(options.getEnvironment());
+      return externs;
+    }
+
+    @Override
+    protected void addWhitelistWarningsGuard(CompilerOptions options, File whitelistFile) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.javascript.jscomp.ControlFlowGraph.Branch;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
+import com.google.javascript.rhino.Node;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link CompactControlFlowGraph}. */
+public final class CompactControlFlowGraphTest extends TestCase {
+
+  public void testStraightLine() {
+    ControlFlowGraph<Node> cfg = createCfg("var a = 1; a++; f(a);");
+    CompactControlFlowGraph<Node> compact = cfg.compact();
+
+    assertMatches(cfg, compact);
+    assertEquals(0, compact.getEntry());
+    assertEquals(cfg.getEntry(), compact.getGraphNode(compact.getEntry()));
+  }
+
+  public void testBranches() {
+    assertMatches("if (a) { b(); } else { c(); } d();");
+    assertMatches("while (a) { if (b) break; c(); }");
+    assertMatches("for (var x in y) { if (x) continue; f(x); }");
+    assertMatches("switch (a) { case 1: b(); case 2: break; default: c(); }");
+    assertMatches("try { a(); } catch (e) { b(); } finally { c(); }");
+    assertMatches("function f(x) { do { x--; } while (x); return x; }");
+    assertMatches("a: { if (b) break a; c(); } d();");
+  }
+
+  public void testImplicitReturnIsLast() {
+    ControlFlowGraph<Node> cfg = createCfg("if (a) { b(); } while (c) { d(); }");
+    CompactControlFlowGraph<Node> compact = cfg.compact();
+
+    int implicitReturn = compact.getImplicitReturn();
+    assertEquals(compact.getNodeCount() - 1, implicitReturn);
+    assertNull(compact.getValue(implicitReturn));
+    assertEquals(0, compact.getSuccCount(implicitReturn));
+    assertThat(compact.getPredCount(implicitReturn)).isGreaterThan(0);
+  }
+
+  public void testNodesFollowComparator() {
+    ControlFlowGraph<Node> cfg = createCfg("for (;a;) { if (b) { c(); } } d();");
+    CompactControlFlowGraph<Node> compact = cfg.compact();
+
+    for (int id = 1; id < compact.getImplicitReturn(); id++) {
+      assertThat(cfg.getOptionalNodeComparator(true).compare(
+          compact.getGraphNode(id - 1), compact.getGraphNode(id))).isLessThan(0);
+    }
+  }
+
+  public void testPredSuccIndex() {
+    ControlFlowGraph<Node> cfg = createCfg("if (a) { b(); } c();");
+    CompactControlFlowGraph<Node> compact = cfg.compact();
+
+    for (int id = 0; id < compact.getNodeCount(); id++) {
+      for (int i = 0; i < compact.getPredCount(id); i++) {
+        int pred = compact.getPred(id, i);
+        assertEquals(
+            cfg.getDirectedSuccNodes(compact.getGraphNode(pred))
+                .indexOf(compact.getGraphNode(id)),
+            compact.getPredSuccIndex(id, i));
+      }
+    }
+  }
+
+  public void testSnapshotIgnoresLaterChanges() {
+    ControlFlowGraph<Node> cfg = createCfg("a(); b();");
+    CompactControlFlowGraph<Node> compact = cfg.compact();
+    int entry = compact.getEntry();
+    int succCount = compact.getSuccCount(entry);
+
+    cfg.connect(cfg.getEntry().getValue(), Branch.ON_EX, null);
+
+    assertEquals(succCount, compact.getSuccCount(entry));
+    assertEquals(succCount + 1, cfg.compact().getSuccCount(entry));
+  }
+
+  private static void assertMatches(String js) {
+    ControlFlowGraph<Node> cfg = createCfg(js);
+    assertMatches(cfg, cfg.compact());
+  }
+
+  private static void assertMatches(
+      ControlFlowGraph<Node> cfg, CompactControlFlowGraph<Node> compact) {
+    assertEquals(cfg.getNodes().size(), compact.getNodeCount());
+    assertEquals(cfg.getImplicitReturn(), compact.getGraphNode(compact.getImplicitReturn()));
+    for (int id = 0; id < compact.getNodeCount(); id++) {
+      DiGraphNode<Node, Branch> node = compact.getGraphNode(id);
+      assertEquals(id, compact.getId(node));
+      assertSame(node.getValue(), compact.getValue(id));
+
+      List<DiGraphEdge<Node, Branch>> outEdges = node.getOutEdges();
+      assertEquals(outEdges.size(), compact.getSuccCount(id));
+      for (int i = 0; i < outEdges.size(); i++) {
+        assertEquals(outEdges.get(i).getDestination(),
+            compact.getGraphNode(compact.getSucc(id, i)));
+        assertEquals(outEdges.get(i).getValue(), compact.getSuccBranch(id, i));
+      }
+
+      List<DiGraphEdge<Node, Branch>> inEdges = node.getInEdges();
+      assertEquals(inEdges.size(), compact.getPredCount(id));
+      for (int i = 0; i < inEdges.size(); i++) {
+        assertEquals(inEdges.get(i).getSource(), compact.getGraphNode(compact.getPred(id, i)));
+        assertEquals(inEdges.get(i).getValue(), compact.getPredBranch(id, i));
+      }
+    }
+  }
+
+  private static ControlFlowGraph<Node> createCfg(String js) {
+    Compiler compiler = new Compiler();
+    ControlFlowAnalysis cfa = new ControlFlowAnalysis(compiler, true, true);
+    Node root = compiler.parseSyntheticCode("cfgtest", js);
+    cfa.process(null, root);
+    return cfa.getCfg();
+  }
+}
@@ -763,6 +763,59 @@ public final class CompilerTest extends TestCase {
     assertEquals(js, cb.toString());
   }
 
+  public void testToSourceModuleToAppendable() throws IOException {
+    CompilerOptions options = new CompilerOptions();
+    options.setPrintInputDelimiter(true);
+    options.setSourceMapOutputPath("out.map");
+    JSModule module = new JSModule("m");
+    module.add(SourceFile.fromCode("a.js", "/** @license MIT */ var a = 1"));
+    module.add(SourceFile.fromCode("b.js", "function b() {\n  return a;\n}"));
+    Compiler compiler = new Compiler();
+    compiler.compileModules(
+        ImmutableList.<SourceFile>of(), ImmutableList.of(module), options);
+
+    compiler.getSourceMap().reset();
+    String expected = compiler.toSource(module);
+    StringBuilder expectedMap = new StringBuilder();
+    compiler.getSourceMap().appendTo(expectedMap, "out.js");
+
+    compiler.getSourceMap().reset();
+    StringWriter out = new StringWriter();
+    compiler.toSource(module, out);
+    StringBuilder map = new StringBuilder();
+    compiler.getSourceMap().appendTo(map, "out.js");
+
+    assertEquals(expected, out.toString());
+    assertEquals(expectedMap.toString(), map.toString());
+  }
+
+  public void testToSourceReportsOutputErrors() {
+    Compiler compiler = new Compiler();
+    compiler.compile(ImmutableList.<SourceFile>of(),
+        ImmutableList.of(SourceFile.fromCode("a.js", "alert(1);")), new CompilerOptions());
+    try {
+      compiler.toSource(new Appendable() {
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+          throw new IOException("disk full");
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+          throw new IOException("disk full");
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+          throw new IOException("disk full");
+        }
+      });
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertEquals("disk full", e.getMessage());
+    }
+  }
+
   public void testWarningsFiltering() {
     // Warnings and errors are left alone when no filtering is used
     assertTrue(hasOutput(
@@ -919,6 +972,121 @@ public final class CompilerTest extends TestCase {
     assertTrue(ast.isEquivalentTo(newInput.getAstRoot(compiler)));
   }
 
+  public void testParallelParsing() throws IOException {
+    List<SourceFile> externs = ImmutableList.of(
+        SourceFile.fromCode("externs.js", "var window;"));
+    List<SourceFile> inputs = ImmutableList.of(
+        SourceFile.fromCode("a.js", "var a = 1;"),
+        SourceFile.fromCode("b.js", "var b = ;"),
+        SourceFile.fromCode("c.js", "function c() { return a + window; }"),
+        SourceFile.fromCode("d.js", "var d = ;"));
+
+    Compiler serial = assertSameWithOneAndFourThreads(externs, inputs, new ThreadOptions() {
+      @Override
+      public void setThreads(CompilerOptions options, int numThreads) {
+        options.setNumParallelParsingThreads(numThreads);
+        options.setContinueAfterErrors(true);
+      }
+    });
+    assertThat(serial.getErrors()).hasLength(2);
+  }
+
+  /** Sets up the options of a compilation that uses some number of threads. */
+  private interface ThreadOptions {
+    void setThreads(CompilerOptions options, int numThreads);
+  }
+
+  /**
+   * Compiles the inputs with one thread and with four, and checks that both
+   * give the same code, source map, errors and warnings, in the same order.
+   *
+   * @return the compiler that used one thread
+   */
+  private static Compiler assertSameWithOneAndFourThreads(
+      List<SourceFile> externs, List<SourceFile> inputs, ThreadOptions threadOptions)
+      throws IOException {
+    Compiler serial = compileWithThreads(externs, inputs, threadOptions, 1);
+    Compiler parallel = compileWithThreads(externs, inputs, threadOptions, 4);
+    assertEquals(serial.toSource(), parallel.toSource());
+    if (serial.getSourceMap() != null) {
+      StringBuilder serialMap = new StringBuilder();
+      serial.getSourceMap().appendTo(serialMap, "out.js");
+      StringBuilder parallelMap = new StringBuilder();
+      parallel.getSourceMap().appendTo(parallelMap, "out.js");
+      assertEquals(serialMap.toString(), parallelMap.toString());
+    }
+    assertSameDiagnostics(serial.getErrors(), parallel.getErrors());
+    assertSameDiagnostics(serial.getWarnings(), parallel.getWarnings());
+    return serial;
+  }
+
+  private static Compiler compileWithThreads(List<SourceFile> externs,
+      List<SourceFile> inputs, ThreadOptions threadOptions, int numThreads) {
+    CompilerOptions options = new CompilerOptions();
+    threadOptions.setThreads(options, numThreads);
+    Compiler compiler = new Compiler();
+    compiler.compile(externs, inputs, options);
+    return compiler;
+  }
+
+  private static void assertSameDiagnostics(JSError[] expected, JSError[] actual) {
+    assertThat(actual).hasLength(expected.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].sourceName, actual[i].sourceName);
+      assertEquals(expected[i].description, actual[i].description);
+    }
+  }
+
+  public void testParallelPeepholeOptimizations() throws IOException {
+    List<SourceFile> externs = ImmutableList.of(
+        SourceFile.fromCode("externs.js", "var window;"));
+    List<SourceFile> inputs = ImmutableList.of(
+        SourceFile.fromCode("a.js", "var a = 1 + 2; if (true) { a++; } else { a--; }"),
+        SourceFile.fromCode("b.js",
+            "function b(x) { if (x) { return 1; } else { return 2; } return 3; }"),
+        SourceFile.fromCode("c.js", "var c = [1][2];"),
+        SourceFile.fromCode("d.js",
+            "function d() { for (;;) { if (!window) break; } return 'a' + 'b' + a; }"),
+        SourceFile.fromCode("e.js", "function e() { return [1][3]; }"),
+        SourceFile.fromCode("f.js", "window.f = [b(a), d(), e(), [1, 2][0 + 1], 8 >> 1];"));
+
+    Compiler serial = assertSameWithOneAndFourThreads(externs, inputs, new ThreadOptions() {
+      @Override
+      public void setThreads(CompilerOptions options, int numThreads) {
+        CompilationLevel.SIMPLE_OPTIMIZATIONS.setOptionsForCompilationLevel(options);
+        options.setNumParallelPeepholeThreads(numThreads);
+        // Checks the scopes that the optimizations report as changed after every pass.
+        options.setDevMode(CompilerOptions.DevMode.EVERY_PASS);
+      }
+    });
+    assertThat(serial.getErrors()).isEmpty();
+    assertThat(serial.getWarnings()).hasLength(4);
+  }
+
+  public void testParallelSourceMapEncoding() throws IOException {
+    // Enough lines for several chunks.
+    StringBuilder code = new StringBuilder();
+    for (int i = 0; i < 2500; i++) {
+      code.append("var a").append(i).append(" = a").append(i / 2).append(" || 'a';\n");
+    }
+    List<SourceFile> inputs = ImmutableList.of(
+        SourceFile.fromCode("a.js", code.toString()),
+        SourceFile.fromCode("b.js", "function b(x) {\n  return x + a1;\n}\nalert(b(2));"));
+
+    Compiler serial = assertSameWithOneAndFourThreads(
+        ImmutableList.<SourceFile>of(), inputs, new ThreadOptions() {
+          @Override
+          public void setThreads(CompilerOptions options, int numThreads) {
+            options.setSourceMapOutputPath("out.js.map");
+            options.setPrettyPrint(true);
+            options.setNumParallelSourceMapThreads(numThreads);
+          }
+        });
+    StringBuilder map = new StringBuilder();
+    serial.getSourceMap().appendTo(map, "out.js");
+    assertThat(map.toString()).contains("\"lineCount\":2505");
+  }
+
   public void testExternsDependencySorting() {
     List<SourceFile> inputs = ImmutableList.of(
         SourceFile.fromCode("leaf", "/** @externs */ goog.require('beer');"),
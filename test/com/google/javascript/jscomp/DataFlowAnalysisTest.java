@@ -457,6 +457,10 @@ public final class DataFlowAnalysisTest extends TestCase {
       super(targetCfg, new ConstPropJoinOp());
     }
 
+    DummyConstPropagation(ControlFlowGraph<Instruction> targetCfg, int maxSteps) {
+      super(targetCfg, new ConstPropJoinOp(), maxSteps);
+    }
+
     @Override
     boolean isForward() {
       return true;
@@ -797,6 +801,33 @@ public final class DataFlowAnalysisTest extends TestCase {
     }
   }
 
+  public void testLongChainTakesMoreThanMaxSteps() {
+    // a = 1; b = a + 0; b = a + 1; ... with more statements than MAX_STEP.
+    Variable a = new Variable("a");
+    Variable b = new Variable("b");
+    Instruction first = newAssignNumberToVariableInstruction(a, 1);
+    ControlFlowGraph<Instruction> cfg = new ControlFlowGraph<>(first, true, true);
+    cfg.createNode(first);
+    Instruction last = first;
+    for (int i = 0; i < 3 * MAX_STEP; i++) {
+      Instruction inst = new ArithmeticInstruction(b, a, Operation.ADD, i);
+      cfg.createNode(inst);
+      cfg.connect(last, ControlFlowGraph.Branch.UNCOND, inst);
+      last = inst;
+    }
+
+    DummyConstPropagation constProp = new DummyConstPropagation(cfg, MAX_STEP);
+    try {
+      constProp.analyze(MAX_STEP);
+      fail("Expected MaxIterationsExceededException to be thrown.");
+    } catch (MaxIterationsExceededException expected) {
+    }
+    constProp.analyze();
+
+    verifyOutHas(cfg.getNode(last), a, 1);
+    verifyOutHas(cfg.getNode(last), b, 3 * MAX_STEP);
+  }
+
   static void verifyInHas(GraphNode<Instruction, Branch> node, Variable var,
       Integer constant) {
     FlowState<ConstPropLatticeElement> fState = node.getAnnotation();
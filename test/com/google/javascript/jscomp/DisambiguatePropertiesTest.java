@@ -33,6 +33,7 @@ import java.util.TreeSet;
 
 public final class DisambiguatePropertiesTest extends TypeICompilerTestCase {
   private DisambiguateProperties lastPass;
+  private int numThreads = 1;
   private static String renameFunctionDefinition =
       "/** @const */ var goog = {};\n"
           + "/** @const */ goog.reflect = {};\n"
@@ -59,6 +60,7 @@ public final class DisambiguatePropertiesTest extends TypeICompilerTestCase {
         Map<String, CheckLevel> propertiesToErrorFor = new HashMap<>();
         propertiesToErrorFor.put("foobar", CheckLevel.ERROR);
 
+        compiler.getOptions().setNumParallelDisambiguationThreads(numThreads);
         // This must be created after type checking is run as it depends on
         // any mismatches found during checking.
         lastPass = new DisambiguateProperties(compiler, propertiesToErrorFor);
@@ -2102,6 +2104,48 @@ public final class DisambiguatePropertiesTest extends TypeICompilerTestCase {
     assertThat(getLastCompiler().getErrors()[0].toString()).contains("foobar");
   }
 
+  public void testParallelRenaming() {
+    numThreads = 4;
+    String externs = ""
+        + "/** @constructor */ function Baz() {}"
+        + "Baz.prototype.c";
+    String js = ""
+        + "/** @constructor */ function Foo() {}\n"
+        + "Foo.prototype.a = 0;\n"
+        + "Foo.prototype.c = 0;\n"
+        + "/** @constructor */ function Bar() {}\n"
+        + "Bar.prototype.a = 0;\n"
+        + "Bar.prototype.b = 0;\n"
+        + "/** @constructor */ function Qux() {}\n"
+        + "Qux.prototype.b = 0;\n"
+        + "/** @type {Foo|Bar} */\n"
+        + "var F = new Foo;\n"
+        + "F.a = 1;\n"
+        + "/** @type {Baz} */\n"
+        + "var Z = new Baz;\n"
+        + "Z.c = 1;\n";
+    String output = ""
+        + "/** @constructor */ function Foo() {}"
+        + "Foo.prototype.a = 0;"
+        + "Foo.prototype.Foo_prototype$c = 0;"
+        + "/** @constructor */ function Bar() {}"
+        + "Bar.prototype.a = 0;"
+        + "Bar.prototype.Bar_prototype$b = 0;"
+        + "/** @constructor */ function Qux() {}"
+        + "Qux.prototype.Qux_prototype$b = 0;"
+        + "/** @type {Foo|Bar} */"
+        + "var F = new Foo;"
+        + "F.a = 1;"
+        + "/** @type {Baz} */"
+        + "var Z = new Baz;"
+        + "Z.c = 1;";
+    testSets(externs, js, output,
+        "{a=[[Bar.prototype, Foo.prototype]], b=[[Bar.prototype], [Qux.prototype]], "
+        + "c=[[Foo.prototype]]}");
+
+    testUnionTypeInvalidationError();
+  }
+
   public void testDontCrashOnNonConstructorsWithPrototype() {
     String externs = LINE_JOINER.join(
         "function f(x) { return x; }",
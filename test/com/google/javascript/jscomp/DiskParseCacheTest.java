@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.javascript.rhino.Node;
+import java.io.File;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link DiskParseCache}. */
+public final class DiskParseCacheTest extends TestCase {
+
+  private File cacheDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    cacheDir = Files.createTempDir();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    for (File f : cacheDir.listFiles()) {
+      f.delete();
+    }
+    cacheDir.delete();
+    super.tearDown();
+  }
+
+  public void testSecondCompilationHitsCache() {
+    DiskParseCache cache = new DiskParseCache(cacheDir);
+    List<SourceFile> inputs = ImmutableList.of(
+        SourceFile.fromCode("a.js", "/** @const */ var a = 1;"),
+        SourceFile.fromCode("b.js", "function b() { return a; }"));
+
+    String first = compile(cache, inputs).toSource();
+    assertEquals(0, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+
+    String second = compile(cache, inputs).toSource();
+    assertEquals(2, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(first, second);
+  }
+
+  public void testEntriesAreSharedByContent() {
+    DiskParseCache cache = new DiskParseCache(cacheDir);
+    compile(cache, ImmutableList.of(SourceFile.fromCode("a.js", "var x = 1;")));
+    Compiler compiler =
+        compile(cache, ImmutableList.of(SourceFile.fromCode("b.js", "var x = 1;")));
+
+    assertEquals(1, cache.getHitCount());
+    Node script = compiler.getRoot().getLastChild().getFirstChild();
+    assertEquals("b.js", script.getSourceFileName());
+    assertEquals("b.js", script.getFirstChild().getSourceFileName());
+  }
+
+  public void testParseErrorsAreReplayed() {
+    DiskParseCache cache = new DiskParseCache(cacheDir);
+    List<SourceFile> inputs = ImmutableList.of(SourceFile.fromCode("a.js", "var a = ;"));
+
+    JSError[] firstErrors = compile(cache, inputs).getErrors();
+    JSError[] secondErrors = compile(cache, inputs).getErrors();
+    assertEquals(1, cache.getHitCount());
+    assertThat(firstErrors).hasLength(1);
+    assertThat(secondErrors).hasLength(1);
+    assertEquals(firstErrors[0].description, secondErrors[0].description);
+    assertEquals("a.js", secondErrors[0].sourceName);
+    assertEquals(firstErrors[0].lineNumber, secondErrors[0].lineNumber);
+  }
+
+  public void testUnreadableEntryIsAMiss() throws Exception {
+    DiskParseCache cache = new DiskParseCache(cacheDir);
+    List<SourceFile> inputs = ImmutableList.of(SourceFile.fromCode("a.js", "var a = 1;"));
+    compile(cache, inputs);
+    for (File f : cacheDir.listFiles()) {
+      Files.write(new byte[] {1, 2, 3}, f);
+    }
+
+    compile(cache, inputs);
+    assertEquals(0, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  public void testEvictBySize() {
+    DiskParseCache cache = new DiskParseCache(cacheDir, 0, DiskParseCache.DEFAULT_MAX_AGE_MILLIS);
+    compile(cache, ImmutableList.of(SourceFile.fromCode("a.js", "var a = 1;")));
+    assertThat(cacheDir.listFiles()).hasLength(1);
+
+    cache.evict();
+    assertThat(cacheDir.listFiles()).isEmpty();
+  }
+
+  public void testEvictByAge() {
+    DiskParseCache cache = new DiskParseCache(cacheDir, DiskParseCache.DEFAULT_MAX_SIZE_BYTES, 0);
+    compile(cache, ImmutableList.of(SourceFile.fromCode("a.js", "var a = 1;")));
+    for (File f : cacheDir.listFiles()) {
+      f.setLastModified(System.currentTimeMillis() - 1000);
+    }
+
+    cache.evict();
+    assertThat(cacheDir.listFiles()).isEmpty();
+  }
+
+  private static Compiler compile(ParseCache cache, List<SourceFile> inputs) {
+    CompilerOptions options = new CompilerOptions();
+    options.setParseCache(cache);
+    options.setContinueAfterErrors(true);
+    Compiler compiler = new Compiler();
+    compiler.compile(ImmutableList.<SourceFile>of(), inputs, options);
+    return compiler;
+  }
+}
@@ -117,6 +117,33 @@ public final class JSModuleGraphTest extends TestCase {
     assertDeepestCommonDepInclusive(F, F, F);
   }
 
+  public void testDependsOnInLargeGraph() {
+    // Enough modules that the dependencies span several words.
+    List<JSModule> modules = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      JSModule module = new JSModule("m" + i);
+      if (i > 0) {
+        module.addDependency(modules.get((i - 1) / 2));
+      }
+      modules.add(module);
+    }
+    JSModuleGraph graph = new JSModuleGraph(modules);
+
+    for (JSModule src : modules) {
+      for (JSModule m : modules) {
+        assertEquals(src.getAllDependencies().contains(m), graph.dependsOn(src, m));
+      }
+    }
+    assertEquals(modules.get(3), graph.getDeepestCommonDependency(
+        modules.get(150), modules.get(140)));
+    assertEquals(modules.get(0), graph.getDeepestCommonDependency(
+        modules.get(199), modules.get(130)));
+    assertEquals(
+        ImmutableList.of(modules.get(33), modules.get(16), modules.get(7), modules.get(3),
+            modules.get(1), modules.get(0)),
+        graph.getTransitiveDepsDeepestFirst(modules.get(67)));
+  }
+
   public void testGetTransitiveDepsDeepestFirst() {
     assertTransitiveDepsDeepestFirst(A);
     assertTransitiveDepsDeepestFirst(B, A);
@@ -126,6 +153,15 @@ public final class JSModuleGraphTest extends TestCase {
     assertTransitiveDepsDeepestFirst(F, E, C, B, A);
   }
 
+  public void testGetTransitiveDependents() {
+    assertThat(graph.getTransitiveDependents(A)).containsExactly(B, C, D, E, F).inOrder();
+    assertThat(graph.getTransitiveDependents(B)).containsExactly(D, E, F).inOrder();
+    assertThat(graph.getTransitiveDependents(C)).containsExactly(E, F).inOrder();
+    assertThat(graph.getTransitiveDependents(D)).isEmpty();
+    assertThat(graph.getTransitiveDependents(E)).containsExactly(F);
+    assertThat(graph.getTransitiveDependents(F)).isEmpty();
+  }
+
   public void testCoalesceDuplicateFiles() {
     A.add(SourceFile.fromCode("a.js", ""));
 
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link MemoryParseCache}. */
+public final class MemoryParseCacheTest extends TestCase {
+
+  public void testSecondCompilationHitsCache() {
+    MemoryParseCache cache = new MemoryParseCache();
+    List<SourceFile> inputs = ImmutableList.of(
+        SourceFile.fromCode("a.js", "/** @const */ var a = 1;"),
+        SourceFile.fromCode("b.js", "function b() { return a; }"));
+
+    String first = compile(cache, inputs).toSource();
+    assertEquals(0, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(2, cache.size());
+
+    String second = compile(cache, inputs).toSource();
+    assertEquals(2, cache.getHitCount());
+    assertEquals(first, second);
+  }
+
+  public void testHitsGetFreshTrees() {
+    MemoryParseCache cache = new MemoryParseCache();
+    List<SourceFile> inputs = ImmutableList.of(SourceFile.fromCode("a.js", "var x = 1;"));
+    Compiler first = compile(cache, inputs);
+    Compiler second = compile(cache, inputs);
+
+    assertEquals(1, cache.getHitCount());
+    assertNotSame(first.getRoot().getLastChild().getFirstChild(),
+        second.getRoot().getLastChild().getFirstChild());
+  }
+
+  public void testParseErrorsAreReplayed() {
+    MemoryParseCache cache = new MemoryParseCache();
+    List<SourceFile> inputs = ImmutableList.of(SourceFile.fromCode("a.js", "var a = ;"));
+
+    JSError[] firstErrors = compile(cache, inputs).getErrors();
+    JSError[] secondErrors = compile(cache, inputs).getErrors();
+    assertEquals(1, cache.getHitCount());
+    assertThat(secondErrors).hasLength(1);
+    assertEquals(firstErrors[0].description, secondErrors[0].description);
+  }
+
+  public void testLeastRecentlyUsedEntriesAreDropped() {
+    MemoryParseCache cache = new MemoryParseCache(0);
+    compile(cache, ImmutableList.of(SourceFile.fromCode("a.js", "var a = 1;")));
+    assertEquals(0, cache.size());
+  }
+
+  private static Compiler compile(ParseCache cache, List<SourceFile> inputs) {
+    CompilerOptions options = new CompilerOptions();
+    options.setParseCache(cache);
+    options.setContinueAfterErrors(true);
+    Compiler compiler = new Compiler();
+    compiler.compile(ImmutableList.<SourceFile>of(), inputs, options);
+    return compiler;
+  }
+}
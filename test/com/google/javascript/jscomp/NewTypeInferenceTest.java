@@ -17,6 +17,7 @@
 package com.google.javascript.jscomp;
 
 import com.google.javascript.jscomp.newtypes.JSTypeCreatorFromJSDoc;
+import java.util.Arrays;
 
 /**
  * Tests new type inference behavior for syntax it understands without transpilation.
@@ -1060,6 +1061,77 @@ public final class NewTypeInferenceTest extends NewTypeInferenceTestBase {
         NewTypeInference.NOT_CALLABLE);
   }
 
+  public void testParallelAnalysisOfFunctions() {
+    String js = LINE_JOINER.join(
+        "function f() { return 'str'; }",
+        "function g() { f() - 5; }",
+        "/** @param {number} x */",
+        "function h(x) {",
+        "  function inner() { return x; }",
+        "  var /** string */ s = inner();",
+        "}",
+        "/** @const */",
+        "var ns = {};",
+        "/** @return {string} */",
+        "ns.fun = function() { return 'str'; };",
+        "/** @type {number} */",
+        "ns.fun.prop = 1;",
+        "function k() { ns.fun() - 5; }",
+        "(function() {",
+        "  function m() { return 'str'; }",
+        "  function n() { m() - 5; }",
+        "})();");
+
+    typeCheck(js,
+        NewTypeInference.INVALID_INFERRED_RETURN_TYPE,
+        NewTypeInference.MISTYPED_ASSIGN_RHS,
+        NewTypeInference.INVALID_OPERAND_TYPE,
+        NewTypeInference.INVALID_INFERRED_RETURN_TYPE);
+    String serialWarnings = Arrays.toString(compiler.getWarnings());
+
+    compilerOptions.setNumParallelTypeInferenceThreads(4);
+    typeCheck(js,
+        NewTypeInference.INVALID_INFERRED_RETURN_TYPE,
+        NewTypeInference.MISTYPED_ASSIGN_RHS,
+        NewTypeInference.INVALID_OPERAND_TYPE,
+        NewTypeInference.INVALID_INFERRED_RETURN_TYPE);
+    // The warnings are reported in the same order as by a serial analysis.
+    assertEquals(serialWarnings, Arrays.toString(compiler.getWarnings()));
+  }
+
+  public void testParallelAnalysisOfNamespaceReaders() {
+    // f and g are analyzed after the namespace functions, and see their summaries.
+    String js = LINE_JOINER.join(
+        "/** @const */",
+        "var ns = {};",
+        "/** @const */",
+        "var alias = ns;",
+        "function f() { alias.f(alias.f.prop); }",
+        "function g() { var /** null */ n = ns.Foo; }",
+        "function h() { return 'str'; }",
+        "function k() { h() - 5; }",
+        "ns.f = function(x) { return x - 1; };",
+        "/** @type {string} */",
+        "ns.f.prop = 'str';",
+        "/** @constructor */",
+        "ns.Foo = function(x) { x - 1; };",
+        "/** @type {string} */",
+        "ns.Foo.prop = 'str';");
+
+    typeCheck(js,
+        NewTypeInference.INVALID_ARGUMENT_TYPE,
+        NewTypeInference.MISTYPED_ASSIGN_RHS,
+        NewTypeInference.INVALID_INFERRED_RETURN_TYPE);
+    String serialWarnings = Arrays.toString(compiler.getWarnings());
+
+    compilerOptions.setNumParallelTypeInferenceThreads(4);
+    typeCheck(js,
+        NewTypeInference.INVALID_ARGUMENT_TYPE,
+        NewTypeInference.MISTYPED_ASSIGN_RHS,
+        NewTypeInference.INVALID_INFERRED_RETURN_TYPE);
+    assertEquals(serialWarnings, Arrays.toString(compiler.getWarnings()));
+  }
+
   public void testDeferredChecks() {
     typeCheck(LINE_JOINER.join(
         "function f() { return 'str'; }",
@@ -157,6 +157,29 @@ public final class NodeTraversalTest extends TestCase {
     );
   }
 
+  public void testTraverseWithoutSettingScope() {
+    final List<Node> scopes = new ArrayList<>();
+    Compiler compiler = new Compiler() {
+      @Override
+      void setScope(Node n) {
+        scopes.add(n);
+      }
+    };
+    Node tree = parse(compiler, "var a; function foo() { var b; }");
+    NodeTraversal.Callback callback = new NodeTraversal.AbstractPostOrderCallback() {
+      @Override
+      public void visit(NodeTraversal t, Node n, Node parent) {
+      }
+    };
+
+    NodeTraversal.traverseEs6(compiler, tree, callback);
+    assertThat(scopes).isNotEmpty();
+
+    scopes.clear();
+    NodeTraversal.traverseEs6WithoutSettingScope(compiler, tree, callback);
+    assertThat(scopes).isEmpty();
+  }
+
   public void testGetLineNoAndGetCharno() {
     Compiler compiler = new Compiler();
     String code = ""
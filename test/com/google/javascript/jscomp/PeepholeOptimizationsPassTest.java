@@ -18,6 +18,7 @@ package com.google.javascript.jscomp;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
@@ -34,8 +35,21 @@ public final class PeepholeOptimizationsPassTest extends CompilerTestCase {
 
   private ImmutableList<AbstractPeepholeOptimization> currentPeepholePasses;
 
+  // When set, scripts are optimized concurrently with the optimizations it
+  // creates, and currentPeepholePasses is ignored.
+  private Supplier<AbstractPeepholeOptimization[]> optimizationsFactory;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    optimizationsFactory = null;
+  }
+
   @Override
   public CompilerPass getProcessor(final Compiler compiler) {
+    if (optimizationsFactory != null) {
+      return new PeepholeOptimizationsPass(compiler, 4, optimizationsFactory);
+    }
     return new PeepholeOptimizationsPass(
         compiler, currentPeepholePasses.toArray(new AbstractPeepholeOptimization[0]));
   }
@@ -244,4 +258,56 @@ public final class PeepholeOptimizationsPassTest extends CompilerTestCase {
 
     test("var y; var z;", "var z;");
   }
+
+  public void testScriptsOptimizedConcurrently() {
+    optimizationsFactory = new Supplier<AbstractPeepholeOptimization[]>() {
+      @Override
+      public AbstractPeepholeOptimization[] get() {
+        return new AbstractPeepholeOptimization[] {
+            new RenameYToX(), new RemoveParentVarsForNodesNamedX()};
+      }
+    };
+
+    test(
+        new String[] {"var y; var z;", "function f() { var y; } var w;", "var x; var y;", ""},
+        new String[] {"var z;", "function f() {} var w;", "", ""});
+  }
+
+  public void testScriptsOptimizedConcurrentlyReportErrorsInOrder() {
+    final DiagnosticType diagnostic = DiagnosticType.warning("JSC_TEST", "{0}");
+    optimizationsFactory = new Supplier<AbstractPeepholeOptimization[]>() {
+      @Override
+      public AbstractPeepholeOptimization[] get() {
+        return new AbstractPeepholeOptimization[] {
+            new AbstractPeepholeOptimization() {
+              @Override
+              public Node optimizeSubtree(Node node) {
+                if (node.isName()) {
+                  report(diagnostic, node);
+                }
+                return node;
+              }
+            }};
+      }
+    };
+
+    Compiler compiler = new Compiler();
+    compiler.init(
+        ImmutableList.<SourceFile>of(),
+        ImmutableList.of(
+            SourceFile.fromCode("a.js", "var a; var b;"),
+            SourceFile.fromCode("b.js", "function c() { var d; }"),
+            SourceFile.fromCode("c.js", "var e;")),
+        new CompilerOptions());
+    compiler.parse();
+    getProcessor(compiler).process(compiler.getRoot().getFirstChild(), compiler.getJsRoot());
+
+    List<String> names = new ArrayList<>();
+    for (JSError warning : compiler.getWarnings()) {
+      names.add(warning.sourceName + ":" + warning.lineNumber + ":" + warning.getCharno());
+    }
+    assertThat(names)
+        .containsExactly("a.js:1:4", "a.js:1:11", "b.js:1:9", "b.js:1:19", "c.js:1:4")
+        .inOrder();
+  }
 }
@@ -144,4 +144,31 @@ public final class PerformanceTrackerTest extends TestCase {
     String outputString = output.toString();
     assertThat(outputString).matches(p);
   }
+
+  public void testChangedScopesTraversalsOutput() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    PrintStream outstream = new PrintStream(output);
+    PerformanceTracker tracker =
+        new PerformanceTracker(emptyExternRoot, emptyJsRoot, TracerMode.TIMING_ONLY, outstream);
+    tracker.recordPassStart("loopA", false);
+    tracker.recordChangedScopesTraversal(100, 100);
+    tracker.recordPassStop("loopA", 5);
+    tracker.recordPassStart("loopB", false);
+    tracker.recordPassStop("loopB", 5);
+    tracker.recordPassStart("loopA", false);
+    tracker.recordChangedScopesTraversal(7, 100);
+    tracker.recordPassStop("loopA", 5);
+    tracker.outputTracerReport();
+    outstream.close();
+
+    Stats st = tracker.getStats().get("loopA");
+    assertEquals(107, st.visitedNodes);
+    assertEquals(200, st.traversedNodes);
+    assertThat(output.toString()).contains(Joiner.on("\n").join(
+        "Changed scopes traversals:",
+        "pass,visitedNodes,totalNodes",
+        "loopA,100,100",
+        "loopA,7,100",
+        ""));
+  }
 }
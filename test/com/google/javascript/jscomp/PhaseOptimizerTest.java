@@ -182,6 +182,59 @@ public final class PhaseOptimizerTest extends TestCase {
     assertEquals(100, Math.round(progressList.get(3)));
   }
 
+  public void testChangedScopesTraversal() {
+    compiler.setPhaseOptimizer(optimizer);
+    compiler.tracker = tracker;
+    Node script = compiler.parseTestCode(
+        "function f() { var a; } function g() { var c; function h() { var b; } }");
+    Node root = new Node(Token.ROOT, script);
+    final Node f = script.getFirstChild();
+    final Node h = script.getLastChild().getLastChild().getLastChild();
+    final List<List<String>> visitedNames = new ArrayList<>();
+
+    Loop loop = optimizer.addFixedPointLoop();
+    loop.addLoopedPass(createPassFactory("visitNames", new CompilerPass() {
+      @Override public void process(Node externs, Node root) {
+        final List<String> names = new ArrayList<>();
+        NodeTraversal.traverseChangedScopes(compiler, root,
+            new NodeTraversal.AbstractPostOrderCallback() {
+              @Override public void visit(NodeTraversal t, Node n, Node parent) {
+                if (n.isName()) {
+                  names.add(n.getString());
+                }
+              }
+            });
+        if (visitedNames.isEmpty()) {
+          // Not seen by the next run, since this pass made the change.
+          optimizer.reportChangeToScope(f);
+          compiler.reportCodeChange();
+        }
+        visitedNames.add(names);
+      }
+    }, false));
+    loop.addLoopedPass(createPassFactory("changeH", new CompilerPass() {
+      boolean changed = false;
+      @Override public void process(Node externs, Node root) {
+        if (!changed) {
+          changed = true;
+          optimizer.reportChangeToScope(h);
+          compiler.reportCodeChange();
+        }
+      }
+    }, false));
+    optimizer.process(null, root);
+
+    assertThat(visitedNames).containsExactly(
+        ImmutableList.of("f", "a", "g", "c", "h", "b"),
+        ImmutableList.of("h", "b")).inOrder();
+
+    int astSize = NodeUtil.countAstSize(root);
+    PerformanceTracker.Stats stats = tracker.getStats().get("visitNames");
+    assertEquals(2 * astSize, stats.traversedNodes);
+    // The first run visits everything but the root, which is in no script.
+    assertEquals(astSize - 1 + 6, stats.visitedNodes);
+  }
+
   public void assertPasses(String ... names) {
     optimizer.process(null, dummyRoot);
     assertEquals(ImmutableList.copyOf(names), passesRun);
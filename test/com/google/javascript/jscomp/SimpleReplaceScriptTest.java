@@ -204,6 +204,63 @@ public final class SimpleReplaceScriptTest extends BaseReplaceScriptTestCase {
     assertErrorType(result.errors[1], VarCheck.VAR_MULTIPLY_DECLARED_ERROR, 1);
   }
 
+  /** Tests that replaceScriptAndDependents rechecks the scripts after the replaced one. */
+  public void testReplaceScriptAndDependents() {
+    CompilerOptions options = getOptions(DiagnosticGroups.CHECK_VARIABLES);
+    options.setCheckSymbols(true);
+    Compiler compiler = runFullCompile(options,
+        ImmutableList.of("var a = 10;", "var b = 20;", "var c = a;"), 0, 0, true);
+
+    List<CompilerInput> affected = compiler.replaceScriptAndDependents(
+        new JsAst(SourceFile.fromCode("in1", "var b = 21;")));
+    assertThat(getInputNames(affected)).containsExactly("in1", "in2").inOrder();
+    assertNoWarningsOrErrors(compiler.getResult());
+
+    // Removing a from the first script is an error in the last one.
+    affected = compiler.replaceScriptAndDependents(
+        new JsAst(SourceFile.fromCode("in0", "var x = 10;")));
+    assertThat(getInputNames(affected)).containsExactly("in0", "in1", "in2").inOrder();
+    Result result = compiler.getResult();
+    assertThat(result.errors).hasLength(1);
+    assertEquals("in2", result.errors[0].sourceName);
+    assertErrorType(result.errors[0], VarCheck.UNDEFINED_VAR_ERROR, 1);
+  }
+
+  /** Tests that replaceScriptAndDependents only rechecks the modules that depend on the change. */
+  public void testReplaceScriptAndDependentsWithModules() {
+    CompilerOptions options = getOptions(DiagnosticGroups.CHECK_VARIABLES);
+    options.setCheckSymbols(true);
+    JSModule base = new JSModule("base");
+    base.add(SourceFile.fromCode("in0", "var a = 10;"));
+    JSModule left = new JSModule("left");
+    left.add(SourceFile.fromCode("in1", "var b = a;"));
+    left.addDependency(base);
+    JSModule right = new JSModule("right");
+    right.add(SourceFile.fromCode("in2", "var c = a;"));
+    right.addDependency(base);
+    Compiler compiler = new Compiler();
+    Result result = compiler.compileModules(EXTERNS, ImmutableList.of(base, left, right), options);
+    assertTrue(result.success);
+    flushResults(compiler);
+
+    List<CompilerInput> affected = compiler.replaceScriptAndDependents(
+        new JsAst(SourceFile.fromCode("in1", "var b = a + 1;")));
+    assertThat(getInputNames(affected)).containsExactly("in1");
+
+    affected = compiler.replaceScriptAndDependents(
+        new JsAst(SourceFile.fromCode("in0", "var x = 10;")));
+    assertThat(getInputNames(affected)).containsExactly("in0", "in1", "in2").inOrder();
+    assertThat(compiler.getResult().errors).hasLength(2);
+  }
+
+  private static List<String> getInputNames(List<CompilerInput> inputs) {
+    List<String> names = new ArrayList<>();
+    for (CompilerInput input : inputs) {
+      names.add(input.getName());
+    }
+    return names;
+  }
+
   /**
    * Test for DefaultPassConfig.checkVariableReferences with multiple files
    * and with multiple add/remove for same variable in different files.
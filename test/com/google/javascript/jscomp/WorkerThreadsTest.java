@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+/** Tests for {@link WorkerThreads}. */
+public final class WorkerThreadsTest extends TestCase {
+
+  public void testRunsTasksAfterTheirDependencies() throws Exception {
+    final int numTasks = 50;
+    final AtomicInteger clock = new AtomicInteger();
+    final int[] finished = new int[numTasks];
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    List<Set<Integer>> dependencies = new ArrayList<>();
+    for (int i = 0; i < numTasks; i++) {
+      final int task = i;
+      final Set<Integer> taskDependencies =
+          i % 10 == 0 ? ImmutableSet.<Integer>of() : ImmutableSet.of(i - 1, i / 2);
+      tasks.add(new Callable<Integer>() {
+        @Override
+        public Integer call() {
+          int started = clock.incrementAndGet();
+          for (int dependency : taskDependencies) {
+            assertTrue(finished[dependency] != 0);
+            assertTrue(finished[dependency] < started);
+          }
+          finished[task] = clock.incrementAndGet();
+          return task * 2;
+        }
+      });
+      dependencies.add(taskDependencies);
+    }
+
+    List<Integer> results = WorkerThreads.runInParallel(tasks, dependencies, 4, "test-worker");
+
+    assertEquals(numTasks, results.size());
+    for (int i = 0; i < numTasks; i++) {
+      assertEquals(i * 2, (int) results.get(i));
+    }
+  }
+
+  public void testStopsAfterAFailedTask() throws Exception {
+    final AtomicInteger numRun = new AtomicInteger();
+    final RuntimeException failure = new RuntimeException("failed");
+    List<Callable<Void>> tasks = ImmutableList.<Callable<Void>>of(
+        new Callable<Void>() {
+          @Override
+          public Void call() {
+            throw failure;
+          }
+        },
+        new Callable<Void>() {
+          @Override
+          public Void call() {
+            numRun.incrementAndGet();
+            return null;
+          }
+        });
+    List<Set<Integer>> dependencies =
+        ImmutableList.<Set<Integer>>of(ImmutableSet.<Integer>of(), ImmutableSet.of(0));
+
+    try {
+      WorkerThreads.runInParallel(tasks, dependencies, 4, "test-worker");
+      fail("Expected an ExecutionException");
+    } catch (ExecutionException e) {
+      assertSame(failure, e.getCause());
+    }
+    assertEquals(0, numRun.get());
+  }
+
+  public void testRejectsDependenciesOnLaterTasks() throws Exception {
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      tasks.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          return null;
+        }
+      });
+    }
+    List<Set<Integer>> dependencies =
+        ImmutableList.<Set<Integer>>of(ImmutableSet.of(1), ImmutableSet.<Integer>of());
+
+    try {
+      WorkerThreads.runInParallel(tasks, dependencies, 4, "test-worker");
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.javascript.jscomp.ErrorManager;
+import com.google.javascript.jscomp.PrintStreamErrorManager;
+import com.google.javascript.jscomp.SourceFile;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link DepsCache}. */
+public final class DepsCacheTest extends TestCase {
+
+  private File dir;
+  private File cacheFile;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    dir = Files.createTempDir();
+    cacheFile = new File(dir, "deps.cache");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    for (File f : dir.listFiles()) {
+      f.delete();
+    }
+    dir.delete();
+    super.tearDown();
+  }
+
+  public void testSecondRunHitsCache() throws Exception {
+    write("a.js", "goog.provide('a');\nlet f = () => 1;");
+    write("b.js", "goog.module('b');\nconst a = goog.require('a');");
+
+    DepsCache cache = new DepsCache(cacheFile);
+    String first = computeDependencyCalls(cache, "a.js", "b.js");
+    assertEquals(0, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+
+    cache = new DepsCache(cacheFile);
+    String second = computeDependencyCalls(cache, "a.js", "b.js");
+    assertEquals(2, cache.getHitCount());
+    assertEquals(0, cache.getMissCount());
+    assertEquals(first, second);
+    assertThat(second).contains("'module': 'goog'");
+  }
+
+  public void testChangedFilesAreParsedAgain() throws Exception {
+    write("a.js", "goog.provide('a');");
+    File b = write("b.js", "goog.provide('b');");
+    computeDependencyCalls(new DepsCache(cacheFile), "a.js", "b.js");
+
+    // Touched, but not changed.
+    assertTrue(b.setLastModified(b.lastModified() - 10000));
+    DepsCache cache = new DepsCache(cacheFile);
+    computeDependencyCalls(cache, "a.js", "b.js");
+    assertEquals(2, cache.getHitCount());
+
+    File a = write("a.js", "goog.provide('a');\ngoog.require('b');");
+    assertTrue(a.setLastModified(a.lastModified() - 20000));
+    cache = new DepsCache(cacheFile);
+    String output = computeDependencyCalls(cache, "a.js", "b.js");
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertThat(output).contains("['a'], ['b']");
+  }
+
+  public void testEs6ModulesAreNotCached() throws Exception {
+    write("a.js", "export var a;");
+    computeDependencyCalls(new DepsCache(cacheFile), "a.js");
+
+    DepsCache cache = new DepsCache(cacheFile);
+    computeDependencyCalls(cache, "a.js");
+    assertEquals(0, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  public void testSourcesWithParseErrorsAreNotCached() throws Exception {
+    write("a.js", "goog.provide(a);");
+    for (int i = 0; i < 2; i++) {
+      DepsCache cache = new DepsCache(cacheFile);
+      ErrorManager errorManager = createErrorManager();
+      assertNull(
+          createDepsGenerator(errorManager, "a.js").setCache(cache).computeDependencyCalls());
+      assertEquals(1, errorManager.getErrorCount());
+      assertEquals(0, cache.getHitCount());
+    }
+  }
+
+  public void testUnreadableCacheIsIgnored() throws Exception {
+    Files.write("not a cache", cacheFile, UTF_8);
+    write("a.js", "goog.provide('a');");
+
+    DepsCache cache = new DepsCache(cacheFile);
+    assertThat(computeDependencyCalls(cache, "a.js")).contains("['a']");
+    assertEquals(1, cache.getMissCount());
+
+    cache = new DepsCache(cacheFile);
+    computeDependencyCalls(cache, "a.js");
+    assertEquals(1, cache.getHitCount());
+  }
+
+  private String computeDependencyCalls(DepsCache cache, String... names) throws IOException {
+    ErrorManager errorManager = createErrorManager();
+    String output =
+        createDepsGenerator(errorManager, names)
+            .setCache(cache)
+            .setNumThreads(2)
+            .computeDependencyCalls();
+    assertEquals(0, errorManager.getErrorCount());
+    return output;
+  }
+
+  private DepsGenerator createDepsGenerator(ErrorManager errorManager, String... names) {
+    List<SourceFile> srcs = new ArrayList<>();
+    for (String name : names) {
+      srcs.add(source(name));
+    }
+    return new DepsGenerator(
+        ImmutableList.<SourceFile>of(),
+        srcs,
+        DepsGenerator.InclusionStrategy.ALWAYS,
+        new File(dir, "closure/goog").getPath(),
+        errorManager,
+        ModuleLoader.EMPTY);
+  }
+
+  private SourceFile source(String name) {
+    return SourceFile.fromFile(new File(dir, name));
+  }
+
+  private File write(String name, String content) throws IOException {
+    File file = new File(dir, name);
+    Files.write(content, file, UTF_8);
+    return file;
+  }
+
+  private static ErrorManager createErrorManager() {
+    return new PrintStreamErrorManager(new PrintStream(ByteStreams.nullOutputStream()));
+  }
+}
@@ -192,6 +192,73 @@ public final class DepsGeneratorTest extends TestCase {
     assertThat(output).isEqualTo(expectedWithDepsAsSources);
   }
 
+  public void testScannerFindsSameDependencies() throws Exception {
+    List<SourceFile> srcs = ImmutableList.of(
+        SourceFile.fromCode("/base/javascript/foo/foo.js",
+            LINE_JOINER.join(
+                "goog.module('foo');",
+                "/* goog.require('not.a.dep'); */",
+                "const {bar} = goog.require('bar');")),
+        SourceFile.fromCode("/base/javascript/foo/bar.js",
+            "goog.provide('bar'); goog.require('goog.array'); // goog.require('not.a.dep');"),
+        SourceFile.fromCode("/base/javascript/foo/baz.js", "import '../closure/goog/array';"),
+        SourceFile.fromCode("/base/javascript/closure/goog/array.js",
+            "goog.provide('goog.array');\nexport var array;"));
+
+    String parserOutput = createDepsGenerator(srcs).computeDependencyCalls();
+    String scannerOutput = createDepsGenerator(srcs).setUseScanner(true).computeDependencyCalls();
+
+    assertThat(parserOutput).contains("'../foo/bar.js', ['bar'], ['goog.array']");
+    assertThat(scannerOutput).isEqualTo(parserOutput);
+  }
+
+  public void testParallelParsingMatchesSerialParsing() throws Exception {
+    List<SourceFile> srcs = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      srcs.add(SourceFile.fromCode("/base/javascript/foo/file" + i + ".js",
+          LINE_JOINER.join(
+              "goog.provide('file" + i + "');",
+              i == 0 ? "" : "goog.require('file" + (i - 1) + "');",
+              i % 3 == 0 ? "let x = () => 1;" : "var x = 1;")));
+    }
+
+    String serialOutput = createDepsGenerator(srcs).computeDependencyCalls();
+    String parallelOutput = createDepsGenerator(srcs).setNumThreads(4).computeDependencyCalls();
+
+    assertNoWarnings();
+    assertThat(serialOutput).contains("['file0'], [], {'lang': 'es6-impl'}");
+    assertThat(parallelOutput).isEqualTo(serialOutput);
+  }
+
+  public void testParallelParsingReportsErrorsInOrder() throws Exception {
+    List<SourceFile> srcs = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      srcs.add(SourceFile.fromCode("/base/javascript/foo/file" + i + ".js",
+          "goog.provide('file" + i + "');\ngoog.require(file" + i + ");"));
+    }
+
+    assertNull(createDepsGenerator(srcs).setNumThreads(4).computeDependencyCalls());
+    assertErrorWarningCount(10, 0);
+    for (int i = 0; i < 10; i++) {
+      assertEquals("/base/javascript/foo/file" + i + ".js", errorManager.getErrors()[i].sourceName);
+    }
+  }
+
+  private DepsGenerator createDepsGenerator(List<SourceFile> srcs) {
+    return new DepsGenerator(
+        ImmutableList.<SourceFile>of(),
+        srcs,
+        DepsGenerator.InclusionStrategy.ALWAYS,
+        "/base/javascript/closure",
+        errorManager,
+        new ModuleLoader(
+            null,
+            ImmutableList.of("/base/"),
+            ImmutableList.<DependencyInfo>of(),
+            ModuleLoader.PathResolver.ABSOLUTE,
+            ModuleLoader.ResolutionMode.LEGACY));
+  }
+
   /**
    * Ensures that everything still works when both a deps.js and a deps-runfiles.js file are
    * included. Also uses real files.
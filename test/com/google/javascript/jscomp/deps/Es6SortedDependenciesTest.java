@@ -19,6 +19,8 @@ package com.google.javascript.jscomp.deps;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
 import java.util.List;
 import junit.framework.TestCase;
 /**
@@ -219,6 +221,34 @@ public class Es6SortedDependenciesTest extends TestCase {
     assertThat(sorted.getSortedList()).containsExactly(c, a, b).inOrder();
   }
 
+  public void testSortLongChain() throws Exception {
+    int length = 50000;
+    List<SimpleDependencyInfo> inputs = new ArrayList<>();
+    for (int i = 0; i < length; i++) {
+      inputs.add(new SimpleDependencyInfo("f" + i, "f" + i, provides("s" + i),
+          i + 1 < length ? requires("s" + (i + 1)) : requires(), false));
+    }
+
+    SortedDependencies<SimpleDependencyInfo> sorted = createSortedDependencies(inputs);
+
+    assertThat(sorted.getSortedList()).isEqualTo(Lists.reverse(inputs));
+    assertThat(sorted.getDependenciesOf(ImmutableList.of(inputs.get(length - 2)), false))
+        .containsExactly(inputs.get(length - 2), inputs.get(length - 1)).inOrder();
+  }
+
+  public void testDuplicateInputs() throws Exception {
+    SimpleDependencyInfo a =
+        new SimpleDependencyInfo("A", "A", provides("A"), requires("B"), false);
+    SimpleDependencyInfo b = new SimpleDependencyInfo("B", "B", provides("B"), requires(), false);
+
+    SortedDependencies<SimpleDependencyInfo> sorted =
+        createSortedDependencies(ImmutableList.of(a, b, a));
+
+    assertThat(sorted.getSortedList()).containsExactly(b, a).inOrder();
+    assertThat(sorted.getDependenciesOf(ImmutableList.of(a), false))
+        .containsExactly(a, b, a).inOrder();
+  }
+
   private void assertSortedInputs(
       List<SimpleDependencyInfo> expected,
       List<SimpleDependencyInfo> shuffled) throws Exception {
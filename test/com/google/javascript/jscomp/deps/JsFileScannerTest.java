@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.javascript.jscomp.ErrorManager;
+import com.google.javascript.jscomp.PrintStreamErrorManager;
+import java.io.PrintStream;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/** Tests for {@link JsFileScanner}. */
+public final class JsFileScannerTest extends TestCase {
+
+  private static final ImmutableList<String> FILES = ImmutableList.of(
+      "/*goog.provide('no1');*//*\n"
+          + "goog.provide('no2');\n"
+          + "*/goog.provide('yes1');\n"
+          + "/* blah */goog.provide(\"yes2\")/* blah*/\n"
+          + "goog.require('yes3'); // goog.provide('no3');\n"
+          + "goog.require(\"bar.data.Baz\"); //no new line at EOF",
+      "goog.module('yes1');\n"
+          + "goog.module.declareLegacyNamespace();\n"
+          + "goog.setTestOnly();\n"
+          + "var yes2=goog.require('yes2');\n"
+          + "const {\n  D,\n  E\n}=goog.require(\"a.b.d\");\n"
+          + "let {F: f, G} = goog.require('a.b.f');\n"
+          + "goog.requireType('not.a.require');",
+      "goog.loadModule(function(){\"use strict\";goog.module('yes1');\n"
+          + "var C=goog.require(\"a.b.C\");});",
+      "goog.provide('yes1');goog.provide('yes2');/*goog.provide('no1');*/goog.provide('yes3');"
+          + "//goog.provide('no2');\n"
+          + "x();goog.require('yes4') ;  goog.require ( 'yes5' );",
+      "import def, {yes2} from './yes2';\n"
+          + "import * as d from './a/b/d';\n"
+          + "import \"./dquote\";\n"
+          + "import from './from';\n"
+          + "import {from as from} from './from2';\n"
+          + "import './mixed\";\n"
+          + "import 'goog:foo.bar.baz';\n"
+          + "export * from './exported';\n",
+      "export default class {}\n",
+      "exports = 5;\nexport$ = 4;\nimporter();\n",
+      "goog.provide('a');\r\ngoog.require('b');\rgoog.require('c');\r\n\r\n",
+      "goog.require('a\\'b');\ngoog.require('c\"d');\ngoog.provide(\"e\\\"f\");\n",
+      "goog.require('bad literal\");\ngoog.provide('ok');\ngoog.require(notAString);\n",
+      "goog.require('goog');\ngoog.require('a') ;goog.require('b');\n",
+      "var COMPILED = false;\ngoog.provide('not.after.base');\n",
+      " // hi ! \n /* this is a comment */ goog.provide('yes1');\n"
+          + "foo = function() {};\n"
+          + "goog.provide('after.code');",
+      "/**\n * goog.provide('no1');\n */\ngoog.provide('yes1');/* goog.provide('no2')\n"
+          + "goog.provide('no3'); */ goog.provide('yes2');\n",
+      "goog.module('m');\nimport './x';\n");
+
+  private static final ImmutableList<String> FRAGMENTS = ImmutableList.of(
+      "goog.provide('a.b')", "goog.require(\"c\")", "goog.module('m')",
+      "goog.module.declareLegacyNamespace()", "goog.addDependency('x', [], [])",
+      "goog.require('goog')", "goog.setTestOnly()", "goog.loadModule(function(",
+      "goog.require(", "goog.provide (", "goog.module(",
+      "var {A, B} = ", "const x=", "import ", "export ", "import", "* as ns ",
+      "{a, b as from} ", "from ", "'./dep'", "\"./other\"", "'goog:g.h'", "'a\\'b'",
+      ";", " ", "\t", "/*", "*/", "//", "'", "\"", "\\", "(", ")", "=", ":", ",", "foo",
+      "var COMPILED = false;", "\n", "\r\n", "\r", " ", "export default class {}",
+      "exports = 5");
+
+  public void testMatchesParser() {
+    for (String contents : FILES) {
+      assertScansLikeParser(contents);
+    }
+  }
+
+  public void testMatchesParserOnRandomFiles() {
+    Random random = new Random(42);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 3000; i++) {
+      sb.setLength(0);
+      for (int j = random.nextInt(30); j >= 0; j--) {
+        sb.append(FRAGMENTS.get(random.nextInt(FRAGMENTS.size())));
+      }
+      assertScansLikeParser(sb.toString());
+    }
+  }
+
+  public void testScansCharBuffer() {
+    JsFileScanner scanner = new JsFileScanner(createErrorManager());
+    DependencyInfo info = scanner.parseFile("a.js", "b.js",
+        CharBuffer.wrap("goog.provide('a');\nvar b = goog.require('b');\n".toCharArray()));
+
+    assertTrue(scanner.didParseSucceed());
+    assertThat(info.getProvides()).containsExactly("a");
+    assertThat(info.getRequires()).containsExactly("b");
+    assertEquals(ImmutableMap.of(), info.getLoadFlags());
+  }
+
+  public void testReportsParseErrors() {
+    ErrorManager errorManager = createErrorManager();
+    JsFileScanner scanner = new JsFileScanner(errorManager);
+    scanner.parseFile("a.js", "b.js", "goog.provide('a');\ngoog.require(b);\n");
+
+    assertFalse(scanner.didParseSucceed());
+    assertEquals(1, errorManager.getErrorCount());
+    assertEquals(2, errorManager.getErrors()[0].lineNumber);
+  }
+
+  private static void assertScansLikeParser(String contents) {
+    for (boolean shortcutMode : new boolean[] {false, true}) {
+      for (boolean includeGoogBase : new boolean[] {false, true}) {
+        ErrorManager parserErrors = createErrorManager();
+        JsFileParser parser = new JsFileParser(parserErrors).setIncludeGoogBase(includeGoogBase);
+        parser.setShortcutMode(shortcutMode);
+        ErrorManager scannerErrors = createErrorManager();
+        JsFileScanner scanner = new JsFileScanner(scannerErrors)
+            .setIncludeGoogBase(includeGoogBase)
+            .setShortcutMode(shortcutMode);
+
+        String message = "shortcutMode=" + shortcutMode + ", includeGoogBase=" + includeGoogBase
+            + " in:\n" + contents;
+        assertEquals(message,
+            parser.parseFile("dir/a.js", "a.js", contents),
+            scanner.parseFile("dir/a.js", "a.js", contents));
+        assertEquals(message, parser.didParseSucceed(), scanner.didParseSucceed());
+        assertEquals(message, Arrays.toString(parserErrors.getErrors()),
+            Arrays.toString(scannerErrors.getErrors()));
+        assertEquals(message, Arrays.toString(parserErrors.getWarnings()),
+            Arrays.toString(scannerErrors.getWarnings()));
+      }
+    }
+  }
+
+  private static ErrorManager createErrorManager() {
+    return new PrintStreamErrorManager(new PrintStream(ByteStreams.nullOutputStream()));
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import com.google.javascript.jscomp.graph.GraphColoring.Color;
+import com.google.javascript.jscomp.graph.GraphColoring.GreedyGraphColoring;
+import java.util.BitSet;
+import junit.framework.TestCase;
+
+/** Tests for {@link AdjacencyMatrixGraph}. */
+public final class AdjacencyMatrixGraphTest extends TestCase {
+
+  public void testConnect() {
+    AdjacencyMatrixGraph<String> graph = createGraph(4);
+    graph.connect(0, 2);
+    graph.connect(1, 1);
+
+    assertTrue(graph.isConnected(0, 2));
+    assertTrue(graph.isConnected(2, 0));
+    assertFalse(graph.isConnected(1, 1));
+    assertFalse(graph.isConnected(0, 1));
+    assertEquals(1, graph.getWeight("n0"));
+    assertEquals(0, graph.getWeight("n1"));
+  }
+
+  public void testConnectToAll() {
+    AdjacencyMatrixGraph<String> graph = AdjacencyMatrixGraph.create(6);
+    graph.createNode(0, "n0");
+    graph.createNode(1, "n1");
+    graph.createNode(3, "n3");
+    graph.createNode(5, "n5");
+    assertFalse(graph.hasNode(2));
+
+    graph.connectToAll(1, bits(0, 1, 2, 3));
+
+    assertTrue(graph.isConnected(3, 1));
+    assertTrue(graph.isConnected(0, 1));
+    assertFalse(graph.isConnected(1, 1));
+    assertFalse(graph.isConnected(0, 3));
+    assertEquals(bits(0, 3), graph.getNeighborIndices(1));
+    assertEquals(bits(1), graph.getNeighborIndices(3));
+    assertEquals(2, graph.getWeight("n1"));
+    assertEquals(0, graph.getWeight("n5"));
+  }
+
+  public void testConnectAll() {
+    AdjacencyMatrixGraph<String> graph = createGraph(5);
+    graph.connectAll(bits(0, 2, 4));
+
+    assertTrue(graph.isConnected(0, 2));
+    assertTrue(graph.isConnected(4, 0));
+    assertTrue(graph.isConnected(2, 4));
+    assertFalse(graph.isConnected(1, 2));
+    assertEquals(bits(2, 4), graph.getNeighborIndices(0));
+  }
+
+  public void testSubGraph() {
+    AdjacencyMatrixGraph<String> graph = createGraph(3);
+    graph.connectToAll(0, bits(1));
+    SubGraph<String, Void> subGraph = graph.newSubGraph();
+
+    assertTrue(subGraph.isIndependentOf("n0"));
+    subGraph.addNode("n0");
+    assertFalse(subGraph.isIndependentOf("n1"));
+    assertTrue(subGraph.isIndependentOf("n2"));
+    subGraph.addNode("n2");
+    assertFalse(subGraph.isIndependentOf("n1"));
+  }
+
+  public void testGetNode() {
+    AdjacencyMatrixGraph<String> graph = AdjacencyMatrixGraph.create(10);
+    graph.createNode(7, "a");
+
+    assertEquals(7, graph.getIndex("a"));
+    assertEquals(7, graph.getNode("a").getIndex());
+    assertEquals("a", graph.getNode("a").getValue());
+    assertNull(graph.getNode("b"));
+    assertEquals(1, graph.getNodes().size());
+    try {
+      graph.createNode(7, "b");
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testGreedyColoring() {
+    // A cycle of five nodes needs three colors.
+    AdjacencyMatrixGraph<String> graph = createGraph(5);
+    for (int i = 0; i < 5; i++) {
+      graph.connectToAll(i, bits((i + 1) % 5));
+    }
+    GraphColoring<String, Void> coloring = new GreedyGraphColoring<>(graph);
+
+    assertEquals(3, coloring.color());
+    for (int i = 0; i < 5; i++) {
+      Color color = graph.getNode("n" + i).getAnnotation();
+      Color next = graph.getNode("n" + (i + 1) % 5).getAnnotation();
+      assertFalse(color.equals(next));
+    }
+  }
+
+  private static AdjacencyMatrixGraph<String> createGraph(int nodeCount) {
+    AdjacencyMatrixGraph<String> graph = AdjacencyMatrixGraph.create(nodeCount);
+    for (int i = 0; i < nodeCount; i++) {
+      graph.createNode(i, "n" + i);
+    }
+    return graph;
+  }
+
+  private static BitSet bits(int... indices) {
+    BitSet bits = new BitSet();
+    for (int i : indices) {
+      bits.set(i);
+    }
+    return bits;
+  }
+}
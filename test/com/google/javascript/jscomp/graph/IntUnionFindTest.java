@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/** Unit test for the {@link IntUnionFind} data structure. */
+public final class IntUnionFindTest extends TestCase {
+  private IntUnionFind union;
+
+  @Override protected void setUp() {
+    union = new IntUnionFind();
+  }
+
+  public void testEmpty() {
+    assertEquals(0, union.size());
+    assertEquals(0, union.getClassCount());
+    assertEquals(0, union.allEquivalenceClasses().length);
+  }
+
+  public void testAdd() {
+    union.add(7);
+    union.add(3);
+    union.add(7);
+
+    assertEquals(2, union.size());
+    assertEquals(2, union.getClassCount());
+    assertEquals(7, union.find(7));
+    assertTrue(union.contains(3));
+    assertFalse(union.contains(4));
+    assertTrue(Arrays.equals(new int[] {7, 3}, union.elements()));
+  }
+
+  public void testUnion() {
+    union.union(1, 2);
+    union.union(3, 4);
+
+    assertEquals(union.find(1), union.find(2));
+    assertEquals(union.find(3), union.find(4));
+    assertFalse(union.areEquivalent(1, 4));
+    assertEquals(2, union.getClassCount());
+
+    int representative = union.union(2, 4);
+    assertEquals(representative, union.find(1));
+    assertEquals(representative, union.find(3));
+    assertEquals(1, union.getClassCount());
+    assertEquals(representative, union.union(1, 3));
+  }
+
+  public void testFindMissingElement() {
+    union.add(1);
+    try {
+      union.find(2);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testAllEquivalenceClasses() {
+    union.union(5, 9);
+    union.add(2);
+    union.union(9, 11);
+    union.union(8, 2);
+
+    int[][] classes = union.allEquivalenceClasses();
+    assertEquals(2, classes.length);
+    assertTrue(Arrays.equals(new int[] {5, 9, 11}, classes[0]));
+    assertTrue(Arrays.equals(new int[] {2, 8}, classes[1]));
+  }
+
+  public void testMatchesStandardUnionFind() {
+    Random random = new Random(42);
+    StandardUnionFind<Integer> expected = new StandardUnionFind<>();
+    for (int i = 0; i < 5000; i++) {
+      int a = random.nextInt(3000);
+      int b = random.nextInt(3000) * 1000;
+      if (random.nextBoolean()) {
+        union.add(a);
+        expected.add(a);
+      } else {
+        union.union(a, b);
+        expected.union(a, b);
+      }
+    }
+
+    assertEquals(expected.elements().size(), union.size());
+    assertEquals(expected.allEquivalenceClasses().size(), union.getClassCount());
+    assertEquals(union.getClassCount(), union.allEquivalenceClasses().length);
+    int[] elements = union.elements();
+    for (int e : elements) {
+      int other = elements[random.nextInt(elements.length)];
+      assertEquals(expected.findAll(e).size(), sizeOfClass(union.find(e)));
+      assertEquals(expected.areEquivalent(e, other), union.areEquivalent(e, other));
+    }
+  }
+
+  private int sizeOfClass(int representative) {
+    int size = 0;
+    for (int e : union.elements()) {
+      if (union.find(e) == representative) {
+        size++;
+      }
+    }
+    return size;
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/** Tests for {@link PersistentMap} and {@link PersistentSet}. */
+public final class PersistentMapTest extends TestCase {
+
+  private static final PersistentMap.Reconciler<Key, Integer> SUM =
+      new PersistentMap.Reconciler<Key, Integer>() {
+        @Override
+        public Integer reconcile(Key key, Integer value1, Integer value2) {
+          return value1 + value2;
+        }
+      };
+
+  public void testWithAndWithout() {
+    PersistentMap<String, Integer> m0 = PersistentMap.create();
+    PersistentMap<String, Integer> m1 = m0.with("a", 1);
+    PersistentMap<String, Integer> m2 = m1.with("b", 2).with("a", 3);
+
+    assertThat(m0).isEmpty();
+    assertEquals(ImmutableMap.of("a", 1), m1);
+    assertEquals(ImmutableMap.of("a", 3, "b", 2), m2);
+    assertSame(m2, m2.without("c"));
+    assertEquals(ImmutableMap.of("b", 2), m2.without("a"));
+    assertThat(m2.without("a").without("b")).isEmpty();
+  }
+
+  public void testRandomUpdatesMatchHashMap() {
+    Random random = new Random(42);
+    for (int keyRange : new int[] {6, 60, 2000}) {
+      PersistentMap<Key, Integer> map = PersistentMap.create();
+      Map<Key, Integer> expected = new HashMap<>();
+      for (int i = 0; i < 20000; i++) {
+        Key key = new Key(random.nextInt(keyRange));
+        if (random.nextInt(3) == 0) {
+          map = map.without(key);
+          expected.remove(key);
+        } else {
+          map = map.with(key, i);
+          expected.put(key, i);
+        }
+        assertEquals(expected.size(), map.size());
+      }
+      assertEquals(expected, map);
+      assertEquals(expected, new HashMap<>(map));
+    }
+  }
+
+  public void testBuilderDoesNotChangeOriginalMaps() {
+    Random random = new Random(7);
+    PersistentMap<Key, Integer> original = PersistentMap.create();
+    for (int i = 0; i < 500; i++) {
+      original = original.with(new Key(i), i);
+    }
+    Map<Key, Integer> originalCopy = new HashMap<>(original);
+    Map<Key, Integer> expected = new HashMap<>(original);
+
+    PersistentMap.Builder<Key, Integer> builder = original.toBuilder();
+    PersistentMap<Key, Integer> built = null;
+    for (int i = 0; i < 5000; i++) {
+      Key key = new Key(random.nextInt(1000));
+      if (random.nextInt(3) == 0) {
+        builder.remove(key);
+        expected.remove(key);
+      } else {
+        builder.put(key, -i);
+        expected.put(key, -i);
+      }
+      if (i == 2500) {
+        built = builder.build();
+        assertEquals(expected, built);
+      }
+    }
+    Map<Key, Integer> builtCopy = new HashMap<>(built);
+
+    assertEquals(expected, builder.build());
+    assertEquals(originalCopy, original);
+    assertEquals(builtCopy, built);
+  }
+
+  public void testBuilderOfSmallMap() {
+    PersistentMap<String, Integer> m = PersistentMap.of("a", 1);
+    PersistentMap.Builder<String, Integer> builder = m.toBuilder();
+    builder.put("b", 2).remove("a").put("c", 3);
+
+    assertEquals(ImmutableMap.of("b", 2, "c", 3), builder.build());
+    assertThat(builder.remove("b").remove("c").build()).isEmpty();
+    assertEquals(ImmutableMap.of("a", 1), m);
+  }
+
+  public void testReconcile() {
+    Random random = new Random(3);
+    for (int size : new int[] {4, 40, 3000}) {
+      PersistentMap<Key, Integer> base = PersistentMap.create();
+      for (int i = 0; i < size; i++) {
+        base = base.with(new Key(i), 1);
+      }
+      PersistentMap<Key, Integer> m1 = base;
+      PersistentMap<Key, Integer> m2 = base;
+      for (int i = 0; i < size / 4 + 1; i++) {
+        m1 = m1.with(new Key(random.nextInt(2 * size)), 10);
+        m2 = m2.with(new Key(random.nextInt(2 * size)), 100);
+      }
+
+      Map<Key, Integer> expected = new HashMap<>(m1);
+      for (Map.Entry<Key, Integer> entry : m2.entrySet()) {
+        Integer value = expected.get(entry.getKey());
+        expected.put(entry.getKey(), value == null || value.equals(entry.getValue())
+            ? entry.getValue() : value + entry.getValue());
+      }
+      PersistentMap<Key, Integer> reconciled = m1.reconcile(m2, SUM);
+      assertEquals(expected, reconciled);
+      assertEquals(expected.size(), reconciled.size());
+      assertEquals(expected, m2.reconcile(m1, SUM));
+    }
+  }
+
+  public void testReconcileSkipsSharedEntries() {
+    PersistentMap<Key, Integer> base = PersistentMap.create();
+    for (int i = 0; i < 1000; i++) {
+      base = base.with(new Key(i), i);
+    }
+    PersistentMap.Reconciler<Key, Integer> failing = new PersistentMap.Reconciler<Key, Integer>() {
+      @Override
+      public Integer reconcile(Key key, Integer value1, Integer value2) {
+        throw new AssertionError(key);
+      }
+    };
+
+    assertSame(base, base.reconcile(base, failing));
+    assertSame(base, base.reconcile(base.with(new Key(5), 5), failing));
+    assertEquals(
+        Integer.valueOf(11), base.with(new Key(5), 6).reconcile(base, SUM).get(new Key(5)));
+  }
+
+  public void testPersistentSet() {
+    PersistentSet<String> s0 = PersistentSet.create();
+    PersistentSet<String> s1 = s0.with("a").with("b");
+
+    assertThat(s0).isEmpty();
+    assertThat(s1).containsExactly("a", "b");
+    assertSame(s1, s1.with("a"));
+    assertThat(s1.without("a")).containsExactly("b");
+    assertTrue(s1.contains("b"));
+  }
+
+  /** A key with many hash collisions. */
+  private static final class Key {
+    final int id;
+
+    Key(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return id % 700;
+    }
+
+    @Override
+    public String toString() {
+      return "k" + id;
+    }
+  }
+}
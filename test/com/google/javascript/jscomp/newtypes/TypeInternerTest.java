@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import junit.framework.TestCase;
+
+/** Tests for {@link TypeInterner}. */
+public final class TypeInternerTest extends TestCase {
+
+  public void testIdenticalTypesAreShared() {
+    JSTypes commonTypes = JSTypes.init(false);
+    JSType t1 = JSType.fromTypeVar(commonTypes, "T");
+    JSType t2 = JSType.fromTypeVar(commonTypes, "T");
+    assertSame(t1, t2);
+
+    JSType numOrT = JSType.join(commonTypes.NUMBER, t1);
+    assertSame(numOrT, JSType.join(t2, commonTypes.NUMBER));
+    assertSame(numOrT, JSType.join(numOrT, numOrT));
+    assertNotSame(numOrT, JSType.join(commonTypes.STRING, t1));
+
+    JSType numOrBoolOrUndef =
+        JSType.join(commonTypes.NUMBER, commonTypes.UNDEFINED_OR_BOOLEAN);
+    assertSame(
+        numOrBoolOrUndef, JSType.join(commonTypes.UNDEFINED_OR_NUMBER, commonTypes.BOOLEAN));
+  }
+
+  public void testTypesOfDifferentCompilationsAreNotShared() {
+    JSType t1 = JSType.fromTypeVar(JSTypes.init(false), "T");
+    JSType t2 = JSType.fromTypeVar(JSTypes.init(false), "T");
+    assertNotSame(t1, t2);
+    assertEquals(t1, t2);
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.rhino;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.javascript.jscomp.Compiler;
+import com.google.javascript.jscomp.CompilerOptions;
+import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
+import com.google.javascript.jscomp.SourceFile;
+import com.google.javascript.rhino.Node.TypeDeclarationNode;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import junit.framework.TestCase;
+
+/** Round trip tests for {@link BinaryNodeWriter} and {@link BinaryNodeReader}. */
+public final class BinaryNodeWriterTest extends TestCase {
+
+  public void testStatementsAndExpressions() throws Exception {
+    testRoundTrip(
+        "var a = 1, b = 'two';",
+        "if (a) { b++; } else { --b; }",
+        "for (var i = 0; i < 10; i++) { continue; }",
+        "label: while (true) { break label; }",
+        "try { throw new Error('x'); } catch (e) {} finally {}",
+        "switch (a) { case 1: break; default: a = void 0; }",
+        "var re = /ab+c/gi;",
+        "delete a.b[c];",
+        "eval('x');");
+  }
+
+  public void testObjectLiterals() throws Exception {
+    testRoundTrip(
+        "var o = {a: 1, 'quoted': 2, 3: 4, get x() { return 1; }, set x(v) {}};");
+  }
+
+  public void testEs6() throws Exception {
+    testRoundTrip(
+        "class C extends D { constructor() { super(); } static m() {} *g() { yield* 1; } }",
+        "let [a, ...b] = c; const {d, e: f = 1} = g;",
+        "var h = (x, y = 2, ...z) => x + y;",
+        "var t = tag`a${b}c\\u0041`;",
+        "var o = {[k]: 1, [m]() {}};");
+  }
+
+  public void testDirectives() throws Exception {
+    testRoundTrip("'use strict'; function f() { 'use strict'; return this; }");
+  }
+
+  public void testJsDoc() throws Exception {
+    Node root = testRoundTrip(
+        "/** @const {number} */ var a = 1;",
+        "/**",
+        " * @param {string} x",
+        " * @return {!Array<?Object>}",
+        " * @constructor @struct",
+        " */",
+        "function F(x) {}",
+        "/** @type {function(new:F, ...number): void} */ var g;");
+    Node var = root.getFirstChild();
+    assertTrue(var.getJSDocInfo().isConstant());
+  }
+
+  public void testStrings() throws Exception {
+    testRoundTrip(
+        "var a = 'caf\\u00e9', b = '\\ud800', c = '\\u2028\\0', d = '', e = 'caf\\u00e9';");
+  }
+
+  public void testNumbers() throws Exception {
+    testRoundTrip(
+        "var a = [0, 1, -1, 127, 128, 65536, 2147483647, 2147483648, -2147483649,",
+        "    0.5, 1e300, 5e-324, 0x1f, Infinity, NaN];");
+
+    Node negativeZero = Node.newNumber(-0.0);
+    Node result = roundTrip(negativeZero, null);
+    assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(result.getDouble()));
+
+    Node nan = Node.newNumber(Double.NaN);
+    assertTrue(Double.isNaN(roundTrip(nan, null).getDouble()));
+  }
+
+  public void testSourcePositions() throws Exception {
+    Node root = testRoundTrip(
+        "var a =",
+        "    1;",
+        "",
+        "",
+        "function f() { return a; }");
+    Node f = root.getLastChild();
+    assertEquals(5, f.getLineno());
+    assertEquals(0, f.getCharno());
+    assertEquals(26, f.getLength());
+  }
+
+  public void testNodesWithoutPositions() throws Exception {
+    Node n = IR.block(IR.exprResult(IR.name("a")));
+    n.getFirstChild().setLineno(3);
+    Node result = roundTrip(n, null);
+    assertEquals(-1, result.getSourcePosition());
+    assertEquals(3, result.getFirstChild().getLineno());
+    assertEquals(-1, result.getFirstFirstChild().getSourcePosition());
+  }
+
+  public void testReadBackForAnotherFile() throws Exception {
+    SourceFile original = SourceFile.fromCode("a.js", "var x = 1;");
+    Node root = parse(original);
+
+    SourceFile other = SourceFile.fromCode("b.js", "var x = 1;");
+    Node result = read(write(root, original), other);
+    assertTrue(result.isEquivalentTo(root));
+    assertSame(other, result.getStaticSourceFile());
+    assertSame(other, result.getFirstFirstChild().getFirstChild().getStaticSourceFile());
+  }
+
+  public void testOtherSourceFilesAreKept() throws Exception {
+    SourceFile file = SourceFile.fromCode("a.js", "");
+    Node n = IR.exprResult(IR.name("a"));
+    n.setStaticSourceFile(file);
+    n.getFirstChild().setStaticSourceFile(SourceFile.fromCode("other.js", ""));
+
+    Node result = roundTrip(n, file);
+    assertSame(file, result.getStaticSourceFile());
+    assertEquals("other.js", result.getFirstChild().getSourceFileName());
+  }
+
+  public void testSharedJsDocIsInterned() throws Exception {
+    JSDocInfoBuilder builder = new JSDocInfoBuilder(false);
+    builder.recordConstancy();
+    JSDocInfo info = builder.build();
+    Node n = IR.block(IR.exprResult(IR.name("a")), IR.exprResult(IR.name("b")));
+    n.getFirstChild().setJSDocInfo(info);
+    n.getLastChild().setJSDocInfo(info);
+
+    Node result = roundTrip(n, null);
+    assertTrue(result.getFirstChild().getJSDocInfo().isConstant());
+    assertSame(result.getFirstChild().getJSDocInfo(), result.getLastChild().getJSDocInfo());
+  }
+
+  public void testTypeDeclarationNodes() throws Exception {
+    TypeDeclarationNode union = new TypeDeclarationNode(Token.UNION_TYPE,
+        new TypeDeclarationNode(Token.STRING_TYPE),
+        new TypeDeclarationNode(Token.NAMED_TYPE, IR.name("Foo")));
+    Node name = IR.name("x");
+    name.setDeclaredTypeExpression(union);
+    Node recordType = new TypeDeclarationNode(Token.RECORD_TYPE, "key");
+
+    Node result = roundTrip(new Node(Token.BLOCK, IR.var(name), recordType), null);
+    Node resultName = result.getFirstFirstChild();
+    TypeDeclarationNode resultUnion = resultName.getDeclaredTypeExpression();
+    assertNotNull(resultUnion);
+    assertTrue(resultUnion.isEquivalentTo(union));
+    assertEquals("key", result.getLastChild().getString());
+  }
+
+  public void testValuesAfterNodes() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryNodeWriter writer = new BinaryNodeWriter(bytes, null);
+    writer.writeNode(IR.name("a"));
+    writer.writeString("a");
+    writer.writeString(null);
+    writer.writeInt(Integer.MIN_VALUE);
+    writer.writeInt(-1);
+    writer.writeObject(LanguageMode.ECMASCRIPT_2015);
+    writer.writeObject(null);
+    writer.flush();
+
+    BinaryNodeReader reader =
+        new BinaryNodeReader(new ByteArrayInputStream(bytes.toByteArray()), null);
+    assertEquals("a", reader.readNode().getString());
+    assertEquals("a", reader.readString());
+    assertNull(reader.readString());
+    assertEquals(Integer.MIN_VALUE, reader.readInt());
+    assertEquals(-1, reader.readInt());
+    assertEquals(LanguageMode.ECMASCRIPT_2015, reader.readObject());
+    assertNull(reader.readObject());
+  }
+
+  public void testRejectsOtherStreams() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeInt(42);
+    out.close();
+    try {
+      new BinaryNodeReader(new ByteArrayInputStream(bytes.toByteArray()), null);
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testSmallerThanJavaSerialization() throws Exception {
+    StringBuilder code = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      code.append("/** @param {number} x */ function f").append(i)
+          .append("(x) { return x + ").append(i).append(" * 'abc'.length; }\n");
+    }
+    SourceFile file = SourceFile.fromCode("a.js", code.toString());
+    Node root = parse(file);
+
+    ByteArrayOutputStream javaBytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(javaBytes);
+    out.writeObject(root);
+    out.close();
+
+    assertThat(write(root, file).length).isLessThan(javaBytes.size() / 3);
+  }
+
+  private static Node testRoundTrip(String... lines) throws Exception {
+    StringBuilder code = new StringBuilder();
+    for (String line : lines) {
+      code.append(line).append('\n');
+    }
+    SourceFile file = SourceFile.fromCode("test.js", code.toString());
+    Node root = parse(file);
+    Node result = roundTrip(root, file);
+    assertTreesEqual(root, result);
+    return result;
+  }
+
+  private static Node parse(SourceFile file) {
+    Compiler compiler = new Compiler();
+    CompilerOptions options = new CompilerOptions();
+    options.setLanguageIn(LanguageMode.ECMASCRIPT_NEXT);
+    compiler.initOptions(options);
+    Node root = compiler.parse(file);
+    assertThat(compiler.getErrors()).isEmpty();
+    return root;
+  }
+
+  private static Node roundTrip(Node n, StaticSourceFile file) throws IOException {
+    return read(write(n, file), file);
+  }
+
+  private static byte[] write(Node n, StaticSourceFile file) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryNodeWriter writer = new BinaryNodeWriter(bytes, file);
+    writer.writeNode(n);
+    writer.flush();
+    return bytes.toByteArray();
+  }
+
+  private static Node read(byte[] bytes, StaticSourceFile file) throws IOException {
+    return new BinaryNodeReader(new ByteArrayInputStream(bytes), file).readNode();
+  }
+
+  private static void assertTreesEqual(Node expected, Node actual) {
+    assertTrue(expected.isEquivalentTo(actual, false, true, true, true));
+    assertNodesEqual(expected, actual);
+  }
+
+  private static void assertNodesEqual(Node expected, Node actual) {
+    assertEquals(expected.toString(true, true, false), actual.toString(true, true, false));
+    assertEquals(expected.getSourcePosition(), actual.getSourcePosition());
+    assertEquals(expected.getLength(), actual.getLength());
+    assertSame(expected.getStaticSourceFile(), actual.getStaticSourceFile());
+    assertTrue(JSDocInfo.areEquivalent(expected.getJSDocInfo(), actual.getJSDocInfo()));
+    assertEquals(expected.getChildCount(), actual.getChildCount());
+    for (Node e = expected.getFirstChild(), a = actual.getFirstChild();
+        e != null;
+        e = e.getNext(), a = a.getNext()) {
+      assertNodesEqual(e, a);
+    }
+  }
+}